@@ -0,0 +1,86 @@
+package com.superstore.benchmarks;
+
+import com.superstore.core.SuperstoreSystem;
+import com.superstore.user.StoreAdministrator;
+import com.superstore.user.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logins through SuperstoreSystem.authenticateUser, including the event log write of a
+ * successful login, with a directory of the given number of users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+    private static final int LOGINS = 1_024;
+
+    @Param({"1000", "100000"})
+    public int users;
+
+    private SystemFixture fixture;
+    private SuperstoreSystem system;
+    private String[] usernames;
+    private String[] passwords;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        fixture = SystemFixture.start(0);
+        system = fixture.system();
+        String storeId = fixture.storeIds().get(0);
+        for (int i = 0; i < users; i++) {
+            system.createUser(new StoreAdministrator("U" + i, "user" + i, "secret" + i, storeId));
+        }
+        system.flush();
+        usernames = new String[LOGINS];
+        passwords = new String[LOGINS];
+        for (int i = 0; i < LOGINS; i++) {
+            int user = (int) ((long) i * users / LOGINS);
+            usernames[i] = "user" + user;
+            passwords[i] = "secret" + user;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fixture.stop();
+    }
+
+    @Benchmark
+    public User authenticate() {
+        int i = next++ & (LOGINS - 1);
+        return system.authenticateUser(usernames[i], passwords[i]);
+    }
+
+    @Benchmark
+    public User authenticateWrongPassword() {
+        return system.authenticateUser(usernames[next++ & (LOGINS - 1)], "wrong");
+    }
+
+    // Concurrent logins contend on the user directory
+    @Benchmark
+    @Threads(4)
+    public User authenticateContended() {
+        return system.authenticateUser("user0", "secret0");
+    }
+}
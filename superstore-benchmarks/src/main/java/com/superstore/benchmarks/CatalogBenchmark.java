@@ -0,0 +1,106 @@
+package com.superstore.benchmarks;
+
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths of the in-memory catalog: item lookup by code, the out-of-stock and reorder
+ * lists, and the per-subcategory search and sort behind the dashboards' tables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CatalogBenchmark {
+
+    private static final int LOOKUP_KEYS = 4_096;
+
+    @Param({"10000", "100000", "1000000"})
+    public int items;
+
+    private Store store;
+    private Warehouse warehouse;
+    private Subcategory subcategory;
+    private String[] codes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        store = CatalogFixtures.store("S001", items);
+        warehouse = CatalogFixtures.warehouse("W001", items);
+        subcategory = store.getSubcategoryOf(CatalogFixtures.itemCode(0));
+        Random random = new Random(CatalogFixtures.SEED);
+        codes = new String[LOOKUP_KEYS];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = CatalogFixtures.itemCode(random.nextInt(items));
+        }
+        // Builds the out-of-stock and reorder indexes before measuring
+        store.getOutOfStockItems();
+        warehouse.getItemsNeedingReorder();
+    }
+
+    @Benchmark
+    public Item storeGetItem() {
+        return store.getItem(codes[next++ & (LOOKUP_KEYS - 1)]);
+    }
+
+    @Benchmark
+    public Item storeGetItemMissing() {
+        return store.getItem("MISSING");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Item> storeGetOutOfStockItems() {
+        return store.getOutOfStockItems();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Item> warehouseGetItemsNeedingReorder() {
+        return warehouse.getItemsNeedingReorder();
+    }
+
+    // One subcategory of ITEMS_PER_SUBCATEGORY items, whatever the catalog size
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Item> subcategorySearchItems() {
+        return subcategory.searchItems("rice");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Item> subcategoryGetItemsSorted() {
+        return subcategory.getItemsSorted();
+    }
+
+    // Substring search over every subcategory, what the end-user Search button did before
+    // the store had a search index
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int storeSearchAllSubcategories() {
+        int[] found = new int[1];
+        store.forEachCategory(category -> category.forEachSubcategory(
+                s -> found[0] += s.searchItems("rice").size()));
+        return found[0];
+    }
+}
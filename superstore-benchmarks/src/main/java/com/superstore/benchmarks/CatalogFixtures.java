@@ -0,0 +1,109 @@
+package com.superstore.benchmarks;
+
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Builds synthetic catalogs for the benchmarks. The same seed always gives the same
+ * catalog, so runs before and after a change measure identical data.
+ *
+ * Items are spread over categories of {@value #SUBCATEGORIES_PER_CATEGORY} subcategories
+ * holding {@value #ITEMS_PER_SUBCATEGORY} items each. About 5% of the items are out of
+ * stock and about 20% are at or below their reorder point; every item has cost and usage
+ * data, so EOQ and reorder points are defined.
+ */
+public final class CatalogFixtures {
+
+    public static final int ITEMS_PER_SUBCATEGORY = 1_000;
+    public static final int SUBCATEGORIES_PER_CATEGORY = 10;
+    public static final long SEED = 42;
+
+    private static final String[] ADJECTIVES = {
+            "Organic", "Fresh", "Frozen", "Premium", "Classic", "Spicy", "Sweet", "Whole",
+            "Light", "Smoked", "Roasted", "Dried", "Salted", "Golden", "Wild", "Extra"
+    };
+    private static final String[] NOUNS = {
+            "Rice", "Beans", "Coffee", "Tea", "Pasta", "Flour", "Sugar", "Honey", "Butter",
+            "Cheese", "Yogurt", "Milk", "Bread", "Apples", "Oranges", "Salmon", "Chicken",
+            "Almonds", "Oats", "Lentils", "Olives", "Tomatoes", "Peppers", "Noodles"
+    };
+
+    private CatalogFixtures() {
+    }
+
+    public static Store store(String storeId, int itemCount) {
+        Store store = new Store(storeId, "Store " + storeId);
+        categories(itemCount, new Random(SEED)).forEach(store::addCategory);
+        return store;
+    }
+
+    public static Warehouse warehouse(String warehouseId, int itemCount) {
+        Warehouse warehouse = new Warehouse(warehouseId, "Warehouse " + warehouseId);
+        categories(itemCount, new Random(SEED)).forEach(warehouse::addCategory);
+        return warehouse;
+    }
+
+    // Adds the categories to an existing facility, e.g. one created through SuperstoreSystem
+    public static void populate(Consumer<Category> addCategory, int itemCount) {
+        categories(itemCount, new Random(SEED)).forEach(addCategory);
+    }
+
+    public static List<Category> categories(int itemCount, Random random) {
+        List<Category> categories = new ArrayList<>();
+        int perCategory = ITEMS_PER_SUBCATEGORY * SUBCATEGORIES_PER_CATEGORY;
+        for (int c = 0; c * perCategory < itemCount; c++) {
+            String categoryId = String.format("C%04d", c);
+            Category category = new Category(categoryId, "Category " + c);
+            for (int s = 0; s < SUBCATEGORIES_PER_CATEGORY; s++) {
+                int first = c * perCategory + s * ITEMS_PER_SUBCATEGORY;
+                if (first >= itemCount) break;
+                String subcategoryId = String.format("SC%04d-%02d", c, s);
+                Subcategory subcategory = new Subcategory(subcategoryId, "Subcategory " + s, categoryId);
+                int last = Math.min(itemCount, first + ITEMS_PER_SUBCATEGORY);
+                for (int i = first; i < last; i++) {
+                    subcategory.addItem(item(i, subcategoryId, random));
+                }
+                category.addSubcategory(subcategory);
+            }
+            categories.add(category);
+        }
+        return categories;
+    }
+
+    public static String itemCode(int index) {
+        return String.format("I%07d", index);
+    }
+
+    public static Item item(int index, String subcategoryId, Random random) {
+        String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                + NOUNS[random.nextInt(NOUNS.length)] + " " + index;
+        Item item = new Item(itemCode(index), name, subcategoryId);
+        item.setDescription("Synthetic item " + index);
+        item.setFixedCostPerQuarter(50 + random.nextInt(200));
+        item.setCarryingCostPerUnitPerQuarter(1 + random.nextInt(5));
+        item.setDemandUnitsPerQuarter(100 + random.nextInt(2_000));
+        double avgDailyUsage = 1 + random.nextInt(20);
+        item.setAvgDailyUsage(avgDailyUsage);
+        item.setMaxDailyUsage(avgDailyUsage * 1.5);
+        item.setAvgLeadTimeDays(2 + random.nextInt(5));
+        item.setMaxLeadTimeDays(item.getAvgLeadTimeDays() + 3);
+        int roll = random.nextInt(100);
+        int reorderPoint = (int) Math.ceil(item.calculateReorderPoint());
+        if (roll < 5) {
+            item.setCurrentInventoryLevel(0);
+        } else if (roll < 20) {
+            item.setCurrentInventoryLevel(1 + random.nextInt(Math.max(1, reorderPoint)));
+        } else {
+            item.setCurrentInventoryLevel(reorderPoint + 1 + random.nextInt(500));
+        }
+        return item;
+    }
+}
@@ -0,0 +1,394 @@
+package com.superstore.benchmarks;
+
+import com.superstore.core.OrderRouter.DeliveryStatus;
+import com.superstore.core.SuperstoreSystem;
+import com.superstore.domain.ItemLocation.FacilityType;
+import com.superstore.domain.OrderMessage;
+import com.superstore.domain.Store;
+import com.superstore.model.Item;
+import com.superstore.user.Storekeeper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless load generator: starts SuperstoreSystem in a scratch directory with a number of
+ * warehouses and stores, then drives a mix of storekeeper stock movements, store orders,
+ * reorder checks and logins from a pool of worker threads, and reports throughput and
+ * latency percentiles per operation.
+ *
+ * With a target rate the load is open-loop: every worker has a fixed schedule and each
+ * operation's latency is measured from when it was due, not from when the worker got to
+ * it, so a stall shows up in the percentiles instead of silently lowering the offered load.
+ * With --rate=0 the workers run back to back and the report shows the maximum throughput.
+ *
+ * Run with: java -cp target/benchmarks.jar com.superstore.benchmarks.LoadSimulator --help
+ */
+public final class LoadSimulator {
+
+    enum Operation {
+        MOVEMENT,       // storekeeper sale or warehouse receipt through adjustInventory
+        ORDER,          // store order sent with sendOrderMessage, until it is delivered
+        REORDER_CHECK,  // a warehouse's getItemsNeedingReorder
+        REPLENISH,      // a full replenishment scan of one store
+        LOGIN           // authenticateUser of a storekeeper
+    }
+
+    record Config(int warehouses, int stores, int items, int threads, double rate, int durationSeconds,
+                  int warmupSeconds, int reportSeconds, Map<Operation, Integer> mix, long seed) {
+
+        static Config defaults() {
+            Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+            mix.put(Operation.MOVEMENT, 70);
+            mix.put(Operation.ORDER, 15);
+            mix.put(Operation.REORDER_CHECK, 5);
+            mix.put(Operation.REPLENISH, 1);
+            mix.put(Operation.LOGIN, 9);
+            return new Config(4, 16, 10_000, Runtime.getRuntime().availableProcessors() * 2, 2_000, 30, 5, 5,
+                    mix, CatalogFixtures.SEED);
+        }
+    }
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final Config config;
+    private final PrintStream out;
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Operation[] wheel;  // one slot per unit of weight in the mix
+    private volatile boolean recording;
+
+    private SuperstoreSystem system;
+    private List<String> warehouseIds;
+    private List<String> storeIds;
+    private final List<Store> stores = new ArrayList<>();
+
+    LoadSimulator(Config config, PrintStream out) {
+        this.config = config;
+        this.out = out;
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS));
+            errors.put(operation, new LongAdder());
+        }
+        int total = config.mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (total <= 0) throw new IllegalArgumentException("The operation mix is empty");
+        wheel = new Operation[total];
+        int slot = 0;
+        for (Map.Entry<Operation, Integer> entry : config.mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                wheel[slot++] = entry.getKey();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config;
+        try {
+            config = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage(System.err);
+            System.exit(2);
+            return;
+        }
+        if (config == null) {
+            printUsage(System.out);
+            return;
+        }
+        new LoadSimulator(config, System.out).run();
+        System.exit(0);  // do not wait for any background thread the system left running
+    }
+
+    // Returns the summary per operation
+    Map<Operation, Histogram> run() throws IOException, InterruptedException {
+        out.printf("Setting up %d warehouses and %d stores with %,d items each%n",
+                config.warehouses, config.stores, config.items);
+        long setupStart = System.nanoTime();
+        SystemFixture fixture = SystemFixture.start(config.warehouses, config.stores, config.items);
+        try {
+            system = fixture.system();
+            warehouseIds = fixture.warehouseIds();
+            storeIds = fixture.storeIds();
+            for (String storeId : storeIds) {
+                stores.add(system.getStore(storeId));
+                system.createUser(new Storekeeper("SK-" + storeId, "keeper-" + storeId, "pw-" + storeId, storeId));
+            }
+            system.flush();
+            out.printf("Setup took %.1f s%n", (System.nanoTime() - setupStart) / 1e9);
+            return drive();
+        } finally {
+            fixture.stop();
+        }
+    }
+
+    private Map<Operation, Histogram> drive() throws InterruptedException {
+        out.printf("Running %s for %d s after %d s warm-up on %d threads, mix %s%n",
+                config.rate > 0 ? String.format("%,.0f ops/s", config.rate) : "at full speed",
+                config.durationSeconds, config.warmupSeconds, config.threads, config.mix);
+        ExecutorService workers = Executors.newFixedThreadPool(config.threads, r -> {
+            Thread thread = new Thread(r, "load-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        long measureStart = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+        long end = measureStart + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < config.threads; i++) {
+            SplittableRandom random = new SplittableRandom(config.seed + i);
+            long offset = config.rate > 0 ? (long) (i * 1e9 / config.rate) : 0;
+            running.add(workers.submit(() -> work(random, start + offset, end)));
+        }
+
+        Map<Operation, Histogram> totals = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            totals.put(operation, new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS));
+        }
+        sleepUntil(measureStart);
+        recorders.values().forEach(recorder -> recorder.getIntervalHistogram());  // drop the warm-up
+        recording = true;
+        long intervalStart = System.nanoTime();
+        long elapsedSeconds = 0;
+        while (System.nanoTime() < end) {
+            long next = Math.min(end, intervalStart + TimeUnit.SECONDS.toNanos(config.reportSeconds));
+            sleepUntil(next);
+            long now = System.nanoTime();
+            elapsedSeconds += Math.round((now - intervalStart) / 1e9);
+            reportInterval(elapsedSeconds, now - intervalStart, totals);
+            intervalStart = now;
+        }
+        workers.shutdown();
+        for (Future<?> worker : running) {
+            try {
+                worker.get();
+            } catch (Exception e) {
+                out.println("Worker failed: " + e);
+            }
+        }
+        recording = false;
+        // Operations that finished after the end of the run still belong to it
+        recorders.forEach((operation, recorder) -> totals.get(operation).add(recorder.getIntervalHistogram()));
+        system.flush();
+        report(totals, end - measureStart);
+        return totals;
+    }
+
+    private void work(SplittableRandom random, long firstDue, long end) {
+        long interval = config.rate > 0 ? (long) (1e9 * config.threads / config.rate) : 0;
+        long due = firstDue;
+        while (true) {
+            long started;
+            if (interval > 0) {
+                if (due >= end) return;
+                sleepUntil(due);
+                started = due;
+                due += interval;
+            } else {
+                started = System.nanoTime();
+                if (started >= end) return;
+            }
+            Operation operation = wheel[random.nextInt(wheel.length)];
+            boolean ok;
+            try {
+                ok = execute(operation, random);
+            } catch (RuntimeException e) {
+                ok = false;
+            }
+            long latency = System.nanoTime() - started;
+            if (recording) {
+                recorders.get(operation).recordValue(Math.min(latency, HIGHEST_TRACKABLE_NANOS));
+                if (!ok) errors.get(operation).increment();
+            }
+        }
+    }
+
+    private boolean execute(Operation operation, SplittableRandom random) {
+        String itemCode = CatalogFixtures.itemCode(random.nextInt(config.items));
+        switch (operation) {
+            case MOVEMENT -> {
+                // Stores sell a few units, warehouses take in deliveries
+                int facility = random.nextInt(storeIds.size() + warehouseIds.size());
+                if (facility < storeIds.size()) {
+                    Store store = stores.get(facility);
+                    Item item = store.getItem(itemCode);
+                    if (item == null) return false;
+                    system.adjustInventory(FacilityType.STORE, store.getStoreId(), item, -1 - random.nextInt(5));
+                } else {
+                    String warehouseId = warehouseIds.get(facility - storeIds.size());
+                    Item item = system.getWarehouse(warehouseId).getItem(itemCode);
+                    if (item == null) return false;
+                    system.adjustInventory(FacilityType.WAREHOUSE, warehouseId, item, 10 + random.nextInt(50));
+                }
+                return true;
+            }
+            case ORDER -> {
+                Store store = stores.get(random.nextInt(stores.size()));
+                Item item = store.getItem(itemCode);
+                if (item == null) return false;
+                OrderMessage order = new OrderMessage(system.newId("ORD"), store.getStoreId(),
+                        store.getLinkedWarehouseId(), item.getItemName(), itemCode, 1 + random.nextInt(50),
+                        LocalDate.now().plusDays(3));
+                return system.sendOrderMessage(order).join() == DeliveryStatus.DELIVERED;
+            }
+            case REORDER_CHECK -> {
+                system.getItemsNeedingReorder(warehouseIds.get(random.nextInt(warehouseIds.size())));
+                return true;
+            }
+            case REPLENISH -> {
+                return system.replenishStore(storeIds.get(random.nextInt(storeIds.size()))) != null;
+            }
+            case LOGIN -> {
+                String storeId = storeIds.get(random.nextInt(storeIds.size()));
+                return system.authenticateUser("keeper-" + storeId, "pw-" + storeId) != null;
+            }
+            default -> throw new IllegalStateException("Unknown operation " + operation);
+        }
+    }
+
+    private void reportInterval(long elapsedSeconds, long intervalNanos, Map<Operation, Histogram> totals) {
+        long count = 0;
+        long p99 = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram interval = recorders.get(operation).getIntervalHistogram();
+            totals.get(operation).add(interval);
+            count += interval.getTotalCount();
+            p99 = Math.max(p99, interval.getValueAtPercentile(99));
+        }
+        out.printf("[%4d s] %,10.0f ops/s   worst p99 %,10.3f ms%n", elapsedSeconds,
+                count * 1e9 / intervalNanos, p99 / 1e6);
+    }
+
+    private void report(Map<Operation, Histogram> totals, long measuredNanos) {
+        double seconds = measuredNanos / 1e9;
+        out.println();
+        out.printf("%-14s %10s %8s %10s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        long total = 0;
+        long errorCount = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram h = totals.get(operation);
+            if (h.getTotalCount() == 0) continue;
+            total += h.getTotalCount();
+            errorCount += errors.get(operation).sum();
+            out.printf("%-14s %,10d %,8d %,10.0f %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                    operation.name().toLowerCase(), h.getTotalCount(), errors.get(operation).sum(),
+                    h.getTotalCount() / seconds, millis(h, 50), millis(h, 90), millis(h, 99), millis(h, 99.9),
+                    h.getMaxValue() / 1e6);
+        }
+        out.printf("%-14s %,10d %,8d %,10.0f%n", "total", total, errorCount, total / seconds);
+        out.println("Order router: " + system.getOrderRouterStats());
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    // Returns null if help was asked for
+    static Config parse(String[] args) {
+        Config defaults = Config.defaults();
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.equals("--help") || arg.equals("-h")) return null;
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --option=value but got " + arg);
+            }
+            int split = arg.indexOf('=');
+            options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        Config config = new Config(
+                intOption(options, "warehouses", defaults.warehouses, 1),
+                intOption(options, "stores", defaults.stores, 1),
+                intOption(options, "items", defaults.items, 1),
+                intOption(options, "threads", defaults.threads, 1),
+                doubleOption(options, "rate", defaults.rate),
+                intOption(options, "duration", defaults.durationSeconds, 1),
+                intOption(options, "warmup", defaults.warmupSeconds, 0),
+                intOption(options, "report", defaults.reportSeconds, 1),
+                options.containsKey("mix") ? parseMix(options.remove("mix")) : defaults.mix,
+                options.containsKey("seed") ? Long.parseLong(options.remove("seed")) : defaults.seed);
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown option --" + options.keySet().iterator().next());
+        }
+        return config;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue, int min) {
+        String value = options.remove(name);
+        if (value == null) return defaultValue;
+        try {
+            int parsed = Integer.parseInt(value.replace("_", ""));
+            if (parsed < min) throw new IllegalArgumentException("--" + name + " must be at least " + min);
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " is not a number: " + value);
+        }
+    }
+
+    private static double doubleOption(Map<String, String> options, String name, double defaultValue) {
+        String value = options.remove(name);
+        if (value == null) return defaultValue;
+        try {
+            return Math.max(0, Double.parseDouble(value.replace("_", "")));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " is not a number: " + value);
+        }
+    }
+
+    // e.g. movement=70,order=15,login=15; operations left out are not run
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] pair = part.split("=");
+            if (pair.length != 2) throw new IllegalArgumentException("Bad --mix entry: " + part);
+            try {
+                Operation operation = Operation.valueOf(pair[0].trim().toUpperCase().replace('-', '_'));
+                mix.put(operation, Math.max(0, Integer.parseInt(pair[1].trim())));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Bad --mix entry: " + part);
+            }
+        }
+        return mix;
+    }
+
+    private static void printUsage(PrintStream out) {
+        Config d = Config.defaults();
+        out.println("Usage: java -cp benchmarks.jar com.superstore.benchmarks.LoadSimulator [--option=value ...]");
+        out.println("  --warehouses=N   warehouses to create (" + d.warehouses + ")");
+        out.println("  --stores=N       stores to create, linked round-robin to the warehouses (" + d.stores + ")");
+        out.println("  --items=N        catalog items in every warehouse and store (" + d.items + ")");
+        out.println("  --threads=N      worker threads (" + d.threads + ")");
+        out.println("  --rate=OPS       target operations per second over all threads, 0 = full speed ("
+                + (long) d.rate + ")");
+        out.println("  --duration=S     measured seconds (" + d.durationSeconds + ")");
+        out.println("  --warmup=S       seconds run before measuring (" + d.warmupSeconds + ")");
+        out.println("  --report=S       seconds between progress lines (" + d.reportSeconds + ")");
+        out.println("  --mix=LIST       relative weights, e.g. movement=70,order=15,reorder_check=5,"
+                + "replenish=1,login=9");
+        out.println("  --seed=N         random seed (" + d.seed + ")");
+    }
+}
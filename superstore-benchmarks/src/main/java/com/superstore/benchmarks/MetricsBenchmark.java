@@ -0,0 +1,62 @@
+package com.superstore.benchmarks;
+
+import com.superstore.metrics.LatencyHistogram;
+import com.superstore.metrics.Metrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording one event in the metrics registry: a counter increment, a histogram
+ * record of a known value, and a timed call with and without sampling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private final Metrics metrics = new Metrics();
+    private final Metrics.Counter counter = metrics.counter("bench_total", "");
+    private final LatencyHistogram histogram = metrics.histogram("bench_seconds", "");
+    private final LatencyHistogram sampled = metrics.histogram("bench_sampled_seconds", "", 64);
+    private long value = 1;
+
+    @Benchmark
+    public void counterIncrement() {
+        counter.increment();
+    }
+
+    @Benchmark
+    public void histogramRecord() {
+        histogram.record(value++ & 0xFFFFF);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void histogramRecordContended() {
+        histogram.record(12_345);
+    }
+
+    // Two System.nanoTime calls plus the record
+    @Benchmark
+    public void timedCall() {
+        histogram.stop(histogram.start());
+    }
+
+    @Benchmark
+    public void timedCallSampled() {
+        sampled.stop(sampled.start());
+    }
+}
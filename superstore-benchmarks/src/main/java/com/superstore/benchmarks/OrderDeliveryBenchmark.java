@@ -0,0 +1,104 @@
+package com.superstore.benchmarks;
+
+import com.superstore.core.OrderRouter;
+import com.superstore.core.OrderRouter.DeliveryStatus;
+import com.superstore.domain.OrderMessage;
+import com.superstore.domain.Warehouse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order messages routed to warehouse inboxes through an OrderRouter configured like
+ * SuperstoreSystem's. Each warehouse takes the message into its inbox and marks it
+ * processed, and the processed messages are drained after every batch, as archiving
+ * does, so the inboxes stay small. Journaling is left out; it is measured with the
+ * persistence benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderDeliveryBenchmark {
+
+    private static final int BATCH = 1_024;
+
+    @Param({"1", "8"})
+    public int warehouses;
+
+    private final Map<String, Warehouse> targets = new HashMap<>();
+    private String[] warehouseIds;
+    private OrderRouter router;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        warehouseIds = new String[warehouses];
+        for (int i = 0; i < warehouses; i++) {
+            warehouseIds[i] = String.format("W%03d", i);
+            targets.put(warehouseIds[i], new Warehouse(warehouseIds[i], "Warehouse " + i));
+        }
+        router = new OrderRouter(targets::containsKey, this::deliver, 8192,
+                Math.min(4, Runtime.getRuntime().availableProcessors()),
+                letter -> { }, Throwable::printStackTrace);
+    }
+
+    private DeliveryStatus deliver(OrderMessage message) {
+        Warehouse warehouse = targets.get(message.getToWarehouseId());
+        if (!warehouse.receiveMessage(message)) return DeliveryStatus.DUPLICATE;
+        warehouse.markMessageProcessed(message.getMessageId());
+        return DeliveryStatus.DELIVERED;
+    }
+
+    @TearDown
+    public void tearDown() {
+        router.close();
+    }
+
+    // Sends a batch and waits for every message to be delivered
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public DeliveryStatus sendBatch() {
+        CompletableFuture<?>[] acks = new CompletableFuture<?>[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            String warehouseId = warehouseIds[i % warehouses];
+            acks[i] = router.send(new OrderMessage("M" + sequence++, "S001", warehouseId, "Rice",
+                    "I0000001", 5, null));
+        }
+        CompletableFuture.allOf(acks).join();
+        for (Warehouse warehouse : targets.values()) {
+            warehouse.drainProcessedMessages();
+        }
+        return (DeliveryStatus) acks[BATCH - 1].join();
+    }
+
+    // One message, sender waits for its delivery: the round-trip latency
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public DeliveryStatus sendAndAwait() {
+        DeliveryStatus status = router.send(new OrderMessage("M" + sequence++, "S001", warehouseIds[0],
+                "Rice", "I0000001", 5, null)).join();
+        if ((sequence & (BATCH - 1)) == 0) {
+            targets.get(warehouseIds[0]).drainProcessedMessages();
+        }
+        return status;
+    }
+}
@@ -0,0 +1,69 @@
+package com.superstore.benchmarks;
+
+import com.superstore.core.SuperstoreSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full snapshot writes and startup loads. The store and its warehouse each hold the
+ * given number of items, so a snapshot covers twice that many. Loading only decodes the
+ * snapshot; items stay in the mapped catalog until a subcategory is opened.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class PersistenceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int items;
+
+    private SystemFixture fixture;
+    private SuperstoreSystem system;
+
+    @Setup
+    public void setUp() throws IOException {
+        fixture = SystemFixture.start(items);
+        system = fixture.system();
+        system.saveData();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fixture.stop();
+    }
+
+    // Each load maps the snapshot and catalog again; the old mappings are only released
+    // when their buffers are collected, so collect between iterations to stay under the
+    // process's mapping limit
+    @TearDown(Level.Iteration)
+    public void releaseMappings() {
+        System.gc();
+    }
+
+    @Benchmark
+    public void saveData() {
+        system.saveData();
+    }
+
+    @Benchmark
+    public void loadData() {
+        system.loadData();
+    }
+}
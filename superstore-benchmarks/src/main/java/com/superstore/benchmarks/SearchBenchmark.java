@@ -0,0 +1,53 @@
+package com.superstore.benchmarks;
+
+import com.superstore.domain.Store;
+import com.superstore.model.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-text search over a whole store, one page of results per query. The queries cover
+ * a word in one item name in 24, a word in every description, two words, a prefix, a
+ * typo, and a number held by a single item.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SearchBenchmark {
+
+    private static final int PAGE = 50;
+
+    @Param({"10000", "100000", "1000000"})
+    public int items;
+
+    @Param({"rice", "synthetic", "organic rice", "ric", "cofee", "item 4711"})
+    public String query;
+
+    private Store store;
+
+    @Setup
+    public void setUp() {
+        store = CatalogFixtures.store("S001", items);
+        store.searchItems(query, PAGE);  // builds the index before measuring
+    }
+
+    @Benchmark
+    public List<Item> storeSearchItems() {
+        return store.searchItems(query, PAGE);
+    }
+}
@@ -0,0 +1,87 @@
+package com.superstore.benchmarks;
+
+import com.superstore.core.SuperstoreSystem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Starts the SuperstoreSystem singleton in a scratch data directory holding warehouses
+ * W001.. and stores S001.., each with the same synthetic catalog; store i is linked to
+ * warehouse i modulo the number of warehouses. The singleton can only be started once per
+ * JVM; JMH runs each benchmark and parameter combination in its own forked JVM, so every
+ * fork gets a fresh system.
+ */
+final class SystemFixture {
+
+    private final Path dataDir;
+    private final SuperstoreSystem system;
+    private final List<String> warehouseIds;
+    private final List<String> storeIds;
+
+    private SystemFixture(Path dataDir, SuperstoreSystem system, List<String> warehouseIds,
+                          List<String> storeIds) {
+        this.dataDir = dataDir;
+        this.system = system;
+        this.warehouseIds = warehouseIds;
+        this.storeIds = storeIds;
+    }
+
+    static SystemFixture start(int items) throws IOException {
+        return start(1, 1, items);
+    }
+
+    // Must run before anything else touches SuperstoreSystem, which reads these properties once
+    static SystemFixture start(int warehouses, int stores, int items) throws IOException {
+        Path dataDir = Files.createTempDirectory("superstore-bench");
+        System.setProperty("superstore.dataDir", dataDir.toString());
+        System.setProperty("superstore.replenishSeconds", "86400");  // keep background scans out
+        SuperstoreSystem system = SuperstoreSystem.getInstance();
+        List<String> warehouseIds = new ArrayList<>();
+        for (int i = 1; i <= warehouses; i++) {
+            String warehouseId = String.format("W%03d", i);
+            system.createWarehouse(warehouseId, "Warehouse " + warehouseId);
+            if (items > 0) {
+                CatalogFixtures.populate(system.getWarehouse(warehouseId)::addCategory, items);
+            }
+            warehouseIds.add(warehouseId);
+        }
+        List<String> storeIds = new ArrayList<>();
+        for (int i = 1; i <= stores; i++) {
+            String storeId = String.format("S%03d", i);
+            system.createStore(storeId, "Store " + storeId, warehouseIds.get((i - 1) % warehouses));
+            if (items > 0) {
+                CatalogFixtures.populate(system.getStore(storeId)::addCategory, items);
+            }
+            storeIds.add(storeId);
+        }
+        system.flush();
+        return new SystemFixture(dataDir, system, warehouseIds, storeIds);
+    }
+
+    SuperstoreSystem system() {
+        return system;
+    }
+
+    List<String> warehouseIds() {
+        return warehouseIds;
+    }
+
+    List<String> storeIds() {
+        return storeIds;
+    }
+
+    void stop() throws IOException {
+        system.shutdown();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.superstore.core;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous log file writer. Callers only claim a slot in a bounded lock-free ring
+ * buffer; a single background thread formats the events, batches them into a reused
+ * direct buffer and writes them through a FileChannel. When the ring is full the event
+ * is dropped and counted, and the writer notes the number of dropped events in the log.
+ * The file is rotated to file.1 .. file.N once it would grow past the size limit.
+ */
+public class EventLogger implements AutoCloseable {
+
+    public enum FlushPolicy {
+        BATCH,      // write out every batch the writer drains
+        INTERVAL,   // write when the buffer fills or once per flush interval
+        SYNC        // like BATCH, and force the file to disk after each write
+    }
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path file;
+    private final FlushPolicy flushPolicy;
+    private final long flushIntervalNanos;
+    private final long maxFileBytes;
+    private final int maxBackups;
+    private final Ring ring;
+    private final AtomicLong dropped = new AtomicLong();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder line = new StringBuilder(256);
+    private final Thread writer;
+
+    // Writer thread state
+    private FileChannel channel;
+    private long fileSize;
+    private long reportedDrops;
+    private long lastWriteNanos;
+    private long pendingEvents;
+
+    private volatile boolean writerParked;
+    private volatile boolean flushRequested;
+    private volatile boolean closed;
+    // Number of events taken off the ring and written to the channel
+    private final AtomicLong written = new AtomicLong();
+
+    public EventLogger(Path file) {
+        this(file, 8192, FlushPolicy.INTERVAL, 200, 10L * 1024 * 1024, 5);
+    }
+
+    public EventLogger(Path file, int capacity, FlushPolicy flushPolicy, long flushIntervalMillis,
+                       long maxFileBytes, int maxBackups) {
+        this.file = file;
+        this.flushPolicy = flushPolicy;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        this.maxFileBytes = maxFileBytes;
+        this.maxBackups = maxBackups;
+        this.ring = new Ring(capacity);
+        this.writer = new Thread(this::run, "event-logger");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void log(String event) {
+        enqueue(event, null);
+    }
+
+    public void log(String event, Throwable error) {
+        enqueue(event, error);
+    }
+
+    private void enqueue(String event, Throwable error) {
+        if (closed || !ring.offer(System.currentTimeMillis(), event, error)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // Blocks until every event logged before the call is written to the file
+    public void flush() {
+        long target = ring.claimed();
+        while (written.get() < target && writer.isAlive()) {
+            flushRequested = true;
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---- writer thread ----
+
+    private void run() {
+        lastWriteNanos = System.nanoTime();
+        try {
+            while (true) {
+                boolean stopping = closed;
+                boolean flushing = flushRequested;
+                int drained = drain();
+                if (buffer.position() > 0 && (flushPolicy != FlushPolicy.INTERVAL || stopping || flushing
+                        || System.nanoTime() - lastWriteNanos >= flushIntervalNanos)) {
+                    writeBuffer();
+                }
+                if (flushing && drained == 0) {
+                    flushRequested = false;
+                }
+                if (stopping && ring.isEmpty()) break;
+                if (drained == 0) {
+                    writerParked = true;
+                    if (ring.isEmpty() && !closed) {
+                        LockSupport.parkNanos(flushIntervalNanos);
+                    }
+                    writerParked = false;
+                }
+            }
+        } finally {
+            closeChannel();
+        }
+    }
+
+    // Formats every queued event into the buffer; returns how many were taken
+    private int drain() {
+        int count = 0;
+        Ring.Event event = new Ring.Event();
+        while (ring.poll(event)) {
+            count++;
+            long drops = dropped.get();
+            if (drops != reportedDrops) {
+                appendLine(event.time, "Dropped " + (drops - reportedDrops) + " log events", null);
+                reportedDrops = drops;
+            }
+            appendLine(event.time, event.message, event.error);
+            event.clear();
+            if (flushPolicy != FlushPolicy.INTERVAL && count % 1024 == 0) break;
+        }
+        pendingEvents += count;
+        return count;
+    }
+
+    private void appendLine(long time, String message, Throwable error) {
+        line.setLength(0);
+        line.append(LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault()))
+            .append(" - ").append(message).append(System.lineSeparator());
+        if (error != null) {
+            StringWriter trace = new StringWriter();
+            error.printStackTrace(new PrintWriter(trace));
+            line.append(trace);
+        }
+        CharBuffer chars = CharBuffer.wrap(line);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                writeBuffer();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void writeBuffer() {
+        buffer.flip();
+        try {
+            if (channel == null) {
+                openChannel();
+            }
+            if (fileSize > 0 && fileSize + buffer.remaining() > maxFileBytes) {
+                rotate();
+            }
+            while (buffer.hasRemaining()) {
+                fileSize += channel.write(buffer);
+            }
+            if (flushPolicy == FlushPolicy.SYNC) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing to log file: " + e.getMessage());
+            closeChannel();
+        } finally {
+            buffer.clear();
+            lastWriteNanos = System.nanoTime();
+            written.addAndGet(pendingEvents);
+            pendingEvents = 0;
+        }
+    }
+
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        fileSize = channel.size();
+    }
+
+    private void rotate() throws IOException {
+        closeChannel();
+        if (maxBackups > 0) {
+            for (int i = maxBackups - 1; i >= 1; i--) {
+                Path from = backup(i);
+                if (Files.exists(from)) {
+                    Files.move(from, backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(file, backup(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+        openChannel();
+    }
+
+    private Path backup(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing log file: " + e.getMessage());
+        }
+        channel = null;
+    }
+
+    /** Log events in a {@link MpscRing}, one array per field so logging allocates nothing. */
+    static final class Ring {
+        private final MpscRing ring;
+        private final long[] times;
+        private final String[] messages;
+        private final Throwable[] errors;
+
+        static final class Event {
+            long time;
+            String message;
+            Throwable error;
+
+            void clear() {
+                message = null;
+                error = null;
+            }
+        }
+
+        Ring(int capacity) {
+            ring = new MpscRing(capacity);
+            times = new long[ring.size()];
+            messages = new String[ring.size()];
+            errors = new Throwable[ring.size()];
+        }
+
+        boolean offer(long time, String message, Throwable error) {
+            long position = ring.claim();
+            if (position < 0) return false;
+            int index = ring.index(position);
+            times[index] = time;
+            messages[index] = message;
+            errors[index] = error;
+            ring.publish(position);
+            return true;
+        }
+
+        // Consumer thread only
+        boolean poll(Event event) {
+            int index = ring.peek();
+            if (index < 0) return false;
+            event.time = times[index];
+            event.message = messages[index];
+            event.error = errors[index];
+            messages[index] = null;
+            errors[index] = null;
+            ring.release();
+            return true;
+        }
+
+        boolean isEmpty() {
+            return ring.isEmpty();
+        }
+
+        long claimed() {
+            return ring.claimed();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.superstore.core;
+
+import com.superstore.user.User;
+
+/**
+ * An administrator or keeper joined with the facility it is assigned to.
+ * facilityName is null when the facility no longer exists.
+ */
+public record FacilityAssignment(User user, String facilityId, String facilityName) {
+}
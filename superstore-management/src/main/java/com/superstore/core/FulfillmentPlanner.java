@@ -0,0 +1,85 @@
+package com.superstore.core;
+
+import com.superstore.domain.ItemLocation;
+import com.superstore.domain.ItemLocation.FacilityType;
+import com.superstore.domain.OrderMessage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Decides how a warehouse fills an order message. The warehouse ships what it has of the
+ * item; the rest is split across the other warehouses that stock it, largest stock first
+ * so an order is split as few times as possible. Whatever no warehouse can cover stays
+ * unfilled. Stocking warehouses are found through the item index, so a plan costs
+ * O(warehouses holding the item) rather than a scan of every warehouse.
+ *
+ * Derived messages (already split or forwarded from another order) are only filled
+ * locally, so an order moves between warehouses at most once and can never bounce.
+ * Planning reads stock levels and changes nothing; see SuperstoreSystem.fulfillOrder.
+ */
+public class FulfillmentPlanner {
+
+    public record Allocation(String warehouseId, int quantity) {
+    }
+
+    public record Plan(OrderMessage order, int localQuantity, List<Allocation> forwards, int unfilled) {
+
+        public int forwardedQuantity() {
+            int total = 0;
+            for (Allocation allocation : forwards) {
+                total += allocation.quantity();
+            }
+            return total;
+        }
+
+        // True if the order can be served at all, locally or elsewhere
+        public boolean isActionable() {
+            return localQuantity > 0 || !forwards.isEmpty();
+        }
+    }
+
+    // Levels are read once, since they may change while the candidates are sorted
+    private record Stock(String warehouseId, int available) {
+    }
+
+    private static final Comparator<Stock> LARGEST_STOCK_FIRST =
+            Comparator.comparingInt(Stock::available).reversed().thenComparing(Stock::warehouseId);
+
+    private final Function<String, List<ItemLocation>> locator;
+
+    public FulfillmentPlanner(Function<String, List<ItemLocation>> locator) {
+        this.locator = locator;
+    }
+
+    public Plan plan(OrderMessage order) {
+        String warehouseId = order.getToWarehouseId();
+        int remaining = Math.max(0, order.getQuantity());
+        int local = 0;
+        List<Stock> others = new ArrayList<>();
+        for (ItemLocation location : locator.apply(order.getItemCode())) {
+            if (location.facilityType() != FacilityType.WAREHOUSE) continue;
+            int available = location.item().getCurrentInventoryLevel();
+            if (location.facilityId().equals(warehouseId)) {
+                local = Math.min(remaining, available);
+            } else if (!order.isDerived() && available > 0) {
+                others.add(new Stock(location.facilityId(), available));
+            }
+        }
+        remaining -= local;
+
+        List<Allocation> forwards = new ArrayList<>();
+        if (remaining > 0 && !others.isEmpty()) {
+            others.sort(LARGEST_STOCK_FIRST);
+            for (Stock stock : others) {
+                int quantity = Math.min(remaining, stock.available);
+                forwards.add(new Allocation(stock.warehouseId, quantity));
+                remaining -= quantity;
+                if (remaining == 0) break;
+            }
+        }
+        return new Plan(order, local, forwards, remaining);
+    }
+}
@@ -0,0 +1,119 @@
+package com.superstore.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style 64-bit ids: 41 bits of milliseconds since 2024-01-01 UTC, a 10-bit node
+ * number and a 12-bit sequence. Ids from one generator strictly increase: when the clock
+ * has not moved on (or has gone back) the next id takes the next sequence number of the
+ * last one's millisecond, and once that millisecond's sequence is used up it moves on to
+ * sequence 0 of the following millisecond, so a burst of more than 4096 ids borrows from
+ * the following milliseconds instead of waiting. The node bits are never touched, so
+ * generators with different node numbers never collide.
+ *
+ * The string form is the id in fixed-width Crockford base32 (13 characters), so string
+ * ids of one prefix sort in creation order.
+ */
+public class IdGenerator {
+
+    public static final long EPOCH_MILLIS = 1_704_067_200_000L;   // 2024-01-01T00:00:00Z
+    public static final int NODE_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    // Largest block nextIds can reserve: one millisecond's sequence
+    public static final int MAX_BLOCK = 1 << SEQUENCE_BITS;
+
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int[] DIGITS = new int[128];
+    static {
+        Arrays.fill(DIGITS, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DIGITS[ALPHABET[i]] = i;
+        }
+    }
+
+    private final int node;
+    private final AtomicLong last = new AtomicLong();
+
+    public IdGenerator(int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node must be between 0 and " + MAX_NODE + ": " + node);
+        }
+        this.node = node;
+    }
+
+    public long nextId() {
+        return nextIds(1);
+    }
+
+    // Reserves count consecutive ids, all in one millisecond, and returns the first, for
+    // bulk creation
+    public long nextIds(int count) {
+        if (count < 1 || count > MAX_BLOCK) {
+            throw new IllegalArgumentException("Block must be between 1 and " + MAX_BLOCK + " ids: " + count);
+        }
+        long millis = System.currentTimeMillis() - EPOCH_MILLIS;
+        while (true) {
+            long previous = last.get();
+            long first = idOf(millis, 0);
+            if (previous >= first) {
+                long sequence = sequenceOf(previous) + 1;
+                first = sequence + count <= MAX_BLOCK
+                        ? idOf(previous >>> TIMESTAMP_SHIFT, sequence)
+                        : idOf((previous >>> TIMESTAMP_SHIFT) + 1, 0);
+            }
+            if (last.compareAndSet(previous, first + count - 1)) return first;
+        }
+    }
+
+    private long idOf(long millis, long sequence) {
+        return (millis << TIMESTAMP_SHIFT) | ((long) node << SEQUENCE_BITS) | sequence;
+    }
+
+    public String nextId(String prefix) {
+        return prefix + format(nextId());
+    }
+
+    public int getNode() {
+        return node;
+    }
+
+    public static String format(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    // Reads the last 13 characters of a string id, after any prefix
+    public static long parse(String value) {
+        if (value.length() < ENCODED_LENGTH) {
+            throw new IllegalArgumentException("Not an id: " + value);
+        }
+        long id = 0;
+        for (int i = value.length() - ENCODED_LENGTH; i < value.length(); i++) {
+            char c = Character.toUpperCase(value.charAt(i));
+            int digit = c < 128 ? DIGITS[c] : -1;
+            if (digit < 0) throw new IllegalArgumentException("Not an id: " + value);
+            id = (id << 5) | digit;
+        }
+        return id;
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS;
+    }
+
+    public static int nodeOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE;
+    }
+
+    public static int sequenceOf(long id) {
+        return (int) id & (MAX_BLOCK - 1);
+    }
+}
@@ -0,0 +1,133 @@
+package com.superstore.core;
+
+import com.superstore.domain.ItemLocation;
+import com.superstore.domain.ItemLocation.FacilityType;
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.model.CatalogListener;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * System-wide itemCode index answering "where is this item stocked". Each registered
+ * facility forwards its catalog events here through a listener, so the index follows
+ * every add and remove without scanning. Facilities that still have items in the
+ * catalog file are probed for the code before answering.
+ *
+ * Facility events arrive holding the facility's index lock, so the locator only locks
+ * its own location map and never calls into a facility while holding that lock.
+ */
+public class ItemLocator {
+    private final Map<String, Map<String, ItemLocation>> locationsByCode = new HashMap<>();
+    private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+
+    public void register(Warehouse warehouse) {
+        register(new Registration(FacilityType.WAREHOUSE, warehouse.getWarehouseId(),
+                warehouse::getItem, warehouse::hasDeferredItems,
+                warehouse::addCatalogListener, warehouse::removeCatalogListener));
+    }
+
+    public void register(Store store) {
+        register(new Registration(FacilityType.STORE, store.getStoreId(),
+                store::getItem, store::hasDeferredItems,
+                store::addCatalogListener, store::removeCatalogListener));
+    }
+
+    private void register(Registration registration) {
+        Registration previous = registrations.put(registration.key(), registration);
+        if (previous != null) {
+            previous.detach.accept(previous);
+        }
+        registration.attach.accept(registration);
+    }
+
+    public void unregister(FacilityType facilityType, String facilityId) {
+        Registration registration = registrations.remove(key(facilityType, facilityId));
+        if (registration != null) {
+            registration.detach.accept(registration);
+        }
+    }
+
+    public void clear() {
+        for (Registration registration : registrations.values()) {
+            unregister(registration.facilityType, registration.facilityId);
+        }
+    }
+
+    public List<ItemLocation> locate(String itemCode) {
+        for (Registration registration : registrations.values()) {
+            if (registration.hasDeferredItems.getAsBoolean()) {
+                registration.lookup.apply(itemCode);
+            }
+        }
+        synchronized (this) {
+            Map<String, ItemLocation> locations = locationsByCode.get(itemCode);
+            return locations == null ? new ArrayList<>() : new ArrayList<>(locations.values());
+        }
+    }
+
+    private synchronized void added(Registration registration, Subcategory subcategory, Item item) {
+        locationsByCode.computeIfAbsent(item.getItemCode(), code -> new LinkedHashMap<>())
+                .put(registration.key(), new ItemLocation(registration.facilityType,
+                        registration.facilityId, subcategory.getCategoryId(),
+                        subcategory.getSubcategoryId(), item));
+    }
+
+    private synchronized void removed(Registration registration, Item item) {
+        Map<String, ItemLocation> locations = locationsByCode.get(item.getItemCode());
+        if (locations == null) return;
+        ItemLocation location = locations.get(registration.key());
+        if (location != null && location.item() == item) {
+            locations.remove(registration.key());
+            if (locations.isEmpty()) {
+                locationsByCode.remove(item.getItemCode());
+            }
+        }
+    }
+
+    private static String key(FacilityType facilityType, String facilityId) {
+        return facilityType + ":" + facilityId;
+    }
+
+    private final class Registration implements CatalogListener {
+        final FacilityType facilityType;
+        final String facilityId;
+        final Function<String, Item> lookup;
+        final BooleanSupplier hasDeferredItems;
+        final Consumer<CatalogListener> attach;
+        final Consumer<CatalogListener> detach;
+
+        Registration(FacilityType facilityType, String facilityId,
+                     Function<String, Item> lookup,
+                     BooleanSupplier hasDeferredItems,
+                     Consumer<CatalogListener> attach,
+                     Consumer<CatalogListener> detach) {
+            this.facilityType = facilityType;
+            this.facilityId = facilityId;
+            this.lookup = lookup;
+            this.hasDeferredItems = hasDeferredItems;
+            this.attach = attach;
+            this.detach = detach;
+        }
+
+        String key() {
+            return ItemLocator.key(facilityType, facilityId);
+        }
+
+        @Override
+        public void itemAdded(Subcategory subcategory, Item item) {
+            added(this, subcategory, item);
+        }
+
+        @Override
+        public void itemRemoved(Subcategory subcategory, Item item) {
+            removed(this, item);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.superstore.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Slot bookkeeping of a bounded multi-producer, single-consumer ring; the slots themselves
+ * live in the owner's arrays, indexed by {@link #index}. Producers claim a position with a
+ * CAS on the tail, fill its slot and publish it by advancing the slot's sequence; the
+ * consumer reads a slot once its sequence says it is published and hands it back one lap
+ * ahead.
+ */
+final class MpscRing {
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    // Rounds capacity up to a power of two
+    MpscRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int size() {
+        return mask + 1;
+    }
+
+    int index(long position) {
+        return (int) position & mask;
+    }
+
+    // Claims the next position for a producer, or returns -1 when the ring is full
+    long claim() {
+        while (true) {
+            long position = tail.get();
+            long difference = sequences.get(index(position)) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) return position;
+            } else if (difference < 0) {
+                return -1;
+            }
+        }
+    }
+
+    // Makes a claimed position's slot, filled by now, visible to the consumer
+    void publish(long position) {
+        sequences.lazySet(index(position), position + 1);
+    }
+
+    // Consumer only: index of the oldest published slot, or -1 if there is none
+    int peek() {
+        int index = index(head);
+        return sequences.get(index) == head + 1 ? index : -1;
+    }
+
+    // Consumer only: hands the slot returned by peek back to the producers
+    void release() {
+        sequences.lazySet(index(head), head + mask + 1);
+        head++;
+    }
+
+    boolean isEmpty() {
+        return peek() < 0;
+    }
+
+    long claimed() {
+        return tail.get();
+    }
+}
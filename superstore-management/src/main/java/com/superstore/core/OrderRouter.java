@@ -0,0 +1,283 @@
+package com.superstore.core;
+
+import com.superstore.domain.OrderMessage;
+import com.superstore.metrics.LatencyHistogram;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Delivers order messages to warehouses asynchronously. {@link #send} never blocks: it
+ * checks the target, puts the message in the target warehouse's bounded mailbox and returns
+ * a future that completes with the delivery status. Each mailbox is a lock-free
+ * multi-producer, single-consumer ring, drained by one dispatcher thread at a time, so the
+ * messages for one warehouse are delivered in the order they were accepted while different
+ * warehouses are served in parallel.
+ *
+ * Messages for unknown warehouses, or that find their mailbox full, are not delivered;
+ * they complete with that status and are passed to the dead-letter handler and kept in a
+ * short list of recent dead letters.
+ */
+public class OrderRouter implements AutoCloseable {
+
+    public enum DeliveryStatus {
+        DELIVERED,
+        DUPLICATE,       // the warehouse already had a message with this id
+        UNKNOWN_TARGET,
+        QUEUE_FULL,
+        CLOSED
+    }
+
+    /** Hands one message to its warehouse; runs on a dispatcher thread. */
+    public interface Delivery {
+        DeliveryStatus deliver(OrderMessage message);
+    }
+
+    public record DeadLetter(OrderMessage message, DeliveryStatus status, long timeMillis) {
+    }
+
+    public record Stats(long submitted, long delivered, long duplicates, long deadLettered,
+                        long failed, long pending, long totalLatencyNanos, long maxLatencyNanos,
+                        long uptimeNanos) {
+
+        public double meanLatencyMicros() {
+            long completed = delivered + duplicates;
+            return completed == 0 ? 0 : totalLatencyNanos / 1000.0 / completed;
+        }
+
+        public double deliveredPerSecond() {
+            return uptimeNanos == 0 ? 0 : delivered * 1e9 / uptimeNanos;
+        }
+    }
+
+    private static final int DRAIN_BATCH = 256;
+    private static final int RECENT_DEAD_LETTERS = 1024;
+
+    private final Predicate<String> knownTarget;
+    private final Delivery delivery;
+    private final int mailboxCapacity;
+    private final Consumer<DeadLetter> deadLetterHandler;
+    private final Consumer<Exception> errorHandler;
+    private final ExecutorService dispatchers;
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<DeadLetter> recentDeadLetters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger recentDeadLetterCount = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+    private volatile boolean closed;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    // From acceptance into a mailbox until the warehouse took the message
+    private final LatencyHistogram deliveryLatency = new LatencyHistogram();
+    // Accepted into a mailbox and not yet delivered
+    private final AtomicLong pending = new AtomicLong();
+
+    public OrderRouter(Predicate<String> knownTarget, Delivery delivery, int mailboxCapacity,
+                       int dispatcherThreads, Consumer<DeadLetter> deadLetterHandler,
+                       Consumer<Exception> errorHandler) {
+        this.knownTarget = knownTarget;
+        this.delivery = delivery;
+        this.mailboxCapacity = mailboxCapacity;
+        this.deadLetterHandler = deadLetterHandler;
+        this.errorHandler = errorHandler;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatchers = Executors.newFixedThreadPool(Math.max(1, dispatcherThreads), r -> {
+            Thread thread = new Thread(r, "order-router-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<DeliveryStatus> send(OrderMessage message) {
+        submitted.increment();
+        CompletableFuture<DeliveryStatus> ack = new CompletableFuture<>();
+        String target = message.getToWarehouseId();
+        if (closed) {
+            deadLetter(message, DeliveryStatus.CLOSED, ack);
+        } else if (target == null || !knownTarget.test(target)) {
+            deadLetter(message, DeliveryStatus.UNKNOWN_TARGET, ack);
+        } else {
+            Mailbox mailbox = mailboxes.computeIfAbsent(target, id -> new Mailbox(mailboxCapacity));
+            pending.incrementAndGet();
+            if (mailbox.offer(new Envelope(message, System.nanoTime(), ack))) {
+                mailbox.schedule();
+            } else {
+                pending.decrementAndGet();
+                deadLetter(message, DeliveryStatus.QUEUE_FULL, ack);
+            }
+        }
+        return ack;
+    }
+
+    private void deadLetter(OrderMessage message, DeliveryStatus status, CompletableFuture<DeliveryStatus> ack) {
+        deadLettered.increment();
+        DeadLetter letter = new DeadLetter(message, status, System.currentTimeMillis());
+        recentDeadLetters.add(letter);
+        if (recentDeadLetterCount.incrementAndGet() > RECENT_DEAD_LETTERS && recentDeadLetters.poll() != null) {
+            recentDeadLetterCount.decrementAndGet();
+        }
+        try {
+            deadLetterHandler.accept(letter);
+        } catch (RuntimeException e) {
+            errorHandler.accept(e);
+        }
+        ack.complete(status);
+    }
+
+    // Oldest first, at most the last 1024
+    public List<DeadLetter> getRecentDeadLetters() {
+        return new ArrayList<>(recentDeadLetters);
+    }
+
+    public Stats getStats() {
+        return new Stats(submitted.sum(), delivered.sum(), duplicates.sum(), deadLettered.sum(),
+                failed.sum(), pending.get(), totalLatencyNanos.sum(), maxLatencyNanos.get(),
+                System.nanoTime() - startNanos);
+    }
+
+    public LatencyHistogram getDeliveryLatency() {
+        return deliveryLatency;
+    }
+
+    // Waits until every accepted message has been delivered; false on timeout
+    public boolean awaitIdle(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (pending.get() > 0) {
+            if (System.nanoTime() - deadline >= 0) return false;
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    // Stops accepting messages and delivers the ones already accepted
+    @Override
+    public void close() {
+        closed = true;
+        awaitIdle(5, TimeUnit.SECONDS);
+        dispatchers.shutdown();
+    }
+
+    private record Envelope(OrderMessage message, long acceptedNanos, CompletableFuture<DeliveryStatus> ack) {
+    }
+
+    /**
+     * One warehouse's queue. The scheduled flag makes sure at most one dispatcher drains
+     * the ring at a time: a producer submits the mailbox only when it flips the flag, and
+     * the dispatcher clears it when it stops and re-submits if messages arrived meanwhile.
+     */
+    private final class Mailbox implements Runnable {
+        private final Ring ring;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Mailbox(int capacity) {
+            ring = new Ring(capacity);
+        }
+
+        // The ring publishes with a release store only. The fence orders it before the read
+        // of the scheduled flag in schedule(), the mirror of run() clearing the flag before
+        // checking the ring; otherwise a producer could see the flag still set while the
+        // dispatcher sees an empty ring, and the message would wait for the next send.
+        boolean offer(Envelope envelope) {
+            if (!ring.offer(envelope)) return false;
+            VarHandle.fullFence();
+            return true;
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                dispatchers.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            Envelope envelope;
+            for (int i = 0; i < DRAIN_BATCH && (envelope = ring.poll()) != null; i++) {
+                dispatch(envelope);
+            }
+            scheduled.set(false);
+            if (!ring.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private void dispatch(Envelope envelope) {
+        try {
+            DeliveryStatus status = delivery.deliver(envelope.message);
+            long latency = System.nanoTime() - envelope.acceptedNanos;
+            switch (status) {
+                case DELIVERED -> delivered.increment();
+                case DUPLICATE -> duplicates.increment();
+                default -> {
+                    pending.decrementAndGet();
+                    deadLetter(envelope.message, status, envelope.ack);
+                    return;
+                }
+            }
+            totalLatencyNanos.add(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            deliveryLatency.record(latency);
+            pending.decrementAndGet();
+            envelope.ack.complete(status);
+        } catch (RuntimeException e) {
+            failed.increment();
+            pending.decrementAndGet();
+            errorHandler.accept(e);
+            envelope.ack.completeExceptionally(e);
+        }
+    }
+
+    /** Envelopes in a {@link MpscRing}. */
+    static final class Ring {
+        private final MpscRing ring;
+        private final Envelope[] slots;
+
+        Ring(int capacity) {
+            ring = new MpscRing(capacity);
+            slots = new Envelope[ring.size()];
+        }
+
+        boolean offer(Envelope envelope) {
+            long position = ring.claim();
+            if (position < 0) return false;
+            slots[ring.index(position)] = envelope;
+            ring.publish(position);
+            return true;
+        }
+
+        // Consumer only
+        Envelope poll() {
+            int index = ring.peek();
+            if (index < 0) return null;
+            Envelope envelope = slots[index];
+            slots[index] = null;
+            ring.release();
+            return envelope;
+        }
+
+        boolean isEmpty() {
+            return ring.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.superstore.core;
+
+import com.superstore.core.OrderRouter.DeliveryStatus;
+import com.superstore.domain.FacilityLockManager;
+import com.superstore.domain.ItemLocation.FacilityType;
+import com.superstore.domain.OrderMessage;
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Orders stock for store items that have fallen to their reorder point. An item is due
+ * when currentInventoryLevel <= calculateReorderPoint(); the engine then sends an
+ * OrderMessage for ceil(calculateEOQ()) units to the store's linked warehouse, unless the
+ * store already has an open order for the item. An order stays open from the moment it is
+ * sent until the engine sees the item's level back above its reorder point, since a
+ * processed order is stock on its way rather than stock on the shelf; an order that could
+ * not be delivered is closed at once so the next evaluation retries it. An order pending
+ * in the warehouse's inbox, whoever sent it, also counts as open. Items without cost data
+ * have no EOQ and are skipped.
+ *
+ * {@link #evaluateAll} scans every store's catalog in parallel, one task per subcategory,
+ * each under the store's read lock; only the due items are collected and ordered, so the
+ * scan stays proportional to the catalog while ordering stays proportional to the items
+ * that need it. {@link #evaluateItems} checks just the items a stock movement touched,
+ * and {@link #start} runs a full scan periodically.
+ */
+public class ReplenishmentEngine implements AutoCloseable {
+
+    /** Sends one replenishment order; completes once it is delivered or dead-lettered. */
+    public interface OrderSink {
+        CompletableFuture<DeliveryStatus> send(OrderMessage message);
+    }
+
+    public record Result(int storesScanned, long itemsEvaluated, int itemsDue, int ordersPlaced,
+                         int alreadyOpen, int unsized, long elapsedNanos) {
+    }
+
+    private record Task(Store store, Subcategory subcategory) {
+    }
+
+    private record Candidate(Store store, Warehouse warehouse, String itemCode, String itemName,
+                             double eoq, double avgLeadTimeDays) {
+    }
+
+    private final Supplier<Collection<Store>> stores;
+    private final Function<String, Warehouse> warehouses;
+    private final FacilityLockManager facilityLocks;
+    private final Supplier<String> orderIds;
+    private final OrderSink sink;
+    // storeId -> itemCode -> messageId of the open order, until the item is seen restocked
+    private final Map<String, Map<String, String>> openOrders = new ConcurrentHashMap<>();
+    private final Object placeLock = new Object();
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> periodic;
+
+    public ReplenishmentEngine(Supplier<Collection<Store>> stores, Function<String, Warehouse> warehouses,
+                               FacilityLockManager facilityLocks, Supplier<String> orderIds, OrderSink sink) {
+        this.stores = stores;
+        this.warehouses = warehouses;
+        this.facilityLocks = facilityLocks;
+        this.orderIds = orderIds;
+        this.sink = sink;
+    }
+
+    public Result evaluateAll() {
+        return evaluate(stores.get());
+    }
+
+    public Result evaluateStore(Store store) {
+        return evaluate(List.of(store));
+    }
+
+    private Result evaluate(Collection<Store> storesToScan) {
+        long start = System.nanoTime();
+        List<Task> tasks = new ArrayList<>();
+        int storesScanned = 0;
+        for (Store store : storesToScan) {
+            if (linkedWarehouse(store) == null) continue;
+            storesScanned++;
+            store.forEachCategory(category -> category.forEachSubcategory(
+                    subcategory -> tasks.add(new Task(store, subcategory))));
+        }
+        LongAdder evaluated = new LongAdder();
+        List<Candidate> due = tasks.parallelStream()
+                .flatMap(task -> scan(task, evaluated).stream())
+                .toList();
+        int[] counts = place(due);
+        return new Result(storesScanned, evaluated.sum(), due.size(), counts[0], counts[1], counts[2],
+                System.nanoTime() - start);
+    }
+
+    private List<Candidate> scan(Task task, LongAdder evaluated) {
+        Store store = task.store;
+        Warehouse warehouse = linkedWarehouse(store);
+        if (warehouse == null) return List.of();
+        List<Candidate> due = new ArrayList<>(0);
+        int[] count = new int[1];
+        Map<String, String> open = openOrders.get(store.getStoreId());
+        Lock lock = facilityLocks.lockFor(FacilityType.STORE, store.getStoreId()).readLock();
+        lock.lock();
+        try {
+            task.subcategory.forEachItem(item -> {
+                count[0]++;
+                if (isDue(item)) {
+                    due.add(candidate(store, warehouse, item));
+                } else if (open != null && !open.isEmpty()) {
+                    open.remove(item.getItemCode());
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+        evaluated.add(count[0]);
+        return due;
+    }
+
+    // For items whose stock just moved; cheap enough to call after every movement
+    public Result evaluateItems(Store store, Collection<Item> items) {
+        long start = System.nanoTime();
+        Warehouse warehouse = linkedWarehouse(store);
+        if (warehouse == null) return new Result(0, 0, 0, 0, 0, 0, System.nanoTime() - start);
+        List<Candidate> due = new ArrayList<>();
+        Map<String, String> open = openOrders.get(store.getStoreId());
+        for (Item item : items) {
+            if (isDue(item)) {
+                due.add(candidate(store, warehouse, item));
+            } else if (open != null) {
+                open.remove(item.getItemCode());
+            }
+        }
+        int[] counts = place(due);
+        return new Result(1, items.size(), due.size(), counts[0], counts[1], counts[2],
+                System.nanoTime() - start);
+    }
+
+    private static boolean isDue(Item item) {
+        return item.getCurrentInventoryLevel() <= item.calculateReorderPoint();
+    }
+
+    private static Candidate candidate(Store store, Warehouse warehouse, Item item) {
+        return new Candidate(store, warehouse, item.getItemCode(), item.getItemName(),
+                item.calculateEOQ(), item.getAvgLeadTimeDays());
+    }
+
+    private Warehouse linkedWarehouse(Store store) {
+        String warehouseId = store.getLinkedWarehouseId();
+        return warehouseId == null ? null : warehouses.apply(warehouseId);
+    }
+
+    // Returns {ordersPlaced, alreadyOpen, unsized}. Serialized so a periodic scan and a
+    // stock movement cannot both find the same item without an open order.
+    private int[] place(List<Candidate> due) {
+        int[] counts = new int[3];
+        synchronized (placeLock) {
+            for (Candidate candidate : due) {
+                String storeId = candidate.store.getStoreId();
+                Map<String, String> open = openOrders.computeIfAbsent(storeId, id -> new ConcurrentHashMap<>());
+                if (open.containsKey(candidate.itemCode)
+                        || candidate.warehouse.hasPendingOrder(storeId, candidate.itemCode)) {
+                    counts[1]++;
+                    continue;
+                }
+                int quantity = (int) Math.min(Integer.MAX_VALUE, Math.ceil(candidate.eoq));
+                if (quantity < 1) {
+                    counts[2]++;
+                    continue;
+                }
+                OrderMessage order = new OrderMessage(orderIds.get(), storeId,
+                        candidate.warehouse.getWarehouseId(), candidate.itemName, candidate.itemCode, quantity,
+                        LocalDate.now().plusDays((long) Math.ceil(candidate.avgLeadTimeDays)));
+                open.put(candidate.itemCode, order.getMessageId());
+                sink.send(order).whenComplete((status, error) -> {
+                    if (status != DeliveryStatus.DELIVERED && status != DeliveryStatus.DUPLICATE) {
+                        open.remove(candidate.itemCode, order.getMessageId());   // never reached the warehouse
+                    }
+                });
+                counts[0]++;
+            }
+        }
+        return counts;
+    }
+
+    // Runs evaluateAll every period on a background thread until closed
+    public synchronized void start(long period, TimeUnit unit, Consumer<Result> onResult,
+                                   Consumer<Exception> errorHandler) {
+        if (periodic != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replenishment");
+            thread.setDaemon(true);
+            return thread;
+        });
+        periodic = scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                onResult.accept(evaluateAll());
+            } catch (RuntimeException e) {
+                errorHandler.accept(e);  // keep the schedule alive
+            }
+        }, period, period, unit);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            periodic = null;
+        }
+    }
+}
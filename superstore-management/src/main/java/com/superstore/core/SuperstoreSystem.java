@@ -2,44 +2,218 @@
 package com.superstore.core;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 import java.io.*;
-import java.time.LocalDateTime;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import com.superstore.domain.Store;
 import com.superstore.domain.Warehouse;
 import com.superstore.domain.OrderMessage;
-import com.superstore.user.SuperUser;
-import com.superstore.user.User;
+import com.superstore.domain.ItemLocation;
+import com.superstore.domain.ItemLocation.FacilityType;
+import com.superstore.core.OrderRouter.DeliveryStatus;
+import com.superstore.domain.FacilityLockManager;
+import com.superstore.domain.InventoryBatch;
+import com.superstore.domain.InventoryBatchResult;
+import com.superstore.io.CatalogExporter;
+import com.superstore.io.CatalogImporter;
+import com.superstore.io.ImportResult;
+import com.superstore.metrics.LatencyHistogram;
+import com.superstore.metrics.Metrics;
+import com.superstore.metrics.MetricsExporter;
+import com.superstore.metrics.MetricsHttpEndpoint;
+import com.superstore.model.Item;
+import com.superstore.persistence.CatalogWriter;
+import com.superstore.persistence.Journal;
+import com.superstore.persistence.LegacySnapshotReader;
+import com.superstore.persistence.OrderArchive;
+import com.superstore.persistence.PersistenceService;
+import com.superstore.persistence.Snapshot;
+import com.superstore.persistence.SnapshotDecoder;
+import com.superstore.persistence.SnapshotEncoder;
+import com.superstore.user.*;
 
 public class SuperstoreSystem {
-    private Map<String, Warehouse> warehouses;
-    private Map<String, Store> stores;
-    private Map<String, User> users;
-    private SuperUser superUser;
+    // Directory for all data and log files, from -Dsuperstore.dataDir (default: working directory)
+    private static final Path DATA_DIR = Paths.get(System.getProperty("superstore.dataDir", "."));
+    private static final String SNAPSHOT_FILE = "superstore_snapshot.bin";
+    // Item records live in memory-mapped catalog files, one generation per snapshot
+    private static final String CATALOG_PREFIX = "superstore_catalog.";
+    private static final String CATALOG_SUFFIX = ".bin";
+    // Java-serialized data file of older versions, migrated once on startup
+    private static final String LEGACY_DATA_FILE = "superstore_data.dat";
+    private static final String JOURNAL_FILE = "superstore_journal.log";
+    private static final String LOG_FILE = "superstore.log";
+    private static final String ARCHIVE_DIR = "superstore_archive";
+    // Compact the journal into a fresh snapshot once it has grown to this fraction of the
+    // last snapshot's size on disk, catalog included, but not before it reaches the minimum.
+    // Rewriting the snapshot then costs about as much as the changes it absorbs, however
+    // large the catalog is.
+    private static final double SNAPSHOT_JOURNAL_RATIO = 0.5;
+    private static final long SNAPSHOT_JOURNAL_MIN_BYTES = 4L << 20;
+    // Background saves start after this quiet period, and at most this long after a change
+    private static final long SAVE_DEBOUNCE_MILLIS = 50;
+    private static final long SAVE_MAX_DELAY_MILLIS = 500;
+    // Processed order messages a warehouse keeps in memory before they go to the archive
+    private static final int ARCHIVE_EVERY_MESSAGES = 512;
+    // Order messages a warehouse's mailbox holds before further ones are dead-lettered
+    private static final int ORDER_MAILBOX_CAPACITY = 8192;
+    private static final int ORDER_ROUTER_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+    // Full replenishment scans on top of the checks after each store stock movement
+    private static final long REPLENISH_EVERY_SECONDS = Long.getLong("superstore.replenishSeconds", 60);
+    // Metrics are written to the file every -Dsuperstore.metricsDumpSeconds (0 = never), as JSON
+    // for a .json file, Prometheus text for .prom and a text table otherwise. They are served
+    // on localhost at -Dsuperstore.metricsPort (0 = any free port) when that is set.
+    private static final long METRICS_DUMP_SECONDS = Long.getLong("superstore.metricsDumpSeconds", 60);
+    private static final String METRICS_FILE = System.getProperty("superstore.metricsFile", "superstore_metrics.txt");
+    private static final int METRICS_PORT = Integer.getInteger("superstore.metricsPort", -1);
+
+    // Journal record types
+    private static final byte REC_CREATE_WAREHOUSE = 1;
+    private static final byte REC_CREATE_STORE = 2;
+    private static final byte REC_CREATE_USER = 3;
+    private static final byte REC_DELETE_USER = 4;
+    // Absolute levels, so replaying a record the snapshot already reflects changes nothing
+    private static final byte REC_SET_INVENTORY = 5;
+    private static final byte REC_RECEIVE_MESSAGE = 6;
+    private static final byte REC_PROCESS_MESSAGE = 7;
+
+    // Queries read the registries without locking; mutators synchronize on the system so
+    // each change is applied and journaled in the same order
+    private final Map<String, Warehouse> warehouses = new ConcurrentHashMap<>();
+    private final Map<String, Store> stores = new ConcurrentHashMap<>();
+    private final UserDirectory users = new UserDirectory();
+    private volatile SuperUser superUser;
+    private volatile Journal journal;
+    private final ItemLocator itemLocator = new ItemLocator();
+    private final FulfillmentPlanner fulfillmentPlanner = new FulfillmentPlanner(itemLocator::locate);
+    private final FacilityLockManager facilityLocks = new FacilityLockManager();
+    private final OrderArchive orderArchive = new OrderArchive(DATA_DIR.resolve(ARCHIVE_DIR));
+    private final OrderRouter orderRouter = new OrderRouter(warehouses::containsKey, this::deliverMessage,
+            ORDER_MAILBOX_CAPACITY, ORDER_ROUTER_THREADS, this::logDeadLetter, this::logException);
+    // Node number from -Dsuperstore.node so instances sharing data never mint the same id
+    private final IdGenerator ids = new IdGenerator(Integer.getInteger("superstore.node", 0));
+    private final ReplenishmentEngine replenishment = new ReplenishmentEngine(stores::values, warehouses::get,
+            facilityLocks, () -> ids.nextId("RPL"), this::sendOrderMessage);
+    private final EventLogger eventLog = new EventLogger(DATA_DIR.resolve(LOG_FILE));
+    private final PersistenceService persistence = new PersistenceService(this::persistPending,
+            SAVE_DEBOUNCE_MILLIS, SAVE_MAX_DELAY_MILLIS, this::logException);
+    // Held while a snapshot is written so background and explicit saves do not overlap
+    private final Object snapshotLock = new Object();
+    private volatile boolean snapshotRequested;
+    // Snapshot file plus catalog file of the last snapshot written or loaded
+    private volatile long snapshotBytes;
+
+    private final Metrics metrics = Metrics.global();
+    private final LatencyHistogram logEventLatency = metrics.histogram("superstore_log_event_seconds",
+            "Queueing one event for the log writer, 1 in 16 timed", 16);
+    private final Metrics.Counter eventsLogged = metrics.counter("superstore_log_events_total",
+            "Events queued for the log");
+    private final LatencyHistogram authenticateLatency = metrics.histogram("superstore_authenticate_seconds",
+            "authenticateUser, 1 in 8 timed", 8);
+    private final Metrics.Counter loginFailures = metrics.counter("superstore_login_failures_total",
+            "Logins with an unknown user name or a wrong password");
+    private final LatencyHistogram saveLatency = metrics.histogram("superstore_save_data_seconds",
+            "saveData: a full snapshot and catalog write");
+    private final Metrics.Counter saveFailures = metrics.counter("superstore_save_failures_total",
+            "Snapshots that could not be written");
+    private final LatencyHistogram loadLatency = metrics.histogram("superstore_load_data_seconds",
+            "loadData: snapshot load and journal replay");
+    private final LatencyHistogram journalAppendLatency = metrics.histogram("superstore_journal_append_seconds",
+            "Appending one journal record, before it is forced to disk");
+    private final LatencyHistogram journalCommitLatency = metrics.histogram("superstore_journal_commit_seconds",
+            "Forcing the journal to disk, once per burst of changes");
+    private volatile MetricsExporter metricsExporter;
+    private volatile MetricsHttpEndpoint metricsEndpoint;
     private static SuperstoreSystem instance;
     
     private SuperstoreSystem() {
-        warehouses = new HashMap<>();
-        stores = new HashMap<>();
-        users = new HashMap<>();
         // Create default super user
         superUser = new SuperUser("SU001", "superadmin", "admin123");
-        users.put(superUser.getUserId(), superUser);
+        users.add(superUser);
     }
     
     public static synchronized SuperstoreSystem getInstance() {
         if (instance == null) {
             instance = new SuperstoreSystem();
             instance.loadData();  // ✅ Load persistent data on startup
+            instance.replenishment.start(REPLENISH_EVERY_SECONDS, TimeUnit.SECONDS,
+                    instance::logReplenishment, instance::logException);
+            instance.startMetrics();
         }
         return instance;
     }
+
+    private void startMetrics() {
+        metrics.register("superstore_order_delivery_seconds",
+                "From acceptance by the order router until the warehouse took the message",
+                orderRouter.getDeliveryLatency());
+        metrics.gauge("superstore_warehouses", "Warehouses", warehouses::size);
+        metrics.gauge("superstore_stores", "Stores", stores::size);
+        metrics.gauge("superstore_users", "Users", users::size);
+        metrics.gauge("superstore_orders_pending", "Order messages waiting in warehouse inboxes",
+                () -> warehouses.values().stream().mapToInt(Warehouse::getPendingMessageCount).sum());
+        metrics.gauge("superstore_order_router_queued", "Order messages accepted and not yet delivered",
+                () -> orderRouter.getStats().pending());
+        metrics.gauge("superstore_order_router_submitted", "Order messages sent",
+                () -> orderRouter.getStats().submitted());
+        metrics.gauge("superstore_order_router_dead_letters", "Order messages that could not be delivered",
+                () -> orderRouter.getStats().deadLettered());
+        metrics.gauge("superstore_log_events_dropped", "Log events dropped because the log queue was full",
+                eventLog::getDroppedCount);
+        metrics.gauge("superstore_journal_seq", "Sequence number of the last journal record",
+                () -> journal != null ? journal.getLastSeq() : 0);
+
+        if (METRICS_DUMP_SECONDS > 0) {
+            Path file = DATA_DIR.resolve(METRICS_FILE);
+            metricsExporter = new MetricsExporter(metrics, file, MetricsExporter.Format.forFile(file));
+            metricsExporter.start(METRICS_DUMP_SECONDS, TimeUnit.SECONDS, this::logException);
+        }
+        if (METRICS_PORT >= 0) {
+            try {
+                metricsEndpoint = new MetricsHttpEndpoint(metrics, METRICS_PORT);
+                logEvent("Metrics served at http://localhost:" + metricsEndpoint.getPort() + "/metrics");
+            } catch (IOException e) {
+                logException(e);
+            }
+        }
+    }
+
+    public Metrics.Snapshot getMetricsSnapshot() {
+        return metrics.snapshot();
+    }
+
+    // Port of the metrics endpoint, or -1 if it is not running
+    public int getMetricsPort() {
+        MetricsHttpEndpoint endpoint = metricsEndpoint;
+        return endpoint != null ? endpoint.getPort() : -1;
+    }
     
     // Warehouse Management
-    public void createWarehouse(String warehouseId, String warehouseName) {
+    public synchronized void createWarehouse(String warehouseId, String warehouseName) {
+        applyCreateWarehouse(warehouseId, warehouseName);
+        logEvent("Warehouse created: " + warehouseId);
+        journal(REC_CREATE_WAREHOUSE, out -> {
+            out.writeUTF(warehouseId);
+            out.writeUTF(warehouseName);
+        });
+    }
+
+    private void applyCreateWarehouse(String warehouseId, String warehouseName) {
         Warehouse warehouse = new Warehouse(warehouseId, warehouseName);
         warehouses.put(warehouseId, warehouse);
-        logEvent("Warehouse created: " + warehouseId);
-        saveData();  // ✅ Auto-save after changes
+        itemLocator.register(warehouse);
     }
     
     public Warehouse getWarehouse(String warehouseId) {
@@ -51,17 +225,26 @@ public class SuperstoreSystem {
     }
     
     // Store Management
-    public void createStore(String storeId, String storeName, String warehouseId) {
+    public synchronized void createStore(String storeId, String storeName, String warehouseId) {
+        applyCreateStore(storeId, storeName, warehouseId);
+        logEvent("Store created: " + storeId + " linked to " + warehouseId);
+        journal(REC_CREATE_STORE, out -> {
+            out.writeUTF(storeId);
+            out.writeUTF(storeName);
+            out.writeUTF(warehouseId);
+        });
+    }
+
+    private void applyCreateStore(String storeId, String storeName, String warehouseId) {
         Store store = new Store(storeId, storeName);
         store.linkWarehouse(warehouseId);
         stores.put(storeId, store);
+        itemLocator.register(store);
         
         Warehouse warehouse = warehouses.get(warehouseId);
         if (warehouse != null) {
             warehouse.linkStore(storeId);
         }
-        logEvent("Store created: " + storeId + " linked to " + warehouseId);
-        saveData();  // ✅ Auto-save after changes
     }
     
     public Store getStore(String storeId) {
@@ -72,39 +255,305 @@ public class SuperstoreSystem {
         return new ArrayList<>(stores.values());
     }
     
+    // Every warehouse and store currently stocking the item
+    public List<ItemLocation> locateItem(String itemCode) {
+        return itemLocator.locate(itemCode);
+    }
+    
+    // Stock movements hold the facility's write lock, so snapshots and facility queries
+    // never see a movement half applied; removals stop at zero. Returns the new level.
+    public int adjustInventory(FacilityType facilityType, String facilityId, Item item, int delta) {
+        int level = facilityLocks.withWriteLock(facilityType, facilityId, () -> {
+            int next;
+            while (true) {
+                int current = item.getCurrentInventoryLevel();
+                next = (int) Math.min(Integer.MAX_VALUE, Math.max(0L, (long) current + delta));
+                if (item.compareAndSetInventory(current, next)) break;
+            }
+            journalInventory(facilityType, facilityId, List.of(item));
+            return next;
+        });
+        replenishAfterMovement(facilityType, facilityId, List.of(item));
+        return level;
+    }
+    
+    public void setInventoryLevel(FacilityType facilityType, String facilityId, Item item, int level) {
+        facilityLocks.withWriteLock(facilityType, facilityId, () -> {
+            item.setCurrentInventoryLevel(level);
+            journalInventory(facilityType, facilityId, List.of(item));
+            return null;
+        });
+        replenishAfterMovement(facilityType, facilityId, List.of(item));
+    }
+    
+    // Validates and applies every line or none, under the facility's write lock, and
+    // journals the batch as one record. Returns null if the facility does not exist.
+    public InventoryBatchResult applyInventoryBatch(FacilityType facilityType, String facilityId,
+                                                    InventoryBatch batch) {
+        InventoryBatchResult batchResult = facilityLocks.withWriteLock(facilityType, facilityId, () -> {
+            InventoryBatchResult result;
+            if (facilityType == FacilityType.WAREHOUSE) {
+                Warehouse warehouse = warehouses.get(facilityId);
+                if (warehouse == null) return null;
+                result = warehouse.applyInventoryBatch(batch);
+            } else {
+                Store store = stores.get(facilityId);
+                if (store == null) return null;
+                result = store.applyInventoryBatch(batch);
+            }
+            if (!result.getChangedItems().isEmpty()) {
+                journalInventory(facilityType, facilityId, result.getChangedItems());
+            }
+            return result;
+        });
+        if (batchResult != null) {
+            replenishAfterMovement(facilityType, facilityId, batchResult.getChangedItems());
+        }
+        return batchResult;
+    }
+    
+    // Store items that moved to their reorder point are ordered straight away; runs after
+    // the write lock is released, since orders are only queued on the router
+    private void replenishAfterMovement(FacilityType facilityType, String facilityId, List<Item> items) {
+        if (facilityType != FacilityType.STORE || items.isEmpty()) return;
+        Store store = stores.get(facilityId);
+        if (store != null) {
+            logReplenishment(replenishment.evaluateItems(store, items));
+        }
+    }
+    
+    // Orders every due item of the store now; returns null if the store does not exist
+    public ReplenishmentEngine.Result replenishStore(String storeId) {
+        Store store = stores.get(storeId);
+        if (store == null) return null;
+        ReplenishmentEngine.Result result = replenishment.evaluateStore(store);
+        logReplenishment(result);
+        return result;
+    }
+    
+    public ReplenishmentEngine.Result replenishAllStores() {
+        ReplenishmentEngine.Result result = replenishment.evaluateAll();
+        logReplenishment(result);
+        return result;
+    }
+    
+    private void logReplenishment(ReplenishmentEngine.Result result) {
+        if (result.ordersPlaced() > 0) {
+            logEvent("Replenishment ordered " + result.ordersPlaced() + " items after evaluating "
+                    + result.itemsEvaluated() + " in " + result.storesScanned() + " stores");
+        }
+    }
+    
+    // Each parsed chunk is applied under the facility's write lock, so readers and stock
+    // movements get in between chunks. Catalog structure is not journaled, so the import
+    // is persisted by a snapshot. Returns null if the facility does not exist.
+    public ImportResult importCatalog(FacilityType facilityType, String facilityId, Path csvFile)
+            throws IOException {
+        CatalogImporter importer;
+        if (facilityType == FacilityType.WAREHOUSE) {
+            Warehouse warehouse = warehouses.get(facilityId);
+            if (warehouse == null) return null;
+            importer = CatalogImporter.forWarehouse(warehouse);
+        } else {
+            Store store = stores.get(facilityId);
+            if (store == null) return null;
+            importer = CatalogImporter.forStore(store);
+        }
+        importer.setBatchRunner(batch -> facilityLocks.withWriteLock(facilityType, facilityId, () -> {
+            batch.run();
+            return null;
+        }));
+        ImportResult result = importer.importFile(csvFile);
+        logEvent("Imported " + result.rowsRead() + " catalog rows into " + facilityId + ": "
+                + result.itemsCreated() + " items created, " + result.itemsUpdated() + " updated, "
+                + result.rowsRejected() + " rejected");
+        snapshotRequested = true;
+        persistence.requestSave();
+        return result;
+    }
+    
+    // Writes every item of the facility under its read lock, so the export is consistent
+    // and stock movements elsewhere carry on. Returns the item count, or -1 if the
+    // facility does not exist.
+    public long exportCatalog(FacilityType facilityType, String facilityId, Path file,
+                              CatalogExporter.Format format) throws IOException {
+        Warehouse warehouse = facilityType == FacilityType.WAREHOUSE ? warehouses.get(facilityId) : null;
+        Store store = facilityType == FacilityType.STORE ? stores.get(facilityId) : null;
+        if (warehouse == null && store == null) return -1;
+        Lock lock = facilityLocks.lockFor(facilityType, facilityId).readLock();
+        lock.lock();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CatalogExporter exporter = new CatalogExporter(channel, format);
+            long count = warehouse != null ? exporter.writeCatalog(warehouse) : exporter.writeCatalog(store);
+            exporter.flush();
+            logEvent("Exported " + count + " items of " + facilityId + " to " + file);
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Archived messages first, then the ones still in memory. Returns the message count,
+    // or -1 if the warehouse does not exist
+    public long exportOrders(String warehouseId, Path file, CatalogExporter.Format format)
+            throws IOException {
+        Warehouse warehouse = warehouses.get(warehouseId);
+        if (warehouse == null) return -1;
+        List<OrderMessage> inMemory = new ArrayList<>();
+        OrderArchive.Segments segments = archiveView(warehouse, () -> inMemory.addAll(warehouse.getAllMessages()));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CatalogExporter exporter = new CatalogExporter(channel, format);
+            Iterable<OrderMessage> archived = segments.messages();
+            long count;
+            try {
+                count = exporter.writeMessages(() -> Stream.concat(
+                        StreamSupport.stream(archived.spliterator(), false), inMemory.stream()).iterator());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            exporter.flush();
+            logEvent("Exported " + count + " order messages of " + warehouseId + " to " + file);
+            return count;
+        }
+    }
+    
+    // Called with the facility's write lock held, so records of one facility are journaled
+    // in the order their movements were applied
+    private void journalInventory(FacilityType facilityType, String facilityId, List<Item> items) {
+        journal(REC_SET_INVENTORY, out -> {
+            out.writeByte(facilityType.ordinal());
+            out.writeUTF(facilityId);
+            out.writeInt(items.size());
+            for (Item item : items) {
+                out.writeUTF(item.getItemCode());
+                out.writeInt(item.getCurrentInventoryLevel());
+            }
+        });
+    }
+    
+    private void applySetInventory(DataInputStream in) throws IOException {
+        FacilityType facilityType = FacilityType.values()[in.readUnsignedByte()];
+        String facilityId = in.readUTF();
+        int count = in.readInt();
+        Warehouse warehouse = facilityType == FacilityType.WAREHOUSE ? warehouses.get(facilityId) : null;
+        Store store = facilityType == FacilityType.STORE ? stores.get(facilityId) : null;
+        for (int i = 0; i < count; i++) {
+            String itemCode = in.readUTF();
+            int level = in.readInt();
+            Item item = warehouse != null ? warehouse.getItem(itemCode)
+                    : store != null ? store.getItem(itemCode) : null;
+            if (item != null) {
+                item.setCurrentInventoryLevel(level);
+            }
+        }
+    }
+    
+    public List<Item> getOutOfStockItems(String storeId) {
+        Store store = stores.get(storeId);
+        if (store == null) return new ArrayList<>();
+        return facilityLocks.withReadLock(FacilityType.STORE, storeId, store::getOutOfStockItems);
+    }
+    
+    public List<Item> getItemsNeedingReorder(String warehouseId) {
+        Warehouse warehouse = warehouses.get(warehouseId);
+        if (warehouse == null) return new ArrayList<>();
+        return facilityLocks.withReadLock(FacilityType.WAREHOUSE, warehouseId,
+                warehouse::getItemsNeedingReorder);
+    }
+    
+    public FacilityLockManager getFacilityLocks() {
+        return facilityLocks;
+    }
+    
+    // New unique id for an entity or message, e.g. newId("ITEM")
+    public String newId(String prefix) {
+        return ids.nextId(prefix);
+    }
+    
     // ✅ NEW: REQUIRED FOR PERSISTENT ADMIN LISTS
     public List<User> getAllUsers() {
-        return new ArrayList<>(users.values());
+        return users.getAll();
     }
     
     // User Management
-    public void createUser(User user) {
-        users.put(user.getUserId(), user);
+    public synchronized void createUser(User user) {
+        users.add(user);
         logEvent("User created: " + user.getUsername() + " (" + user.getUserType() + ")");
-        saveData();  // ✅ Auto-save after user creation
+        journal(REC_CREATE_USER, out -> writeUser(out, user));
     }
     
     // ✅ NEW: REQUIRED FOR DELETE FUNCTIONALITY
-    public void deleteUser(User user) {
-        if (user != null && users.containsKey(user.getUserId())) {
+    public synchronized void deleteUser(User user) {
+        if (user != null && users.contains(user.getUserId())) {
             users.remove(user.getUserId());
             logEvent("User deleted: " + user.getUsername() + " (" + user.getUserType() + ")");
-            saveData();  // ✅ Auto-save after deletion
+            journal(REC_DELETE_USER, out -> out.writeUTF(user.getUserId()));
         }
     }
     
     public User authenticateUser(String username, String password) {
-        for (User user : users.values()) {
-            if (user.authenticate(username, password)) {
-                logEvent("User logged in: " + username);
+        long start = authenticateLatency.start();
+        User user = users.authenticate(username, password);
+        if (user != null) {
+            logEvent("User logged in: " + username);
+        } else {
+            loginFailures.increment();
+        }
+        authenticateLatency.stop(start);
+        return user;
+    }
+    
+    public User getUser(String userId) {
+        return users.get(userId);
+    }
+    
+    public List<User> getUsersByType(User.UserType type) {
+        return users.getByType(type);
+    }
+    
+    // Administrators and keepers of the given type assigned to a warehouse or store
+    public List<User> getUsersAtFacility(String facilityId, User.UserType type) {
+        return users.getByFacility(type, facilityId);
+    }
+    
+    public User findUser(String username, User.UserType type) {
+        for (User user : users.getByUsername(username)) {
+            if (user.getUserType() == type) return user;
+        }
+        return null;
+    }
+    
+    public User findUserAtFacility(String username, User.UserType type, String facilityId) {
+        for (User user : users.getByUsername(username)) {
+            if (user.getUserType() == type && facilityId.equals(UserDirectory.facilityOf(user))) {
                 return user;
             }
         }
         return null;
     }
     
-    public User getUser(String userId) {
-        return users.get(userId);
+    // Users of the given type with the name of the warehouse or store they are assigned to
+    public List<FacilityAssignment> getFacilityAssignments(User.UserType type) {
+        boolean warehouseUser = type == User.UserType.WAREHOUSE_ADMIN
+                || type == User.UserType.WAREHOUSE_KEEPER;
+        List<FacilityAssignment> assignments = new ArrayList<>();
+        for (User user : users.getByType(type)) {
+            String facilityId = UserDirectory.facilityOf(user);
+            String facilityName = null;
+            if (facilityId != null) {
+                if (warehouseUser) {
+                    Warehouse warehouse = warehouses.get(facilityId);
+                    if (warehouse != null) facilityName = warehouse.getWarehouseName();
+                } else {
+                    Store store = stores.get(facilityId);
+                    if (store != null) facilityName = store.getStoreName();
+                }
+            }
+            assignments.add(new FacilityAssignment(user, facilityId, facilityName));
+        }
+        return assignments;
     }
     
     public SuperUser getSuperUser() {
@@ -112,94 +561,556 @@ public class SuperstoreSystem {
     }
     
     // Message handling
-    public void sendOrderMessage(OrderMessage message) {
+    // Messages are queued on the order router and delivered on its dispatcher threads; the
+    // future completes once the message is in the warehouse's inbox, or with the reason it
+    // was dead-lettered. Inbox changes of a warehouse are applied and journaled under its
+    // write lock, so a message is always journaled as received before it is journaled as
+    // processed.
+    public CompletableFuture<DeliveryStatus> sendOrderMessage(OrderMessage message) {
+        return orderRouter.send(message);
+    }
+    
+    // The forwarded copy keeps the requesting store and is correlated with the original
+    public CompletableFuture<DeliveryStatus> forwardOrderMessage(String fromWarehouseId, String toWarehouseId,
+                                                                 OrderMessage originalMessage) {
+        logEvent("Order message " + originalMessage.getMessageId() + " forwarded from " + fromWarehouseId
+                + " to " + toWarehouseId);
+        return orderRouter.send(deriveMessage(originalMessage, toWarehouseId, originalMessage.getQuantity()));
+    }
+    
+    private OrderMessage deriveMessage(OrderMessage original, String toWarehouseId, int quantity) {
+        return new OrderMessage(ids.nextId("MSG"), original.getFromStoreId(), toWarehouseId,
+                original.getItemName(), original.getItemCode(), quantity, original.getExpectedArrivalDate(),
+                LocalDate.now(), false, original.getCorrelationId());
+    }
+    
+    private DeliveryStatus deliverMessage(OrderMessage message) {
+        Warehouse warehouse = warehouses.get(message.getToWarehouseId());
+        if (warehouse == null) return DeliveryStatus.UNKNOWN_TARGET;
+        boolean added = facilityLocks.withWriteLock(FacilityType.WAREHOUSE, warehouse.getWarehouseId(), () -> {
+            if (!warehouse.receiveMessage(message)) return false;
+            journal(REC_RECEIVE_MESSAGE, out -> writeMessage(out, message));
+            return true;
+        });
+        if (!added) return DeliveryStatus.DUPLICATE;
+        logEvent("Order message " + message.getMessageId() + " delivered from " + message.getFromStoreId()
+                + " to " + message.getToWarehouseId());
+        return DeliveryStatus.DELIVERED;
+    }
+    
+    private void logDeadLetter(OrderRouter.DeadLetter letter) {
+        OrderMessage message = letter.message();
+        logEvent("Order message " + message.getMessageId() + " from " + message.getFromStoreId()
+                + " to " + message.getToWarehouseId() + " not delivered: " + letter.status());
+    }
+    
+    public OrderRouter.Stats getOrderRouterStats() {
+        return orderRouter.getStats();
+    }
+    
+    public List<OrderRouter.DeadLetter> getUndeliveredOrderMessages() {
+        return orderRouter.getRecentDeadLetters();
+    }
+    
+    // Returns false if the message is not pending in the warehouse
+    public boolean markOrderProcessed(String warehouseId, String messageId) {
+        Warehouse warehouse = warehouses.get(warehouseId);
+        if (warehouse == null) return false;
+        boolean processed = facilityLocks.withWriteLock(FacilityType.WAREHOUSE, warehouseId,
+                () -> processMessage(warehouse, messageId));
+        if (processed) {
+            logEvent("Order message " + messageId + " processed by " + warehouseId);
+        }
+        return processed;
+    }
+    
+    // Called with the warehouse's write lock held. Once enough processed messages have
+    // built up they are moved to the archive.
+    private boolean processMessage(Warehouse warehouse, String messageId) {
+        if (warehouse.markMessageProcessed(messageId) == null) return false;
+        journal(REC_PROCESS_MESSAGE, out -> {
+            out.writeUTF(warehouse.getWarehouseId());
+            out.writeUTF(messageId);
+        });
+        if (warehouse.getProcessedMessageCount() >= ARCHIVE_EVERY_MESSAGES) {
+            archiveProcessedMessages(warehouse);
+        }
+        return true;
+    }
+    
+    // Ships what the warehouse has of the item, forwards the rest to the warehouses that
+    // stock it and keeps anything still missing as a backorder in this warehouse. The
+    // forwarded and backordered messages keep the requesting store and the original order's
+    // correlation id. An order nothing can be shipped for stays pending unchanged. Returns
+    // the plan, or null if the order is not pending in the warehouse.
+    public FulfillmentPlanner.Plan fulfillOrder(String warehouseId, String messageId) {
+        Warehouse warehouse = warehouses.get(warehouseId);
+        if (warehouse == null) return null;
+        int[] shortfall = new int[1];
+        FulfillmentPlanner.Plan plan = facilityLocks.withWriteLock(FacilityType.WAREHOUSE, warehouseId, () -> {
+            OrderMessage order = warehouse.getMessage(messageId);
+            if (order == null || order.isProcessed()) return null;
+            FulfillmentPlanner.Plan planned = fulfillmentPlanner.plan(order);
+            if (!planned.isActionable()) return planned;
+            if (planned.localQuantity() > 0) {
+                Item item = warehouse.getItem(order.getItemCode());
+                int shipped = 0;
+                while (item != null) {
+                    int current = item.getCurrentInventoryLevel();
+                    shipped = Math.min(planned.localQuantity(), current);
+                    if (item.compareAndSetInventory(current, current - shipped)) break;
+                }
+                shortfall[0] = planned.localQuantity() - shipped;
+                if (shipped > 0) {
+                    journalInventory(FacilityType.WAREHOUSE, warehouseId, List.of(item));
+                }
+            }
+            processMessage(warehouse, messageId);
+            return planned;
+        });
+        if (plan == null || !plan.isActionable()) return plan;
+
+        OrderMessage order = plan.order();
+        for (FulfillmentPlanner.Allocation allocation : plan.forwards()) {
+            orderRouter.send(deriveMessage(order, allocation.warehouseId(), allocation.quantity()));
+        }
+        int backorder = plan.unfilled() + shortfall[0];
+        if (backorder > 0) {
+            orderRouter.send(deriveMessage(order, warehouseId, backorder));
+        }
+        logEvent("Order message " + messageId + " fulfilled by " + warehouseId + ": "
+                + (plan.localQuantity() - shortfall[0]) + " shipped, " + plan.forwardedQuantity()
+                + " forwarded to " + plan.forwards().size() + " warehouses, " + backorder + " backordered");
+        return plan;
+    }
+    
+    // Oldest first; returns one plan per order that was pending
+    public List<FulfillmentPlanner.Plan> fulfillPendingOrders(String warehouseId) {
+        List<FulfillmentPlanner.Plan> plans = new ArrayList<>();
+        for (OrderMessage order : getPendingOrders(warehouseId)) {
+            FulfillmentPlanner.Plan plan = fulfillOrder(warehouseId, order.getMessageId());
+            if (plan != null) plans.add(plan);
+        }
+        return plans;
+    }
+    
+    // Called with the warehouse's write lock held, so no snapshot sees the messages neither
+    // in memory nor archived. A crash before the next snapshot can leave a message both
+    // archived and in the old snapshot, in which case it is archived a second time.
+    private void archiveProcessedMessages(Warehouse warehouse) {
+        List<OrderMessage> processed = warehouse.drainProcessedMessages();
+        try {
+            orderArchive.append(warehouse.getWarehouseId(), processed);
+        } catch (IOException e) {
+            processed.forEach(warehouse::receiveMessage);  // keep them for the next attempt
+            logException(e);
+            return;
+        }
+        logEvent("Archived " + processed.size() + " order messages of " + warehouse.getWarehouseId());
+        snapshotRequested = true;
+        persistence.requestSave();
+    }
+    
+    public List<OrderMessage> getPendingOrders(String warehouseId) {
+        Warehouse warehouse = warehouses.get(warehouseId);
+        return warehouse == null ? new ArrayList<>() : warehouse.getUnprocessedMessages();
+    }
+    
+    public int getPendingOrderCount(String warehouseId) {
+        Warehouse warehouse = warehouses.get(warehouseId);
+        return warehouse == null ? 0 : warehouse.getPendingMessageCount();
+    }
+    
+    // Runs readInbox and lists the archive segments under the warehouse's read lock.
+    // archiveProcessedMessages drains the inbox and writes a segment under the write lock,
+    // so every message is either in what readInbox saw or in the returned segments; the
+    // segments themselves are read after the lock is released.
+    private OrderArchive.Segments archiveView(Warehouse warehouse, Runnable readInbox) throws IOException {
+        Lock lock = facilityLocks.lockFor(FacilityType.WAREHOUSE, warehouse.getWarehouseId()).readLock();
+        lock.lock();
+        try {
+            readInbox.run();
+            return orderArchive.segmentsOf(warehouse.getWarehouseId());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Looks in the inbox first and then in the archive; null if not found
+    public OrderMessage findOrderMessage(String warehouseId, String messageId) throws IOException {
+        Warehouse warehouse = warehouses.get(warehouseId);
+        if (warehouse == null) return null;
+        OrderMessage[] message = new OrderMessage[1];
+        OrderArchive.Segments segments = archiveView(warehouse, () -> message[0] = warehouse.getMessage(messageId));
+        return message[0] != null ? message[0] : segments.find(messageId);
+    }
+    
+    // Full history, archived messages first
+    public List<OrderMessage> getOrderHistoryFromStore(String warehouseId, String storeId) throws IOException {
+        Warehouse warehouse = warehouses.get(warehouseId);
+        if (warehouse == null) return new ArrayList<>();
+        List<OrderMessage> inMemory = new ArrayList<>();
+        OrderArchive.Segments segments = archiveView(warehouse,
+                () -> inMemory.addAll(warehouse.getMessagesFromStore(storeId)));
+        List<OrderMessage> messages = segments.search(message -> Objects.equals(storeId, message.getFromStoreId()));
+        messages.addAll(inMemory);
+        return messages;
+    }
+    
+    public List<OrderMessage> getOrderHistoryForItem(String warehouseId, String itemCode) throws IOException {
+        Warehouse warehouse = warehouses.get(warehouseId);
+        if (warehouse == null) return new ArrayList<>();
+        List<OrderMessage> inMemory = new ArrayList<>();
+        OrderArchive.Segments segments = archiveView(warehouse,
+                () -> inMemory.addAll(warehouse.getMessagesForItem(itemCode)));
+        List<OrderMessage> messages = segments.search(message -> Objects.equals(itemCode, message.getItemCode()));
+        messages.addAll(inMemory);
+        return messages;
+    }
+    
+    private static void writeMessage(DataOutputStream out, OrderMessage message) throws IOException {
+        out.writeUTF(message.getMessageId());
+        writeNullableUTF(out, message.getFromStoreId());
+        writeNullableUTF(out, message.getToWarehouseId());
+        writeNullableUTF(out, message.getItemName());
+        writeNullableUTF(out, message.getItemCode());
+        out.writeInt(message.getQuantity());
+        writeDate(out, message.getExpectedArrivalDate());
+        writeDate(out, message.getSentDate());
+        writeNullableUTF(out, message.isDerived() ? message.getCorrelationId() : null);
+    }
+    
+    private static OrderMessage readMessage(DataInputStream in) throws IOException {
+        String messageId = in.readUTF();
+        String fromStoreId = readNullableUTF(in);
+        String toWarehouseId = readNullableUTF(in);
+        String itemName = readNullableUTF(in);
+        String itemCode = readNullableUTF(in);
+        int quantity = in.readInt();
+        LocalDate expectedArrivalDate = readDate(in);
+        LocalDate sentDate = readDate(in);
+        String correlationId = readNullableUTF(in);
+        return new OrderMessage(messageId, fromStoreId, toWarehouseId, itemName, itemCode, quantity,
+                expectedArrivalDate, sentDate, false, correlationId);
+    }
+    
+    private static void writeNullableUTF(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+    
+    private static String readNullableUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+    
+    // Dates as epoch days, Long.MIN_VALUE for null
+    private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeLong(date != null ? date.toEpochDay() : Long.MIN_VALUE);
+    }
+    
+    private static LocalDate readDate(DataInputStream in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+    
+    // Replay keeps the inbox as it was: a message already in the snapshot is not added
+    // twice, and one already processed or archived stays that way
+    private void applyReceiveMessage(DataInputStream in) throws IOException {
+        OrderMessage message = readMessage(in);
         Warehouse warehouse = warehouses.get(message.getToWarehouseId());
         if (warehouse != null) {
             warehouse.receiveMessage(message);
-            logEvent("Order message sent from " + message.getFromStoreId() + 
-                    " to " + message.getToWarehouseId());
-        }
-    }
-    
-    public void forwardOrderMessage(String fromWarehouseId, String toWarehouseId, 
-                                   OrderMessage originalMessage) {
-        OrderMessage forwardedMessage = new OrderMessage(
-            UUID.randomUUID().toString(),
-            fromWarehouseId,
-            toWarehouseId,
-            originalMessage.getItemName(),
-            originalMessage.getItemCode(),
-            originalMessage.getQuantity(),
-            originalMessage.getExpectedArrivalDate()
-        );
-        Warehouse warehouse = warehouses.get(toWarehouseId);
+        }
+    }
+    
+    private void applyProcessMessage(DataInputStream in) throws IOException {
+        Warehouse warehouse = warehouses.get(in.readUTF());
+        String messageId = in.readUTF();
         if (warehouse != null) {
-            warehouse.receiveMessage(forwardedMessage);
-            logEvent("Order message forwarded from " + fromWarehouseId + 
-                    " to " + toWarehouseId);
+            warehouse.markMessageProcessed(messageId);
         }
     }
     
     // Logging
+    // Events are queued and written by the logger's background thread
     private void logEvent(String event) {
-        try (FileWriter fw = new FileWriter("superstore.log", true);
-             PrintWriter pw = new PrintWriter(fw)) {
-            pw.println(LocalDateTime.now() + " - " + event);
-        } catch (IOException e) {
-            System.err.println("Error writing to log file: " + e.getMessage());
-        }
+        long start = logEventLatency.start();
+        eventLog.log(event);
+        logEventLatency.stop(start);
+        eventsLogged.increment();
     }
     
     public void logException(Exception e) {
-        try (FileWriter fw = new FileWriter("superstore.log", true);
-             PrintWriter pw = new PrintWriter(fw)) {
-            pw.println(LocalDateTime.now() + " - EXCEPTION: " + e.getMessage());
-            e.printStackTrace(pw);
-        } catch (IOException ex) {
-            System.err.println("Error writing exception to log: " + ex.getMessage());
+        eventLog.log("EXCEPTION: " + e.getMessage(), e);
+    }
+    
+    // Makes every change so far durable and saves a full snapshot
+    public void flush() {
+        orderRouter.awaitIdle(5, TimeUnit.SECONDS);
+        persistence.flush();
+        saveData();
+    }
+    
+    // Delivers queued order messages, flushes the data and writes out any queued log events
+    // before the application exits
+    public void shutdown() {
+        replenishment.close();
+        orderRouter.close();
+        flush();
+        persistence.close();
+        MetricsHttpEndpoint endpoint = metricsEndpoint;
+        if (endpoint != null) endpoint.close();
+        MetricsExporter exporter = metricsExporter;
+        if (exporter != null) {
+            exporter.close();
+            try {
+                exporter.write();  // final values
+            } catch (IOException e) {
+                logException(e);
+            }
         }
+        eventLog.close();
     }
     
     // Data Persistence
+    // Mutations are appended to the journal on the calling thread; the persistence service
+    // then forces them to disk in the background, one fsync per burst, and compacts the
+    // journal into a fresh snapshot once it has grown. loadData() reads the snapshot and
+    // replays the journal tail.
+    private void journal(byte type, Journal.PayloadWriter writer) {
+        if (journal == null) {
+            snapshotRequested = true;  // Journal unavailable: fall back to a full snapshot
+        } else {
+            long start = journalAppendLatency.start();
+            try {
+                journal.append(type, writer);
+                journalAppendLatency.stop(start);
+            } catch (IOException e) {
+                logException(e);
+                snapshotRequested = true;
+            }
+        }
+        persistence.requestSave();
+    }
+
+    private void persistPending() throws IOException {
+        if (journal != null) {
+            long start = journalCommitLatency.start();
+            journal.commit(journal.getLastSeq());
+            journalCommitLatency.stop(start);
+        }
+        if (journal == null || snapshotRequested || journal.getSizeBytes() >= snapshotThresholdBytes()) {
+            saveData();
+        }
+    }
+
+    private long snapshotThresholdBytes() {
+        return Math.max(SNAPSHOT_JOURNAL_MIN_BYTES, (long) (snapshotBytes * SNAPSHOT_JOURNAL_RATIO));
+    }
+
+    private static long snapshotBytes(Path snapshotPath, Path catalogPath) throws IOException {
+        return Files.size(snapshotPath) + (catalogPath != null ? Files.size(catalogPath) : 0);
+    }
+
+    private void applyRecord(long seq, byte type, DataInputStream in) throws IOException {
+        switch (type) {
+            case REC_CREATE_WAREHOUSE -> applyCreateWarehouse(in.readUTF(), in.readUTF());
+            case REC_CREATE_STORE -> applyCreateStore(in.readUTF(), in.readUTF(), in.readUTF());
+            case REC_CREATE_USER -> {
+                users.add(readUser(in));
+            }
+            case REC_DELETE_USER -> users.remove(in.readUTF());
+            case REC_SET_INVENTORY -> applySetInventory(in);
+            case REC_RECEIVE_MESSAGE -> applyReceiveMessage(in);
+            case REC_PROCESS_MESSAGE -> applyProcessMessage(in);
+            default -> throw new IOException("Unknown journal record type " + type + " at seq " + seq);
+        }
+    }
+
+    private static void writeUser(DataOutputStream out, User user) throws IOException {
+        out.writeUTF(user.getUserType().name());
+        out.writeUTF(user.getUserId());
+        out.writeUTF(user.getUsername());
+        out.writeUTF(user.getPassword());
+        List<String> categories = List.of();
+        String facilityId = "";
+        if (user instanceof Administrator admin) {
+            facilityId = admin.getFacilityId();
+            categories = admin.getAssignedCategories();
+        } else if (user instanceof Keeper keeper) {
+            facilityId = keeper.getFacilityId();
+            categories = keeper.getAssignedCategories();
+        }
+        out.writeUTF(facilityId);
+        out.writeInt(categories.size());
+        for (String categoryId : categories) {
+            out.writeUTF(categoryId);
+        }
+    }
+
+    private static User readUser(DataInputStream in) throws IOException {
+        User.UserType type = User.UserType.valueOf(in.readUTF());
+        String userId = in.readUTF();
+        String username = in.readUTF();
+        String password = in.readUTF();
+        String facilityId = in.readUTF();
+        User user = switch (type) {
+            case SUPER_USER -> new SuperUser(userId, username, password);
+            case WAREHOUSE_ADMIN -> new WarehouseAdministrator(userId, username, password, facilityId);
+            case STORE_ADMIN -> new StoreAdministrator(userId, username, password, facilityId);
+            case WAREHOUSE_KEEPER -> new WarehouseKeeper(userId, username, password, facilityId);
+            case STOREKEEPER -> new Storekeeper(userId, username, password, facilityId);
+            case END_USER -> new EndUser();
+        };
+        int categoryCount = in.readInt();
+        for (int i = 0; i < categoryCount; i++) {
+            String categoryId = in.readUTF();
+            if (user instanceof Administrator admin) admin.assignCategory(categoryId);
+            else if (user instanceof Keeper keeper) keeper.assignCategory(categoryId);
+        }
+        return user;
+    }
+
+    // The maps are copied under the system lock, so mutations only wait for the copy
+    // and not for the snapshot to be encoded and written.
     public void saveData() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new FileOutputStream("superstore_data.dat"))) {
-            oos.writeObject(warehouses);
-            oos.writeObject(stores);
-            oos.writeObject(users);
-            logEvent("Data saved successfully");
+        synchronized (snapshotLock) {
+            long start = saveLatency.start();
+            Snapshot snapshot;
+            synchronized (this) {
+                snapshotRequested = false;
+                snapshot = new Snapshot(new HashMap<>(warehouses), new HashMap<>(stores),
+                        users.asMap(), journal != null ? journal.getLastSeq() : 0L);
+            }
+            try {
+                writeSnapshot(snapshot);
+                if (journal != null) {
+                    journal.compact(snapshot.journalSeq());
+                }
+                logEvent("Data saved successfully");
+                saveLatency.stop(start);
+            } catch (IOException | RuntimeException e) {
+                snapshotRequested = true;
+                saveFailures.increment();
+                logException(e);
+            }
+        }
+    }
+
+    // Writes a new catalog generation, then atomically switches the snapshot over to it.
+    // Older catalogs may still be mapped by lazy subcategories, so they are never rewritten.
+    private void writeSnapshot(Snapshot snapshot) throws IOException {
+        Path snapshotPath = DATA_DIR.resolve(SNAPSHOT_FILE);
+        Path tempPath = DATA_DIR.resolve(SNAPSHOT_FILE + ".tmp");
+        long generation = System.currentTimeMillis();
+        while (Files.exists(DATA_DIR.resolve(CATALOG_PREFIX + generation + CATALOG_SUFFIX))) {
+            generation++;
+        }
+        String catalogName = CATALOG_PREFIX + generation + CATALOG_SUFFIX;
+
+        try (CatalogWriter catalog = new CatalogWriter(DATA_DIR.resolve(catalogName));
+             FileOutputStream out = new FileOutputStream(tempPath.toFile())) {
+            new SnapshotEncoder(out, catalog, catalogName, facilityLocks).write(snapshot);
+            catalog.finish();
+            out.getFD().sync();
+        }
+        Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        snapshotBytes = snapshotBytes(snapshotPath, DATA_DIR.resolve(catalogName));
+        deleteOldCatalogs(catalogName);
+    }
+
+    // Deletes every catalog generation but the current one. On POSIX systems the mappings
+    // of a deleted file stay valid; on Windows a catalog that lazy subcategories still map
+    // cannot be deleted, so each file is tried on its own and whatever is left over is
+    // tried again after the next save and on the next start.
+    private void deleteOldCatalogs(String currentCatalog) {
+        List<Path> old = new ArrayList<>();
+        try (DirectoryStream<Path> catalogs = Files.newDirectoryStream(
+                DATA_DIR, CATALOG_PREFIX + "*" + CATALOG_SUFFIX)) {
+            for (Path catalog : catalogs) {
+                if (!catalog.getFileName().toString().equals(currentCatalog)) old.add(catalog);
+            }
         } catch (IOException e) {
             logException(e);
+            return;
+        }
+        for (Path catalog : old) {
+            try {
+                Files.deleteIfExists(catalog);
+            } catch (IOException e) {
+                logEvent("Could not delete old catalog " + catalog.getFileName() + ", will retry: " + e);
+            }
         }
     }
 
-    @SuppressWarnings("unchecked")
-    public void loadData() {
-        File dataFile = new File("superstore_data.dat");
-        if (!dataFile.exists()) {
-            logEvent("No saved data found. Starting with fresh system.");
-            return; // Empty collections already initialized
-        }
-        
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(dataFile))) {
-            this.warehouses = (Map<String, Warehouse>) ois.readObject();
-            this.stores = (Map<String, Store>) ois.readObject();
-            this.users = (Map<String, User>) ois.readObject();
-            
-            // ✅ Ensure superUser is always available after load
-            if (!users.containsKey(superUser.getUserId())) {
-                users.put(superUser.getUserId(), superUser);
-            }
-            
-            logEvent("Data loaded successfully.");
-        } catch (Exception e) {
+    public synchronized void loadData() {
+        long start = loadLatency.start();
+        Snapshot snapshot = null;
+        try {
+            migrateLegacyData();
+            Path snapshotPath = DATA_DIR.resolve(SNAPSHOT_FILE);
+            if (Files.exists(snapshotPath)) {
+                snapshot = SnapshotDecoder.read(snapshotPath);
+                Path catalogPath = SnapshotDecoder.catalogOf(snapshotPath);
+                snapshotBytes = snapshotBytes(snapshotPath, catalogPath);
+                // Generations a save could not delete; none of them is mapped yet
+                deleteOldCatalogs(catalogPath != null ? catalogPath.getFileName().toString() : null);
+                logEvent("Data loaded successfully.");
+            } else {
+                logEvent("No saved data found. Starting with fresh system.");
+            }
+        } catch (IOException e) {
             logEvent("Failed to load data: " + e.getMessage());
-            // Reset to empty on load failure
-            warehouses.clear();
-            stores.clear();
+        }
+
+        warehouses.clear();
+        stores.clear();
+        if (snapshot != null) {
+            warehouses.putAll(snapshot.warehouses());
+            stores.putAll(snapshot.stores());
+            users.rebuild(snapshot.users().values());
+        } else {
+            // Reset to empty when there is nothing (valid) to load
             users.clear();
-            users.put(superUser.getUserId(), superUser); // Keep superuser
         }
+        itemLocator.clear();
+        warehouses.values().forEach(itemLocator::register);
+        stores.values().forEach(itemLocator::register);
+
+        replayJournal(snapshot != null ? snapshot.journalSeq() : 0L);
+
+        // ✅ Ensure superUser is always available after load
+        if (!users.contains(superUser.getUserId())) {
+            users.add(superUser);
+        }
+        loadLatency.stop(start);
     }
-}
 
+    // Converts a Java-serialized data file from older versions into a binary snapshot
+    private void migrateLegacyData() throws IOException {
+        Path legacyPath = DATA_DIR.resolve(LEGACY_DATA_FILE);
+        if (!Files.exists(legacyPath)) return;
+        if (!Files.exists(DATA_DIR.resolve(SNAPSHOT_FILE))) {
+            writeSnapshot(LegacySnapshotReader.read(legacyPath));
+            logEvent("Migrated " + LEGACY_DATA_FILE + " to " + SNAPSHOT_FILE);
+        }
+        Files.move(legacyPath, DATA_DIR.resolve(LEGACY_DATA_FILE + ".migrated"),
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void replayJournal(long snapshotSeq) {
+        try {
+            if (journal == null) {
+                journal = new Journal(DATA_DIR.resolve(JOURNAL_FILE));
+            }
+            int replayed = journal.replay(snapshotSeq, this::applyRecord);
+            journal.advanceTo(snapshotSeq);
+            if (replayed > 0) {
+                logEvent("Replayed " + replayed + " journal records");
+            }
+        } catch (IOException e) {
+            logException(e);
+        }
+    }
+}
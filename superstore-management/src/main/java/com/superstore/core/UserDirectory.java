@@ -0,0 +1,134 @@
+package com.superstore.core;
+
+import com.superstore.user.Administrator;
+import com.superstore.user.Keeper;
+import com.superstore.user.User;
+
+import java.util.*;
+
+/**
+ * Users by id plus secondary indexes on username, user type and facility. All indexes
+ * are updated together by add/remove, so logins and facility queries are hash lookups
+ * and cost nothing proportional to the number of accounts. The directory is shared
+ * between the UI and background threads, so every method holds its monitor.
+ */
+public class UserDirectory {
+    private final Map<String, User> usersById = new HashMap<>();
+    // Usernames are not guaranteed unique, so each name keeps every account using it
+    private final Map<String, List<User>> usersByUsername = new HashMap<>();
+    private final Map<User.UserType, Map<String, User>> usersByType = new EnumMap<>(User.UserType.class);
+    private final Map<User.UserType, Map<String, Map<String, User>>> usersByFacility =
+            new EnumMap<>(User.UserType.class);
+
+    public static String facilityOf(User user) {
+        if (user instanceof Administrator admin) return admin.getFacilityId();
+        if (user instanceof Keeper keeper) return keeper.getFacilityId();
+        return null;
+    }
+
+    public synchronized void add(User user) {
+        remove(user.getUserId());
+        usersById.put(user.getUserId(), user);
+        usersByUsername.computeIfAbsent(user.getUsername(), name -> new ArrayList<>(1)).add(user);
+        usersByType.computeIfAbsent(user.getUserType(), type -> new LinkedHashMap<>())
+                .put(user.getUserId(), user);
+        String facilityId = facilityOf(user);
+        if (facilityId != null) {
+            usersByFacility.computeIfAbsent(user.getUserType(), type -> new HashMap<>())
+                    .computeIfAbsent(facilityId, id -> new LinkedHashMap<>())
+                    .put(user.getUserId(), user);
+        }
+    }
+
+    public synchronized User remove(String userId) {
+        User user = usersById.remove(userId);
+        if (user == null) return null;
+
+        List<User> named = usersByUsername.get(user.getUsername());
+        if (named != null) {
+            named.remove(user);
+            if (named.isEmpty()) usersByUsername.remove(user.getUsername());
+        }
+        Map<String, User> ofType = usersByType.get(user.getUserType());
+        if (ofType != null) ofType.remove(userId);
+        String facilityId = facilityOf(user);
+        if (facilityId != null) {
+            Map<String, Map<String, User>> facilities = usersByFacility.get(user.getUserType());
+            Map<String, User> atFacility = facilities != null ? facilities.get(facilityId) : null;
+            if (atFacility != null) {
+                atFacility.remove(userId);
+                if (atFacility.isEmpty()) facilities.remove(facilityId);
+            }
+        }
+        return user;
+    }
+
+    public synchronized void clear() {
+        usersById.clear();
+        usersByUsername.clear();
+        usersByType.clear();
+        usersByFacility.clear();
+    }
+
+    public synchronized void rebuild(Collection<User> users) {
+        clear();
+        for (User user : users) {
+            add(user);
+        }
+    }
+
+    public synchronized User get(String userId) {
+        return usersById.get(userId);
+    }
+
+    public synchronized boolean contains(String userId) {
+        return usersById.containsKey(userId);
+    }
+
+    public synchronized int size() {
+        return usersById.size();
+    }
+
+    public synchronized List<User> getAll() {
+        return new ArrayList<>(usersById.values());
+    }
+
+    // Copy keyed by user id, as stored in snapshots
+    public synchronized Map<String, User> asMap() {
+        return new HashMap<>(usersById);
+    }
+
+    public synchronized User authenticate(String username, String password) {
+        List<User> named = usersByUsername.get(username);
+        if (named == null) return null;
+        for (User user : named) {
+            if (user.authenticate(username, password)) return user;
+        }
+        return null;
+    }
+
+    public synchronized List<User> getByUsername(String username) {
+        List<User> named = usersByUsername.get(username);
+        return named == null ? new ArrayList<>() : new ArrayList<>(named);
+    }
+
+    public synchronized List<User> getByType(User.UserType type) {
+        Map<String, User> ofType = usersByType.get(type);
+        return ofType == null ? new ArrayList<>() : new ArrayList<>(ofType.values());
+    }
+
+    public synchronized List<User> getByFacility(User.UserType type, String facilityId) {
+        Map<String, Map<String, User>> facilities = usersByFacility.get(type);
+        Map<String, User> atFacility = facilities != null ? facilities.get(facilityId) : null;
+        return atFacility == null ? new ArrayList<>() : new ArrayList<>(atFacility.values());
+    }
+
+    public synchronized List<User> getByFacility(String facilityId) {
+        List<User> result = new ArrayList<>();
+        for (Map<String, Map<String, User>> facilities : usersByFacility.values()) {
+            Map<String, User> atFacility = facilities.get(facilityId);
+            if (atFacility != null) result.addAll(atFacility.values());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package com.superstore.domain;
+
+import com.superstore.domain.ItemLocation.FacilityType;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Read/write locks for warehouses and stores, striped by facility so a fixed set of locks
+ * covers any number of facilities. Stock movements take their facility's write lock;
+ * snapshot writers and whole-facility queries take the read lock. Readers of one facility
+ * run together, and work on different facilities only meets when two facilities happen
+ * to share a stripe.
+ *
+ * Facility locks are taken before any catalog or index monitor, and a thread holds at
+ * most one facility lock at a time.
+ */
+public class FacilityLockManager {
+
+    private final ReentrantReadWriteLock[] stripes;
+    private final int mask;
+
+    public FacilityLockManager() {
+        this(64);
+    }
+
+    public FacilityLockManager(int stripeCount) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        stripes = new ReentrantReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+        mask = size - 1;
+    }
+
+    public ReadWriteLock lockFor(FacilityType facilityType, String facilityId) {
+        int hash = facilityId.hashCode() * 31 + facilityType.ordinal();
+        hash ^= hash >>> 16;
+        return stripes[hash & mask];
+    }
+
+    public <T> T withReadLock(FacilityType facilityType, String facilityId, Supplier<T> action) {
+        ReadWriteLock lock = lockFor(facilityType, facilityId);
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public <T> T withWriteLock(FacilityType facilityType, String facilityId, Supplier<T> action) {
+        ReadWriteLock lock = lockFor(facilityType, facilityId);
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+}
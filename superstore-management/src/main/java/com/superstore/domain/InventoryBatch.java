@@ -0,0 +1,122 @@
+package com.superstore.domain;
+
+import com.superstore.domain.InventoryBatchResult.LineStatus;
+import com.superstore.model.Item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Stock movements for one facility that are applied as a unit, such as a received pallet:
+ * (itemCode, delta) lines in the order they were added. Lines are held in parallel arrays,
+ * so a batch of thousands of lines costs a few array copies rather than an object per line.
+ * Apply it with {@link Store#applyInventoryBatch} or {@link Warehouse#applyInventoryBatch}.
+ */
+public class InventoryBatch {
+    private String[] itemCodes;
+    private int[] deltas;
+    private int size;
+
+    public InventoryBatch() {
+        this(16);
+    }
+
+    public InventoryBatch(int expectedLines) {
+        int capacity = Math.max(1, expectedLines);
+        itemCodes = new String[capacity];
+        deltas = new int[capacity];
+    }
+
+    public InventoryBatch add(String itemCode, int delta) {
+        if (size == itemCodes.length) {
+            itemCodes = Arrays.copyOf(itemCodes, size * 2);
+            deltas = Arrays.copyOf(deltas, size * 2);
+        }
+        itemCodes[size] = itemCode;
+        deltas[size] = delta;
+        size++;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getItemCode(int line) {
+        return itemCodes[line];
+    }
+
+    public int getDelta(int line) {
+        return deltas[line];
+    }
+
+    // Checks every line in order against a running level per item, so an item may not dip
+    // below zero part way through the batch. Only when every line passes is the net
+    // movement of each item applied, with one inventory update per item.
+    InventoryBatchResult apply(Function<String, Item> lookup) {
+        LineStatus[] statuses = new LineStatus[size];
+        int[] levels = new int[size];
+        Map<String, Integer> slotsByCode = new HashMap<>();
+        Item[] items = new Item[Math.min(size, 16)];
+        long[] startLevels = new long[items.length];
+        long[] runningLevels = new long[items.length];
+        int itemCount = 0;
+        int rejected = 0;
+
+        for (int line = 0; line < size; line++) {
+            String code = itemCodes[line];
+            Integer slot = slotsByCode.get(code);
+            if (slot == null) {
+                Item item = code == null ? null : lookup.apply(code);
+                if (item == null) {
+                    statuses[line] = LineStatus.UNKNOWN_ITEM;
+                    levels[line] = -1;
+                    rejected++;
+                    continue;
+                }
+                if (itemCount == items.length) {
+                    items = Arrays.copyOf(items, itemCount * 2);
+                    startLevels = Arrays.copyOf(startLevels, itemCount * 2);
+                    runningLevels = Arrays.copyOf(runningLevels, itemCount * 2);
+                }
+                slot = itemCount++;
+                items[slot] = item;
+                startLevels[slot] = item.getCurrentInventoryLevel();
+                runningLevels[slot] = startLevels[slot];
+                slotsByCode.put(code, slot);
+            }
+            long level = runningLevels[slot] + deltas[line];
+            if (level < 0) {
+                statuses[line] = LineStatus.INSUFFICIENT_STOCK;
+                rejected++;
+            } else if (level > Integer.MAX_VALUE) {
+                statuses[line] = LineStatus.OUT_OF_RANGE;
+                rejected++;
+            } else {
+                statuses[line] = LineStatus.APPLIED;
+                runningLevels[slot] = level;
+            }
+            levels[line] = (int) runningLevels[slot];
+        }
+
+        List<Item> changed = new ArrayList<>();
+        if (rejected == 0) {
+            for (int slot = 0; slot < itemCount; slot++) {
+                long net = runningLevels[slot] - startLevels[slot];
+                if (net != 0) {
+                    items[slot].addInventory((int) net);
+                    changed.add(items[slot]);
+                }
+            }
+        } else {
+            for (int line = 0; line < size; line++) {
+                if (statuses[line] == LineStatus.APPLIED) statuses[line] = LineStatus.NOT_APPLIED;
+            }
+        }
+        return new InventoryBatchResult(Arrays.copyOf(itemCodes, size), statuses, levels, rejected, changed);
+    }
+}
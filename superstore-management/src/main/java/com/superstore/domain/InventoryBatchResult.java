@@ -0,0 +1,65 @@
+package com.superstore.domain;
+
+import com.superstore.model.Item;
+
+import java.util.List;
+
+/**
+ * Outcome of an {@link InventoryBatch}. The batch is applied only when every line is valid;
+ * otherwise nothing changes and the offending lines say why.
+ */
+public class InventoryBatchResult {
+
+    public enum LineStatus {
+        APPLIED,            // the line's movement is part of the applied batch
+        NOT_APPLIED,        // the line was valid, but another line rejected the batch
+        UNKNOWN_ITEM,       // the facility has no item with this code
+        INSUFFICIENT_STOCK, // the line would take the item below zero
+        OUT_OF_RANGE        // the line would take the item past Integer.MAX_VALUE
+    }
+
+    private final String[] itemCodes;
+    private final LineStatus[] statuses;
+    private final int[] levels;
+    private final int rejectedCount;
+    private final List<Item> changedItems;
+
+    InventoryBatchResult(String[] itemCodes, LineStatus[] statuses, int[] levels, int rejectedCount,
+                         List<Item> changedItems) {
+        this.itemCodes = itemCodes;
+        this.statuses = statuses;
+        this.levels = levels;
+        this.rejectedCount = rejectedCount;
+        this.changedItems = changedItems;
+    }
+
+    public boolean isApplied() {
+        return rejectedCount == 0;
+    }
+
+    public int size() {
+        return statuses.length;
+    }
+
+    public String getItemCode(int line) {
+        return itemCodes[line];
+    }
+
+    public LineStatus getStatus(int line) {
+        return statuses[line];
+    }
+
+    // The item's level after this line (or before it, for a rejected line); -1 for unknown items
+    public int getResultingLevel(int line) {
+        return levels[line];
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    // Items whose level the applied batch changed; empty when the batch was rejected
+    public List<Item> getChangedItems() {
+        return List.copyOf(changedItems);
+    }
+}
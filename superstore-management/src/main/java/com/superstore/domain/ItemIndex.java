@@ -0,0 +1,169 @@
+package com.superstore.domain;
+
+import com.superstore.metrics.LatencyHistogram;
+import com.superstore.metrics.Metrics;
+import com.superstore.model.CatalogListener;
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * itemCode index of one facility. It listens to every category of the facility, so
+ * additions and removals anywhere in the tree keep it current, and passes the same
+ * events on to listeners registered on the facility. Subcategories whose items are
+ * still in the catalog file are remembered and probed on a miss; probing materializes
+ * the subcategory holding the code, which then reports its items like any other.
+ * Inventory, reorder point and description changes of indexed items are passed on as well.
+ *
+ * Lock order is facility, category, subcategory, this index, then the listeners. Events
+ * arrive with the subcategory lock held, so the index never calls into a category or
+ * subcategory while holding its own lock.
+ */
+class ItemIndex implements CatalogListener {
+    private static final Metrics.Counter LOOKUPS = Metrics.global().counter(
+            "superstore_item_lookups_total", "Item lookups by code in stores and warehouses");
+    private static final Metrics.Counter LOOKUP_MISSES = Metrics.global().counter(
+            "superstore_item_lookup_misses_total", "Item lookups by code that found no item");
+    private static final LatencyHistogram LOOKUP_LATENCY = Metrics.global().histogram(
+            "superstore_item_lookup_seconds", "Item lookup by code, 1 in 64 lookups timed", 64);
+
+    private final Map<String, Item> itemsByCode = new HashMap<>();
+    private final Map<String, Subcategory> subcategoriesByCode = new HashMap<>();
+    private final List<Subcategory> deferredSubcategories = new ArrayList<>();
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+
+    void attach(Category category) {
+        category.setCatalogListener(this);
+        List<Subcategory> deferred = new ArrayList<>();
+        for (Subcategory subcategory : category.getAllSubcategories()) {
+            if (!subcategory.isMaterialized()) {
+                deferred.add(subcategory);
+            }
+        }
+        synchronized (this) {
+            deferredSubcategories.addAll(deferred);
+        }
+    }
+
+    void detach(Category category) {
+        category.setCatalogListener(null);
+        synchronized (this) {
+            deferredSubcategories.removeIf(subcategory ->
+                    category.getSubcategory(subcategory.getSubcategoryId()) == subcategory);
+        }
+    }
+
+    Item getItem(String itemCode) {
+        long start = LOOKUP_LATENCY.start();
+        Item item = lookup(itemCode);
+        LOOKUP_LATENCY.stop(start);
+        LOOKUPS.increment();
+        if (item == null) LOOKUP_MISSES.increment();
+        return item;
+    }
+
+    private Item lookup(String itemCode) {
+        List<Subcategory> deferred;
+        synchronized (this) {
+            Item item = itemsByCode.get(itemCode);
+            if (item != null || deferredSubcategories.isEmpty()) return item;
+            deferredSubcategories.removeIf(Subcategory::isMaterialized);
+            deferred = new ArrayList<>(deferredSubcategories);
+        }
+        for (Subcategory subcategory : deferred) {
+            if (subcategory.getItem(itemCode) != null) {
+                synchronized (this) {
+                    deferredSubcategories.remove(subcategory);
+                    return itemsByCode.get(itemCode);
+                }
+            }
+        }
+        return null;
+    }
+
+    Subcategory getSubcategoryOf(String itemCode) {
+        if (lookup(itemCode) == null) return null;
+        synchronized (this) {
+            return subcategoriesByCode.get(itemCode);
+        }
+    }
+
+    // Full scans need every item, so they read the remaining subcategories from the catalog
+    void loadDeferredItems() {
+        List<Subcategory> deferred;
+        synchronized (this) {
+            if (deferredSubcategories.isEmpty()) return;
+            deferred = new ArrayList<>(deferredSubcategories);
+        }
+        for (Subcategory subcategory : deferred) {
+            subcategory.getAllItems();
+        }
+        synchronized (this) {
+            deferredSubcategories.removeAll(deferred);
+        }
+    }
+
+    synchronized boolean hasDeferredItems() {
+        deferredSubcategories.removeIf(Subcategory::isMaterialized);
+        return !deferredSubcategories.isEmpty();
+    }
+
+    // A new listener is first told about every item already indexed
+    synchronized void addListener(CatalogListener listener) {
+        listeners.add(listener);
+        for (Map.Entry<String, Item> entry : itemsByCode.entrySet()) {
+            listener.itemAdded(subcategoriesByCode.get(entry.getKey()), entry.getValue());
+        }
+    }
+
+    synchronized void removeListener(CatalogListener listener) {
+        if (!listeners.remove(listener)) return;
+        for (Map.Entry<String, Item> entry : itemsByCode.entrySet()) {
+            listener.itemRemoved(subcategoriesByCode.get(entry.getKey()), entry.getValue());
+        }
+    }
+
+    @Override
+    public synchronized void itemAdded(Subcategory subcategory, Item item) {
+        Item previous = itemsByCode.put(item.getItemCode(), item);
+        Subcategory previousSubcategory = subcategoriesByCode.put(item.getItemCode(), subcategory);
+        for (CatalogListener listener : listeners) {
+            if (previous != null && previous != item) listener.itemRemoved(previousSubcategory, previous);
+            listener.itemAdded(subcategory, item);
+        }
+    }
+
+    @Override
+    public synchronized void itemRemoved(Subcategory subcategory, Item item) {
+        // The code may meanwhile belong to an item in another subcategory
+        if (!itemsByCode.remove(item.getItemCode(), item)) return;
+        subcategoriesByCode.remove(item.getItemCode());
+        for (CatalogListener listener : listeners) {
+            listener.itemRemoved(subcategory, item);
+        }
+    }
+
+    @Override
+    public synchronized void inventoryChanged(Item item, int previousLevel, int newLevel) {
+        for (CatalogListener listener : listeners) {
+            listener.inventoryChanged(item, previousLevel, newLevel);
+        }
+    }
+
+    @Override
+    public synchronized void reorderPointChanged(Item item) {
+        for (CatalogListener listener : listeners) {
+            listener.reorderPointChanged(item);
+        }
+    }
+
+    @Override
+    public synchronized void descriptionChanged(Item item) {
+        for (CatalogListener listener : listeners) {
+            listener.descriptionChanged(item);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.superstore.domain;
+
+import com.superstore.model.Item;
+
+/**
+ * Where an item is stocked: the facility holding it and the category and subcategory it is filed under.
+ */
+public record ItemLocation(FacilityType facilityType, String facilityId,
+                           String categoryId, String subcategoryId, Item item) {
+
+    public enum FacilityType {
+        WAREHOUSE, STORE
+    }
+
+    public String getItemCode() {
+        return item.getItemCode();
+    }
+}
@@ -0,0 +1,660 @@
+package com.superstore.domain;
+
+import com.superstore.metrics.LatencyHistogram;
+import com.superstore.metrics.Metrics;
+import com.superstore.model.CatalogListener;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Full-text index over the names and descriptions of a store's items. Text is split into
+ * runs of letters and digits, lower-cased and stripped of accents. Every term keeps a
+ * posting list of the items holding it per field, and every item keeps its own term list,
+ * which is what a query uses to score a candidate. Item codes are left to the store's
+ * code index.
+ *
+ * A query word matches a term exactly, as a prefix, or, for words of four letters or
+ * more, within one edit (two from eight letters; a swap of neighbours counts as one). An
+ * item must match every word of the query; its score adds up the best match of each word,
+ * weighted by kind and by field. Results come best first, and items with the same score
+ * in the order they were indexed.
+ *
+ * Items get increasing ordinals that are never reused, so posting lists stay sorted
+ * without ever inserting into the middle. A removed item leaves stale postings behind,
+ * and an item whose description changes is re-added under a new ordinal; once stale
+ * ordinals outnumber live ones, the index renumbers the items and drops dead terms.
+ *
+ * Queries walk the postings of the most selective word, one match kind and field at a
+ * time from the highest weight down, in ordinal order, and stop as soon as no remaining
+ * candidate can displace the results found so far. A query for a common word therefore
+ * reads a page of postings, not all of them. Prefixes are expanded to at most
+ * {@value #PREFIX_EXPANSIONS} terms, in term order.
+ */
+class ItemSearchIndex implements CatalogListener {
+    private static final LatencyHistogram SEARCH_LATENCY = Metrics.global().histogram(
+            "superstore_item_search_seconds", "Full-text item searches");
+
+    static final int PREFIX_EXPANSIONS = 128;
+    private static final int FUZZY_MIN_LENGTH = 4;
+    private static final int FUZZY_TWO_EDITS_LENGTH = 8;
+    private static final int COMPACT_MIN_STALE = 4096;
+    private static final int MERGE_MIN_TERMS = 4096;
+
+    static final int DESCRIPTION = 0;
+    static final int NAME = 1;
+    static final int EXACT = 0;
+    static final int PREFIX = 1;
+    static final int FUZZY = 2;
+    static final int[][] WEIGHTS = {
+            {6, 16},  // EXACT: description, name
+            {3, 8},   // PREFIX
+            {2, 4},   // FUZZY
+    };
+    // Kind and field of each weight, highest first; every weight is distinct
+    private static final int[][] TIERS = {
+            {EXACT, NAME}, {PREFIX, NAME}, {EXACT, DESCRIPTION},
+            {FUZZY, NAME}, {PREFIX, DESCRIPTION}, {FUZZY, DESCRIPTION}
+    };
+    private static final int[] EMPTY = new int[0];
+
+    private static final class Term {
+        final String text;
+        int id;
+        // Ordinals holding the term, ascending, per field; may include stale ordinals
+        int[] descriptionPostings = EMPTY;
+        int[] namePostings = EMPTY;
+        int descriptionCount;
+        int nameCount;
+        // Live items holding the term, per field
+        int descriptionLive;
+        int nameLive;
+
+        Term(String text, int id) {
+            this.text = text;
+            this.id = id;
+        }
+
+        int[] postings(int field) {
+            return field == NAME ? namePostings : descriptionPostings;
+        }
+
+        int count(int field) {
+            return field == NAME ? nameCount : descriptionCount;
+        }
+
+        int live(int field) {
+            return field == NAME ? nameLive : descriptionLive;
+        }
+
+        void addLive(int field, int delta) {
+            if (field == NAME) nameLive += delta; else descriptionLive += delta;
+        }
+
+        void append(int field, int ordinal) {
+            int[] list = postings(field);
+            int count = count(field);
+            if (count == list.length) {
+                list = Arrays.copyOf(list, count == 0 ? 1 : count * 2);
+                if (field == NAME) namePostings = list; else descriptionPostings = list;
+            }
+            list[count] = ordinal;
+            if (field == NAME) nameCount++; else descriptionCount++;
+        }
+
+        void clearPostings() {
+            nameCount = 0;
+            descriptionCount = 0;
+        }
+
+        boolean isLive() {
+            return nameLive + descriptionLive > 0;
+        }
+    }
+
+    private final Map<String, Term> terms = new HashMap<>();
+    // Terms in text order for prefix matches: a sorted array, and the terms created since
+    // it was last rebuilt, merged into it once they are a quarter of its size
+    private Term[] sortedTerms = new Term[0];
+    private final NavigableMap<String, Term> recentTerms = new TreeMap<>();
+    private Term[] termsById = new Term[64];
+    private int termCount;
+    // Terms without digits by length, the candidates for fuzzy matches
+    private final List<List<Term>> wordsByLength = new ArrayList<>();
+
+    private final Map<Item, Integer> ordinals = new IdentityHashMap<>();
+    private Item[] itemsByOrdinal = new Item[64];
+    // (termId << 1) | field of every term of the item
+    private int[][] tokensByOrdinal = new int[64][];
+    private int nextOrdinal;
+    // Counts changes, so saved Matches can tell whether they are still current
+    private long version;
+
+    synchronized int size() {
+        return ordinals.size();
+    }
+
+    // Lower-cased runs of letters and digits, accents removed
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean inWord = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static String fold(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+                return decomposed.replaceAll("\\p{M}+", "").toLowerCase(Locale.ROOT);
+            }
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public synchronized void itemAdded(Subcategory subcategory, Item item) {
+        if (!ordinals.containsKey(item)) add(item);
+    }
+
+    @Override
+    public synchronized void itemRemoved(Subcategory subcategory, Item item) {
+        remove(item);
+    }
+
+    @Override
+    public synchronized void descriptionChanged(Item item) {
+        if (remove(item)) add(item);
+    }
+
+    private void add(Item item) {
+        version++;
+        int ordinal = nextOrdinal++;
+        if (ordinal == itemsByOrdinal.length) {
+            itemsByOrdinal = Arrays.copyOf(itemsByOrdinal, ordinal * 2);
+            tokensByOrdinal = Arrays.copyOf(tokensByOrdinal, ordinal * 2);
+        }
+        List<String> name = tokenize(item.getItemName());
+        List<String> description = tokenize(item.getDescription());
+        int[] tokens = new int[name.size() + description.size()];
+        int n = 0;
+        for (String text : name) {
+            n = post(text, NAME, ordinal, tokens, n);
+        }
+        for (String text : description) {
+            n = post(text, DESCRIPTION, ordinal, tokens, n);
+        }
+        itemsByOrdinal[ordinal] = item;
+        tokensByOrdinal[ordinal] = n == tokens.length ? tokens : Arrays.copyOf(tokens, n);
+        ordinals.put(item, ordinal);
+    }
+
+    // Adds the term to tokens[0..n) unless a repeated word put it there already
+    private int post(String text, int field, int ordinal, int[] tokens, int n) {
+        Term term = terms.get(text);
+        if (term == null) term = newTerm(text);
+        int token = term.id << 1 | field;
+        for (int i = 0; i < n; i++) {
+            if (tokens[i] == token) return n;
+        }
+        term.append(field, ordinal);
+        term.addLive(field, 1);
+        tokens[n] = token;
+        return n + 1;
+    }
+
+    private Term newTerm(String text) {
+        Term term = new Term(text, termCount++);
+        if (term.id == termsById.length) termsById = Arrays.copyOf(termsById, term.id * 2);
+        termsById[term.id] = term;
+        terms.put(text, term);
+        recentTerms.put(text, term);
+        if (recentTerms.size() > Math.max(MERGE_MIN_TERMS, sortedTerms.length / 4)) mergeRecentTerms();
+        if (isWord(text)) {
+            while (wordsByLength.size() <= text.length()) wordsByLength.add(new ArrayList<>());
+            wordsByLength.get(text.length()).add(term);
+        }
+        return term;
+    }
+
+    private void mergeRecentTerms() {
+        Term[] merged = new Term[sortedTerms.length + recentTerms.size()];
+        int i = 0;
+        int n = 0;
+        for (Term recent : recentTerms.values()) {
+            while (i < sortedTerms.length && sortedTerms[i].text.compareTo(recent.text) < 0) {
+                merged[n++] = sortedTerms[i++];
+            }
+            merged[n++] = recent;
+        }
+        System.arraycopy(sortedTerms, i, merged, n, sortedTerms.length - i);
+        sortedTerms = merged;
+        recentTerms.clear();
+    }
+
+    private static boolean isWord(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isDigit(text.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private boolean remove(Item item) {
+        Integer ordinal = ordinals.remove(item);
+        if (ordinal == null) return false;
+        version++;
+        for (int token : tokensByOrdinal[ordinal]) {
+            termsById[token >>> 1].addLive(token & 1, -1);
+        }
+        itemsByOrdinal[ordinal] = null;
+        tokensByOrdinal[ordinal] = null;
+        int stale = nextOrdinal - ordinals.size();
+        if (stale >= COMPACT_MIN_STALE && stale > ordinals.size()) compact();
+        return true;
+    }
+
+    // Renumbers live items and terms in their current order and rebuilds the postings
+    private void compact() {
+        int[] newIds = new int[termCount];
+        Term[] liveTerms = new Term[Math.max(64, termCount)];
+        int liveTermCount = 0;
+        terms.clear();
+        recentTerms.clear();
+        wordsByLength.clear();
+        for (int id = 0; id < termCount; id++) {
+            Term term = termsById[id];
+            if (!term.isLive()) continue;
+            newIds[id] = liveTermCount;
+            term.id = liveTermCount;
+            liveTerms[liveTermCount++] = term;
+            term.clearPostings();
+            terms.put(term.text, term);
+            if (isWord(term.text)) {
+                while (wordsByLength.size() <= term.text.length()) wordsByLength.add(new ArrayList<>());
+                wordsByLength.get(term.text.length()).add(term);
+            }
+        }
+        termsById = liveTerms;
+        termCount = liveTermCount;
+        sortedTerms = Arrays.copyOf(liveTerms, liveTermCount);
+        Arrays.sort(sortedTerms, Comparator.comparing((Term term) -> term.text));
+
+        int next = 0;
+        for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+            Item item = itemsByOrdinal[ordinal];
+            if (item == null) continue;
+            int[] tokens = tokensByOrdinal[ordinal];
+            for (int i = 0; i < tokens.length; i++) {
+                int field = tokens[i] & 1;
+                tokens[i] = newIds[tokens[i] >>> 1] << 1 | field;
+                termsById[tokens[i] >>> 1].append(field, next);
+            }
+            itemsByOrdinal[next] = item;
+            tokensByOrdinal[next] = tokens;
+            ordinals.put(item, next);
+            next++;
+        }
+        Arrays.fill(itemsByOrdinal, next, nextOrdinal, null);
+        Arrays.fill(tokensByOrdinal, next, nextOrdinal, null);
+        nextOrdinal = next;
+    }
+
+    /** Terms a query word matches, with the kind of each match. */
+    private static final class Expansion {
+        private int[] keys = new int[16];  // termId + 1, 0 when free
+        private byte[] kinds = new byte[16];
+        private int size;
+        final List<List<Term>> termsByKind = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        long postingCount;
+
+        boolean contains(Term term) {
+            return kindOf(term.id) >= 0;
+        }
+
+        boolean containsAll(Expansion other) {
+            for (List<Term> kindTerms : other.termsByKind) {
+                for (Term term : kindTerms) {
+                    if (!contains(term)) return false;
+                }
+            }
+            return true;
+        }
+
+        void add(Term term, int kind) {
+            if (contains(term)) return;
+            if (size * 2 >= keys.length) rehash();
+            insert(term.id, kind);
+            termsByKind.get(kind).add(term);
+            postingCount += term.descriptionCount + term.nameCount;
+        }
+
+        private void insert(int termId, int kind) {
+            int mask = keys.length - 1;
+            int slot = slot(termId) & mask;
+            while (keys[slot] != 0) slot = slot + 1 & mask;
+            keys[slot] = termId + 1;
+            kinds[slot] = (byte) kind;
+            size++;
+        }
+
+        private void rehash() {
+            int[] oldKeys = keys;
+            byte[] oldKinds = kinds;
+            keys = new int[oldKeys.length * 2];
+            kinds = new byte[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) insert(oldKeys[i] - 1, oldKinds[i]);
+            }
+        }
+
+        private static int slot(int termId) {
+            int h = termId * 0x9E3779B9;
+            return h ^ h >>> 16;
+        }
+
+        int kindOf(int termId) {
+            int mask = keys.length - 1;
+            for (int slot = slot(termId) & mask; keys[slot] != 0; slot = slot + 1 & mask) {
+                if (keys[slot] == termId + 1) return kinds[slot];
+            }
+            return -1;
+        }
+
+        // Weight of the best match among an item's tokens, or 0 if none matches
+        int weight(int[] tokens) {
+            int best = 0;
+            for (int token : tokens) {
+                int kind = kindOf(token >>> 1);
+                if (kind >= 0) best = Math.max(best, WEIGHTS[kind][token & 1]);
+            }
+            return best;
+        }
+
+        int maxWeight() {
+            int max = 0;
+            for (int kind = EXACT; kind <= FUZZY; kind++) {
+                for (Term term : termsByKind.get(kind)) {
+                    for (int field = DESCRIPTION; field <= NAME; field++) {
+                        if (term.live(field) > 0) max = Math.max(max, WEIGHTS[kind][field]);
+                    }
+                }
+            }
+            return max;
+        }
+    }
+
+    private Expansion expand(String word) {
+        Expansion expansion = new Expansion();
+        Term exact = terms.get(word);
+        if (exact != null && exact.isLive()) expansion.add(exact, EXACT);
+        addPrefixMatches(word, expansion);
+        if (word.length() >= FUZZY_MIN_LENGTH && isWord(word)) {
+            int maxEdits = word.length() >= FUZZY_TWO_EDITS_LENGTH ? 2 : 1;
+            int longest = Math.min(word.length() + maxEdits, wordsByLength.size() - 1);
+            for (int length = word.length() - maxEdits; length <= longest; length++) {
+                for (Term term : wordsByLength.get(length)) {
+                    if (term.isLive() && !expansion.contains(term) && withinEdits(word, term.text, maxEdits)) {
+                        expansion.add(term, FUZZY);
+                    }
+                }
+            }
+        }
+        return expansion;
+    }
+
+    // The first PREFIX_EXPANSIONS live terms after the word that start with it, in text order
+    private void addPrefixMatches(String word, Expansion expansion) {
+        int low = 0;
+        int high = sortedTerms.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedTerms[middle].text.compareTo(word) <= 0) low = middle + 1; else high = middle;
+        }
+        Iterator<Term> recent = recentTerms.tailMap(word, false).values().iterator();
+        Term nextRecent = recent.hasNext() ? recent.next() : null;
+        int found = 0;
+        while (found < PREFIX_EXPANSIONS) {
+            Term sorted = low < sortedTerms.length && sortedTerms[low].text.startsWith(word) ? sortedTerms[low] : null;
+            Term fresh = nextRecent != null && nextRecent.text.startsWith(word) ? nextRecent : null;
+            Term term;
+            if (fresh == null || sorted != null && sorted.text.compareTo(fresh.text) < 0) {
+                if (sorted == null) break;
+                term = sorted;
+                low++;
+            } else {
+                term = fresh;
+                nextRecent = recent.hasNext() ? recent.next() : null;
+            }
+            if (term.isLive()) {
+                expansion.add(term, PREFIX);
+                found++;
+            }
+        }
+    }
+
+    // Optimal string alignment distance of at most maxEdits, giving up once every cell of a row exceeds it
+    static boolean withinEdits(String a, String b, int maxEdits) {
+        if (Math.abs(a.length() - b.length()) > maxEdits) return false;
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, previous2[j - 2] + 1);
+                }
+                current[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > maxEdits) return false;
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()] <= maxEdits;
+    }
+
+    /**
+     * The best matches of a query, and whether they are all of them. Kept by a caller, they
+     * let a longer query be answered by {@link #refine} without searching the whole store.
+     */
+    record Matches(List<String> words, List<Item> items, boolean complete, long version) {
+    }
+
+    // Items matching every word of the query, best first; at most limit of them
+    List<Item> search(String query, int limit) {
+        return match(query, limit).items();
+    }
+
+    Matches match(String query, int limit) {
+        long start = SEARCH_LATENCY.start();
+        try {
+            return match(words(query), limit);
+        } finally {
+            SEARCH_LATENCY.stop(start);
+        }
+    }
+
+    private static List<String> words(String query) {
+        return new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+    }
+
+    private synchronized Matches match(List<String> words, int limit) {
+        List<Item> items = search(words, limit + 1);
+        boolean complete = items.size() <= limit;
+        if (!complete) items.remove(limit);
+        return new Matches(words, items, complete, version);
+    }
+
+    /**
+     * Ranks earlier matches against a query that narrows them, which is a query where every
+     * earlier word has a new word whose terms are all among its own: "rice b" after "ric",
+     * but not "rice" after "ri" if "ri" had more than {@value #PREFIX_EXPANSIONS} prefix
+     * terms, nor a typo that "ric" did not cover. Returns null when the earlier matches were
+     * not all of them, the index changed since, or the query does not narrow them.
+     */
+    Matches refine(Matches previous, String query, int limit) {
+        long start = SEARCH_LATENCY.start();
+        try {
+            return refine(previous, words(query), limit);
+        } finally {
+            SEARCH_LATENCY.stop(start);
+        }
+    }
+
+    private synchronized Matches refine(Matches previous, List<String> words, int limit) {
+        if (!previous.complete() || previous.version() != version || previous.words().isEmpty()) return null;
+        List<Expansion> expansions = new ArrayList<>(words.size());
+        for (String word : words) {
+            expansions.add(expand(word));
+        }
+        for (String earlier : previous.words()) {
+            Expansion earlierExpansion = expand(earlier);
+            if (expansions.stream().noneMatch(earlierExpansion::containsAll)) return null;
+        }
+        List<long[]> ranked = new ArrayList<>();
+        for (Item item : previous.items()) {
+            int ordinal = ordinals.get(item);
+            int score = score(tokensByOrdinal[ordinal], expansions);
+            if (score > 0) ranked.add(new long[]{score, ordinal});
+        }
+        ranked.sort((x, y) -> x[0] != y[0] ? Long.compare(y[0], x[0]) : Long.compare(x[1], y[1]));
+        List<Item> items = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            items.add(itemsByOrdinal[(int) ranked.get(i)[1]]);
+        }
+        return new Matches(words, items, ranked.size() <= limit, version);
+    }
+
+    // Sum of the best match of every word, or 0 unless every word matches
+    private static int score(int[] tokens, List<Expansion> expansions) {
+        int score = 0;
+        for (Expansion expansion : expansions) {
+            int weight = expansion.weight(tokens);
+            if (weight == 0) return 0;
+            score += weight;
+        }
+        return score;
+    }
+
+    private List<Item> search(List<String> words, int limit) {
+        if (words.isEmpty() || limit <= 0) return new ArrayList<>();
+        List<Expansion> expansions = new ArrayList<>(words.size());
+        Expansion driving = null;
+        for (String word : words) {
+            Expansion expansion = expand(word);
+            if (expansion.size == 0) return new ArrayList<>();
+            expansions.add(expansion);
+            if (driving == null || expansion.postingCount < driving.postingCount) driving = expansion;
+        }
+        int otherMaxWeight = 0;
+        for (Expansion expansion : expansions) {
+            if (expansion != driving) otherMaxWeight += expansion.maxWeight();
+        }
+
+        // Worst result on top: lowest score, then highest ordinal
+        PriorityQueue<long[]> results = new PriorityQueue<>(Math.min(limit, 1024) + 1,
+                (x, y) -> x[0] != y[0] ? Long.compare(x[0], y[0]) : Long.compare(y[1], x[1]));
+        BitSet seen = new BitSet();
+        for (int[] tier : TIERS) {
+            int kind = tier[0];
+            int field = tier[1];
+            List<Term> tierTerms = driving.termsByKind.get(kind);
+            if (tierTerms.isEmpty()) continue;
+            // No item reached through this tier can score more than this
+            int bound = WEIGHTS[kind][field] + otherMaxWeight;
+            if (results.size() == limit && results.peek()[0] > bound) continue;
+            PostingMerge merge = new PostingMerge(tierTerms, field);
+            for (int ordinal = merge.next(); ordinal >= 0; ordinal = merge.next()) {
+                if (results.size() == limit) {
+                    long[] worst = results.peek();
+                    // Later ordinals of this tier lose every tie, so nothing here can enter any more
+                    if (worst[0] > bound || worst[0] == bound && worst[1] < ordinal) break;
+                }
+                int[] tokens = tokensByOrdinal[ordinal];
+                if (tokens == null || seen.get(ordinal)) continue;
+                seen.set(ordinal);
+                int score = score(tokens, expansions);
+                if (score == 0) continue;
+                results.add(new long[]{score, ordinal});
+                if (results.size() > limit) results.poll();
+            }
+        }
+        Item[] ranked = new Item[results.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = itemsByOrdinal[(int) results.poll()[1]];
+        }
+        return new ArrayList<>(Arrays.asList(ranked));
+    }
+
+    /** Ordinals of several posting lists of one field, merged in ascending order. */
+    private static final class PostingMerge {
+        private final int[][] lists;
+        private final int[] counts;
+        private final int[] positions;
+        // Indexes into lists, as a binary min-heap on each list's current ordinal
+        private final int[] heap;
+        private int heapSize;
+
+        PostingMerge(List<Term> terms, int field) {
+            lists = new int[terms.size()][];
+            counts = new int[terms.size()];
+            positions = new int[terms.size()];
+            heap = new int[terms.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = terms.get(i).postings(field);
+                counts[i] = terms.get(i).count(field);
+                if (counts[i] > 0) heap[heapSize++] = i;
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) siftDown(i);
+        }
+
+        // Next ordinal, or -1 when all lists are exhausted; an ordinal in several lists comes once per list
+        int next() {
+            if (heapSize == 0) return -1;
+            int list = heap[0];
+            int ordinal = lists[list][positions[list]++];
+            if (positions[list] == counts[list]) heap[0] = heap[--heapSize];
+            siftDown(0);
+            return ordinal;
+        }
+
+        private int head(int list) {
+            return lists[list][positions[list]];
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < heapSize && head(heap[left]) < head(heap[smallest])) smallest = left;
+                if (right < heapSize && head(heap[right]) < head(heap[smallest])) smallest = right;
+                if (smallest == i) return;
+                int swap = heap[i];
+                heap[i] = heap[smallest];
+                heap[smallest] = swap;
+                i = smallest;
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.superstore.domain;
+
+import com.superstore.model.Item;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Searches one store as the user types. A query runs on a background thread once no newer
+ * query has arrived for the debounce window, and a newer query makes every older one stale:
+ * it is dropped if it has not started, and its results are dropped if it has. Results reach
+ * the listener through the result executor a page at a time, each page handed over only
+ * after the one before it, so the receiving thread is never busy for long. A query that
+ * narrows the previous one ranks the previous results instead of searching the whole store
+ * when the index allows it.
+ */
+public class ItemSearchSession implements AutoCloseable {
+
+    /** Best matches delivered for a query. */
+    public static final int MAX_RESULTS = 5_000;
+    public static final int PAGE_SIZE = 200;
+
+    /** Receives the results of the latest query, on the result executor. */
+    public interface Listener {
+
+        // The first page of a new query's results, replacing the shown results
+        void resultsReplaced(List<Item> items);
+
+        void resultsAppended(List<Item> items);
+
+        // After the last page; complete is false when more items matched than were delivered
+        void searchFinished(int count, boolean complete);
+    }
+
+    private final Store store;
+    private final long debounceMillis;
+    private final int maxResults;
+    private final int pageSize;
+    private final Executor resultExecutor;
+    private final Listener listener;
+    private final ScheduledExecutorService executor;
+    private final AtomicLong generation = new AtomicLong();
+
+    private ScheduledFuture<?> scheduled;
+    // Results of the last query run, only used on the search thread
+    private ItemSearchIndex.Matches last;
+
+    public ItemSearchSession(Store store, long debounceMillis, Executor resultExecutor, Listener listener) {
+        this(store, debounceMillis, MAX_RESULTS, PAGE_SIZE, resultExecutor, listener);
+    }
+
+    ItemSearchSession(Store store, long debounceMillis, int maxResults, int pageSize,
+                      Executor resultExecutor, Listener listener) {
+        this.store = store;
+        this.debounceMillis = debounceMillis;
+        this.maxResults = maxResults;
+        this.pageSize = pageSize;
+        this.resultExecutor = resultExecutor;
+        this.listener = listener;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "item-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Searches for the query once typing pauses; a blank query only cancels
+    public void setQuery(String query) {
+        submit(query, debounceMillis);
+    }
+
+    // Searches for the query without waiting, as for the Search button
+    public void searchNow(String query) {
+        submit(query, 0);
+    }
+
+    // Makes the pending query and any results still being delivered stale
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+    }
+
+    private synchronized void submit(String query, long delayMillis) {
+        cancel();
+        if (query == null || query.isBlank() || executor.isShutdown()) return;
+        long current = generation.get();
+        scheduled = executor.schedule(() -> run(current, query), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean isStale(long queryGeneration) {
+        return generation.get() != queryGeneration;
+    }
+
+    private void run(long queryGeneration, String query) {
+        if (isStale(queryGeneration)) return;
+        ItemSearchIndex index = store.searchIndex();  // built here on the first search, not on the caller's thread
+        if (isStale(queryGeneration)) return;
+        ItemSearchIndex.Matches matches = last == null ? null : index.refine(last, query, maxResults);
+        if (matches == null) matches = index.match(query, maxResults);
+        last = matches;
+        if (isStale(queryGeneration)) return;
+        List<Item> items = store.withCodeMatch(new ArrayList<>(matches.items()), query, maxResults);
+        boolean complete = matches.complete();
+        resultExecutor.execute(() -> deliver(queryGeneration, items, 0, complete));
+    }
+
+    private void deliver(long queryGeneration, List<Item> items, int from, boolean complete) {
+        if (isStale(queryGeneration)) return;
+        int to = Math.min(items.size(), from + pageSize);
+        List<Item> page = items.subList(from, to);
+        if (from == 0) {
+            listener.resultsReplaced(page);
+        } else {
+            listener.resultsAppended(page);
+        }
+        if (to < items.size()) {
+            resultExecutor.execute(() -> deliver(queryGeneration, items, to, complete));
+        } else {
+            listener.searchFinished(items.size(), complete);
+        }
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,138 @@
+package com.superstore.domain;
+
+import java.util.*;
+
+/**
+ * The order messages a warehouse holds in memory: every unprocessed message, plus the
+ * processed ones not yet moved to the archive. Unprocessed messages are kept in arrival
+ * order in their own map, so polling for pending orders costs O(1) (or O(k) to list k of
+ * them) however long the warehouse's history is. Messages are also indexed by messageId,
+ * fromStoreId and itemCode.
+ *
+ * A message id is only accepted once, so replaying the journal over a snapshot that
+ * already holds a message changes nothing.
+ */
+class OrderInbox {
+    private final Map<String, OrderMessage> byId = new LinkedHashMap<>();
+    private final Map<String, OrderMessage> pending = new LinkedHashMap<>();
+    private final List<OrderMessage> processed = new ArrayList<>();
+    private final Map<String, Set<OrderMessage>> byStore = new HashMap<>();
+    private final Map<String, Set<OrderMessage>> byItem = new HashMap<>();
+
+    synchronized boolean add(OrderMessage message) {
+        if (byId.putIfAbsent(message.getMessageId(), message) != null) return false;
+        if (message.isProcessed()) {
+            processed.add(message);
+        } else {
+            pending.put(message.getMessageId(), message);
+        }
+        index(byStore, message.getFromStoreId(), message);
+        index(byItem, message.getItemCode(), message);
+        return true;
+    }
+
+    // Returns the message, or null if it is not in the inbox or was already processed
+    synchronized OrderMessage markProcessed(String messageId) {
+        OrderMessage message = pending.remove(messageId);
+        if (message == null) return null;
+        message.setProcessed(true);
+        processed.add(message);
+        return message;
+    }
+
+    synchronized int pendingCount() {
+        settlePending();
+        return pending.size();
+    }
+
+    // Oldest unprocessed message, or null
+    synchronized OrderMessage peekPending() {
+        settlePending();
+        Iterator<OrderMessage> it = pending.values().iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    synchronized List<OrderMessage> pending() {
+        List<OrderMessage> messages = new ArrayList<>(pending.size());
+        Iterator<OrderMessage> it = pending.values().iterator();
+        while (it.hasNext()) {
+            OrderMessage message = it.next();
+            if (message.isProcessed()) {
+                it.remove();
+                processed.add(message);
+            } else {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    synchronized int processedCount() {
+        settlePending();
+        return processed.size();
+    }
+
+    synchronized OrderMessage get(String messageId) {
+        return byId.get(messageId);
+    }
+
+    synchronized List<OrderMessage> fromStore(String storeId) {
+        Set<OrderMessage> messages = byStore.get(storeId);
+        return messages == null ? new ArrayList<>() : new ArrayList<>(messages);
+    }
+
+    synchronized List<OrderMessage> forItem(String itemCode) {
+        Set<OrderMessage> messages = byItem.get(itemCode);
+        return messages == null ? new ArrayList<>() : new ArrayList<>(messages);
+    }
+
+    // True if the store has an unprocessed order for the item; costs O(messages for the item)
+    synchronized boolean hasPending(String storeId, String itemCode) {
+        Set<OrderMessage> messages = byItem.get(itemCode);
+        if (messages == null) return false;
+        for (OrderMessage message : messages) {
+            if (!message.isProcessed() && Objects.equals(storeId, message.getFromStoreId())) return true;
+        }
+        return false;
+    }
+
+    synchronized List<OrderMessage> all() {
+        return new ArrayList<>(byId.values());
+    }
+
+    // Removes and returns the processed messages, in the order they were processed
+    synchronized List<OrderMessage> drainProcessed() {
+        settlePending();
+        List<OrderMessage> drained = new ArrayList<>(processed);
+        processed.clear();
+        for (OrderMessage message : drained) {
+            byId.remove(message.getMessageId());
+            unindex(byStore, message.getFromStoreId(), message);
+            unindex(byItem, message.getItemCode(), message);
+        }
+        return drained;
+    }
+
+    // Messages marked processed directly on the OrderMessage leave the pending map the
+    // next time the head is looked at, so the head is always really pending
+    private void settlePending() {
+        Iterator<OrderMessage> it = pending.values().iterator();
+        while (it.hasNext()) {
+            OrderMessage message = it.next();
+            if (!message.isProcessed()) return;
+            it.remove();
+            processed.add(message);
+        }
+    }
+
+    private static void index(Map<String, Set<OrderMessage>> index, String key, OrderMessage message) {
+        index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(message);
+    }
+
+    private static void unindex(Map<String, Set<OrderMessage>> index, String key, OrderMessage message) {
+        Set<OrderMessage> messages = index.get(key);
+        if (messages != null && messages.remove(message) && messages.isEmpty()) {
+            index.remove(key);
+        }
+    }
+}
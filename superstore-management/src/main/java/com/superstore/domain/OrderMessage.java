@@ -4,6 +4,8 @@ import java.io.Serializable;
 import java.time.LocalDate;
 
 public class OrderMessage implements Serializable{
+    private static final long serialVersionUID = -3153478863915914L;
+
     private String messageId;
     private String fromStoreId;
     private String toWarehouseId;
@@ -13,6 +15,8 @@ public class OrderMessage implements Serializable{
     private LocalDate expectedArrivalDate;
     private LocalDate sentDate;
     private boolean processed;
+    // Id of the order this one was split or forwarded from; null for an original order
+    private String correlationId;
     
     public OrderMessage(String messageId, String fromStoreId, String toWarehouseId,
                        String itemName, String itemCode, int quantity, 
@@ -28,6 +32,25 @@ public class OrderMessage implements Serializable{
         this.processed = false;
     }
     
+    // Restores a message read back from a snapshot
+    public OrderMessage(String messageId, String fromStoreId, String toWarehouseId,
+                       String itemName, String itemCode, int quantity,
+                       LocalDate expectedArrivalDate, LocalDate sentDate, boolean processed) {
+        this(messageId, fromStoreId, toWarehouseId, itemName, itemCode, quantity, expectedArrivalDate);
+        this.sentDate = sentDate;
+        this.processed = processed;
+    }
+    
+    // Restores a message read back from a snapshot, or splits off part of an order
+    public OrderMessage(String messageId, String fromStoreId, String toWarehouseId,
+                       String itemName, String itemCode, int quantity,
+                       LocalDate expectedArrivalDate, LocalDate sentDate, boolean processed,
+                       String correlationId) {
+        this(messageId, fromStoreId, toWarehouseId, itemName, itemCode, quantity,
+                expectedArrivalDate, sentDate, processed);
+        this.correlationId = correlationId;
+    }
+    
     // Getters and Setters
     public String getMessageId() { return messageId; }
     public String getFromStoreId() { return fromStoreId; }
@@ -38,6 +61,9 @@ public class OrderMessage implements Serializable{
     public LocalDate getExpectedArrivalDate() { return expectedArrivalDate; }
     public LocalDate getSentDate() { return sentDate; }
     public boolean isProcessed() { return processed; }
+    // The original order's id for split or forwarded messages, otherwise this message's id
+    public String getCorrelationId() { return correlationId != null ? correlationId : messageId; }
+    public boolean isDerived() { return correlationId != null; }
     public void setProcessed(boolean processed) { this.processed = processed; }
 }
 
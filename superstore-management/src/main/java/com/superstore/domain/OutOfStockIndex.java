@@ -0,0 +1,120 @@
+package com.superstore.domain;
+
+import com.superstore.model.CatalogListener;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Out-of-stock items of a store as a bitmap over dense item ordinals. Every item in the
+ * store gets an ordinal when it is added (freed ordinals are reused), and its bit flips
+ * only when its inventory crosses zero, so reading the set costs one pass over the
+ * bitmap words instead of a walk over the category tree. Between beginBatch() and
+ * endBatch() changes are collected and reported to listeners in one notification.
+ */
+class OutOfStockIndex implements CatalogListener {
+    private final Map<Item, Integer> ordinals = new IdentityHashMap<>();
+    private Item[] itemsByOrdinal = new Item[64];
+    private final BitSet outOfStock = new BitSet();
+    private final BitSet freeOrdinals = new BitSet();
+    private int nextOrdinal;
+    private final List<OutOfStockListener> listeners = new CopyOnWriteArrayList<>();
+    private int batchDepth;
+    // Latest state of each item changed during the current batch
+    private final Map<Item, Boolean> batchChanges = new IdentityHashMap<>();
+
+    synchronized List<Item> items() {
+        List<Item> items = new ArrayList<>(outOfStock.cardinality());
+        for (int i = outOfStock.nextSetBit(0); i >= 0; i = outOfStock.nextSetBit(i + 1)) {
+            items.add(itemsByOrdinal[i]);
+        }
+        return items;
+    }
+
+    synchronized int count() {
+        return outOfStock.cardinality();
+    }
+
+    void addListener(OutOfStockListener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(OutOfStockListener listener) {
+        listeners.remove(listener);
+    }
+
+    private static boolean isOutOfStock(int level) {
+        return level <= 0;
+    }
+
+    synchronized void beginBatch() {
+        batchDepth++;
+    }
+
+    synchronized void endBatch() {
+        if (--batchDepth > 0 || batchChanges.isEmpty()) return;
+        List<Item> nowOut = new ArrayList<>();
+        List<Item> restocked = new ArrayList<>();
+        batchChanges.forEach((item, out) -> (out ? nowOut : restocked).add(item));
+        batchChanges.clear();
+        for (OutOfStockListener listener : listeners) {
+            listener.outOfStockChanged(nowOut, restocked);
+        }
+    }
+
+    private void fire(Item item, boolean out) {
+        if (batchDepth > 0) {
+            batchChanges.put(item, out);
+            return;
+        }
+        for (OutOfStockListener listener : listeners) {
+            listener.outOfStockChanged(item, out);
+        }
+    }
+
+    @Override
+    public synchronized void itemAdded(Subcategory subcategory, Item item) {
+        if (ordinals.containsKey(item)) return;
+        int ordinal = freeOrdinals.nextSetBit(0);
+        if (ordinal >= 0) {
+            freeOrdinals.clear(ordinal);
+        } else {
+            ordinal = nextOrdinal++;
+            if (ordinal == itemsByOrdinal.length) {
+                itemsByOrdinal = Arrays.copyOf(itemsByOrdinal, ordinal * 2);
+            }
+        }
+        ordinals.put(item, ordinal);
+        itemsByOrdinal[ordinal] = item;
+        if (isOutOfStock(item.getCurrentInventoryLevel())) {
+            outOfStock.set(ordinal);
+            fire(item, true);
+        }
+    }
+
+    @Override
+    public synchronized void itemRemoved(Subcategory subcategory, Item item) {
+        Integer ordinal = ordinals.remove(item);
+        if (ordinal == null) return;
+        itemsByOrdinal[ordinal] = null;
+        freeOrdinals.set(ordinal);
+        if (outOfStock.get(ordinal)) {
+            outOfStock.clear(ordinal);
+            fire(item, false);
+        }
+    }
+
+    @Override
+    public synchronized void inventoryChanged(Item item, int previousLevel, int newLevel) {
+        if (isOutOfStock(newLevel) == isOutOfStock(previousLevel)) return;
+        Integer ordinal = ordinals.get(item);
+        if (ordinal == null) return;
+        // Concurrent movements may report out of order; the item's current level decides
+        boolean out = isOutOfStock(item.getCurrentInventoryLevel());
+        if (outOfStock.get(ordinal) == out) return;
+        outOfStock.set(ordinal, out);
+        fire(item, out);
+    }
+}
@@ -0,0 +1,25 @@
+package com.superstore.domain;
+
+import com.superstore.model.Item;
+
+import java.util.List;
+
+/**
+ * Notified when an item of a store runs out of stock or is restocked, and when an
+ * out-of-stock item is added to or removed from the store.
+ */
+@FunctionalInterface
+public interface OutOfStockListener {
+
+    void outOfStockChanged(Item item, boolean outOfStock);
+
+    // Called once for an inventory batch instead of once per item
+    default void outOfStockChanged(List<Item> nowOutOfStock, List<Item> restocked) {
+        for (Item item : nowOutOfStock) {
+            outOfStockChanged(item, true);
+        }
+        for (Item item : restocked) {
+            outOfStockChanged(item, false);
+        }
+    }
+}
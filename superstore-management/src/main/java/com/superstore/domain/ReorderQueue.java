@@ -0,0 +1,76 @@
+package com.superstore.domain;
+
+import com.superstore.model.CatalogListener;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+
+import java.util.*;
+
+/**
+ * Items of a warehouse that need reordering, ordered by how far their inventory is
+ * below the reorder point (currentInventoryLevel - reorderPoint, most urgent first).
+ * Entries are moved as inventory and reorder parameters change, so reading the queue
+ * costs O(k) in the number of items that need reordering rather than a warehouse scan.
+ * Updates always re-read the item, so events delivered out of order still converge.
+ */
+class ReorderQueue implements CatalogListener {
+    private final TreeSet<Entry> queue = new TreeSet<>();
+    private final Map<Item, Entry> entries = new IdentityHashMap<>();
+    private long nextSequence;
+
+    private record Entry(double margin, String itemCode, long sequence, Item item)
+            implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int c = Double.compare(margin, other.margin);
+            if (c == 0) c = itemCode.compareTo(other.itemCode);
+            if (c == 0) c = Long.compare(sequence, other.sequence);
+            return c;
+        }
+    }
+
+    synchronized List<Item> items() {
+        List<Item> items = new ArrayList<>(queue.size());
+        for (Entry entry : queue) {
+            items.add(entry.item);
+        }
+        return items;
+    }
+
+    private void update(Item item) {
+        remove(item);
+        double margin = item.getCurrentInventoryLevel() - item.calculateReorderPoint();
+        if (margin <= 0) {
+            Entry entry = new Entry(margin, item.getItemCode(), nextSequence++, item);
+            entries.put(item, entry);
+            queue.add(entry);
+        }
+    }
+
+    private void remove(Item item) {
+        Entry entry = entries.remove(item);
+        if (entry != null) {
+            queue.remove(entry);
+        }
+    }
+
+    @Override
+    public synchronized void itemAdded(Subcategory subcategory, Item item) {
+        update(item);
+    }
+
+    @Override
+    public synchronized void itemRemoved(Subcategory subcategory, Item item) {
+        remove(item);
+    }
+
+    @Override
+    public synchronized void inventoryChanged(Item item, int previousLevel, int newLevel) {
+        update(item);
+    }
+
+    @Override
+    public synchronized void reorderPointChanged(Item item) {
+        update(item);
+    }
+}
@@ -1,34 +1,90 @@
 // Store.java
 package com.superstore.domain;
+import com.superstore.model.CatalogListener;
 import com.superstore.model.Category;
 import com.superstore.model.Subcategory;
 import com.superstore.model.Item;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class Store implements Serializable{
+    private static final long serialVersionUID = -4161672143273963557L;
+
     private String storeId;
     private String storeName;
     private String linkedWarehouseId;
     private Map<String, Category> categories;
+    private transient volatile ItemIndex itemIndex;
+    private transient OutOfStockIndex outOfStockIndex;
+    private transient volatile ItemSearchIndex searchIndex;
     
     public Store(String storeId, String storeName) {
         this.storeId = storeId;
         this.storeName = storeName;
-        this.categories = new HashMap<>();
+        this.categories = new ConcurrentHashMap<>();
     }
     
     public void linkWarehouse(String warehouseId) {
         this.linkedWarehouseId = warehouseId;
     }
     
-    public void addCategory(Category category) {
-        categories.put(category.getCategoryId(), category);
+    // Built on first use, which also covers instances restored by Java serialization
+    private ItemIndex itemIndex() {
+        ItemIndex existing = itemIndex;
+        if (existing != null) return existing;
+        synchronized (this) {
+            if (itemIndex != null) return itemIndex;
+            ItemIndex index = new ItemIndex();
+            for (Category category : categories.values()) {
+                index.attach(category);
+            }
+            outOfStockIndex = new OutOfStockIndex();
+            index.addListener(outOfStockIndex);
+            itemIndex = index;
+            return index;
+        }
+    }
+    
+    // Built on the first search, since most stores are never searched as a whole. Searches
+    // cover every item, so the subcategories still in the catalog file are read first.
+    ItemSearchIndex searchIndex() {
+        itemIndex().loadDeferredItems();
+        ItemSearchIndex existing = searchIndex;
+        if (existing != null) return existing;
+        synchronized (this) {
+            if (searchIndex != null) return searchIndex;
+            ItemSearchIndex index = new ItemSearchIndex();
+            itemIndex().addListener(index);
+            searchIndex = index;
+            return index;
+        }
     }
     
-    public void removeCategory(String categoryId) {
-        categories.remove(categoryId);
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        categories = new ConcurrentHashMap<>(categories);
+    }
+    
+    public synchronized void addCategory(Category category) {
+        ItemIndex index = itemIndex();
+        Category previous = categories.put(category.getCategoryId(), category);
+        if (previous != null && previous != category) {
+            index.detach(previous);
+        }
+        index.attach(category);
+    }
+    
+    public synchronized void removeCategory(String categoryId) {
+        ItemIndex index = itemIndex();
+        Category removed = categories.remove(categoryId);
+        if (removed != null) {
+            index.detach(removed);
+        }
     }
     
     public Category getCategory(String categoryId) {
@@ -39,28 +95,85 @@ public class Store implements Serializable{
         return new ArrayList<>(categories.values());
     }
     
+    public void forEachCategory(Consumer<Category> action) {
+        categories.values().forEach(action);
+    }
+    
     public Item getItem(String itemCode) {
-        for (Category category : categories.values()) {
-            for (Subcategory subcategory : category.getAllSubcategories()) {
-                Item item = subcategory.getItem(itemCode);
-                if (item != null) return item;
-            }
-        }
-        return null;
+        return itemIndex().getItem(itemCode);
+    }
+    
+    public Subcategory getSubcategoryOf(String itemCode) {
+        return itemIndex().getSubcategoryOf(itemCode);
+    }
+    
+    // True while some items are still only in the catalog file and not yet indexed
+    public boolean hasDeferredItems() {
+        return itemIndex().hasDeferredItems();
+    }
+    
+    // Listeners hear about every item added to or removed from this facility's categories
+    public void addCatalogListener(CatalogListener listener) {
+        itemIndex().addListener(listener);
+    }
+    
+    public void removeCatalogListener(CatalogListener listener) {
+        itemIndex().removeListener(listener);
     }
     
     public List<Item> getOutOfStockItems() {
-        List<Item> outOfStock = new ArrayList<>();
-        for (Category category : categories.values()) {
-            for (Subcategory subcategory : category.getAllSubcategories()) {
-                for (Item item : subcategory.getAllItems()) {
-                    if (item.getCurrentInventoryLevel() == 0) {
-                        outOfStock.add(item);
-                    }
-                }
-            }
+        ItemIndex index = itemIndex();
+        index.loadDeferredItems();
+        return outOfStockIndex.items();
+    }
+    
+    // Items matching every word of the query by name or description, exactly, as a prefix
+    // or with a typo; best matches first, at most limit of them. A query that is an item
+    // code puts that item first.
+    public List<Item> searchItems(String query, int limit) {
+        return withCodeMatch(searchIndex().search(query, limit), query, limit);
+    }
+    
+    List<Item> withCodeMatch(List<Item> results, String query, int limit) {
+        String code = query == null ? "" : query.strip();
+        if (code.isEmpty() || limit <= 0) return results;
+        Item byCode = getItem(code);
+        if (byCode == null) byCode = getItem(code.toUpperCase(Locale.ROOT));
+        if (byCode != null) {
+            results.remove(byCode);
+            results.add(0, byCode);
+            if (results.size() > limit) results.remove(limit);
+        }
+        return results;
+    }
+    
+    public int getOutOfStockCount() {
+        ItemIndex index = itemIndex();
+        index.loadDeferredItems();
+        return outOfStockIndex.count();
+    }
+    
+    // Lets dashboards follow the out-of-stock list instead of rescanning it
+    public void addOutOfStockListener(OutOfStockListener listener) {
+        itemIndex();
+        outOfStockIndex.addListener(listener);
+    }
+    
+    public void removeOutOfStockListener(OutOfStockListener listener) {
+        itemIndex();
+        outOfStockIndex.removeListener(listener);
+    }
+    
+    // Not atomic against other movements of this store by itself; SuperstoreSystem applies
+    // batches under the store's write lock. Listeners get one notification for the batch.
+    public InventoryBatchResult applyInventoryBatch(InventoryBatch batch) {
+        ItemIndex index = itemIndex();
+        outOfStockIndex.beginBatch();
+        try {
+            return batch.apply(index::getItem);
+        } finally {
+            outOfStockIndex.endBatch();
         }
-        return outOfStock;
     }
     
     public String getStoreId() { return storeId; }
@@ -1,40 +1,97 @@
 // Warehouse.java
 package com.superstore.domain;
+import com.superstore.model.CatalogListener;
 import com.superstore.model.Category;
 import com.superstore.model.Subcategory;
 import com.superstore.model.Item;
 import com.superstore.domain.OrderMessage;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class Warehouse implements Serializable {
+    private static final long serialVersionUID = -8835378820096287364L;
+
     private String warehouseId;
     private String warehouseName;
     private Map<String, Category> categories;
     private List<String> linkedStoreIds;
+    // Only used as the Java-serialized form of the inbox
     private List<OrderMessage> receivedMessages;
+    private transient OrderInbox inbox;
+    private transient volatile ItemIndex itemIndex;
+    private transient ReorderQueue reorderQueue;
     
     public Warehouse(String warehouseId, String warehouseName) {
         this.warehouseId = warehouseId;
         this.warehouseName = warehouseName;
-        this.categories = new HashMap<>();
+        this.categories = new ConcurrentHashMap<>();
         this.linkedStoreIds = new ArrayList<>();
-        this.receivedMessages = new ArrayList<>();
+        this.inbox = new OrderInbox();
     }
     
-    public void linkStore(String storeId) {
+    public synchronized void linkStore(String storeId) {
         if (!linkedStoreIds.contains(storeId)) {
             linkedStoreIds.add(storeId);
         }
     }
     
-    public void addCategory(Category category) {
-        categories.put(category.getCategoryId(), category);
+    // Built on first use, which also covers instances restored by Java serialization
+    private ItemIndex itemIndex() {
+        ItemIndex existing = itemIndex;
+        if (existing != null) return existing;
+        synchronized (this) {
+            if (itemIndex != null) return itemIndex;
+            ItemIndex index = new ItemIndex();
+            for (Category category : categories.values()) {
+                index.attach(category);
+            }
+            reorderQueue = new ReorderQueue();
+            index.addListener(reorderQueue);
+            itemIndex = index;
+            return index;
+        }
     }
     
-    public void removeCategory(String categoryId) {
-        categories.remove(categoryId);
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        categories = new ConcurrentHashMap<>(categories);
+        inbox = new OrderInbox();
+        if (receivedMessages != null) {
+            receivedMessages.forEach(inbox::add);
+            receivedMessages = null;
+        }
+    }
+    
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        receivedMessages = inbox.all();
+        try {
+            out.defaultWriteObject();
+        } finally {
+            receivedMessages = null;
+        }
+    }
+    
+    public synchronized void addCategory(Category category) {
+        ItemIndex index = itemIndex();
+        Category previous = categories.put(category.getCategoryId(), category);
+        if (previous != null && previous != category) {
+            index.detach(previous);
+        }
+        index.attach(category);
+    }
+    
+    public synchronized void removeCategory(String categoryId) {
+        ItemIndex index = itemIndex();
+        Category removed = categories.remove(categoryId);
+        if (removed != null) {
+            index.detach(removed);
+        }
     }
     
     public Category getCategory(String categoryId) {
@@ -45,44 +102,99 @@ public class Warehouse implements Serializable {
         return new ArrayList<>(categories.values());
     }
     
+    public void forEachCategory(Consumer<Category> action) {
+        categories.values().forEach(action);
+    }
+    
     public Item getItem(String itemCode) {
-        for (Category category : categories.values()) {
-            for (Subcategory subcategory : category.getAllSubcategories()) {
-                Item item = subcategory.getItem(itemCode);
-                if (item != null) return item;
-            }
-        }
-        return null;
+        return itemIndex().getItem(itemCode);
     }
     
+    public Subcategory getSubcategoryOf(String itemCode) {
+        return itemIndex().getSubcategoryOf(itemCode);
+    }
+    
+    // True while some items are still only in the catalog file and not yet indexed
+    public boolean hasDeferredItems() {
+        return itemIndex().hasDeferredItems();
+    }
+    
+    // Listeners hear about every item added to or removed from this facility's categories
+    public void addCatalogListener(CatalogListener listener) {
+        itemIndex().addListener(listener);
+    }
+    
+    public void removeCatalogListener(CatalogListener listener) {
+        itemIndex().removeListener(listener);
+    }
+    
+    // Most urgent first: lowest currentInventoryLevel - reorderPoint
     public List<Item> getItemsNeedingReorder() {
-        List<Item> reorderItems = new ArrayList<>();
-        for (Category category : categories.values()) {
-            for (Subcategory subcategory : category.getAllSubcategories()) {
-                for (Item item : subcategory.getAllItems()) {
-                    if (item.needsReordering()) {
-                        reorderItems.add(item);
-                    }
-                }
-            }
-        }
-        // Sort by reorder point
-        reorderItems.sort(Comparator.comparing(Item::calculateReorderPoint));
-        return reorderItems;
+        ItemIndex index = itemIndex();
+        index.loadDeferredItems();
+        return reorderQueue.items();
+    }
+    
+    // Not atomic against other movements of this warehouse by itself; SuperstoreSystem
+    // applies batches under the warehouse's write lock
+    public InventoryBatchResult applyInventoryBatch(InventoryBatch batch) {
+        return batch.apply(itemIndex()::getItem);
     }
     
-    public void receiveMessage(OrderMessage message) {
-        receivedMessages.add(message);
+    // Ignored if a message with the same id is already in the inbox; returns whether it was added
+    public boolean receiveMessage(OrderMessage message) {
+        return inbox.add(message);
     }
     
+    // Oldest first; costs O(pending), not O(history)
     public List<OrderMessage> getUnprocessedMessages() {
-        List<OrderMessage> unprocessed = new ArrayList<>();
-        for (OrderMessage msg : receivedMessages) {
-            if (!msg.isProcessed()) {
-                unprocessed.add(msg);
-            }
-        }
-        return unprocessed;
+        return inbox.pending();
+    }
+    
+    public int getPendingMessageCount() {
+        return inbox.pendingCount();
+    }
+    
+    // Oldest unprocessed message, or null if there is none
+    public OrderMessage peekPendingMessage() {
+        return inbox.peekPending();
+    }
+    
+    // Returns the message, or null if it is not pending in this warehouse
+    public OrderMessage markMessageProcessed(String messageId) {
+        return inbox.markProcessed(messageId);
+    }
+    
+    // The lookups below only see messages still in memory, not archived ones
+    public OrderMessage getMessage(String messageId) {
+        return inbox.get(messageId);
+    }
+    
+    public List<OrderMessage> getMessagesFromStore(String storeId) {
+        return inbox.fromStore(storeId);
+    }
+    
+    public List<OrderMessage> getMessagesForItem(String itemCode) {
+        return inbox.forItem(itemCode);
+    }
+    
+    public boolean hasPendingOrder(String storeId, String itemCode) {
+        return inbox.hasPending(storeId, itemCode);
+    }
+    
+    // Processed messages waiting to be archived
+    public int getProcessedMessageCount() {
+        return inbox.processedCount();
+    }
+    
+    // Removes the processed messages from memory and returns them for archiving
+    public List<OrderMessage> drainProcessedMessages() {
+        return inbox.drainProcessed();
+    }
+    
+    // Messages still in memory: all unprocessed ones and the processed ones not yet archived
+    public List<OrderMessage> getAllMessages() {
+        return inbox.all();
     }
     
     public String getWarehouseId() { return warehouseId; }
@@ -90,6 +202,7 @@ public class Warehouse implements Serializable {
     public void setWarehouseName(String warehouseName) { 
         this.warehouseName = warehouseName; 
     }
-    public List<String> getLinkedStoreIds() { return linkedStoreIds; }
+    // A copy taken under the lock that linkStore holds
+    public synchronized List<String> getLinkedStoreIds() { return List.copyOf(linkedStoreIds); }
 }
 
@@ -0,0 +1,275 @@
+package com.superstore.io;
+
+import com.superstore.domain.OrderMessage;
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams a facility's catalog, or a warehouse's order messages, as CSV or as newline-delimited
+ * JSON. Each row is formatted into one reused StringBuilder and encoded into a reused direct
+ * buffer that goes to the channel whenever it fills. The catalog is walked with the forEach
+ * visitors, so items still in a mapped catalog file are visited as temporary views and never
+ * kept, and heap use stays flat however many items are exported.
+ *
+ * Catalog CSV uses the importer's columns plus the computed EOQ, safety stock and reorder
+ * point, so an export can be imported again. Call {@link #flush} when done.
+ */
+public class CatalogExporter implements Flushable {
+
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        // NDJSON for .ndjson and .jsonl files, CSV otherwise
+        public static Format forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            return name.endsWith(".ndjson") || name.endsWith(".jsonl") ? NDJSON : CSV;
+        }
+    }
+
+    public static final List<String> ITEM_COLUMNS;
+    static {
+        List<String> columns = new ArrayList<>(CatalogImporter.COLUMNS);
+        columns.addAll(List.of("eoq", "safetyStock", "reorderPoint"));
+        ITEM_COLUMNS = List.copyOf(columns);
+    }
+
+    public static final List<String> MESSAGE_COLUMNS = List.of(
+            "messageId", "fromStoreId", "toWarehouseId", "itemName", "itemCode", "quantity",
+            "expectedArrivalDate", "sentDate", "processed", "correlationId");
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final Format format;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder line = new StringBuilder(512);
+    private List<String> columns;
+    private int column;
+
+    public CatalogExporter(WritableByteChannel channel, Format format) {
+        this.channel = channel;
+        this.format = format;
+    }
+
+    public long writeCatalog(Warehouse warehouse) throws IOException {
+        return writeCatalog(warehouse::forEachCategory);
+    }
+
+    public long writeCatalog(Store store) throws IOException {
+        return writeCatalog(store::forEachCategory);
+    }
+
+    // Writes one row per item; returns the number of items written
+    public long writeCatalog(Consumer<Consumer<Category>> categories) throws IOException {
+        begin(ITEM_COLUMNS);
+        long[] count = new long[1];
+        try {
+            categories.accept(category -> category.forEachSubcategory(subcategory ->
+                    subcategory.forEachItem(item -> {
+                        try {
+                            writeItem(category, subcategory, item);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        count[0]++;
+                    })));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return count[0];
+    }
+
+    public long writeMessages(Iterable<OrderMessage> messages) throws IOException {
+        begin(MESSAGE_COLUMNS);
+        long count = 0;
+        for (OrderMessage message : messages) {
+            field(message.getMessageId());
+            field(message.getFromStoreId());
+            field(message.getToWarehouseId());
+            field(message.getItemName());
+            field(message.getItemCode());
+            field(message.getQuantity());
+            field(message.getExpectedArrivalDate());
+            field(message.getSentDate());
+            field(message.isProcessed());
+            field(message.getCorrelationId());
+            endRow();
+            count++;
+        }
+        return count;
+    }
+
+    private void writeItem(Category category, Subcategory subcategory, Item item) throws IOException {
+        field(category.getCategoryId());
+        field(category.getCategoryName());
+        field(subcategory.getSubcategoryId());
+        field(subcategory.getSubcategoryName());
+        field(item.getItemCode());
+        field(item.getItemName());
+        field(item.getDescription());
+        field(item.getCurrentInventoryLevel());
+        field(item.getFixedCostPerQuarter());
+        field(item.getCarryingCostPerUnitPerQuarter());
+        field(item.getDemandUnitsPerQuarter());
+        field(item.getMaxDailyUsage());
+        field(item.getAvgDailyUsage());
+        field(item.getMaxLeadTimeDays());
+        field(item.getAvgLeadTimeDays());
+        field(item.calculateEOQ());
+        field(item.calculateSafetyStock());
+        field(item.calculateReorderPoint());
+        endRow();
+    }
+
+    // Starts a new table; CSV gets a header row
+    private void begin(List<String> columns) throws IOException {
+        this.columns = columns;
+        column = 0;
+        line.setLength(0);
+        if (format == Format.CSV) {
+            line.append(String.join(",", columns)).append('\n');
+            encodeLine();
+        }
+    }
+
+    private void startField() {
+        if (format == Format.CSV) {
+            if (column > 0) line.append(',');
+        } else {
+            line.append(column == 0 ? '{' : ',');
+            appendJsonString(columns.get(column));
+            line.append(':');
+        }
+        column++;
+    }
+
+    private void field(String value) {
+        startField();
+        if (format == Format.CSV) {
+            appendCsvString(value);
+        } else if (value == null) {
+            line.append("null");
+        } else {
+            appendJsonString(value);
+        }
+    }
+
+    private void field(LocalDate value) {
+        field(value == null ? null : value.toString());
+    }
+
+    private void field(long value) {
+        startField();
+        line.append(value);
+    }
+
+    private void field(boolean value) {
+        startField();
+        line.append(value);
+    }
+
+    private void field(double value) {
+        startField();
+        if (Double.isFinite(value)) {
+            line.append(value);
+        } else if (format == Format.NDJSON) {
+            line.append("null");
+        }
+    }
+
+    private void endRow() throws IOException {
+        if (format == Format.NDJSON) line.append('}');
+        line.append('\n');
+        column = 0;
+        encodeLine();
+    }
+
+    private void appendCsvString(String value) {
+        if (value == null) return;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') line.append('"');
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private void appendJsonString(String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private void encodeLine() throws IOException {
+        CharBuffer chars = CharBuffer.wrap(line);
+        encoder.reset();
+        while (encoder.encode(chars, buffer, true).isOverflow()) {
+            writeBuffer();
+        }
+        CoderResult result = encoder.flush(buffer);
+        if (result.isOverflow()) {
+            writeBuffer();
+            encoder.flush(buffer);
+        }
+        line.setLength(0);
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBuffer();
+    }
+}
@@ -0,0 +1,433 @@
+package com.superstore.io;
+
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streams a catalog CSV file into a warehouse or store. The file is read through a
+ * channel in fixed-size chunks cut at record boundaries; worker threads parse chunks in
+ * parallel while the calling thread applies parsed chunks in file order, one batch per
+ * chunk. Only a bounded number of chunks is in flight, so memory use does not grow
+ * with the file.
+ *
+ * The first line names the columns (see {@link #COLUMNS}); categoryId, subcategoryId and
+ * itemCode are required, unknown columns are ignored. Missing categories and subcategories
+ * are created. A row whose itemCode the facility already has updates that item in place,
+ * but only the fields whose column is present and non-empty in the row; a row that would
+ * move an existing item to another subcategory is rejected.
+ */
+public class CatalogImporter {
+
+    public static final List<String> COLUMNS = List.of(
+            "categoryId", "categoryName", "subcategoryId", "subcategoryName",
+            "itemCode", "itemName", "description", "inventory",
+            "fixedCostPerQuarter", "carryingCostPerUnitPerQuarter", "demandUnitsPerQuarter",
+            "maxDailyUsage", "avgDailyUsage", "maxLeadTimeDays", "avgLeadTimeDays");
+
+    private static final int CATEGORY_ID = 0, CATEGORY_NAME = 1, SUBCATEGORY_ID = 2,
+            SUBCATEGORY_NAME = 3, ITEM_CODE = 4, ITEM_NAME = 5, DESCRIPTION = 6, INVENTORY = 7,
+            FIXED_COST = 8, CARRYING_COST = 9, DEMAND = 10, MAX_DAILY_USAGE = 11,
+            AVG_DAILY_USAGE = 12, MAX_LEAD_TIME = 13, AVG_LEAD_TIME = 14;
+    private static final int MAX_ERRORS = 100;
+
+    private final Function<String, Category> categoryLookup;
+    private final Consumer<Category> categoryAdder;
+    private final Function<String, Item> itemLookup;
+    private Consumer<Runnable> batchRunner = Runnable::run;
+    private int chunkBytes = 1 << 20;
+    private int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    public CatalogImporter(Function<String, Category> categoryLookup, Consumer<Category> categoryAdder,
+                           Function<String, Item> itemLookup) {
+        this.categoryLookup = categoryLookup;
+        this.categoryAdder = categoryAdder;
+        this.itemLookup = itemLookup;
+    }
+
+    public static CatalogImporter forWarehouse(Warehouse warehouse) {
+        return new CatalogImporter(warehouse::getCategory, warehouse::addCategory, warehouse::getItem);
+    }
+
+    public static CatalogImporter forStore(Store store) {
+        return new CatalogImporter(store::getCategory, store::addCategory, store::getItem);
+    }
+
+    // Each batch of catalog changes is handed to the runner, e.g. to hold a facility lock
+    public void setBatchRunner(Consumer<Runnable> batchRunner) {
+        this.batchRunner = batchRunner;
+    }
+
+    public void setChunkBytes(int chunkBytes) {
+        this.chunkBytes = Math.max(1024, chunkBytes);
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public ImportResult importFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return importFrom(channel);
+        }
+    }
+
+    public ImportResult importFrom(ReadableByteChannel channel) throws IOException {
+        Progress progress = new Progress();
+        ExecutorService parsers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "catalog-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            byte[] data = new byte[chunkBytes];
+            int length = 0;
+            boolean eof = false;
+            int[] columns = null;
+            Deque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+
+            while (!eof || length > 0) {
+                if (!eof && length < data.length) {
+                    int read = channel.read(ByteBuffer.wrap(data, length, data.length - length));
+                    if (read < 0) {
+                        eof = true;
+                    } else {
+                        length += read;
+                        if (length < data.length) continue;   // fill the chunk before cutting it
+                    }
+                }
+                int boundary = eof ? length : lastRecordEnd(data, length);
+                if (boundary == 0) {
+                    data = Arrays.copyOf(data, data.length * 2);   // one record longer than a chunk
+                    continue;
+                }
+                int start = 0;
+                if (columns == null) {
+                    int headerEnd = recordEnd(data, 0, boundary);
+                    columns = readHeader(data, headerEnd);
+                    start = Math.min(headerEnd + 1, boundary);
+                }
+                byte[] chunk = Arrays.copyOfRange(data, start, boundary);
+                int[] chunkColumns = columns;
+                inFlight.add(parsers.submit(() -> parse(chunk, chunkColumns)));
+                if (inFlight.size() >= parallelism * 2) {
+                    apply(await(inFlight.poll()), progress);
+                }
+                System.arraycopy(data, boundary, data, 0, length - boundary);
+                length -= boundary;
+            }
+            while (!inFlight.isEmpty()) {
+                apply(await(inFlight.poll()), progress);
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+        return progress.result();
+    }
+
+    private static ParsedChunk await(Future<ParsedChunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to parse catalog", e.getCause());
+        }
+    }
+
+    // Position just past the last newline that is not inside quotes, or 0 if there is none
+    private static int lastRecordEnd(byte[] data, int length) {
+        boolean quoted = false;
+        int end = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = data[i];
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                end = i + 1;
+            }
+        }
+        return end;
+    }
+
+    // Index of the newline ending the record that starts at from, or limit
+    private static int recordEnd(byte[] data, int from, int limit) {
+        boolean quoted = false;
+        for (int i = from; i < limit; i++) {
+            if (data[i] == '"') {
+                quoted = !quoted;
+            } else if (data[i] == '\n' && !quoted) {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    // Maps each known column to its position in the file
+    private static int[] readHeader(byte[] data, int end) throws IOException {
+        int start = end >= 3 && (data[0] & 0xFF) == 0xEF && (data[1] & 0xFF) == 0xBB
+                && (data[2] & 0xFF) == 0xBF ? 3 : 0;   // UTF-8 byte order mark
+        List<String> header = new ArrayList<>();
+        new CsvRecordReader(data, start, end).next(header);
+        int[] columns = new int[COLUMNS.size()];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < header.size(); i++) {
+            int column = COLUMNS.indexOf(header.get(i).trim());
+            if (column >= 0) columns[column] = i;
+        }
+        for (int required : new int[] {CATEGORY_ID, SUBCATEGORY_ID, ITEM_CODE}) {
+            if (columns[required] < 0) {
+                throw new IOException("Catalog CSV has no " + COLUMNS.get(required) + " column");
+            }
+        }
+        return columns;
+    }
+
+    private static ParsedChunk parse(byte[] data, int[] columns) {
+        ParsedChunk chunk = new ParsedChunk();
+        CsvRecordReader reader = new CsvRecordReader(data, 0, data.length);
+        List<String> fields = new ArrayList<>(COLUMNS.size());
+        while (reader.next(fields)) {
+            chunk.records++;
+            if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                chunk.blankRecords++;
+                continue;
+            }
+            try {
+                chunk.rows.add(toRow(fields, columns, chunk.records));
+            } catch (IllegalArgumentException e) {
+                chunk.errors.add(new RowError(chunk.records, e.getMessage()));
+            }
+        }
+        return chunk;
+    }
+
+    private static Row toRow(List<String> fields, int[] columns, int record) {
+        String categoryId = required(fields, columns, CATEGORY_ID);
+        String subcategoryId = required(fields, columns, SUBCATEGORY_ID);
+        String itemCode = required(fields, columns, ITEM_CODE);
+        Item item = new Item(itemCode, text(fields, columns, ITEM_NAME, itemCode), subcategoryId);
+        item.setDescription(text(fields, columns, DESCRIPTION, null));
+        String inventory = text(fields, columns, INVENTORY, "");
+        if (!inventory.isEmpty()) {
+            int level;
+            try {
+                level = Integer.parseInt(inventory);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid inventory '" + inventory + "'");
+            }
+            if (level < 0) throw new IllegalArgumentException("negative inventory " + level);
+            item.setCurrentInventoryLevel(level);
+        }
+        item.setFixedCostPerQuarter(number(fields, columns, FIXED_COST));
+        item.setCarryingCostPerUnitPerQuarter(number(fields, columns, CARRYING_COST));
+        item.setDemandUnitsPerQuarter(number(fields, columns, DEMAND));
+        item.setMaxDailyUsage(number(fields, columns, MAX_DAILY_USAGE));
+        item.setAvgDailyUsage(number(fields, columns, AVG_DAILY_USAGE));
+        item.setMaxLeadTimeDays(number(fields, columns, MAX_LEAD_TIME));
+        item.setAvgLeadTimeDays(number(fields, columns, AVG_LEAD_TIME));
+        int present = 0;
+        for (int column = 0; column < COLUMNS.size(); column++) {
+            if (text(fields, columns, column, null) != null) present |= 1 << column;
+        }
+        return new Row(record, categoryId, text(fields, columns, CATEGORY_NAME, categoryId),
+                subcategoryId, text(fields, columns, SUBCATEGORY_NAME, subcategoryId), item, present);
+    }
+
+    private static String text(List<String> fields, int[] columns, int column, String fallback) {
+        int index = columns[column];
+        if (index < 0 || index >= fields.size() || fields.get(index).isEmpty()) return fallback;
+        return fields.get(index);
+    }
+
+    private static String required(List<String> fields, int[] columns, int column) {
+        String value = text(fields, columns, column, null);
+        if (value == null) throw new IllegalArgumentException("missing " + COLUMNS.get(column));
+        return value;
+    }
+
+    private static double number(List<String> fields, int[] columns, int column) {
+        String value = text(fields, columns, column, null);
+        if (value == null) return 0;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + COLUMNS.get(column) + " '" + value + "'");
+        }
+    }
+
+    private void apply(ParsedChunk chunk, Progress progress) {
+        List<RowError> errors = new ArrayList<>(chunk.errors);
+        batchRunner.accept(() -> {
+            for (Row row : chunk.rows) {
+                String error = applyRow(row, progress);
+                if (error != null) errors.add(new RowError(row.record(), error));
+            }
+        });
+        errors.sort(Comparator.comparingInt(RowError::record));
+        for (RowError error : errors) {
+            progress.rejected++;
+            if (progress.errors.size() < MAX_ERRORS) {
+                progress.errors.add("Row " + (progress.rowsRead + error.record()) + ": " + error.message());
+            }
+        }
+        progress.rowsRead += chunk.records;
+        progress.blankRows += chunk.blankRecords;
+    }
+
+    // Creates or updates the row's item; returns why the row was rejected, or null
+    private String applyRow(Row row, Progress progress) {
+        Item item = row.item();
+        Item existing = itemLookup.apply(item.getItemCode());
+        if (existing != null) {
+            Category category = categoryLookup.apply(row.categoryId());
+            Subcategory subcategory = category == null ? null : category.getSubcategory(row.subcategoryId());
+            if (subcategory == null || subcategory.getItem(existing.getItemCode()) != existing) {
+                return "item " + existing.getItemCode() + " belongs to another subcategory";
+            }
+            update(existing, row);
+            progress.itemsUpdated++;
+            return null;
+        }
+        Category category = categoryLookup.apply(row.categoryId());
+        if (category == null) {
+            category = new Category(row.categoryId(), row.categoryName());
+            categoryAdder.accept(category);
+            progress.categoriesCreated++;
+        }
+        Subcategory subcategory = category.getSubcategory(row.subcategoryId());
+        if (subcategory == null) {
+            subcategory = new Subcategory(row.subcategoryId(), row.subcategoryName(), row.categoryId());
+            category.addSubcategory(subcategory);
+            progress.subcategoriesCreated++;
+        }
+        item.setSubcategoryId(subcategory.getSubcategoryId());   // share one id string per subcategory
+        subcategory.addItem(item);
+        progress.itemsCreated++;
+        return null;
+    }
+
+    // Copies the fields the row has a value for; absent or blank columns keep the item's value
+    private static void update(Item existing, Row row) {
+        Item item = row.item();
+        if (row.has(DESCRIPTION)) existing.setDescription(item.getDescription());
+        if (row.has(FIXED_COST)) existing.setFixedCostPerQuarter(item.getFixedCostPerQuarter());
+        if (row.has(CARRYING_COST)) existing.setCarryingCostPerUnitPerQuarter(item.getCarryingCostPerUnitPerQuarter());
+        if (row.has(DEMAND)) existing.setDemandUnitsPerQuarter(item.getDemandUnitsPerQuarter());
+        if (row.has(MAX_DAILY_USAGE)) existing.setMaxDailyUsage(item.getMaxDailyUsage());
+        if (row.has(AVG_DAILY_USAGE)) existing.setAvgDailyUsage(item.getAvgDailyUsage());
+        if (row.has(MAX_LEAD_TIME)) existing.setMaxLeadTimeDays(item.getMaxLeadTimeDays());
+        if (row.has(AVG_LEAD_TIME)) existing.setAvgLeadTimeDays(item.getAvgLeadTimeDays());
+        if (row.has(INVENTORY)) existing.setCurrentInventoryLevel(item.getCurrentInventoryLevel());
+    }
+
+    // present has bit 1 << column set for every column with a non-empty value
+    private record Row(int record, String categoryId, String categoryName, String subcategoryId,
+                       String subcategoryName, Item item, int present) {
+        boolean has(int column) {
+            return (present & (1 << column)) != 0;
+        }
+    }
+
+    private record RowError(int record, String message) {
+    }
+
+    private static final class ParsedChunk {
+        int records;
+        int blankRecords;
+        final List<Row> rows = new ArrayList<>();
+        final List<RowError> errors = new ArrayList<>();
+    }
+
+    private static final class Progress {
+        long rowsRead;
+        long blankRows;
+        long itemsCreated;
+        long itemsUpdated;
+        int categoriesCreated;
+        int subcategoriesCreated;
+        long rejected;
+        final List<String> errors = new ArrayList<>();
+
+        ImportResult result() {
+            return new ImportResult(rowsRead - blankRows, itemsCreated, itemsUpdated,
+                    categoriesCreated, subcategoriesCreated, rejected, List.copyOf(errors));
+        }
+    }
+
+    /** Splits UTF-8 bytes into RFC 4180 records: quoted fields may hold commas, quotes and newlines. */
+    static final class CsvRecordReader {
+        private final byte[] data;
+        private final int limit;
+        private int position;
+        private byte[] scratch = new byte[64];
+
+        CsvRecordReader(byte[] data, int from, int limit) {
+            this.data = data;
+            this.position = from;
+            this.limit = limit;
+        }
+
+        // Reads the next record into fields; false once the input is used up
+        boolean next(List<String> fields) {
+            fields.clear();
+            if (position >= limit) return false;
+            while (true) {
+                fields.add(position < limit && data[position] == '"' ? quotedField() : plainField());
+                if (position >= limit) return true;
+                byte separator = data[position++];
+                if (separator == '\n') return true;
+            }
+        }
+
+        private String plainField() {
+            int start = position;
+            while (position < limit && data[position] != ',' && data[position] != '\n') {
+                position++;
+            }
+            int end = position;
+            if (end > start && data[end - 1] == '\r') end--;
+            return new String(data, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        private String quotedField() {
+            position++;
+            int length = 0;
+            while (position < limit) {
+                byte b = data[position++];
+                if (b == '"') {
+                    if (position < limit && data[position] == '"') {
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+                if (length == scratch.length) scratch = Arrays.copyOf(scratch, length * 2);
+                scratch[length++] = b;
+            }
+            // Anything between the closing quote and the separator is dropped
+            while (position < limit && data[position] != ',' && data[position] != '\n') {
+                position++;
+            }
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.superstore.io;
+
+import java.util.List;
+
+/**
+ * Counts from one catalog import. errors holds the first few rejected rows, each
+ * message naming the row (1 is the first row after the header).
+ */
+public record ImportResult(long rowsRead, long itemsCreated, long itemsUpdated,
+                           int categoriesCreated, int subcategoriesCreated,
+                           long rowsRejected, List<String> errors) {
+}
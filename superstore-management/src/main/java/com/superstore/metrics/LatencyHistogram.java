@@ -0,0 +1,173 @@
+package com.superstore.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram in nanoseconds. Buckets are log-linear: every power of two
+ * is split into {@value #SUB_BUCKETS} equal buckets, so a reported percentile is within
+ * 12.5% of the true value, from 1 ns up to about 18 minutes. Larger values go into the
+ * last bucket.
+ *
+ * Each recording thread gets a stripe of buckets of its own, which only it writes, so a
+ * record is a few plain loads and ordered stores with no atomic read-modify-write and no
+ * cache line shared with other threads; a snapshot adds the stripes up. Stripes are kept
+ * for the life of the histogram, so once {@value #MAX_OWNED_STRIPES} threads have recorded,
+ * further threads share a small set of stripes updated atomically. Hot paths that take
+ * well under a microsecond can time only one call in {@code sampleEvery}, which keeps the
+ * two System.nanoTime calls off most calls.
+ */
+public final class LatencyHistogram {
+
+    /** Returned by {@link #start} when the call is not timed; {@link #stop} ignores it. */
+    public static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;  // 2^40 ns, about 18 minutes
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private static final int SUM = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+    // Spaced so the sum and max slots of one stripe do not share a cache line with the next
+    private static final int STRIPE_LENGTH = BUCKETS + 16;
+
+    // Threads beyond this many share SHARED_STRIPES stripes updated with atomic adds
+    static final int MAX_OWNED_STRIPES = 256;
+    private static final int SHARED_STRIPES = 16;
+
+    /** One thread's buckets, or, when shared, the buckets of every thread hashed to it. */
+    private static final class Stripe {
+        final AtomicLongArray counts = new AtomicLongArray(STRIPE_LENGTH);
+        final boolean shared;
+
+        Stripe(boolean shared) {
+            this.shared = shared;
+        }
+
+        void record(int bucket, long value) {
+            if (shared) {
+                counts.getAndIncrement(bucket);
+                counts.getAndAdd(SUM, value);
+                if (value > counts.get(MAX)) counts.accumulateAndGet(MAX, value, Math::max);
+            } else {
+                // Single writer: ordered stores are enough, and cost no more than plain ones
+                counts.lazySet(bucket, counts.get(bucket) + 1);
+                counts.lazySet(SUM, counts.get(SUM) + value);
+                if (value > counts.get(MAX)) counts.lazySet(MAX, value);
+            }
+        }
+    }
+
+    private final ThreadLocal<Stripe> ownStripe = ThreadLocal.withInitial(this::newStripe);
+    private final List<Stripe> stripes = new CopyOnWriteArrayList<>();
+    private final Stripe[] sharedStripes = new Stripe[SHARED_STRIPES];
+    private final int sampleMask;
+
+    public LatencyHistogram() {
+        this(1);
+    }
+
+    // sampleEvery is rounded up to a power of two
+    public LatencyHistogram(int sampleEvery) {
+        this.sampleMask = sampleEvery <= 1 ? 0 : Integer.highestOneBit(sampleEvery - 1) * 2 - 1;
+        for (int i = 0; i < SHARED_STRIPES; i++) {
+            sharedStripes[i] = new Stripe(true);
+            stripes.add(sharedStripes[i]);
+        }
+    }
+
+    private synchronized Stripe newStripe() {
+        if (stripes.size() - SHARED_STRIPES >= MAX_OWNED_STRIPES) {
+            long id = Thread.currentThread().getId();
+            return sharedStripes[(int) ((id * 0x9E3779B97F4A7C15L) >>> 60) & (SHARED_STRIPES - 1)];
+        }
+        Stripe stripe = new Stripe(false);
+        stripes.add(stripe);
+        return stripe;
+    }
+
+    public int getSampleEvery() {
+        return sampleMask + 1;
+    }
+
+    // Start time of a call to be timed, or NOT_TIMED
+    public long start() {
+        if (!Metrics.ENABLED) return NOT_TIMED;
+        if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) return NOT_TIMED;
+        return System.nanoTime();
+    }
+
+    public void stop(long start) {
+        if (start != NOT_TIMED) {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    public void record(long nanos) {
+        if (!Metrics.ENABLED) return;
+        long value = Math.max(0, nanos);
+        ownStripe.get().record(bucketOf(value), value);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    // Smallest value that falls into the bucket
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    public Snapshot snapshot() {
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (Stripe stripe : stripes) {
+            AtomicLongArray counts = stripe.counts;
+            for (int i = 0; i < BUCKETS; i++) {
+                long n = counts.get(i);
+                buckets[i] += n;
+                count += n;
+            }
+            sum += counts.get(SUM);
+            max = Math.max(max, counts.get(MAX));
+        }
+        return new Snapshot(count, sum, max, buckets);
+    }
+
+    /**
+     * Totals at one point in time. The parts are read one after the other while recording
+     * goes on, so they can disagree by the events recorded during the read.
+     */
+    public record Snapshot(long count, long sumNanos, long maxNanos, long[] buckets) {
+
+        public double meanNanos() {
+            return count == 0 ? 0 : (double) sumNanos / count;
+        }
+
+        // Upper bound of the bucket holding the percentile, capped at the largest value seen
+        public long percentileNanos(double percentile) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= Math.max(1, rank)) {
+                    long upper = i + 1 < BUCKETS ? lowerBound(i + 1) - 1 : maxNanos;
+                    return Math.min(upper, maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.superstore.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry of counters, gauges and latency histograms, looked up by name. Metric names
+ * follow the Prometheus conventions: counters end in _total and latencies in _seconds,
+ * although histograms record nanoseconds and are only converted when exported.
+ *
+ * Classes that have no SuperstoreSystem at hand, such as the domain classes, register
+ * with {@link #global()}. Starting with -Dsuperstore.metrics=false turns every histogram
+ * into a no-op; counters and gauges are cheap enough to stay on.
+ */
+public final class Metrics {
+
+    public static final boolean ENABLED = !"false".equals(System.getProperty("superstore.metrics"));
+
+    private static final Metrics GLOBAL = new Metrics();
+
+    /**
+     * A count that only goes up. Like a histogram stripe, every thread increments a cell of
+     * its own with an ordered store instead of an atomic add; threads beyond the first
+     * {@value LatencyHistogram#MAX_OWNED_STRIPES} share a LongAdder.
+     */
+    public static final class Counter {
+        private final ThreadLocal<AtomicLong> ownCell = ThreadLocal.withInitial(this::newCell);
+        private final List<AtomicLong> cells = new CopyOnWriteArrayList<>();
+        private final LongAdder shared = new LongAdder();
+
+        private synchronized AtomicLong newCell() {
+            if (cells.size() >= LatencyHistogram.MAX_OWNED_STRIPES) return null;
+            AtomicLong cell = new AtomicLong();
+            cells.add(cell);
+            return cell;
+        }
+
+        public void increment() {
+            add(1);
+        }
+
+        public void add(long amount) {
+            AtomicLong cell = ownCell.get();
+            if (cell != null) {
+                cell.lazySet(cell.get() + amount);
+            } else {
+                shared.add(amount);
+            }
+        }
+
+        public long get() {
+            long sum = shared.sum();
+            for (AtomicLong cell : cells) {
+                sum += cell.get();
+            }
+            return sum;
+        }
+    }
+
+    private record Entry(String help, Object metric) {
+    }
+
+    public record Snapshot(long timeMillis, Map<String, Long> counters, Map<String, Double> gauges,
+                           Map<String, LatencyHistogram.Snapshot> histograms, Map<String, String> help) {
+    }
+
+    private final Map<String, Entry> metrics = new ConcurrentHashMap<>();
+
+    public static Metrics global() {
+        return GLOBAL;
+    }
+
+    // Returns the counter already registered under the name, if any
+    public Counter counter(String name, String help) {
+        return lookup(name, help, Counter.class, new Counter());
+    }
+
+    public LatencyHistogram histogram(String name, String help) {
+        return histogram(name, help, 1);
+    }
+
+    // Times one call in sampleEvery; the exported count is the number of timed calls
+    public LatencyHistogram histogram(String name, String help, int sampleEvery) {
+        return lookup(name, help, LatencyHistogram.class, new LatencyHistogram(sampleEvery));
+    }
+
+    // For a histogram owned by another component; replaces any metric with the name
+    public void register(String name, String help, LatencyHistogram histogram) {
+        metrics.put(name, new Entry(help, histogram));
+    }
+
+    // Read when a snapshot is taken; replaces any metric with the name
+    public void gauge(String name, String help, DoubleSupplier value) {
+        metrics.put(name, new Entry(help, value));
+    }
+
+    public void remove(String name) {
+        metrics.remove(name);
+    }
+
+    private <T> T lookup(String name, String help, Class<T> type, T created) {
+        Entry entry = metrics.computeIfAbsent(name, n -> new Entry(help, created));
+        if (!type.isInstance(entry.metric)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as another type");
+        }
+        return type.cast(entry.metric);
+    }
+
+    // Metrics in name order; a gauge that throws is left out
+    public Snapshot snapshot() {
+        Map<String, Long> counters = new TreeMap<>();
+        Map<String, Double> gauges = new TreeMap<>();
+        Map<String, LatencyHistogram.Snapshot> histograms = new TreeMap<>();
+        Map<String, String> help = new TreeMap<>();
+        for (Map.Entry<String, Entry> e : metrics.entrySet()) {
+            String name = e.getKey();
+            Object metric = e.getValue().metric;
+            if (metric instanceof Counter counter) {
+                counters.put(name, counter.get());
+            } else if (metric instanceof LatencyHistogram histogram) {
+                histograms.put(name, histogram.snapshot());
+            } else if (metric instanceof DoubleSupplier gauge) {
+                try {
+                    gauges.put(name, gauge.getAsDouble());
+                } catch (RuntimeException ex) {
+                    continue;
+                }
+            }
+            help.put(name, e.getValue().help);
+        }
+        return new Snapshot(System.currentTimeMillis(), counters, gauges, histograms, help);
+    }
+}
@@ -0,0 +1,193 @@
+package com.superstore.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Formats metric snapshots as Prometheus text, JSON or a plain text table, and can write
+ * them to a file periodically. Each write replaces the file atomically, so a reader never
+ * sees a half-written dump. Histograms are exported as summaries with the
+ * {@link #QUANTILES} and their totals, converted to seconds.
+ */
+public class MetricsExporter implements AutoCloseable {
+
+    public enum Format {
+        PROMETHEUS,
+        JSON,
+        TEXT;
+
+        // JSON for .json files, Prometheus text for .prom files, a text table otherwise
+        public static Format forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".json")) return JSON;
+            if (name.endsWith(".prom")) return PROMETHEUS;
+            return TEXT;
+        }
+    }
+
+    public static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Metrics metrics;
+    private final Path file;
+    private final Format format;
+    private ScheduledExecutorService scheduler;
+
+    public MetricsExporter(Metrics metrics, Path file, Format format) {
+        this.metrics = metrics;
+        this.file = file;
+        this.format = format;
+    }
+
+    public void write() throws IOException {
+        String content = format(metrics.snapshot(), format);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, content, StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Writes the file every period on a background thread until closed
+    public synchronized void start(long period, TimeUnit unit, Consumer<Exception> errorHandler) {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                write();
+            } catch (IOException | RuntimeException e) {
+                errorHandler.accept(e);  // keep the schedule alive
+            }
+        }, period, period, unit);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public static String format(Metrics.Snapshot snapshot, Format format) {
+        return switch (format) {
+            case PROMETHEUS -> prometheus(snapshot);
+            case JSON -> json(snapshot);
+            case TEXT -> text(snapshot);
+        };
+    }
+
+    public static String prometheus(Metrics.Snapshot snapshot) {
+        StringBuilder out = new StringBuilder(4096);
+        for (Map.Entry<String, Long> counter : snapshot.counters().entrySet()) {
+            header(out, snapshot, counter.getKey(), "counter");
+            out.append(counter.getKey()).append(' ').append(counter.getValue()).append('\n');
+        }
+        for (Map.Entry<String, Double> gauge : snapshot.gauges().entrySet()) {
+            header(out, snapshot, gauge.getKey(), "gauge");
+            out.append(gauge.getKey()).append(' ').append(number(gauge.getValue())).append('\n');
+        }
+        for (Map.Entry<String, LatencyHistogram.Snapshot> e : snapshot.histograms().entrySet()) {
+            String name = e.getKey();
+            LatencyHistogram.Snapshot histogram = e.getValue();
+            header(out, snapshot, name, "summary");
+            for (double quantile : QUANTILES) {
+                out.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(histogram.percentileNanos(quantile * 100))).append('\n');
+            }
+            out.append(name).append("_sum ").append(seconds(histogram.sumNanos())).append('\n');
+            out.append(name).append("_count ").append(histogram.count()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, Metrics.Snapshot snapshot, String name, String type) {
+        String help = snapshot.help().get(name);
+        if (help != null && !help.isEmpty()) {
+            out.append("# HELP ").append(name).append(' ')
+                    .append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        }
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    public static String json(Metrics.Snapshot snapshot) {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("{\"timeMillis\":").append(snapshot.timeMillis()).append(",\"counters\":{");
+        String separator = "";
+        for (Map.Entry<String, Long> counter : snapshot.counters().entrySet()) {
+            out.append(separator).append('"').append(counter.getKey()).append("\":").append(counter.getValue());
+            separator = ",";
+        }
+        out.append("},\"gauges\":{");
+        separator = "";
+        for (Map.Entry<String, Double> gauge : snapshot.gauges().entrySet()) {
+            double value = gauge.getValue();
+            out.append(separator).append('"').append(gauge.getKey()).append("\":")
+                    .append(Double.isFinite(value) ? number(value) : "null");
+            separator = ",";
+        }
+        out.append("},\"histograms\":{");
+        separator = "";
+        for (Map.Entry<String, LatencyHistogram.Snapshot> e : snapshot.histograms().entrySet()) {
+            LatencyHistogram.Snapshot histogram = e.getValue();
+            out.append(separator).append('"').append(e.getKey()).append("\":{\"count\":").append(histogram.count())
+                    .append(",\"sumSeconds\":").append(seconds(histogram.sumNanos()))
+                    .append(",\"meanSeconds\":").append(seconds(histogram.meanNanos()));
+            for (double quantile : QUANTILES) {
+                out.append(",\"p").append(percentileLabel(quantile)).append("Seconds\":")
+                        .append(seconds(histogram.percentileNanos(quantile * 100)));
+            }
+            out.append(",\"maxSeconds\":").append(seconds(histogram.maxNanos())).append('}');
+            separator = ",";
+        }
+        return out.append("}}\n").toString();
+    }
+
+    public static String text(Metrics.Snapshot snapshot) {
+        StringBuilder out = new StringBuilder(4096);
+        for (Map.Entry<String, Long> counter : snapshot.counters().entrySet()) {
+            out.append(String.format(Locale.ROOT, "%-48s %,d%n", counter.getKey(), counter.getValue()));
+        }
+        for (Map.Entry<String, Double> gauge : snapshot.gauges().entrySet()) {
+            out.append(String.format(Locale.ROOT, "%-48s %s%n", gauge.getKey(), number(gauge.getValue())));
+        }
+        if (!snapshot.histograms().isEmpty()) {
+            out.append(String.format(Locale.ROOT, "%n%-48s %12s %10s %10s %10s %10s %10s%n", "latency (µs)",
+                    "count", "mean", "p50", "p99", "p99.9", "max"));
+        }
+        for (Map.Entry<String, LatencyHistogram.Snapshot> e : snapshot.histograms().entrySet()) {
+            LatencyHistogram.Snapshot h = e.getValue();
+            out.append(String.format(Locale.ROOT, "%-48s %,12d %10.1f %10.1f %10.1f %10.1f %10.1f%n", e.getKey(),
+                    h.count(), h.meanNanos() / 1e3, h.percentileNanos(50) / 1e3, h.percentileNanos(99) / 1e3,
+                    h.percentileNanos(99.9) / 1e3, h.maxNanos() / 1e3));
+        }
+        return out.toString();
+    }
+
+    private static String percentileLabel(double quantile) {
+        String label = number(quantile * 100);
+        return label.replace('.', '_');
+    }
+
+    private static String seconds(double nanos) {
+        return number(nanos / 1e9);
+    }
+
+    // Integers without a fraction, everything else as Java prints doubles
+    private static String number(double value) {
+        if (Double.isNaN(value)) return "NaN";
+        if (Double.isInfinite(value)) return value > 0 ? "+Inf" : "-Inf";
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) return Long.toString((long) value);
+        return Double.toString(value);
+    }
+}
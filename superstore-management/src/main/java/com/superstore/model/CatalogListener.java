@@ -0,0 +1,25 @@
+package com.superstore.model;
+
+/**
+ * Observes items entering and leaving a catalog tree. Subcategories report their items,
+ * categories pass the listener down to their subcategories, and facilities install one
+ * listener on each category they own so they can keep their indexes up to date. Items
+ * in the tree report their own inventory and reorder parameter changes to the same listener.
+ */
+public interface CatalogListener {
+
+    void itemAdded(Subcategory subcategory, Item item);
+
+    void itemRemoved(Subcategory subcategory, Item item);
+
+    default void inventoryChanged(Item item, int previousLevel, int newLevel) {
+    }
+
+    // A usage or lead time changed, so the item's reorder point may have moved
+    default void reorderPointChanged(Item item) {
+    }
+
+    // The item's description was replaced; names and codes never change
+    default void descriptionChanged(Item item) {
+    }
+}
@@ -1,25 +1,54 @@
 // Category.java
 package com.superstore.model;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+// Thread safety: same model as Subcategory; lookups are lock-free on a ConcurrentHashMap
+// and structural changes synchronize on the category.
 public class Category implements Serializable{
+    private static final long serialVersionUID = -8884344332514301914L;
+
     private String categoryId;
     private String categoryName;
     private Map<String, Subcategory> subcategories;
+    private transient volatile CatalogListener listener;
     
     public Category(String categoryId, String categoryName) {
         this.categoryId = categoryId;
         this.categoryName = categoryName;
-        this.subcategories = new HashMap<>();
+        this.subcategories = new ConcurrentHashMap<>();
+    }
+    
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        subcategories = new ConcurrentHashMap<>(subcategories);
     }
     
-    public void addSubcategory(Subcategory subcategory) {
-        subcategories.put(subcategory.getSubcategoryId(), subcategory);
+    // Installed by the owning facility and handed down to every subcategory
+    public synchronized void setCatalogListener(CatalogListener listener) {
+        this.listener = listener;
+        for (Subcategory subcategory : subcategories.values()) {
+            subcategory.setCatalogListener(listener);
+        }
     }
     
-    public void removeSubcategory(String subcategoryId) {
-        subcategories.remove(subcategoryId);
+    public synchronized void addSubcategory(Subcategory subcategory) {
+        Subcategory previous = subcategories.put(subcategory.getSubcategoryId(), subcategory);
+        if (previous != null && previous != subcategory) {
+            previous.setCatalogListener(null);
+        }
+        subcategory.setCatalogListener(listener);
+    }
+    
+    public synchronized void removeSubcategory(String subcategoryId) {
+        Subcategory removed = subcategories.remove(subcategoryId);
+        if (removed != null) {
+            removed.setCatalogListener(null);
+        }
     }
     
     public Subcategory getSubcategory(String subcategoryId) {
@@ -30,6 +59,10 @@ public class Category implements Serializable{
         return new ArrayList<>(subcategories.values());
     }
     
+    public void forEachSubcategory(Consumer<Subcategory> action) {
+        subcategories.values().forEach(action);
+    }
+    
     public String getCategoryId() { return categoryId; }
     public String getCategoryName() { return categoryName; }
     public void setCategoryName(String categoryName) { 
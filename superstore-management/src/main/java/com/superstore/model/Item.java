@@ -1,20 +1,46 @@
 // Item.java
 package com.superstore.model;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
+// Inventory is updated atomically (VarHandle CAS) so concurrent stock movements on one
+// item never lose counts; every update is reported to the listener with the exact
+// before and after levels it produced.
 public class Item implements Serializable{
+    private static final long serialVersionUID = -2036414954419767009L;
+
     private String itemCode;
     private String itemName;
     private String description;
     private double fixedCostPerQuarter; // D
     private double carryingCostPerUnitPerQuarter; // H
     private double demandUnitsPerQuarter; // K
-    private int currentInventoryLevel;
+    private volatile int currentInventoryLevel;
     private double maxDailyUsage;
     private double avgDailyUsage;
     private double maxLeadTimeDays;
     private double avgLeadTimeDays;
     private String subcategoryId;
+    // Cached by calculateReorderPoint(); bumping the stamp when a usage or lead time
+    // changes invalidates it, even while another thread is computing a new value
+    private transient volatile long parameterStamp;
+    private transient volatile ReorderPointCache reorderPointCache;
+    private transient volatile CatalogListener listener;
+    
+    private record ReorderPointCache(long stamp, double value) { }
+    
+    private static final VarHandle INVENTORY;
+    private static final VarHandle PARAMETER_STAMP;
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            INVENTORY = lookup.findVarHandle(Item.class, "currentInventoryLevel", int.class);
+            PARAMETER_STAMP = lookup.findVarHandle(Item.class, "parameterStamp", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
     
     public Item(String itemCode, String itemName, String subcategoryId) {
         this.itemCode = itemCode;
@@ -36,7 +62,34 @@ public class Item implements Serializable{
     
     // Calculate Reorder Point
     public double calculateReorderPoint() {
-        return (avgLeadTimeDays * avgDailyUsage) + calculateSafetyStock();
+        long stamp = parameterStamp;
+        ReorderPointCache cache = reorderPointCache;
+        if (cache != null && cache.stamp() == stamp) return cache.value();
+        double reorderPoint = (avgLeadTimeDays * avgDailyUsage) + calculateSafetyStock();
+        reorderPointCache = new ReorderPointCache(stamp, reorderPoint);
+        return reorderPoint;
+    }
+    
+    // Set by the subcategory holding this item
+    void setCatalogListener(CatalogListener listener) {
+        this.listener = listener;
+    }
+    
+    CatalogListener getCatalogListener() {
+        return listener;
+    }
+    
+    private void inventoryChanged(int previousLevel, int newLevel) {
+        CatalogListener l = listener;
+        if (l != null && previousLevel != newLevel) {
+            l.inventoryChanged(this, previousLevel, newLevel);
+        }
+    }
+    
+    private void reorderPointChanged() {
+        PARAMETER_STAMP.getAndAdd(this, 1L);
+        CatalogListener l = listener;
+        if (l != null) l.reorderPointChanged(this);
     }
     
     // Check if item needs reordering
@@ -48,7 +101,11 @@ public class Item implements Serializable{
     public String getItemCode() { return itemCode; }
     public String getItemName() { return itemName; }
     public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public void setDescription(String description) {
+        this.description = description;
+        CatalogListener l = listener;
+        if (l != null) l.descriptionChanged(this);
+    }
     
     public double getFixedCostPerQuarter() { return fixedCostPerQuarter; }
     public void setFixedCostPerQuarter(double fixedCostPerQuarter) { 
@@ -67,30 +124,57 @@ public class Item implements Serializable{
     
     public int getCurrentInventoryLevel() { return currentInventoryLevel; }
     public void setCurrentInventoryLevel(int level) { 
-        this.currentInventoryLevel = level; 
+        int previous = (int) INVENTORY.getAndSet(this, level);
+        inventoryChanged(previous, level);
+    }
+    
+    public void addInventory(int units) {
+        int previous = (int) INVENTORY.getAndAdd(this, units);
+        inventoryChanged(previous, previous + units);
+    }
+    public void removeInventory(int units) {
+        int previous = (int) INVENTORY.getAndAdd(this, -units);
+        inventoryChanged(previous, previous - units);
+    }
+    
+    // Sets the level only if it still equals expectedLevel
+    public boolean compareAndSetInventory(int expectedLevel, int newLevel) {
+        if (!INVENTORY.compareAndSet(this, expectedLevel, newLevel)) return false;
+        inventoryChanged(expectedLevel, newLevel);
+        return true;
     }
     
-    public void addInventory(int units) { this.currentInventoryLevel += units; }
-    public void removeInventory(int units) { this.currentInventoryLevel -= units; }
+    // Removes the units unless that would take the level below zero
+    public boolean tryRemoveInventory(int units) {
+        while (true) {
+            int current = currentInventoryLevel;
+            if (current - units < 0) return false;
+            if (compareAndSetInventory(current, current - units)) return true;
+        }
+    }
     
     public double getMaxDailyUsage() { return maxDailyUsage; }
     public void setMaxDailyUsage(double maxDailyUsage) { 
         this.maxDailyUsage = maxDailyUsage; 
+        reorderPointChanged();
     }
     
     public double getAvgDailyUsage() { return avgDailyUsage; }
     public void setAvgDailyUsage(double avgDailyUsage) { 
         this.avgDailyUsage = avgDailyUsage; 
+        reorderPointChanged();
     }
     
     public double getMaxLeadTimeDays() { return maxLeadTimeDays; }
     public void setMaxLeadTimeDays(double maxLeadTimeDays) { 
         this.maxLeadTimeDays = maxLeadTimeDays; 
+        reorderPointChanged();
     }
     
     public double getAvgLeadTimeDays() { return avgLeadTimeDays; }
     public void setAvgLeadTimeDays(double avgLeadTimeDays) { 
         this.avgLeadTimeDays = avgLeadTimeDays; 
+        reorderPointChanged();
     }
     
     public String getSubcategoryId() { return subcategoryId; }
@@ -0,0 +1,22 @@
+package com.superstore.model;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Items of a subcategory that live outside the heap (e.g. in a memory-mapped catalog
+ * file) until the subcategory is first used.
+ */
+public interface ItemSource {
+
+    int size();
+
+    // Checks for an item without materializing the whole subcategory
+    boolean contains(String itemCode);
+
+    // Creates heap Items for every record; called once when the subcategory materializes
+    List<Item> load();
+
+    // Visits temporary Item views without keeping them
+    void forEach(Consumer<Item> action);
+}
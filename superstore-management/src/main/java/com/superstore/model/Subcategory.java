@@ -1,49 +1,156 @@
 // Subcategory.java
 package com.superstore.model;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+// Thread safety: items live in a ConcurrentHashMap, so an item added by addItem() is fully
+// visible to any thread that later finds it through getItem(), getAllItems() or a search.
+// Mutations and listener changes synchronize on the subcategory, so the listener sees
+// additions and removals in the order they were applied.
 public class Subcategory implements Serializable{
+    private static final long serialVersionUID = 8205663814171313643L;
+
     private String subcategoryId;
     private String subcategoryName;
     private String categoryId;
     private Map<String, Item> items;
+    // Items not yet read from the catalog file; null once materialized
+    private transient volatile ItemSource itemSource;
+    private transient volatile CatalogListener listener;
     
     public Subcategory(String subcategoryId, String subcategoryName, String categoryId) {
         this.subcategoryId = subcategoryId;
         this.subcategoryName = subcategoryName;
         this.categoryId = categoryId;
-        this.items = new HashMap<>();
+        this.items = new ConcurrentHashMap<>();
+    }
+    
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        items = new ConcurrentHashMap<>(items);
+    }
+    
+    // Defers loading of this subcategory's items until they are first needed
+    public void setItemSource(ItemSource source) {
+        this.itemSource = source;
+    }
+    
+    public boolean isMaterialized() {
+        return itemSource == null;
     }
     
-    public void addItem(Item item) {
-        items.put(item.getItemCode(), item);
+    // Moves the items over to a new listener; items of a lazy subcategory are
+    // announced when it materializes instead
+    public synchronized void setCatalogListener(CatalogListener newListener) {
+        CatalogListener oldListener = listener;
+        if (oldListener == newListener) return;
+        listener = newListener;
+        if (itemSource != null) return;
+        for (Item item : items.values()) {
+            if (oldListener != null) oldListener.itemRemoved(this, item);
+            item.setCatalogListener(newListener);
+            if (newListener != null) newListener.itemAdded(this, item);
+        }
     }
     
-    public void removeItem(String itemCode) {
-        items.remove(itemCode);
+    private void materialize() {
+        if (itemSource == null) return;
+        synchronized (this) {
+            ItemSource source = itemSource;
+            if (source == null) return;
+            for (Item item : source.load()) {
+                if (items.putIfAbsent(item.getItemCode(), item) == null && listener != null) {
+                    item.setCatalogListener(listener);
+                    listener.itemAdded(this, item);
+                }
+            }
+            itemSource = null;
+        }
+    }
+    
+    public synchronized void addItem(Item item) {
+        materialize();
+        Item previous = items.put(item.getItemCode(), item);
+        if (previous != null && previous != item) release(previous);
+        item.setCatalogListener(listener);
+        if (listener != null && previous != item) listener.itemAdded(this, item);
+    }
+    
+    public synchronized void removeItem(String itemCode) {
+        materialize();
+        Item removed = items.remove(itemCode);
+        if (removed != null) release(removed);
+    }
+    
+    private void release(Item item) {
+        if (item.getCatalogListener() == listener) item.setCatalogListener(null);
+        if (listener != null) listener.itemRemoved(this, item);
     }
     
     public Item getItem(String itemCode) {
+        ItemSource source = itemSource;
+        if (source != null) {
+            if (!source.contains(itemCode)) return null;
+            materialize();
+        }
         return items.get(itemCode);
     }
     
     public List<Item> getAllItems() {
+        materialize();
         return new ArrayList<>(items.values());
     }
     
+    public int getItemCount() {
+        ItemSource source = itemSource;
+        return source != null ? source.size() : items.size();
+    }
+    
+    // Visits every item without materializing a lazily loaded subcategory
+    public void forEachItem(Consumer<Item> action) {
+        ItemSource source = itemSource;
+        if (source != null) {
+            source.forEach(action);
+        } else {
+            items.values().forEach(action);
+        }
+    }
+    
+    // Case-insensitive substring match on item names; Store.searchItems is the indexed search
     public List<Item> searchItems(String searchTerm) {
+        materialize();
         List<Item> results = new ArrayList<>();
-        String lowerSearchTerm = searchTerm.toLowerCase();
         for (Item item : items.values()) {
-            if (item.getItemName().toLowerCase().contains(lowerSearchTerm)) {
+            if (containsIgnoreCase(item.getItemName(), searchTerm)) {
                 results.add(item);
             }
         }
         return results;
     }
     
+    // Compares in place instead of lower-casing a copy of every name; only positions
+    // starting with the term's first letter are compared in full
+    private static boolean containsIgnoreCase(String text, String term) {
+        if (term.isEmpty()) return true;
+        char lower = Character.toLowerCase(term.charAt(0));
+        char upper = Character.toUpperCase(term.charAt(0));
+        int last = text.length() - term.length();
+        for (int i = 0; i <= last; i++) {
+            char c = text.charAt(i);
+            if ((c == lower || c == upper || Character.toLowerCase(c) == lower)
+                    && text.regionMatches(true, i, term, 0, term.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     public List<Item> getItemsSorted() {
+        materialize();
         List<Item> itemList = new ArrayList<>(items.values());
         itemList.sort(Comparator.comparing(Item::getItemName));
         return itemList;
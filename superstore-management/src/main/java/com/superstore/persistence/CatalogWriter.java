@@ -0,0 +1,174 @@
+package com.superstore.persistence;
+
+import com.superstore.model.Item;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.superstore.persistence.MappedCatalog.*;
+
+/**
+ * Streams items into a catalog file read by {@link MappedCatalog}. Records are numbered in
+ * the order they are appended, so the items of one subcategory form a contiguous range.
+ */
+public class CatalogWriter implements Closeable {
+
+    private final Path path;
+    private final Path recordsPath;
+    private final FileChannel out;
+    private final FileChannel recordsOut;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_BYTES * 1024);
+    private final ByteBuffer stringBuffer = ByteBuffer.allocate(64 * 1024);
+    private final Map<String, Integer> stringOffsets = new HashMap<>();
+    private long stringsLength;
+    private int recordCount;
+    private String[] codes = new String[1024];
+    private boolean finished;
+
+    public CatalogWriter(Path path) throws IOException {
+        this.path = path;
+        this.recordsPath = path.resolveSibling(path.getFileName() + ".records");
+        this.out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.recordsOut = FileChannel.open(recordsPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        out.position(HEADER_BYTES);
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
+    /** Appends one item and returns its record number. */
+    public int append(Item item) throws IOException {
+        if (recordBuffer.remaining() < RECORD_BYTES) flushRecords();
+        int start = recordBuffer.position();
+        recordBuffer.putInt(string(item.getItemCode()));
+        recordBuffer.putInt(string(item.getItemName()));
+        recordBuffer.putInt(string(item.getDescription()));
+        recordBuffer.putInt(string(item.getSubcategoryId()));
+        recordBuffer.putInt(item.getCurrentInventoryLevel());
+        recordBuffer.putInt(0);  // reserved
+        recordBuffer.putDouble(item.getFixedCostPerQuarter());
+        recordBuffer.putDouble(item.getCarryingCostPerUnitPerQuarter());
+        recordBuffer.putDouble(item.getDemandUnitsPerQuarter());
+        recordBuffer.putDouble(item.getMaxDailyUsage());
+        recordBuffer.putDouble(item.getAvgDailyUsage());
+        recordBuffer.putDouble(item.getMaxLeadTimeDays());
+        recordBuffer.putDouble(item.getAvgLeadTimeDays());
+        recordBuffer.position(start + RECORD_BYTES);
+
+        if (recordCount == codes.length) codes = Arrays.copyOf(codes, recordCount * 2);
+        codes[recordCount] = item.getItemCode();
+        return recordCount++;
+    }
+
+    /** Writes records, the sorted item-code index and the header, then syncs the file. */
+    public void finish() throws IOException {
+        flushStrings();
+        flushRecords();
+        long stringsOffset = HEADER_BYTES;
+        long recordsOffset = stringsOffset + stringsLength;
+        long recordsLength = (long) recordCount * RECORD_BYTES;
+        long indexOffset = recordsOffset + recordsLength;
+        checkRegion(stringsLength);
+        checkRegion(recordsLength);
+
+        long copied = 0;
+        try (FileChannel recordsIn = FileChannel.open(recordsPath, StandardOpenOption.READ)) {
+            while (copied < recordsLength) {
+                copied += out.transferFrom(recordsIn.position(copied), recordsOffset + copied,
+                        recordsLength - copied);
+            }
+        }
+
+        Integer[] order = new Integer[recordCount];
+        for (int i = 0; i < recordCount; i++) order[i] = i;
+        String[] sortCodes = codes;
+        Arrays.sort(order, (a, b) -> compareCodes(sortCodes[a], sortCodes[b]));
+        ByteBuffer indexBuffer = ByteBuffer.allocate(4 * 8192);
+        long position = indexOffset;
+        for (Integer record : order) {
+            if (!indexBuffer.hasRemaining()) {
+                position += writeAt(indexBuffer, position);
+            }
+            indexBuffer.putInt(record);
+        }
+        writeAt(indexBuffer, position);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).putInt(recordCount);
+        header.putLong(stringsOffset).putLong(stringsLength).putLong(recordsOffset).putLong(indexOffset);
+        header.position(HEADER_BYTES);  // pad, so an empty catalog still has a full header
+        writeAt(header, 0);
+        out.force(true);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.close();
+            recordsOut.close();
+        } finally {
+            Files.deleteIfExists(recordsPath);
+            if (!finished) Files.deleteIfExists(path);
+        }
+    }
+
+    private int string(String value) throws IOException {
+        if (value == null) return NO_STRING;
+        Integer offset = stringOffsets.get(value);
+        if (offset != null) return offset;
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        checkRegion(stringsLength + 4 + bytes.length);
+        int newOffset = (int) stringsLength;
+        if (stringBuffer.remaining() < 4) flushStrings();
+        stringBuffer.putInt(bytes.length);
+        int written = 0;
+        while (written < bytes.length) {
+            if (!stringBuffer.hasRemaining()) flushStrings();
+            int chunk = Math.min(stringBuffer.remaining(), bytes.length - written);
+            stringBuffer.put(bytes, written, chunk);
+            written += chunk;
+        }
+        stringsLength += 4 + bytes.length;
+        stringOffsets.put(value, newOffset);
+        return newOffset;
+    }
+
+    private void flushStrings() throws IOException {
+        stringBuffer.flip();
+        while (stringBuffer.hasRemaining()) out.write(stringBuffer);
+        stringBuffer.clear();
+    }
+
+    private void flushRecords() throws IOException {
+        recordBuffer.flip();
+        while (recordBuffer.hasRemaining()) recordsOut.write(recordBuffer);
+        recordBuffer.clear();
+    }
+
+    private int writeAt(ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        int total = 0;
+        while (buffer.hasRemaining()) total += out.write(buffer, position + total);
+        buffer.clear();
+        return total;
+    }
+
+    private static void checkRegion(long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Catalog region exceeds " + Integer.MAX_VALUE + " bytes");
+        }
+    }
+}
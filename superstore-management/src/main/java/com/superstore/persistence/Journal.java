@@ -0,0 +1,250 @@
+package com.superstore.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of small mutation records.
+ *
+ * Each record is framed as {@code [int bodyLength][long seq][byte type][payload][int crc32]}.
+ * A torn or corrupt tail (crash mid-append) is detected by the length/CRC check during
+ * {@link #replay} and truncated away so new appends start from the last good record.
+ *
+ * Durability uses group commit: {@link #append} only writes to the channel, and
+ * {@link #commit} forces it to disk. Threads that commit while another thread is already
+ * forcing wait for that force and then usually find their record covered by it, so a
+ * burst of mutations shares a single fsync.
+ */
+public class Journal implements Closeable {
+
+    /** Writes the payload of one record. */
+    public interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /** Receives records during {@link #replay}. */
+    public interface RecordHandler {
+        void apply(long seq, byte type, DataInputStream in) throws IOException;
+    }
+
+    private static final int HEADER_BYTES = 4;          // body length
+    private static final int BODY_FIXED_BYTES = 8 + 1;  // seq + type
+    private static final int TRAILER_BYTES = 4;         // crc32
+    private static final int MAX_BODY_BYTES = 16 * 1024 * 1024;
+
+    private final Path path;
+    private FileChannel channel;
+    private final Object syncLock = new Object();
+
+    private long lastSeq;
+    private long recordsSinceReset;
+    private volatile long writtenSeq;
+    private volatile long syncedSeq;
+
+    public Journal(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+    }
+
+    /**
+     * Replays every record with a sequence number greater than {@code afterSeq} and
+     * positions the journal for appending after the last valid record.
+     *
+     * @return the number of records applied
+     */
+    public synchronized int replay(long afterSeq, RecordHandler handler) throws IOException {
+        long position = 0;
+        long size = channel.size();
+        int applied = 0;
+        long maxSeq = afterSeq;
+        recordsSinceReset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, position);
+            int bodyLength = header.flip().getInt();
+            if (bodyLength < BODY_FIXED_BYTES || bodyLength > MAX_BODY_BYTES
+                    || position + HEADER_BYTES + bodyLength + TRAILER_BYTES > size) {
+                break;
+            }
+            ByteBuffer frame = ByteBuffer.allocate(bodyLength + TRAILER_BYTES);
+            readFully(frame, position + HEADER_BYTES);
+            frame.flip();
+
+            CRC32 crc = new CRC32();
+            crc.update(frame.array(), 0, bodyLength);
+            if ((int) crc.getValue() != frame.getInt(bodyLength)) {
+                break;
+            }
+
+            long seq = frame.getLong();
+            byte type = frame.get();
+            if (seq > afterSeq) {
+                handler.apply(seq, type, new DataInputStream(new ByteArrayInputStream(
+                        frame.array(), BODY_FIXED_BYTES, bodyLength - BODY_FIXED_BYTES)));
+                applied++;
+            }
+            maxSeq = Math.max(maxSeq, seq);
+            recordsSinceReset++;
+            position += HEADER_BYTES + bodyLength + TRAILER_BYTES;
+        }
+
+        if (position < size) {
+            channel.truncate(position);
+        }
+        channel.position(position);
+        lastSeq = maxSeq;
+        writtenSeq = maxSeq;
+        syncedSeq = maxSeq;
+        return applied;
+    }
+
+    /**
+     * Appends one record without forcing it to disk.
+     *
+     * @return the sequence number assigned to the record, to be passed to {@link #commit}
+     */
+    public long append(byte type, PayloadWriter writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);      // length placeholder
+        out.writeLong(0L);    // seq placeholder
+        out.writeByte(type);
+        writer.write(out);
+        out.flush();
+
+        synchronized (this) {
+            long seq = lastSeq + 1;
+            ByteBuffer frame = ByteBuffer.allocate(bytes.size() + TRAILER_BYTES);
+            frame.put(bytes.toByteArray());
+            int bodyLength = bytes.size() - HEADER_BYTES;
+            frame.putInt(0, bodyLength);
+            frame.putLong(HEADER_BYTES, seq);
+
+            CRC32 crc = new CRC32();
+            crc.update(frame.array(), HEADER_BYTES, bodyLength);
+            frame.putInt((int) crc.getValue());
+            frame.flip();
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            lastSeq = seq;
+            recordsSinceReset++;
+            writtenSeq = seq;
+            return seq;
+        }
+    }
+
+    /** Blocks until the record with the given sequence number is durable. */
+    public void commit(long seq) throws IOException {
+        if (syncedSeq >= seq) return;
+        synchronized (syncLock) {
+            if (syncedSeq >= seq) return;   // covered by the force another thread just did
+            long target = writtenSeq;
+            channel.force(false);
+            syncedSeq = target;
+        }
+    }
+
+    /**
+     * Discards the records up to and including {@code throughSeq} once a snapshot covering
+     * them has been written, keeping any appended since. The remaining records are copied to
+     * a temporary file that atomically replaces the journal, so a crash leaves either the
+     * old or the new journal. Sequence numbers keep increasing after a compaction.
+     */
+    public synchronized void compact(long throughSeq) throws IOException {
+        synchronized (syncLock) {
+            long size = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + 8);
+            while (position < size) {
+                header.clear();
+                readFully(header, position);
+                header.flip();
+                int bodyLength = header.getInt();
+                if (header.getLong() > throughSeq) break;
+                position += HEADER_BYTES + bodyLength + TRAILER_BYTES;
+            }
+            if (position >= size) {
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(true);
+                recordsSinceReset = 0;
+                syncedSeq = writtenSeq;
+                return;
+            }
+            if (position == 0) return;
+
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long from = position;
+                while (from < size) {
+                    from += channel.transferTo(from, size - from, out);
+                }
+                out.force(true);
+            }
+            channel.close();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            recordsSinceReset = countRecords();
+            syncedSeq = writtenSeq;
+        }
+    }
+
+    private long countRecords() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        long count = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position < size) {
+            header.clear();
+            readFully(header, position);
+            position += HEADER_BYTES + header.flip().getInt() + TRAILER_BYTES;
+            count++;
+        }
+        return count;
+    }
+
+    /** Makes sure the next sequence number is greater than {@code seq}. */
+    public synchronized void advanceTo(long seq) {
+        if (seq > lastSeq) {
+            lastSeq = seq;
+            writtenSeq = seq;
+            syncedSeq = Math.max(syncedSeq, seq);
+        }
+    }
+
+    public synchronized long getLastSeq() { return lastSeq; }
+    public synchronized long getRecordsSinceReset() { return recordsSinceReset; }
+    public synchronized long getSizeBytes() throws IOException { return channel.size(); }
+    public Path getPath() { return path; }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) throw new IOException("Unexpected end of journal " + path);
+            position += n;
+        }
+    }
+}
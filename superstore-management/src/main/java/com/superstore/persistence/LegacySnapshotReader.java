@@ -0,0 +1,43 @@
+package com.superstore.persistence;
+
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.user.User;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Reads the original superstore_data.dat written with Java serialization. Only used to
+ * migrate old installations to the binary snapshot format.
+ */
+public final class LegacySnapshotReader {
+
+    private LegacySnapshotReader() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Snapshot read(Path file) throws IOException {
+        try (InputStream fileIn = Files.newInputStream(file);
+             ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(fileIn))) {
+            Map<String, Warehouse> warehouses = (Map<String, Warehouse>) ois.readObject();
+            Map<String, Store> stores = (Map<String, Store>) ois.readObject();
+            Map<String, User> users = (Map<String, User>) ois.readObject();
+            long journalSeq;
+            try {
+                journalSeq = ois.readLong();
+            } catch (EOFException e) {
+                journalSeq = 0L;  // written before the journal existed
+            }
+            return new Snapshot(warehouses, stores, users, journalSeq);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Unreadable legacy data file " + file, e);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.superstore.persistence;
+
+import com.superstore.model.Item;
+import com.superstore.model.ItemSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Read-only, memory-mapped catalog of fixed-width item records.
+ *
+ * <pre>
+ * header   magic "SCAT", version, record size, record count,
+ *          strings offset/length, records offset, index offset  (64 bytes)
+ * strings  [int length][UTF-8 bytes], shared by all records
+ * records  RECORD_BYTES each: code, name, description, subcategoryId (string offsets),
+ *          inventory, reserved, then the seven EOQ/lead-time doubles
+ * index    record numbers sorted by item code, for binary search
+ * </pre>
+ *
+ * Nothing is copied onto the heap when the file is opened; {@link Item}s are created only
+ * when a subcategory is materialized. All reads use absolute positions, so one instance can
+ * be shared by many threads. Each region is limited to 2 GB.
+ */
+public class MappedCatalog {
+
+    static final int MAGIC = 0x53434154;  // "SCAT"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_BYTES = 80;
+    static final int NO_STRING = -1;
+
+    private final Path path;
+    private final int recordCount;
+    private final ByteBuffer strings;
+    private final ByteBuffer records;
+    private final ByteBuffer index;
+
+    private MappedCatalog(Path path, int recordCount, ByteBuffer strings,
+                          ByteBuffer records, ByteBuffer index) {
+        this.path = path;
+        this.recordCount = recordCount;
+        this.strings = strings;
+        this.records = records;
+        this.index = index;
+    }
+
+    public static MappedCatalog open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) throw new IOException("Not a catalog file: " + path);
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("Unsupported catalog version " + version);
+            if (header.getInt() != RECORD_BYTES) throw new IOException("Unexpected record size in " + path);
+            int recordCount = header.getInt();
+            long stringsOffset = header.getLong();
+            long stringsLength = header.getLong();
+            long recordsOffset = header.getLong();
+            long indexOffset = header.getLong();
+
+            ByteBuffer strings = channel.map(FileChannel.MapMode.READ_ONLY, stringsOffset, stringsLength);
+            ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, recordsOffset,
+                    (long) recordCount * RECORD_BYTES);
+            ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, 4L * recordCount);
+            return new MappedCatalog(path, recordCount, strings, records, index);
+        }
+    }
+
+    public Path getPath() { return path; }
+    public int size() { return recordCount; }
+
+    public String itemCode(int record) {
+        return string(records.getInt(record * RECORD_BYTES));
+    }
+
+    /** Creates a heap Item from one record. */
+    public Item materialize(int record) {
+        int base = record * RECORD_BYTES;
+        Item item = new Item(string(records.getInt(base)), string(records.getInt(base + 4)), null);
+        item.setDescription(string(records.getInt(base + 8)));
+        item.setSubcategoryId(string(records.getInt(base + 12)));
+        item.setCurrentInventoryLevel(records.getInt(base + 16));
+        item.setFixedCostPerQuarter(records.getDouble(base + 24));
+        item.setCarryingCostPerUnitPerQuarter(records.getDouble(base + 32));
+        item.setDemandUnitsPerQuarter(records.getDouble(base + 40));
+        item.setMaxDailyUsage(records.getDouble(base + 48));
+        item.setAvgDailyUsage(records.getDouble(base + 56));
+        item.setMaxLeadTimeDays(records.getDouble(base + 64));
+        item.setAvgLeadTimeDays(records.getDouble(base + 72));
+        return item;
+    }
+
+    /** Returns the record with the given item code inside {@code [from, to)}, or -1. */
+    public int find(String itemCode, int from, int to) {
+        int low = 0;
+        int high = recordCount;
+        while (low < high) {  // lower bound in the sorted index
+            int mid = (low + high) >>> 1;
+            if (compareCodes(itemCode(index.getInt(mid * 4)), itemCode) < 0) low = mid + 1;
+            else high = mid;
+        }
+        for (int i = low; i < recordCount; i++) {
+            int record = index.getInt(i * 4);
+            if (!itemCode.equals(itemCode(record))) break;
+            if (record >= from && record < to) return record;
+        }
+        return -1;
+    }
+
+    /** Lazy item source over the contiguous records of one subcategory. */
+    public ItemSource source(int start, int count) {
+        return new RangeSource(start, count);
+    }
+
+    private String string(int offset) {
+        if (offset == NO_STRING) return null;
+        int length = strings.getInt(offset);
+        byte[] bytes = new byte[length];
+        strings.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int compareCodes(String a, String b) {
+        if (a == null || b == null) return a == null ? (b == null ? 0 : -1) : 1;
+        return a.compareTo(b);
+    }
+
+    private final class RangeSource implements ItemSource {
+        private final int start;
+        private final int count;
+
+        RangeSource(int start, int count) {
+            this.start = start;
+            this.count = count;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public boolean contains(String itemCode) {
+            return find(itemCode, start, start + count) >= 0;
+        }
+
+        @Override
+        public List<Item> load() {
+            List<Item> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                items.add(materialize(start + i));
+            }
+            return items;
+        }
+
+        @Override
+        public void forEach(Consumer<Item> action) {
+            for (int i = 0; i < count; i++) {
+                action.accept(materialize(start + i));
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.superstore.persistence;
+
+import com.superstore.domain.OrderMessage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * Processed order messages moved out of the warehouse inboxes. Each warehouse has its own
+ * directory of immutable segment files, {@code segment-<n>.bin}, numbered in the order they
+ * were written. A segment holds a batch of messages and is written to a temporary file,
+ * forced to disk and renamed into place, so a crash never leaves a partial segment.
+ *
+ * Lookups read the segments sequentially; they are meant for history queries, while the
+ * in-memory inbox answers everything about unprocessed orders.
+ */
+public class OrderArchive {
+
+    private static final int SEGMENT_MAGIC = 0x4F524441;  // "ORDA"
+    // Version 2 adds the correlation id of derived messages
+    private static final int SEGMENT_VERSION = 2;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+
+    private final Path directory;
+
+    public OrderArchive(Path directory) {
+        this.directory = directory;
+    }
+
+    // Writes the messages as a new segment; returns its path, or null if there were none
+    public synchronized Path append(String warehouseId, List<OrderMessage> messages) throws IOException {
+        if (messages.isEmpty()) return null;
+        Path warehouseDir = warehouseDirectory(warehouseId);
+        Files.createDirectories(warehouseDir);
+        List<Path> segments = segments(warehouseId);
+        long number = segments.isEmpty() ? 1 : segmentNumber(segments.get(segments.size() - 1)) + 1;
+        Path segment = warehouseDir.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        Path temp = warehouseDir.resolve(segment.getFileName() + ".tmp");
+
+        try (FileOutputStream fileOut = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(SEGMENT_MAGIC);
+            out.writeInt(SEGMENT_VERSION);
+            out.writeInt(messages.size());
+            for (OrderMessage message : messages) {
+                writeMessage(out, message);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(temp, segment, StandardCopyOption.ATOMIC_MOVE);
+        return segment;
+    }
+
+    /**
+     * The segments a warehouse had when {@link #segmentsOf} was called; segments appended
+     * later are not part of it. Segments are never changed once written, so a caller can
+     * take the list together with the inbox under the warehouse lock and read it after
+     * releasing the lock.
+     */
+    public static final class Segments {
+        private final List<Path> paths;
+
+        private Segments(List<Path> paths) {
+            this.paths = paths;
+        }
+
+        // Oldest segment first
+        public Iterable<OrderMessage> messages() {
+            return () -> new SegmentIterator(paths);
+        }
+
+        // Newest segments are searched first; returns null if the message is not in them
+        public OrderMessage find(String messageId) throws IOException {
+            for (int i = paths.size() - 1; i >= 0; i--) {
+                for (OrderMessage message : readSegment(paths.get(i))) {
+                    if (message.getMessageId().equals(messageId)) return message;
+                }
+            }
+            return null;
+        }
+
+        public List<OrderMessage> search(Predicate<OrderMessage> filter) throws IOException {
+            List<OrderMessage> matches = new ArrayList<>();
+            try {
+                for (OrderMessage message : messages()) {
+                    if (filter.test(message)) matches.add(message);
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return matches;
+        }
+    }
+
+    public Segments segmentsOf(String warehouseId) throws IOException {
+        return new Segments(segments(warehouseId));
+    }
+
+    // Oldest segment first
+    public Iterable<OrderMessage> messages(String warehouseId) throws IOException {
+        return segmentsOf(warehouseId).messages();
+    }
+
+    // Returns null if the message was never archived
+    public OrderMessage find(String warehouseId, String messageId) throws IOException {
+        return segmentsOf(warehouseId).find(messageId);
+    }
+
+    public List<OrderMessage> search(String warehouseId, Predicate<OrderMessage> filter) throws IOException {
+        return segmentsOf(warehouseId).search(filter);
+    }
+
+    public int getSegmentCount(String warehouseId) throws IOException {
+        return segments(warehouseId).size();
+    }
+
+    private Path warehouseDirectory(String warehouseId) {
+        return directory.resolve(URLEncoder.encode(warehouseId, StandardCharsets.UTF_8));
+    }
+
+    private List<Path> segments(String warehouseId) throws IOException {
+        Path warehouseDir = warehouseDirectory(warehouseId);
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(warehouseDir)) return segments;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(warehouseDir,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            files.forEach(segments::add);
+        }
+        segments.sort((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)));
+        return segments;
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static List<OrderMessage> readSegment(Path segment) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != SEGMENT_MAGIC || version < 1 || version > SEGMENT_VERSION) {
+                throw new IOException("Not an order archive segment: " + segment);
+            }
+            int count = in.readInt();
+            List<OrderMessage> messages = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                messages.add(readMessage(in, version));
+            }
+            return messages;
+        }
+    }
+
+    private static void writeMessage(DataOutputStream out, OrderMessage message) throws IOException {
+        writeString(out, message.getMessageId());
+        writeString(out, message.getFromStoreId());
+        writeString(out, message.getToWarehouseId());
+        writeString(out, message.getItemName());
+        writeString(out, message.getItemCode());
+        out.writeInt(message.getQuantity());
+        writeDate(out, message.getExpectedArrivalDate());
+        writeDate(out, message.getSentDate());
+        out.writeBoolean(message.isProcessed());
+        writeString(out, message.isDerived() ? message.getCorrelationId() : null);
+    }
+
+    private static OrderMessage readMessage(DataInputStream in, int version) throws IOException {
+        return new OrderMessage(readString(in), readString(in), readString(in), readString(in),
+                readString(in), in.readInt(), readDate(in), readDate(in), in.readBoolean(),
+                version >= 2 ? readString(in) : null);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeBoolean(date != null);
+        if (date != null) out.writeLong(date.toEpochDay());
+    }
+
+    private static LocalDate readDate(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null;
+    }
+
+    // Loads one segment at a time, so memory is bounded by the largest segment
+    private static class SegmentIterator implements Iterator<OrderMessage> {
+        private final Iterator<Path> segments;
+        private Iterator<OrderMessage> current = Collections.emptyIterator();
+
+        SegmentIterator(List<Path> segments) {
+            this.segments = segments.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && segments.hasNext()) {
+                try {
+                    current = readSegment(segments.next()).iterator();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public OrderMessage next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return current.next();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.superstore.persistence;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs a save task on a background thread, coalescing bursts of save requests.
+ * A save starts once no request has arrived for the debounce window, but never later
+ * than the maximum delay after the first request of a burst, so steady traffic cannot
+ * postpone it indefinitely. {@link #flush} runs a pending save on the calling thread.
+ */
+public class PersistenceService implements AutoCloseable {
+
+    /** The work done by one save. */
+    public interface SaveTask {
+        void save() throws IOException;
+    }
+
+    private final SaveTask task;
+    private final long debounceNanos;
+    private final long maxDelayNanos;
+    private final Consumer<Exception> errorHandler;
+    private final ScheduledExecutorService executor;
+    private final Object saveLock = new Object();
+
+    private boolean pending;
+    private long firstRequestNanos;
+    private long lastRequestNanos;
+    private ScheduledFuture<?> scheduled;
+    private long saveCount;
+
+    public PersistenceService(SaveTask task, long debounceMillis, long maxDelayMillis,
+                              Consumer<Exception> errorHandler) {
+        this.task = task;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(debounceMillis, maxDelayMillis));
+        this.errorHandler = errorHandler;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public synchronized void requestSave() {
+        long now = System.nanoTime();
+        lastRequestNanos = now;
+        if (!pending && !executor.isShutdown()) {
+            pending = true;
+            firstRequestNanos = now;
+            schedule(debounceNanos);
+        }
+    }
+
+    private void schedule(long delayNanos) {
+        scheduled = executor.schedule(this::fire, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void fire() {
+        synchronized (this) {
+            if (!pending) return;
+            long now = System.nanoTime();
+            long quietAt = lastRequestNanos + debounceNanos;
+            long deadline = firstRequestNanos + maxDelayNanos;
+            if (now - quietAt < 0 && now - deadline < 0) {
+                schedule(Math.min(quietAt - now, deadline - now));
+                return;
+            }
+            pending = false;
+            scheduled = null;
+        }
+        runSave();
+    }
+
+    private void runSave() {
+        synchronized (saveLock) {
+            try {
+                task.save();
+            } catch (Exception e) {
+                errorHandler.accept(e);
+            }
+            saveCount++;
+        }
+    }
+
+    /** Runs any pending save now and waits for a save already in progress. */
+    public void flush() {
+        boolean run;
+        synchronized (this) {
+            run = pending;
+            pending = false;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+        }
+        if (run) {
+            runSave();
+        } else {
+            synchronized (saveLock) {
+                // nothing pending; only wait for a running save to finish
+            }
+        }
+    }
+
+    public synchronized boolean isPending() {
+        return pending;
+    }
+
+    public long getSaveCount() {
+        synchronized (saveLock) {
+            return saveCount;
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
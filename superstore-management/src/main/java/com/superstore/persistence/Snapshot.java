@@ -0,0 +1,17 @@
+package com.superstore.persistence;
+
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.user.User;
+
+import java.util.Map;
+
+/**
+ * The full persistent state of the system at one journal position.
+ * {@code journalSeq} is the last journal record already reflected in the maps.
+ */
+public record Snapshot(Map<String, Warehouse> warehouses,
+                       Map<String, Store> stores,
+                       Map<String, User> users,
+                       long journalSeq) {
+}
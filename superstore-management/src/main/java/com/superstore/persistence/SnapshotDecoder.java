@@ -0,0 +1,288 @@
+package com.superstore.persistence;
+
+import com.superstore.domain.OrderMessage;
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+import com.superstore.user.*;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static com.superstore.persistence.SnapshotFormat.*;
+
+/**
+ * Reads a snapshot written by {@link SnapshotEncoder}. The file is mapped and decoded in
+ * place, and objects are rebuilt through the regular domain constructors and add methods.
+ * For version 2 and 4 snapshots the catalog file is mapped and each subcategory gets a lazy
+ * {@link com.superstore.model.ItemSource} instead of its items.
+ */
+public class SnapshotDecoder {
+
+    private final ByteBuffer in;
+    private final Path directory;
+    private MappedCatalog catalog;
+    private boolean namedUserTypes;
+    private long journalSeq;
+    private String[] strings = new String[1024];
+    private int stringCount;
+    private byte[] scratch = new byte[256];
+
+    public SnapshotDecoder(ByteBuffer in) {
+        this(in, null);
+    }
+
+    // directory is where the catalog file of a version 2 or 4 snapshot is looked up
+    public SnapshotDecoder(ByteBuffer in, Path directory) {
+        this.in = in;
+        this.directory = directory;
+    }
+
+    public static Snapshot read(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new SnapshotDecoder(mapped, directory).decode();
+        }
+    }
+
+    // The catalog file a snapshot file refers to, from its header alone; null for a
+    // snapshot that stores its items inline
+    public static Path catalogOf(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            SnapshotDecoder decoder = new SnapshotDecoder(header, directory);
+            try {
+                String catalogName = decoder.readHeader();
+                return catalogName == null ? null : directory.resolve(catalogName);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Corrupt snapshot", e);
+            }
+        }
+    }
+
+    // Reads magic, version and journalSeq; returns the catalog name of a mapped-catalog
+    // snapshot, or null
+    private String readHeader() throws IOException {
+        if (in.getInt() != MAGIC) throw new IOException("Not a snapshot file");
+        long version = readVarLong();
+        if (version < VERSION_INLINE_ITEMS || version > VERSION_MAPPED_CATALOG_NAMED_TYPES) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        namedUserTypes = version >= VERSION_INLINE_ITEMS_NAMED_TYPES;
+        journalSeq = readVarLong();
+        boolean mapped = version == VERSION_MAPPED_CATALOG || version == VERSION_MAPPED_CATALOG_NAMED_TYPES;
+        return mapped ? readString() : null;
+    }
+
+    public Snapshot decode() throws IOException {
+        int length = in.remaining();
+        if (length < 8) throw new IOException("Snapshot too short");
+        CRC32 crc = new CRC32();
+        crc.update(in.duplicate().limit(in.position() + length - 4));
+        if ((int) crc.getValue() != in.getInt(in.position() + length - 4)) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+        in.limit(in.position() + length - 4);
+
+        try {
+            String catalogName = readHeader();
+            if (catalogName != null) {
+                if (directory == null) throw new IOException("No directory to resolve " + catalogName);
+                catalog = MappedCatalog.open(directory.resolve(catalogName));
+            }
+
+            int warehouseCount = readCount();
+            Map<String, Warehouse> warehouses = new HashMap<>(capacity(warehouseCount));
+            for (int i = 0; i < warehouseCount; i++) {
+                Warehouse warehouse = readWarehouse();
+                warehouses.put(warehouse.getWarehouseId(), warehouse);
+            }
+            int storeCount = readCount();
+            Map<String, Store> stores = new HashMap<>(capacity(storeCount));
+            for (int i = 0; i < storeCount; i++) {
+                Store store = readStore();
+                stores.put(store.getStoreId(), store);
+            }
+            int userCount = readCount();
+            Map<String, User> users = new HashMap<>(capacity(userCount));
+            for (int i = 0; i < userCount; i++) {
+                User user = readUser();
+                users.put(user.getUserId(), user);
+            }
+            return new Snapshot(warehouses, stores, users, journalSeq);
+        } catch (BufferUnderflowException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Corrupt snapshot", e);
+        }
+    }
+
+    private Warehouse readWarehouse() throws IOException {
+        Warehouse warehouse = new Warehouse(readString(), readString());
+        int linkedCount = readCount();
+        for (int i = 0; i < linkedCount; i++) {
+            warehouse.linkStore(readString());
+        }
+        int categoryCount = readCount();
+        for (int i = 0; i < categoryCount; i++) {
+            warehouse.addCategory(readCategory());
+        }
+        int messageCount = readCount();
+        for (int i = 0; i < messageCount; i++) {
+            warehouse.receiveMessage(readMessage());
+        }
+        return warehouse;
+    }
+
+    private Store readStore() throws IOException {
+        Store store = new Store(readString(), readString());
+        store.linkWarehouse(readString());
+        int categoryCount = readCount();
+        for (int i = 0; i < categoryCount; i++) {
+            store.addCategory(readCategory());
+        }
+        return store;
+    }
+
+    private Category readCategory() throws IOException {
+        Category category = new Category(readString(), readString());
+        int subcategoryCount = readCount();
+        for (int i = 0; i < subcategoryCount; i++) {
+            Subcategory subcategory = new Subcategory(readString(), readString(), readString());
+            if (catalog != null) {
+                long start = readVarLong();
+                long count = readVarLong();
+                if (start < 0 || count < 0 || start + count > catalog.size()) {
+                    throw new IOException("Bad catalog range " + start + "+" + count);
+                }
+                if (count > 0) subcategory.setItemSource(catalog.source((int) start, (int) count));
+            } else {
+                int itemCount = readCount();
+                for (int j = 0; j < itemCount; j++) {
+                    subcategory.addItem(readItem());
+                }
+            }
+            category.addSubcategory(subcategory);
+        }
+        return category;
+    }
+
+    private Item readItem() throws IOException {
+        Item item = new Item(readString(), readString(), null);
+        item.setDescription(readString());
+        item.setSubcategoryId(readString());
+        item.setCurrentInventoryLevel((int) unzigzag(readVarLong()));
+
+        int mask = in.get() & 0xFF;
+        if (mask != 0) {
+            if ((mask & 1) != 0) item.setFixedCostPerQuarter(in.getDouble());
+            if ((mask & 2) != 0) item.setCarryingCostPerUnitPerQuarter(in.getDouble());
+            if ((mask & 4) != 0) item.setDemandUnitsPerQuarter(in.getDouble());
+            if ((mask & 8) != 0) item.setMaxDailyUsage(in.getDouble());
+            if ((mask & 16) != 0) item.setAvgDailyUsage(in.getDouble());
+            if ((mask & 32) != 0) item.setMaxLeadTimeDays(in.getDouble());
+            if ((mask & 64) != 0) item.setAvgLeadTimeDays(in.getDouble());
+        }
+        return item;
+    }
+
+    private OrderMessage readMessage() throws IOException {
+        String messageId = readString();
+        String fromStoreId = readString();
+        String toWarehouseId = readString();
+        String itemName = readString();
+        String itemCode = readString();
+        int quantity = (int) unzigzag(readVarLong());
+        LocalDate expectedArrivalDate = readDate();
+        LocalDate sentDate = readDate();
+        int flags = in.get();
+        String correlationId = (flags & MESSAGE_DERIVED) != 0 ? readString() : null;
+        return new OrderMessage(messageId, fromStoreId, toWarehouseId, itemName, itemCode, quantity,
+                expectedArrivalDate, sentDate, (flags & MESSAGE_PROCESSED) != 0, correlationId);
+    }
+
+    private User readUser() throws IOException {
+        User.UserType type = User.UserType.valueOf(namedUserTypes ? readString() : ORDINAL_USER_TYPES[in.get()]);
+        String userId = readString();
+        String username = readString();
+        String password = readString();
+        String facilityId = readString();
+        User user = switch (type) {
+            case SUPER_USER -> new SuperUser(userId, username, password);
+            case WAREHOUSE_ADMIN -> new WarehouseAdministrator(userId, username, password, facilityId);
+            case STORE_ADMIN -> new StoreAdministrator(userId, username, password, facilityId);
+            case WAREHOUSE_KEEPER -> new WarehouseKeeper(userId, username, password, facilityId);
+            case STOREKEEPER -> new Storekeeper(userId, username, password, facilityId);
+            case END_USER -> new EndUser();
+        };
+        int categoryCount = readCount();
+        for (int i = 0; i < categoryCount; i++) {
+            String categoryId = readString();
+            if (user instanceof Administrator admin) admin.assignCategory(categoryId);
+            else if (user instanceof Keeper keeper) keeper.assignCategory(categoryId);
+        }
+        return user;
+    }
+
+    // ---- primitives ----
+
+    private String readString() throws IOException {
+        long ref = readVarLong();
+        if (ref == REF_NULL) return null;
+        if (ref != REF_NEW) {
+            long slot = ref - REF_FIRST_SLOT;
+            if (slot >= stringCount) throw new IOException("Bad string reference " + ref);
+            return strings[(int) slot];
+        }
+        int length = readCount();
+        if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        in.get(scratch, 0, length);
+        String value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        if (stringCount == strings.length) strings = Arrays.copyOf(strings, stringCount * 2);
+        strings[stringCount++] = value;
+        return value;
+    }
+
+    private LocalDate readDate() {
+        long value = readVarLong();
+        return value == 0 ? null : LocalDate.ofEpochDay(unzigzag(value - 1));
+    }
+
+    private int readCount() throws IOException {
+        long count = readVarLong();
+        if (count < 0 || count > in.remaining()) throw new IOException("Bad count " + count);
+        return (int) count;
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0 && shift < 64);
+        return value;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int capacity(int count) {
+        return Math.max(16, (int) (count / 0.75f) + 1);
+    }
+}
@@ -0,0 +1,314 @@
+package com.superstore.persistence;
+
+import com.superstore.domain.FacilityLockManager;
+import com.superstore.domain.ItemLocation.FacilityType;
+import com.superstore.domain.OrderMessage;
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+import com.superstore.user.Administrator;
+import com.superstore.user.Keeper;
+import com.superstore.user.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.zip.CRC32;
+
+import static com.superstore.persistence.SnapshotFormat.*;
+
+/**
+ * Writes a {@link Snapshot} in the compact binary format described in {@link SnapshotFormat}.
+ * Output goes through a reusable byte buffer so encoding allocates almost nothing per item.
+ * When a {@link CatalogWriter} is given, items go to the catalog file instead of the snapshot.
+ * When a {@link FacilityLockManager} is given, each facility is written under its read lock,
+ * so it is captured between stock movements and other facilities are not held up.
+ */
+public class SnapshotEncoder {
+
+    private final OutputStream out;
+    private final CatalogWriter catalog;
+    private final String catalogName;
+    private final FacilityLockManager facilityLocks;
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer = new byte[64 * 1024];
+    private int position;
+    private final Map<String, Integer> stringSlots = new HashMap<>();
+
+    public SnapshotEncoder(OutputStream out) {
+        this(out, null, null);
+    }
+
+    // catalogName is stored in the snapshot and resolved next to it when loading
+    public SnapshotEncoder(OutputStream out, CatalogWriter catalog, String catalogName) {
+        this(out, catalog, catalogName, null);
+    }
+
+    public SnapshotEncoder(OutputStream out, CatalogWriter catalog, String catalogName,
+                           FacilityLockManager facilityLocks) {
+        this.out = out;
+        this.catalog = catalog;
+        this.catalogName = catalogName;
+        this.facilityLocks = facilityLocks;
+    }
+
+    public void write(Snapshot snapshot) throws IOException {
+        writeInt(MAGIC);
+        writeVarLong(catalog != null ? VERSION_MAPPED_CATALOG_NAMED_TYPES : VERSION_INLINE_ITEMS_NAMED_TYPES);
+        writeVarLong(snapshot.journalSeq());
+        if (catalog != null) {
+            writeString(catalogName);
+        }
+
+        writeCount(snapshot.warehouses().size());
+        for (Warehouse warehouse : snapshot.warehouses().values()) {
+            Lock lock = readLock(FacilityType.WAREHOUSE, warehouse.getWarehouseId());
+            try {
+                writeWarehouse(warehouse);
+            } finally {
+                if (lock != null) lock.unlock();
+            }
+        }
+        writeCount(snapshot.stores().size());
+        for (Store store : snapshot.stores().values()) {
+            Lock lock = readLock(FacilityType.STORE, store.getStoreId());
+            try {
+                writeStore(store);
+            } finally {
+                if (lock != null) lock.unlock();
+            }
+        }
+        writeCount(snapshot.users().size());
+        for (User user : snapshot.users().values()) {
+            writeUser(user);
+        }
+
+        flushBuffer();
+        int checksum = (int) crc.getValue();
+        writeInt(checksum);
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    // Acquires and returns the facility's read lock, or null when writing without locks
+    private Lock readLock(FacilityType facilityType, String facilityId) {
+        if (facilityLocks == null) return null;
+        Lock lock = facilityLocks.lockFor(facilityType, facilityId).readLock();
+        lock.lock();
+        return lock;
+    }
+
+    private void writeWarehouse(Warehouse warehouse) throws IOException {
+        writeString(warehouse.getWarehouseId());
+        writeString(warehouse.getWarehouseName());
+        List<String> linkedStoreIds = warehouse.getLinkedStoreIds();
+        writeCount(linkedStoreIds.size());
+        for (String storeId : linkedStoreIds) {
+            writeString(storeId);
+        }
+        writeCategories(warehouse.getAllCategories());
+        List<OrderMessage> messages = warehouse.getAllMessages();
+        writeCount(messages.size());
+        for (OrderMessage message : messages) {
+            writeMessage(message);
+        }
+    }
+
+    private void writeStore(Store store) throws IOException {
+        writeString(store.getStoreId());
+        writeString(store.getStoreName());
+        writeString(store.getLinkedWarehouseId());
+        writeCategories(store.getAllCategories());
+    }
+
+    private void writeCategories(Collection<Category> categories) throws IOException {
+        writeCount(categories.size());
+        for (Category category : categories) {
+            writeString(category.getCategoryId());
+            writeString(category.getCategoryName());
+            List<Subcategory> subcategories = category.getAllSubcategories();
+            writeCount(subcategories.size());
+            for (Subcategory subcategory : subcategories) {
+                writeString(subcategory.getSubcategoryId());
+                writeString(subcategory.getSubcategoryName());
+                writeString(subcategory.getCategoryId());
+                if (catalog != null) {
+                    writeCatalogRange(subcategory);
+                } else {
+                    List<Item> items = subcategory.getAllItems();
+                    writeCount(items.size());
+                    for (Item item : items) {
+                        writeItem(item);
+                    }
+                }
+            }
+        }
+    }
+
+    // Lazily loaded subcategories are copied record by record without being materialized
+    private void writeCatalogRange(Subcategory subcategory) throws IOException {
+        int start = catalog.size();
+        try {
+            subcategory.forEachItem(item -> {
+                try {
+                    catalog.append(item);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writeVarLong(start);
+        writeCount(catalog.size() - start);
+    }
+
+    private void writeItem(Item item) throws IOException {
+        writeString(item.getItemCode());
+        writeString(item.getItemName());
+        writeString(item.getDescription());
+        writeString(item.getSubcategoryId());
+        writeVarLong(zigzag(item.getCurrentInventoryLevel()));
+
+        double[] values = {
+            item.getFixedCostPerQuarter(),
+            item.getCarryingCostPerUnitPerQuarter(),
+            item.getDemandUnitsPerQuarter(),
+            item.getMaxDailyUsage(),
+            item.getAvgDailyUsage(),
+            item.getMaxLeadTimeDays(),
+            item.getAvgLeadTimeDays()
+        };
+        int mask = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (Double.doubleToRawLongBits(values[i]) != 0L) mask |= 1 << i;
+        }
+        writeByte(mask);
+        for (int i = 0; i < values.length; i++) {
+            if ((mask & (1 << i)) != 0) writeLong(Double.doubleToRawLongBits(values[i]));
+        }
+    }
+
+    private void writeMessage(OrderMessage message) throws IOException {
+        writeString(message.getMessageId());
+        writeString(message.getFromStoreId());
+        writeString(message.getToWarehouseId());
+        writeString(message.getItemName());
+        writeString(message.getItemCode());
+        writeVarLong(zigzag(message.getQuantity()));
+        writeDate(message.getExpectedArrivalDate());
+        writeDate(message.getSentDate());
+        writeByte((message.isProcessed() ? MESSAGE_PROCESSED : 0) | (message.isDerived() ? MESSAGE_DERIVED : 0));
+        if (message.isDerived()) {
+            writeString(message.getCorrelationId());
+        }
+    }
+
+    private void writeUser(User user) throws IOException {
+        writeString(user.getUserType().name());
+        writeString(user.getUserId());
+        writeString(user.getUsername());
+        writeString(user.getPassword());
+        List<String> categories = List.of();
+        String facilityId = null;
+        if (user instanceof Administrator admin) {
+            facilityId = admin.getFacilityId();
+            categories = admin.getAssignedCategories();
+        } else if (user instanceof Keeper keeper) {
+            facilityId = keeper.getFacilityId();
+            categories = keeper.getAssignedCategories();
+        }
+        writeString(facilityId);
+        writeCount(categories.size());
+        for (String categoryId : categories) {
+            writeString(categoryId);
+        }
+    }
+
+    // ---- primitives ----
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarLong(REF_NULL);
+            return;
+        }
+        Integer slot = stringSlots.get(value);
+        if (slot != null) {
+            writeVarLong(slot + REF_FIRST_SLOT);
+            return;
+        }
+        stringSlots.put(value, stringSlots.size());
+        writeVarLong(REF_NEW);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        if (bytes.length > buffer.length - position) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                crc.update(bytes);
+                out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeDate(LocalDate date) throws IOException {
+        writeVarLong(date == null ? 0L : zigzag(date.toEpochDay()) + 1);
+    }
+
+    private void writeCount(int count) throws IOException {
+        writeVarLong(count);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeByte(int value) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeInt(int value) throws IOException {
+        ensure(4);
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeLong(long value) throws IOException {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.length - position < bytes) flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        crc.update(buffer, 0, position);
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
@@ -0,0 +1,52 @@
+package com.superstore.persistence;
+
+/**
+ * Layout of the binary snapshot written by {@link SnapshotEncoder}.
+ *
+ * <pre>
+ * header    magic "SSNP", varint version, varlong journalSeq
+ *           (version 2 adds the catalog file name)
+ * body      warehouses, stores, users (each a varint count followed by entries)
+ * trailer   int CRC32 of everything before it
+ * </pre>
+ *
+ * Version 1 stores items inline under their subcategory. Version 2 stores each
+ * subcategory's items as a {@code [start, count)} record range in a separate
+ * {@link MappedCatalog} file, so loading the snapshot does not touch item data at all.
+ * Versions 3 and 4 are versions 1 and 2 with each user's type written as its name, like
+ * the journal does, instead of its ordinal, so adding or reordering user types cannot
+ * change the meaning of a snapshot; versions 1 and 2 are read through
+ * {@link #ORDINAL_USER_TYPES}.
+ *
+ * Strings are written through a table that is built while encoding: a reference of
+ * {@link #REF_NULL} is null, {@link #REF_NEW} is followed by a new string that gets the next
+ * table slot, and any larger value {@code n} points at slot {@code n - REF_FIRST_SLOT}.
+ * Repeated ids such as categoryId or subcategoryId therefore cost one or two bytes.
+ * Integers are varints (zigzag when they may be negative), dates are epoch days shifted
+ * by one so that zero means null, and the seven Item EOQ parameters are packed behind a
+ * presence bitmask so zero values take no space. An order message ends with a flags byte,
+ * {@link #MESSAGE_PROCESSED} and {@link #MESSAGE_DERIVED}; a derived message is followed by
+ * its correlation id.
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x53534E50;  // "SSNP"
+    static final int VERSION_INLINE_ITEMS = 1;
+    static final int VERSION_MAPPED_CATALOG = 2;
+    static final int VERSION_INLINE_ITEMS_NAMED_TYPES = 3;
+    static final int VERSION_MAPPED_CATALOG_NAMED_TYPES = 4;
+
+    // User types by the ordinal versions 1 and 2 wrote for them
+    static final String[] ORDINAL_USER_TYPES = {
+            "SUPER_USER", "WAREHOUSE_ADMIN", "STORE_ADMIN", "WAREHOUSE_KEEPER", "STOREKEEPER", "END_USER"};
+
+    static final int REF_NULL = 0;
+    static final int REF_NEW = 1;
+    static final int REF_FIRST_SLOT = 2;
+
+    static final int MESSAGE_PROCESSED = 1;
+    static final int MESSAGE_DERIVED = 2;
+
+    private SnapshotFormat() {
+    }
+}
@@ -2,10 +2,12 @@
 package com.superstore.ui;
 
 import com.superstore.core.SuperstoreSystem;
+import com.superstore.domain.ItemSearchSession;
 import com.superstore.domain.Store;
 import com.superstore.model.Category;
 import com.superstore.model.Item;
 import com.superstore.model.Subcategory;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -15,12 +17,14 @@ import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
 public class EndUserDashboard {
 
+    // Quiet time after a keystroke before the query runs
+    private static final long SEARCH_DEBOUNCE_MILLIS = 150;
+
     private final BorderPane root = new BorderPane();
     private final SuperstoreSystem system;
     private final MainApp app;
@@ -30,6 +34,9 @@ public class EndUserDashboard {
     private final ObservableList<Category> categoriesObs = FXCollections.observableArrayList();
     private final ObservableList<Subcategory> subcategoriesObs = FXCollections.observableArrayList();
     private final ObservableList<Item> itemsObs = FXCollections.observableArrayList();
+    private final Label searchStatus = new Label();
+    // Searches the selected store; replaced when the store changes
+    private ItemSearchSession searchSession;
 
    public EndUserDashboard(MainApp app, SuperstoreSystem system) {
 	    this.app = app;
@@ -105,6 +112,7 @@ public class EndUserDashboard {
 
         // Wiring selection logic: store → categories, category → subcategories, subcategory → items
         storeBox.valueProperty().addListener((obs, oldV, newStore) -> {
+            openSearchSession(newStore);
             categoriesObs.clear();
             subcategoriesObs.clear();
             itemsObs.clear();
@@ -114,6 +122,7 @@ public class EndUserDashboard {
         });
 
         categoryBox.valueProperty().addListener((obs, oldV, newCat) -> {
+            cancelSearch();
             subcategoriesObs.clear();
             itemsObs.clear();
             if (newCat != null) {
@@ -122,6 +131,7 @@ public class EndUserDashboard {
         });
 
         subcategoryBox.valueProperty().addListener((obs, oldV, newSub) -> {
+            cancelSearch();
             itemsObs.clear();
             if (newSub != null) {
                 itemsObs.addAll(newSub.getAllItems());
@@ -155,28 +165,27 @@ public class EndUserDashboard {
 
         // Search + sort controls
         TextField searchField = new TextField();
-        searchField.setPromptText("Search item by name (partial match)");
+        searchField.setPromptText("Search items by name, description or code");
         Button searchBtn = new Button("Search");
         Button resetBtn = new Button("Reset");
         Button sortBtn = new Button("Sort A→Z");
 
-        searchBtn.setOnAction(e -> {
-            Store selectedStore = storeBox.getValue();
-            if (selectedStore == null) return;
-            String term = searchField.getText();
-            if (term == null || term.isBlank()) return;
-
-            List<Item> matches = new ArrayList<>();
-            for (Category c : selectedStore.getAllCategories()) {
-                for (Subcategory s : c.getAllSubcategories()) {
-                    matches.addAll(s.searchItems(term));
-                }
+        // Searches as the user types; Enter and the Search button skip the debounce
+        searchField.textProperty().addListener((obs, oldV, term) -> {
+            if (searchSession == null) return;
+            if (term == null || term.isBlank()) {
+                cancelSearch();
+                return;
             }
-            itemsObs.setAll(matches);
+            searchStatus.setText("Searching…");
+            searchSession.setQuery(term);
         });
+        searchField.setOnAction(e -> searchNow(searchField.getText()));
+        searchBtn.setOnAction(e -> searchNow(searchField.getText()));
 
         resetBtn.setOnAction(e -> {
             searchField.clear();
+            cancelSearch();
             Store st = storeBox.getValue();
             if (st == null) {
                 itemsObs.clear();
@@ -194,7 +203,8 @@ public class EndUserDashboard {
             FXCollections.sort(itemsObs, Comparator.comparing(Item::getItemName));
         });
 
-        HBox searchBox = new HBox(5, searchField, searchBtn, resetBtn, sortBtn);
+        searchField.setPrefWidth(300);
+        HBox searchBox = new HBox(5, searchField, searchBtn, resetBtn, sortBtn, searchStatus);
         searchBox.setAlignment(Pos.CENTER_LEFT);
         searchBox.setPadding(new Insets(0, 10, 10, 10));
 
@@ -204,6 +214,41 @@ public class EndUserDashboard {
         root.setCenter(center);
     }
 
+    private void openSearchSession(Store store) {
+        if (searchSession != null) searchSession.close();
+        searchSession = null;
+        searchStatus.setText("");
+        if (store == null) return;
+        searchSession = new ItemSearchSession(store, SEARCH_DEBOUNCE_MILLIS, Platform::runLater,
+                new ItemSearchSession.Listener() {
+                    @Override
+                    public void resultsReplaced(List<Item> items) {
+                        itemsObs.setAll(items);
+                    }
+
+                    @Override
+                    public void resultsAppended(List<Item> items) {
+                        itemsObs.addAll(items);
+                    }
+
+                    @Override
+                    public void searchFinished(int count, boolean complete) {
+                        searchStatus.setText(complete ? count + " matches" : "Best " + count + " matches");
+                    }
+                });
+    }
+
+    private void searchNow(String term) {
+        if (searchSession == null || term == null || term.isBlank()) return;
+        searchStatus.setText("Searching…");
+        searchSession.searchNow(term);
+    }
+
+    private void cancelSearch() {
+        if (searchSession != null) searchSession.cancel();
+        searchStatus.setText("");
+    }
+
     private void refreshStores() {
         storesObs.setAll(system.getAllStores());
     }
@@ -86,7 +86,7 @@ public class MainApp extends Application {
 
     @Override
     public void stop() {
-        system.saveData();
+        system.shutdown();
     }
 
     public static void main(String[] args) {
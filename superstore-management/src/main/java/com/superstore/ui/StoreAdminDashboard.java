@@ -1,6 +1,12 @@
 package com.superstore.ui;
 import com.superstore.domain.Warehouse;
 import com.superstore.core.SuperstoreSystem;
+import com.superstore.core.OrderRouter.DeliveryStatus;
+import com.superstore.core.ReplenishmentEngine;
+import com.superstore.domain.ItemLocation.FacilityType;
+import com.superstore.io.CatalogExporter;
+import com.superstore.io.ImportResult;
+import com.superstore.domain.OrderMessage;
 import com.superstore.domain.Store;
 import com.superstore.model.Category;
 import com.superstore.model.Item;
@@ -8,6 +14,7 @@ import com.superstore.model.Subcategory;
 import com.superstore.user.StoreAdministrator;
 import com.superstore.user.Storekeeper;
 import com.superstore.user.User;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -17,13 +24,18 @@ import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import javafx.util.converter.DoubleStringConverter;
 import javafx.util.converter.IntegerStringConverter;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class StoreAdminDashboard {
@@ -222,7 +234,7 @@ public class StoreAdminDashboard {
         invCol.setOnEditCommit(e -> {
             Integer newValue = e.getNewValue();
             if (newValue != null) {
-                e.getRowValue().setCurrentInventoryLevel(newValue);
+                system.setInventoryLevel(FacilityType.STORE, store.getStoreId(), e.getRowValue(), newValue);
                 refreshInventoryData();
             }
         });
@@ -237,7 +249,9 @@ public class StoreAdminDashboard {
             createSmallButton("➕Item", this::addItem),
             createSmallButton("🗑️Item", this::deleteItem),
             createSmallButton("+10", () -> adjustInventory(10)),
-            createSmallButton("-10", () -> adjustInventory(-10))
+            createSmallButton("-10", () -> adjustInventory(-10)),
+            createSmallButton("Import CSV", this::importCatalog),
+            createSmallButton("Export", this::exportCatalog)
         );
 
         panel.getChildren().addAll(new Label("📦 Item Mgmt (Edit All)"), this.itemsTable, itemButtons);
@@ -337,7 +351,8 @@ public class StoreAdminDashboard {
 
         HBox orderButtons = new HBox(5,
             createSmallButton("➕Order", this::addOrder),
-            createSmallButton("🗑️Order", this::deleteOrder)
+            createSmallButton("🗑️Order", this::deleteOrder),
+            createSmallButton("🔁Replenish", this::replenishStore)
         );
 
         // EVENT LISTENERS
@@ -462,7 +477,7 @@ public class StoreAdminDashboard {
         });
 
         dialog.showAndWait().ifPresent(input -> {
-            String code = "ITEM" + System.currentTimeMillis();
+            String code = system.newId("ITEM");
             Item item = new Item(code, input.name, input.description);
             
             itemCosts.put(item, input.cost);
@@ -509,7 +524,7 @@ public class StoreAdminDashboard {
 		    
 		    // ✅ CREATE REAL Storekeeper in system (PERSISTENT)
 		    Storekeeper keeper = new Storekeeper(
-		        "SK" + System.currentTimeMillis(), 
+		        system.newId("SK"), 
 		        uniqueUsername, 
 		        "password", 
 		        store.getStoreId()
@@ -542,17 +557,10 @@ public class StoreAdminDashboard {
 	    
 	    String username = selected.split(" \\(")[0].trim();
 	    
-	    List<User> keepers = system.getAllUsers().stream()
-		.filter(u -> u instanceof Storekeeper)
-		.collect(Collectors.toList());
-
-	    for (User u : keepers) {
-		Storekeeper sk = (Storekeeper) u;
-		if (sk.getUsername().equals(username) && sk.getFacilityId().equals(store.getStoreId())) {
-		    system.deleteUser(u);  
-		    refreshKeeperData();  
-		    return;
-		}
+	    User keeper = system.findUserAtFacility(username, User.UserType.STOREKEEPER, store.getStoreId());
+	    if (keeper != null) {
+		system.deleteUser(keeper);  
+		refreshKeeperData();  
 	    }
 	}
 
@@ -572,16 +580,37 @@ public class StoreAdminDashboard {
             return;
         }
 
-        // Simple item selection - use first item for demo
-        Item item = items.get(0);
-        TextInputDialog qtyDialog = new TextInputDialog("5");
+        // Default to the item furthest below its reorder point, ordered at its EOQ
+        Item urgent = items.stream()
+            .min(Comparator.comparingDouble(i -> i.getCurrentInventoryLevel() - i.calculateReorderPoint()))
+            .orElseThrow();
+        Map<String, Item> byLabel = new LinkedHashMap<>();
+        for (Item i : items) {
+            byLabel.put(i.getItemName() + " (" + i.getItemCode() + ")", i);
+        }
+        ChoiceDialog<String> itemDialog = new ChoiceDialog<>(
+            urgent.getItemName() + " (" + urgent.getItemCode() + ")", byLabel.keySet());
+        itemDialog.setHeaderText("Item to order");
+        Item item = itemDialog.showAndWait().map(byLabel::get).orElse(null);
+        if (item == null) return;
+
+        long eoq = (long) Math.ceil(item.calculateEOQ());
+        TextInputDialog qtyDialog = new TextInputDialog(String.valueOf(eoq > 0 ? eoq : 5));
         qtyDialog.setHeaderText("Order quantity for: " + item.getItemName());
         qtyDialog.setContentText("Quantity:");
         qtyDialog.showAndWait().ifPresent(qtyStr -> {
             try {
                 int qty = Integer.parseInt(qtyStr);
                 if (qty > 0) {
-                    String orderId = "ORD" + System.currentTimeMillis();
+                    String orderId = system.newId("ORD");
+                    system.sendOrderMessage(new OrderMessage(orderId, store.getStoreId(), warehouseId,
+                        item.getItemName(), item.getItemCode(), qty,
+                        LocalDate.now().plusDays((long) Math.ceil(item.getAvgLeadTimeDays()))))
+                        .thenAccept(status -> {
+                            if (status != DeliveryStatus.DELIVERED) {
+                                Platform.runLater(() -> showError("Order " + orderId + " not delivered: " + status));
+                            }
+                        });
                     OrderRow newOrder = new OrderRow(
                         orderId, item.getItemCode(), item.getItemName(), qty, "Pending");
                     ordersObs.add(newOrder);
@@ -595,6 +624,18 @@ public class StoreAdminDashboard {
         });
     }
 
+    // Orders every store item at or below its reorder point from the linked warehouse
+    private void replenishStore() {
+        ReplenishmentEngine.Result result = system.replenishStore(store.getStoreId());
+        if (result == null || result.storesScanned() == 0) {
+            showError("Link the store to a warehouse first");
+            return;
+        }
+        showInfo("Replenishment: " + result.ordersPlaced() + " orders placed, "
+            + result.alreadyOpen() + " already open, " + result.unsized() + " without cost data ("
+            + result.itemsEvaluated() + " items checked)");
+    }
+
     private void deleteOrder() {
         OrderRow selected = ordersTable.getSelectionModel().getSelectedItem();
         if (selected == null) {
@@ -637,7 +678,7 @@ public class StoreAdminDashboard {
     private void adjustInventory(int delta) {
         Item selected = itemsTable.getSelectionModel().getSelectedItem();
         if (selected != null) {
-            selected.addInventory(delta);
+            system.adjustInventory(FacilityType.STORE, store.getStoreId(), selected, delta);
             refreshInventoryData();
         } else {
             showError("Select item first");
@@ -649,7 +690,7 @@ public class StoreAdminDashboard {
         dialog.setHeaderText("New Category Name");
         dialog.showAndWait().ifPresent(name -> {
             if (!name.trim().isEmpty()) {
-                String id = "CAT" + System.currentTimeMillis();
+                String id = system.newId("CAT");
                 store.addCategory(new Category(id, name));
                 refreshStructureData();
                 refreshKeeperStructureData();
@@ -682,7 +723,7 @@ public class StoreAdminDashboard {
         dialog.setHeaderText("New Subcategory");
         dialog.showAndWait().ifPresent(name -> {
             if (!name.trim().isEmpty()) {
-                String id = "SUB" + System.currentTimeMillis();
+                String id = system.newId("SUB");
                 Subcategory sub = new Subcategory(id, name, cat.getCategoryId());
                 cat.addSubcategory(sub);
                 refreshStructureData();
@@ -708,6 +749,53 @@ public class StoreAdminDashboard {
         refreshStructureData();
     }
 
+    // Imports on a background thread; the tables refresh when it is done
+    private void importCatalog() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Catalog CSV");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showOpenDialog(root.getScene().getWindow());
+        if (file == null) return;
+        Thread worker = new Thread(() -> {
+            try {
+                ImportResult result = system.importCatalog(FacilityType.STORE, store.getStoreId(), file.toPath());
+                Platform.runLater(() -> {
+                    refreshAllData();
+                    StringBuilder message = new StringBuilder("Imported " + result.rowsRead() + " rows: "
+                            + result.itemsCreated() + " items created, " + result.itemsUpdated()
+                            + " updated, " + result.rowsRejected() + " rejected");
+                    result.errors().stream().limit(10).forEach(error -> message.append("\n").append(error));
+                    showInfo(message.toString());
+                });
+            } catch (IOException e) {
+                Platform.runLater(() -> showError("Import failed: " + e.getMessage()));
+            }
+        }, "catalog-import");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void exportCatalog() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Catalog");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV files", "*.csv"),
+                new FileChooser.ExtensionFilter("Newline-delimited JSON", "*.ndjson"));
+        File file = chooser.showSaveDialog(root.getScene().getWindow());
+        if (file == null) return;
+        Thread worker = new Thread(() -> {
+            try {
+                long count = system.exportCatalog(FacilityType.STORE, store.getStoreId(), file.toPath(),
+                        CatalogExporter.Format.forFile(file.toPath()));
+                Platform.runLater(() -> showInfo("Exported " + count + " items to " + file.getName()));
+            } catch (IOException e) {
+                Platform.runLater(() -> showError("Export failed: " + e.getMessage()));
+            }
+        }, "catalog-export");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
     // ========== REFRESH METHODS ==========
    private void refreshAllData() { 
 	    categoriesObs.setAll(store.getAllCategories());
@@ -742,16 +830,11 @@ public class StoreAdminDashboard {
    private void refreshKeeperData() {
 	    keepersObs.clear();
 	    
-	    List<User> allUsers = system.getAllUsers();
-	    for (User user : allUsers) {
-		if (user instanceof Storekeeper) {
-		    Storekeeper sk = (Storekeeper) user;
-		    if (sk.getFacilityId().equals(store.getStoreId())) {
-		        String categoryDisplay = getKeeperCategoryDisplay(sk); 
-		        String display = sk.getUsername() + " (" + categoryDisplay + ")";
-		        keepersObs.add(display);
-		    }
-		}
+	    for (User user : system.getUsersAtFacility(store.getStoreId(), User.UserType.STOREKEEPER)) {
+		Storekeeper sk = (Storekeeper) user;
+		String categoryDisplay = getKeeperCategoryDisplay(sk); 
+		String display = sk.getUsername() + " (" + categoryDisplay + ")";
+		keepersObs.add(display);
 	    }
 	}
 
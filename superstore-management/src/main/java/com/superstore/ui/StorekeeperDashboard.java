@@ -1,10 +1,13 @@
 package com.superstore.ui;
 import com.superstore.core.SuperstoreSystem;
+import com.superstore.domain.ItemLocation.FacilityType;
+import com.superstore.domain.OutOfStockListener;
 import com.superstore.domain.Store;
 import com.superstore.model.Category;
 import com.superstore.model.Item;
 import com.superstore.model.Subcategory;
 import com.superstore.user.Storekeeper;
+import javafx.application.Platform;
 import javafx.beans.property.*;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -15,6 +18,8 @@ import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 
+import java.util.List;
+
 
 public class StorekeeperDashboard {
 
@@ -27,6 +32,31 @@ public class StorekeeperDashboard {
     private final ObservableList<Category> categoriesObs = FXCollections.observableArrayList();
     private final ObservableList<Subcategory> subcategoriesObs = FXCollections.observableArrayList();
     private final ObservableList<Item> itemsObs = FXCollections.observableArrayList();
+    private final ObservableList<Item> outOfStockObs = FXCollections.observableArrayList();
+    // Keeps the out-of-stock list current without rescanning the store
+    private final OutOfStockListener outOfStockListener = new OutOfStockListener() {
+        @Override
+        public void outOfStockChanged(Item item, boolean outOfStock) {
+            Platform.runLater(() -> {
+                if (!outOfStock) {
+                    outOfStockObs.remove(item);
+                } else if (!outOfStockObs.contains(item)) {
+                    outOfStockObs.add(item);
+                }
+            });
+        }
+
+        // One UI update for a whole inventory batch
+        @Override
+        public void outOfStockChanged(List<Item> nowOutOfStock, List<Item> restocked) {
+            Platform.runLater(() -> {
+                outOfStockObs.removeAll(restocked);
+                for (Item item : nowOutOfStock) {
+                    if (!outOfStockObs.contains(item)) outOfStockObs.add(item);
+                }
+            });
+        }
+    };
 
     public StorekeeperDashboard(MainApp app, SuperstoreSystem system, Storekeeper keeper) {
         this.app = app;
@@ -36,6 +66,7 @@ public class StorekeeperDashboard {
         this.root = new BorderPane();
         build();
         refreshData();
+        store.addOutOfStockListener(outOfStockListener);
     }
 
     public BorderPane getRoot() {
@@ -44,7 +75,10 @@ public class StorekeeperDashboard {
 
     private void build() {
         Button logoutBtn = new Button("Logout");
-        logoutBtn.setOnAction(e -> app.showLoginView());
+        logoutBtn.setOnAction(e -> {
+            store.removeOutOfStockListener(outOfStockListener);
+            app.showLoginView();
+        });
 
         HBox topBar = new HBox(10,
                 new Label("Storekeeper: " + keeper.getUsername()
@@ -106,10 +140,21 @@ public class StorekeeperDashboard {
             }
         });
 
+        ListView<Item> outOfStockList = new ListView<>(outOfStockObs);
+        outOfStockList.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(Item item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : item.getItemCode() + " - " + item.getItemName());
+            }
+        });
+
         left.getChildren().addAll(
                 new Label("Select Category/Subcategory"),
                 categoryBox,
-                subcategoryBox
+                subcategoryBox,
+                new Label("Out of Stock"),
+                outOfStockList
         );
 
         TableView<Item> table = new TableView<>(itemsObs);
@@ -139,7 +184,7 @@ public class StorekeeperDashboard {
             if (sel == null) return;
             int q = parseQty(qtyField.getText());
             if (q <= 0) return;
-            sel.addInventory(q);
+            system.adjustInventory(FacilityType.STORE, store.getStoreId(), sel, q);
             table.refresh();
         });
 
@@ -148,8 +193,7 @@ public class StorekeeperDashboard {
             if (sel == null) return;
             int q = parseQty(qtyField.getText());
             if (q <= 0) return;
-            sel.removeInventory(q);
-            if (sel.getCurrentInventoryLevel() < 0) sel.setCurrentInventoryLevel(0);
+            system.adjustInventory(FacilityType.STORE, store.getStoreId(), sel, -q);
             table.refresh();
         });
 
@@ -181,6 +225,7 @@ public class StorekeeperDashboard {
 
     private void refreshData() {
         categoriesObs.setAll(store.getAllCategories());
+        outOfStockObs.setAll(system.getOutOfStockItems(store.getStoreId()));
         itemsObs.clear();
         for (Category c : store.getAllCategories()) {
             for (Subcategory s : c.getAllSubcategories()) {
@@ -1,5 +1,6 @@
 package com.superstore.ui;
 
+import com.superstore.core.FacilityAssignment;
 import com.superstore.core.SuperstoreSystem;
 import com.superstore.domain.Store;
 import com.superstore.domain.Warehouse;
@@ -14,8 +15,6 @@ import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import java.util.List;
-import java.util.UUID;
-import java.util.stream.Collectors;
 
 public class SuperUserDashboard {
 
@@ -200,7 +199,7 @@ public class SuperUserDashboard {
             if (!baseUsername.trim().isEmpty()) {
                 String uniqueUsername = "wa_" + baseUsername.trim();
                 WarehouseAdministrator admin = new WarehouseAdministrator(
-                    "WA-" + UUID.randomUUID(), uniqueUsername, "password", selected.getWarehouseId());
+                    system.newId("WA-"), uniqueUsername, "password", selected.getWarehouseId());
                 system.createUser(admin);
                 refreshAdminData();
             }
@@ -216,16 +215,10 @@ public class SuperUserDashboard {
         if (selected == null) return;
         String username = selected.split(" \\(")[0].trim();
 
-        List<User> admins = system.getAllUsers().stream()
-                .filter(u -> u instanceof WarehouseAdministrator)
-                .collect(Collectors.toList());
-
-        for (User u : admins) {
-            if (u.getUsername().equals(username)) {
-                system.deleteUser(u);
-                refreshAdminData();
-                return;
-            }
+        User admin = system.findUser(username, User.UserType.WAREHOUSE_ADMIN);
+        if (admin != null) {
+            system.deleteUser(admin);
+            refreshAdminData();
         }
     }
 
@@ -240,7 +233,7 @@ public class SuperUserDashboard {
             if (!baseUsername.trim().isEmpty()) {
                 String uniqueUsername = "sa_" + baseUsername.trim();
                 StoreAdministrator admin = new StoreAdministrator(
-                    "SA-" + UUID.randomUUID(), uniqueUsername, "password", selected.getStoreId());
+                    system.newId("SA-"), uniqueUsername, "password", selected.getStoreId());
                 system.createUser(admin);
                 refreshAdminData();
             }
@@ -256,16 +249,10 @@ public class SuperUserDashboard {
         if (selected == null) return;
         String username = selected.split(" \\(")[0].trim();
 
-        List<User> admins = system.getAllUsers().stream()
-                .filter(u -> u instanceof StoreAdministrator)
-                .collect(Collectors.toList());
-
-        for (User u : admins) {
-            if (u.getUsername().equals(username)) {
-                system.deleteUser(u);
-                refreshAdminData();
-                return;
-            }
+        User admin = system.findUser(username, User.UserType.STORE_ADMIN);
+        if (admin != null) {
+            system.deleteUser(admin);
+            refreshAdminData();
         }
     }
 
@@ -279,24 +266,13 @@ public class SuperUserDashboard {
         warehouseAdminsObs.clear();
         storeAdminsObs.clear();
 
-        List<User> allUsers = system.getAllUsers();
-
-        for (User user : allUsers) {
-            if (user instanceof WarehouseAdministrator) {
-                WarehouseAdministrator wa = (WarehouseAdministrator) user;
-                Warehouse wh = warehousesObs.stream()
-                        .filter(w -> w.getWarehouseId().equals(wa.getFacilityId()))
-                        .findFirst().orElse(null);
-                String display = wa.getUsername() + (wh != null ? " (" + wh.getWarehouseName() + ")" : " (Unknown)");
-                warehouseAdminsObs.add(display);
-            } else if (user instanceof StoreAdministrator) {
-                StoreAdministrator sa = (StoreAdministrator) user;
-                Store st = storesObs.stream()
-                        .filter(s -> s.getStoreId().equals(sa.getFacilityId()))
-                        .findFirst().orElse(null);
-                String display = sa.getUsername() + (st != null ? " (" + st.getStoreName() + ")" : " (Unknown)");
-                storeAdminsObs.add(display);
-            }
+        for (FacilityAssignment assignment : system.getFacilityAssignments(User.UserType.WAREHOUSE_ADMIN)) {
+            String name = assignment.facilityName();
+            warehouseAdminsObs.add(assignment.user().getUsername() + (name != null ? " (" + name + ")" : " (Unknown)"));
+        }
+        for (FacilityAssignment assignment : system.getFacilityAssignments(User.UserType.STORE_ADMIN)) {
+            String name = assignment.facilityName();
+            storeAdminsObs.add(assignment.user().getUsername() + (name != null ? " (" + name + ")" : " (Unknown)"));
         }
     }
 
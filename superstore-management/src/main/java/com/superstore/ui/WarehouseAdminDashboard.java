@@ -1,6 +1,11 @@
 package com.superstore.ui;
 
+import com.superstore.core.FulfillmentPlanner;
 import com.superstore.core.SuperstoreSystem;
+import com.superstore.domain.ItemLocation.FacilityType;
+import com.superstore.io.CatalogExporter;
+import com.superstore.io.ImportResult;
+import com.superstore.domain.OrderMessage;
 import com.superstore.domain.Warehouse;
 import com.superstore.model.Category;
 import com.superstore.model.Item;
@@ -8,6 +13,7 @@ import com.superstore.model.Subcategory;
 import com.superstore.user.WarehouseAdministrator;
 import com.superstore.user.WarehouseKeeper;
 import com.superstore.user.User;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -17,12 +23,14 @@ import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import javafx.util.converter.DoubleStringConverter;
 import javafx.util.converter.IntegerStringConverter;
+import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class WarehouseAdminDashboard {
@@ -42,12 +50,15 @@ public class WarehouseAdminDashboard {
     private ComboBox<Category> keeperCategoryBox;
     private ComboBox<Subcategory> keeperSubcategoryBox;
     private ListView<String> keepersListView;
+    private ListView<OrderMessage> pendingOrdersView;
+    private Label pendingOrdersLabel;
 
     // MAIN OBSERVABLES
     private final ObservableList<Category> categoriesObs = FXCollections.observableArrayList();
     private final ObservableList<Subcategory> subcategoriesObs = FXCollections.observableArrayList();
     private final ObservableList<Item> itemsObs = FXCollections.observableArrayList();
     private final ObservableList<String> keepersObs = FXCollections.observableArrayList();
+    private final ObservableList<OrderMessage> pendingOrdersObs = FXCollections.observableArrayList();
     
     // ✅ KEEPER-SPECIFIC OBSERVABLES (separate to avoid cross-contamination)
     private final ObservableList<Category> keeperCategoriesObs = FXCollections.observableArrayList();
@@ -176,7 +187,8 @@ public class WarehouseAdminDashboard {
         invCol.setOnEditCommit(e -> {
             Integer newValue = e.getNewValue();
             if (newValue != null) {
-                e.getRowValue().setCurrentInventoryLevel(newValue);
+                system.setInventoryLevel(FacilityType.WAREHOUSE, warehouse.getWarehouseId(),
+                        e.getRowValue(), newValue);
                 refreshInventoryData();
             }
         });
@@ -191,7 +203,9 @@ public class WarehouseAdminDashboard {
             createSmallButton("➕Item", this::addItem),
             createSmallButton("🗑️Item", this::deleteItem),
             createSmallButton("+10", () -> adjustInventory(10)),
-            createSmallButton("-10", () -> adjustInventory(-10))
+            createSmallButton("-10", () -> adjustInventory(-10)),
+            createSmallButton("Import CSV", this::importCatalog),
+            createSmallButton("Export", this::exportCatalog)
         );
 
         panel.getChildren().addAll(new Label("📦 Item Mgmt (Edit All)"), this.itemsTable, itemButtons);
@@ -237,10 +251,33 @@ public class WarehouseAdminDashboard {
         Label reorderLabel = new Label("Reorder: 0");
         VBox reorderSection = new VBox(5, new Label("🔄 Reorder Alerts"), reorderLabel);
 
-        panel.getChildren().addAll(keeperSection, new Separator(), reorderSection);
+        this.pendingOrdersLabel = new Label("Pending: 0");
+        this.pendingOrdersView = new ListView<>(pendingOrdersObs);
+        this.pendingOrdersView.setPrefHeight(120);
+        setupListViewDisplay(this.pendingOrdersView, msg -> msg.getFromStoreId() + ": "
+            + msg.getQuantity() + " x " + msg.getItemName() + " (" + msg.getMessageId() + ")");
+        HBox orderButtons = new HBox(5,
+            createSmallButton("📦Fulfill", this::fulfillOrder),
+            createSmallButton("✅Process", this::processOrder),
+            createSmallButton("🔄Refresh", this::refreshPendingOrders)
+        );
+        VBox ordersSection = new VBox(5, new Label("📨 Pending Orders"), pendingOrdersLabel,
+            pendingOrdersView, orderButtons);
+
+        panel.getChildren().addAll(keeperSection, new Separator(), reorderSection,
+            new Separator(), ordersSection);
         return panel;
     }
 
+    private <T> void setupListViewDisplay(ListView<T> listView, java.util.function.Function<T, String> textGetter) {
+        listView.setCellFactory(lv -> new ListCell<>() {
+            @Override protected void updateItem(T item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? "" : textGetter.apply(item));
+            }
+        });
+    }
+
     private <T> void setupComboBoxDisplay(ComboBox<T> comboBox, java.util.function.Function<T, String> nameGetter) {
         comboBox.setCellFactory(lv -> new ListCell<>() {
             @Override protected void updateItem(T item, boolean empty) {
@@ -274,7 +311,7 @@ public class WarehouseAdminDashboard {
                 
                 // ✅ CREATE REAL WarehouseKeeper in system (PERSISTENT)
                 WarehouseKeeper keeper = new WarehouseKeeper(
-                    "WK" + System.currentTimeMillis(), 
+                    system.newId("WK"), 
                     uniqueUsername, 
                     "password", 
                     warehouse.getWarehouseId()
@@ -304,17 +341,11 @@ public class WarehouseAdminDashboard {
         
         String username = selected.split(" \\(")[0].trim();
         
-        List<User> keepers = system.getAllUsers().stream()
-            .filter(u -> u instanceof WarehouseKeeper)
-            .collect(Collectors.toList());
-
-        for (User u : keepers) {
-            WarehouseKeeper wk = (WarehouseKeeper) u;
-            if (wk.getUsername().equals(username) && wk.getFacilityId().equals(warehouse.getWarehouseId())) {
-                system.deleteUser(u);  // ✅ DELETE FROM SYSTEM
-                refreshKeeperData();   // ✅ REFRESH FROM SYSTEM
-                return;
-            }
+        User keeper = system.findUserAtFacility(username, User.UserType.WAREHOUSE_KEEPER,
+                warehouse.getWarehouseId());
+        if (keeper != null) {
+            system.deleteUser(keeper);  // ✅ DELETE FROM SYSTEM
+            refreshKeeperData();   // ✅ REFRESH FROM SYSTEM
         }
     }
 
@@ -322,17 +353,12 @@ public class WarehouseAdminDashboard {
         keepersObs.clear();
         
         // ✅ LOAD REAL keepers from system
-        List<User> allUsers = system.getAllUsers();
-        for (User user : allUsers) {
-            if (user instanceof WarehouseKeeper) {
-                WarehouseKeeper wk = (WarehouseKeeper) user;
-                if (wk.getFacilityId().equals(warehouse.getWarehouseId())) {
-                    // ✅ Show with category assignment (demo mapping)
-                    String categoryDisplay = getKeeperCategoryDisplay(wk); 
-                    String display = wk.getUsername() + " (" + categoryDisplay + ")";
-                    keepersObs.add(display);
-                }
-            }
+        for (User user : system.getUsersAtFacility(warehouse.getWarehouseId(), User.UserType.WAREHOUSE_KEEPER)) {
+            WarehouseKeeper wk = (WarehouseKeeper) user;
+            // ✅ Show with category assignment (demo mapping)
+            String categoryDisplay = getKeeperCategoryDisplay(wk); 
+            String display = wk.getUsername() + " (" + categoryDisplay + ")";
+            keepersObs.add(display);
         }
     }
 
@@ -396,7 +422,7 @@ public class WarehouseAdminDashboard {
         });
 
         dialog.showAndWait().ifPresent(input -> {
-            String code = "ITEM" + System.currentTimeMillis();
+            String code = system.newId("ITEM");
             Item item = new Item(code, input.name, input.description);
             
             itemCosts.put(item, input.cost);
@@ -440,7 +466,7 @@ public class WarehouseAdminDashboard {
     private void adjustInventory(int delta) {
         Item selected = itemsTable.getSelectionModel().getSelectedItem();
         if (selected != null) {
-            selected.addInventory(delta);
+            system.adjustInventory(FacilityType.WAREHOUSE, warehouse.getWarehouseId(), selected, delta);
             refreshInventoryData();
         } else {
             showError("Select item first");
@@ -452,7 +478,7 @@ public class WarehouseAdminDashboard {
         dialog.setHeaderText("New Category Name");
         dialog.showAndWait().ifPresent(name -> {
             if (!name.trim().isEmpty()) {
-                String id = "CAT" + System.currentTimeMillis();
+                String id = system.newId("CAT");
                 warehouse.addCategory(new Category(id, name));
                 refreshStructureData();
                 refreshKeeperStructureData();
@@ -485,7 +511,7 @@ public class WarehouseAdminDashboard {
         dialog.setHeaderText("New Subcategory");
         dialog.showAndWait().ifPresent(name -> {
             if (!name.trim().isEmpty()) {
-                String id = "SUB" + System.currentTimeMillis();
+                String id = system.newId("SUB");
                 Subcategory sub = new Subcategory(id, name, cat.getCategoryId());
                 cat.addSubcategory(sub);
                 refreshStructureData();
@@ -511,6 +537,86 @@ public class WarehouseAdminDashboard {
         refreshStructureData();
     }
 
+    // Imports on a background thread; the tables refresh when it is done
+    private void importCatalog() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Catalog CSV");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showOpenDialog(root.getScene().getWindow());
+        if (file == null) return;
+        Thread worker = new Thread(() -> {
+            try {
+                ImportResult result = system.importCatalog(FacilityType.WAREHOUSE, warehouse.getWarehouseId(), file.toPath());
+                Platform.runLater(() -> {
+                    refreshAllData();
+                    StringBuilder message = new StringBuilder("Imported " + result.rowsRead() + " rows: "
+                            + result.itemsCreated() + " items created, " + result.itemsUpdated()
+                            + " updated, " + result.rowsRejected() + " rejected");
+                    result.errors().stream().limit(10).forEach(error -> message.append("\n").append(error));
+                    showInfo(message.toString());
+                });
+            } catch (IOException e) {
+                Platform.runLater(() -> showError("Import failed: " + e.getMessage()));
+            }
+        }, "catalog-import");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void exportCatalog() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Catalog");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV files", "*.csv"),
+                new FileChooser.ExtensionFilter("Newline-delimited JSON", "*.ndjson"));
+        File file = chooser.showSaveDialog(root.getScene().getWindow());
+        if (file == null) return;
+        Thread worker = new Thread(() -> {
+            try {
+                long count = system.exportCatalog(FacilityType.WAREHOUSE, warehouse.getWarehouseId(), file.toPath(),
+                        CatalogExporter.Format.forFile(file.toPath()));
+                Platform.runLater(() -> showInfo("Exported " + count + " items to " + file.getName()));
+            } catch (IOException e) {
+                Platform.runLater(() -> showError("Export failed: " + e.getMessage()));
+            }
+        }, "catalog-export");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // ========== ORDER OPERATIONS ==========
+    private void processOrder() {
+        OrderMessage selected = pendingOrdersView.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            showError("Select a pending order first");
+            return;
+        }
+        if (!system.markOrderProcessed(warehouse.getWarehouseId(), selected.getMessageId())) {
+            showError("Order " + selected.getMessageId() + " is no longer pending");
+        }
+        refreshPendingOrders();
+    }
+
+    // Ships from stock, forwards the rest to other warehouses and backorders what is left
+    private void fulfillOrder() {
+        OrderMessage selected = pendingOrdersView.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            showError("Select a pending order first");
+            return;
+        }
+        FulfillmentPlanner.Plan plan = system.fulfillOrder(warehouse.getWarehouseId(), selected.getMessageId());
+        if (plan == null) {
+            showError("Order " + selected.getMessageId() + " is no longer pending");
+        } else if (!plan.isActionable()) {
+            showError("No warehouse has " + selected.getItemName() + " in stock");
+        } else {
+            showInfo("Shipped " + plan.localQuantity() + ", forwarded " + plan.forwardedQuantity()
+                + " to " + plan.forwards().size() + " warehouses, " + plan.unfilled() + " backordered");
+            refreshInventoryData();
+        }
+        refreshPendingOrders();
+    }
+
     // ========== REFRESH METHODS ==========
     private void refreshAllData() { 
         categoriesObs.setAll(warehouse.getAllCategories());
@@ -518,6 +624,14 @@ public class WarehouseAdminDashboard {
         subcategoriesObs.clear();
         itemsObs.clear();
         refreshKeeperData();  // ✅ Load persistent keepers
+        refreshPendingOrders();
+    }
+    
+    // Only reads the inbox's unprocessed messages, however much history the warehouse has
+    private void refreshPendingOrders() {
+        String warehouseId = warehouse.getWarehouseId();
+        pendingOrdersObs.setAll(system.getPendingOrders(warehouseId));
+        pendingOrdersLabel.setText("Pending: " + pendingOrdersObs.size());
     }
     
     private void refreshStructureData() {
@@ -1,6 +1,7 @@
 package com.superstore.ui;
 
 import com.superstore.core.SuperstoreSystem;
+import com.superstore.domain.ItemLocation.FacilityType;
 import com.superstore.domain.Warehouse;
 import com.superstore.model.Category;
 import com.superstore.model.Item;
@@ -140,7 +141,7 @@ public class WarehouseKeeperDashboard {
             if (sel == null) return;
             int q = parseQty(qtyField.getText());
             if (q <= 0) return;
-            sel.addInventory(q);
+            system.adjustInventory(FacilityType.WAREHOUSE, warehouse.getWarehouseId(), sel, q);
             table.refresh();
         });
 
@@ -149,8 +150,7 @@ public class WarehouseKeeperDashboard {
             if (sel == null) return;
             int q = parseQty(qtyField.getText());
             if (q <= 0) return;
-            sel.removeInventory(q);
-            if (sel.getCurrentInventoryLevel() < 0) sel.setCurrentInventoryLevel(0);
+            system.adjustInventory(FacilityType.WAREHOUSE, warehouse.getWarehouseId(), sel, -q);
             table.refresh();
         });
 
@@ -6,6 +6,8 @@ import java.io.Serializable;
 
 
 public abstract class Administrator extends User implements Serializable {
+    private static final long serialVersionUID = 3824600908238929331L;
+
     protected String facilityId;               // warehouse or store ID
     protected List<String> assignedCategories;
 
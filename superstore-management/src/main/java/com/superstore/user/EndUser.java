@@ -3,6 +3,8 @@ package com.superstore.user;
 import java.io.Serializable;
 
 public class EndUser extends User implements Serializable  {
+    private static final long serialVersionUID = -1682328814820723306L;
+
     public EndUser() {
         super("guest", "guest", "guest", UserType.END_USER);
     }
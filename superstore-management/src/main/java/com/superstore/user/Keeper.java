@@ -6,6 +6,8 @@ import java.io.Serializable;
 
 
 public abstract class Keeper extends User implements Serializable  {
+    private static final long serialVersionUID = -8729596693577719695L;
+
     protected String facilityId;
     protected List<String> assignedCategories;
 
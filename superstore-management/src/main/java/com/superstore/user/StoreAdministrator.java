@@ -3,6 +3,8 @@ package com.superstore.user;
 import java.io.Serializable;
 
 public class StoreAdministrator extends Administrator implements Serializable {
+    private static final long serialVersionUID = -1925872080926940906L;
+
     public StoreAdministrator(String userId, String username, 
                              String password, String storeId) {
         super(userId, username, password, UserType.STORE_ADMIN, storeId);
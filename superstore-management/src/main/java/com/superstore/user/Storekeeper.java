@@ -3,6 +3,8 @@ package com.superstore.user;
 import java.io.Serializable;
 
 public class Storekeeper extends Keeper implements Serializable {
+    private static final long serialVersionUID = -7384419730063970137L;
+
     public Storekeeper(String userId, String username, 
                       String password, String storeId) {
         super(userId, username, password, UserType.STOREKEEPER, storeId);
@@ -3,6 +3,8 @@ package com.superstore.user;
 import java.io.Serializable;
 
 public class SuperUser extends User implements Serializable {
+    private static final long serialVersionUID = 1961642921116192243L;
+
     public SuperUser(String userId, String username, String password) {
         super(userId, username, password, UserType.SUPER_USER);
     }
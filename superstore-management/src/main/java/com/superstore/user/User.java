@@ -3,6 +3,8 @@ package com.superstore.user;
 import java.io.Serializable;
 
 public abstract class User implements Serializable {
+    private static final long serialVersionUID = -917086630402659608L;
+
     protected String userId;
     protected String username;
     protected String password;
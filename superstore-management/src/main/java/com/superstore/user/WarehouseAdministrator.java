@@ -3,6 +3,8 @@ package com.superstore.user;
 import java.io.Serializable;
 
 public class WarehouseAdministrator extends Administrator implements Serializable  {
+    private static final long serialVersionUID = -8788010050221274148L;
+
     public WarehouseAdministrator(String userId, String username, 
                                   String password, String warehouseId) {
         super(userId, username, password, UserType.WAREHOUSE_ADMIN, warehouseId);
@@ -3,6 +3,8 @@ package com.superstore.user;
 import java.io.Serializable;
 
 public class WarehouseKeeper extends Keeper implements Serializable  {
+    private static final long serialVersionUID = -685599322937461198L;
+
     public WarehouseKeeper(String userId, String username, 
                           String password, String warehouseId) {
         super(userId, username, password, UserType.WAREHOUSE_KEEPER, warehouseId);
@@ -0,0 +1,95 @@
+package com.superstore.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventLoggerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testEventsReachTheFileOnFlush() throws IOException {
+        Path file = dir.resolve("test.log");
+        try (EventLogger logger = new EventLogger(file)) {
+            logger.log("Warehouse created: W001");
+            logger.log("EXCEPTION: boom", new IllegalStateException("boom"));
+            logger.flush();
+
+            String content = Files.readString(file);
+            assertTrue(content.contains(" - Warehouse created: W001"));
+            assertTrue(content.contains("java.lang.IllegalStateException: boom"));
+            assertEquals(0, logger.getDroppedCount());
+        }
+    }
+
+    @Test
+    public void testConcurrentProducersKeepEveryLine() throws Exception {
+        Path file = dir.resolve("concurrent.log");
+        int threads = 4;
+        int perThread = 5000;
+        try (EventLogger logger = new EventLogger(file, 1 << 16, EventLogger.FlushPolicy.BATCH,
+                50, Long.MAX_VALUE, 0)) {
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                Thread producer = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        logger.log("event " + id + "-" + i);
+                    }
+                });
+                producers.add(producer);
+                producer.start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            logger.flush();
+            long lines = Files.lines(file).filter(l -> l.contains(" - event ")).count();
+            assertEquals(threads * perThread - logger.getDroppedCount(), lines);
+        }
+    }
+
+    @Test
+    public void testRotatesBySize() throws IOException {
+        Path file = dir.resolve("rotating.log");
+        try (EventLogger logger = new EventLogger(file, 64, EventLogger.FlushPolicy.SYNC, 10, 200, 2)) {
+            for (int i = 0; i < 20; i++) {
+                logger.log("line number " + i + " with some padding text");
+                logger.flush();
+            }
+        }
+        assertTrue(Files.exists(dir.resolve("rotating.log.1")));
+        assertTrue(Files.exists(dir.resolve("rotating.log.2")));
+        assertFalse(Files.exists(dir.resolve("rotating.log.3")));
+        assertTrue(Files.size(file) <= 200);
+        assertTrue(Files.readString(file).contains("line number 19"));
+    }
+
+    @Test
+    public void testRingRejectsWhenFull() {
+        EventLogger.Ring ring = new EventLogger.Ring(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i, "e" + i, null));
+        }
+        assertFalse(ring.offer(4, "e4", null));
+
+        EventLogger.Ring.Event event = new EventLogger.Ring.Event();
+        assertTrue(ring.poll(event));
+        assertEquals("e0", event.message);
+        assertTrue(ring.offer(4, "e4", null), "a freed slot is reused");
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(ring.poll(event));
+            assertEquals("e" + i, event.message);
+        }
+        assertTrue(ring.isEmpty());
+    }
+}
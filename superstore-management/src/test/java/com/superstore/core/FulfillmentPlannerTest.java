@@ -0,0 +1,165 @@
+package com.superstore.core;
+
+import com.superstore.core.FulfillmentPlanner.Allocation;
+import com.superstore.core.FulfillmentPlanner.Plan;
+import com.superstore.domain.ItemLocation;
+import com.superstore.domain.ItemLocation.FacilityType;
+import com.superstore.domain.OrderMessage;
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FulfillmentPlannerTest {
+
+    private final Map<String, Warehouse> warehouses = new LinkedHashMap<>();
+    private final ItemLocator locator = new ItemLocator();
+
+    private Warehouse addWarehouse(String warehouseId, Map<String, Integer> stock) {
+        Warehouse warehouse = new Warehouse(warehouseId, "Warehouse " + warehouseId);
+        Category category = new Category("C001", "Grocery");
+        Subcategory subcategory = new Subcategory("SC001", "Grains", "C001");
+        stock.forEach((code, level) -> {
+            Item item = new Item(code, "Item " + code, "SC001");
+            item.setCurrentInventoryLevel(level);
+            subcategory.addItem(item);
+        });
+        category.addSubcategory(subcategory);
+        warehouse.addCategory(category);
+        warehouses.put(warehouseId, warehouse);
+        locator.register(warehouse);
+        return warehouse;
+    }
+
+    private OrderMessage order(String warehouseId, String itemCode, int quantity) {
+        return new OrderMessage("M1", "S001", warehouseId, "Rice", itemCode, quantity, null);
+    }
+
+    // Reference planner: asks every warehouse for the item instead of using the item index
+    private static Plan planByScan(Collection<Warehouse> warehouses, OrderMessage order) {
+        int remaining = order.getQuantity();
+        Warehouse own = warehouses.stream()
+                .filter(w -> w.getWarehouseId().equals(order.getToWarehouseId())).findFirst().orElse(null);
+        Item ownItem = own == null ? null : own.getItem(order.getItemCode());
+        int local = ownItem == null ? 0 : Math.min(remaining, ownItem.getCurrentInventoryLevel());
+        remaining -= local;
+        List<Warehouse> others = new ArrayList<>();
+        for (Warehouse warehouse : warehouses) {
+            Item item = warehouse.getItem(order.getItemCode());
+            if (warehouse != own && item != null && item.getCurrentInventoryLevel() > 0 && !order.isDerived()) {
+                others.add(warehouse);
+            }
+        }
+        others.sort((a, b) -> {
+            int c = Integer.compare(b.getItem(order.getItemCode()).getCurrentInventoryLevel(),
+                    a.getItem(order.getItemCode()).getCurrentInventoryLevel());
+            return c != 0 ? c : a.getWarehouseId().compareTo(b.getWarehouseId());
+        });
+        List<Allocation> forwards = new ArrayList<>();
+        for (Warehouse warehouse : others) {
+            if (remaining == 0) break;
+            int quantity = Math.min(remaining, warehouse.getItem(order.getItemCode()).getCurrentInventoryLevel());
+            forwards.add(new Allocation(warehouse.getWarehouseId(), quantity));
+            remaining -= quantity;
+        }
+        return new Plan(order, local, forwards, remaining);
+    }
+
+    @Test
+    public void testLocalStockIsUsedFirst() {
+        addWarehouse("W001", Map.of("I001", 50));
+        addWarehouse("W002", Map.of("I001", 100));
+        FulfillmentPlanner planner = new FulfillmentPlanner(locator::locate);
+
+        Plan plan = planner.plan(order("W001", "I001", 30));
+
+        assertEquals(30, plan.localQuantity());
+        assertTrue(plan.forwards().isEmpty());
+        assertEquals(0, plan.unfilled());
+    }
+
+    @Test
+    public void testShortfallIsSplitLargestStockFirst() {
+        addWarehouse("W001", Map.of("I001", 10));
+        addWarehouse("W002", Map.of("I001", 15));
+        addWarehouse("W003", Map.of("I001", 40));
+        addWarehouse("W004", Map.of("I002", 99));
+        FulfillmentPlanner planner = new FulfillmentPlanner(locator::locate);
+
+        Plan plan = planner.plan(order("W001", "I001", 70));
+
+        assertEquals(10, plan.localQuantity());
+        assertEquals(List.of(new Allocation("W003", 40), new Allocation("W002", 15)), plan.forwards());
+        assertEquals(55, plan.forwardedQuantity());
+        assertEquals(5, plan.unfilled());
+    }
+
+    @Test
+    public void testDerivedOrdersAreNotForwardedAgain() {
+        addWarehouse("W001", Map.of("I001", 3));
+        addWarehouse("W002", Map.of("I001", 100));
+        FulfillmentPlanner planner = new FulfillmentPlanner(locator::locate);
+        OrderMessage forwarded = new OrderMessage("M2", "S001", "W001", "Rice", "I001", 10,
+                null, null, false, "M1");
+
+        Plan plan = planner.plan(forwarded);
+
+        assertEquals(3, plan.localQuantity());
+        assertTrue(plan.forwards().isEmpty());
+        assertEquals(7, plan.unfilled());
+    }
+
+    @Test
+    public void testStoresAndMissingItemsAreIgnored() {
+        addWarehouse("W001", Map.of());
+        Store store = new Store("S001", "City Store");
+        Category category = new Category("C001", "Grocery");
+        Subcategory subcategory = new Subcategory("SC001", "Grains", "C001");
+        Item rice = new Item("I001", "Rice", "SC001");
+        rice.setCurrentInventoryLevel(500);
+        subcategory.addItem(rice);
+        category.addSubcategory(subcategory);
+        store.addCategory(category);
+        locator.register(store);
+        FulfillmentPlanner planner = new FulfillmentPlanner(locator::locate);
+
+        Plan plan = planner.plan(order("W001", "I001", 10));
+
+        assertFalse(plan.isActionable());
+        assertEquals(10, plan.unfilled());
+    }
+
+    @Test
+    public void testMatchesScanOfAllWarehouses() {
+        Random random = new Random(7);
+        for (int w = 0; w < 50; w++) {
+            Map<String, Integer> stock = new LinkedHashMap<>();
+            for (int i = 0; i < 200; i++) {
+                if (random.nextInt(4) == 0) stock.put("I" + i, random.nextInt(30));
+            }
+            addWarehouse(String.format("W%03d", w), stock);
+        }
+        FulfillmentPlanner planner = new FulfillmentPlanner(locator::locate);
+
+        for (int n = 0; n < 2_000; n++) {
+            OrderMessage order = order(String.format("W%03d", random.nextInt(50)), "I" + random.nextInt(200),
+                    1 + random.nextInt(60));
+            Plan indexed = planner.plan(order);
+            Plan scanned = planByScan(warehouses.values(), order);
+            assertEquals(scanned.localQuantity(), indexed.localQuantity());
+            assertEquals(scanned.forwards(), indexed.forwards());
+            assertEquals(scanned.unfilled(), indexed.unfilled());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.superstore.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdGeneratorTest {
+
+    @Test
+    public void testIdsIncreaseStrictly() {
+        IdGenerator ids = new IdGenerator(3);
+        long previous = ids.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long id = ids.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testUniqueAcrossThreads() throws Exception {
+        IdGenerator ids = new IdGenerator(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                long[] generated = new long[20_000];
+                for (int i = 0; i < generated.length; i++) {
+                    generated[i] = ids.nextId();
+                }
+                return generated;
+            }));
+        }
+        Set<Long> seen = new HashSet<>();
+        for (Future<long[]> future : futures) {
+            for (long id : future.get()) {
+                assertTrue(seen.add(id));
+            }
+        }
+        pool.shutdown();
+        assertEquals(160_000, seen.size());
+    }
+
+    @Test
+    public void testStringFormRoundTripsAndSorts() {
+        IdGenerator ids = new IdGenerator(7);
+        long first = ids.nextId();
+        String a = ids.nextId("ITEM");
+        String b = ids.nextId("ITEM");
+
+        assertEquals(13, IdGenerator.format(first).length());
+        assertEquals(first, IdGenerator.parse(IdGenerator.format(first)));
+        assertTrue(a.startsWith("ITEM"));
+        assertTrue(a.compareTo(b) < 0);
+        long idA = IdGenerator.parse(a);
+        long idB = IdGenerator.parse(b);
+        assertEquals(7, IdGenerator.nodeOf(idA));
+        assertEquals(7, IdGenerator.nodeOf(idB));
+        if (IdGenerator.timestampOf(idB) == IdGenerator.timestampOf(idA)) {
+            assertEquals(IdGenerator.sequenceOf(idA) + 1, IdGenerator.sequenceOf(idB), "the next sequence in one millisecond");
+        } else {
+            assertTrue(IdGenerator.timestampOf(idB) > IdGenerator.timestampOf(idA));
+            assertEquals(0, IdGenerator.sequenceOf(idB), "a new millisecond starts its sequence at 0");
+        }
+        assertEquals(IdGenerator.parse(a), IdGenerator.parse(a.toLowerCase().substring(4)));
+        assertThrows(IllegalArgumentException.class, () -> IdGenerator.parse("ITEM-not-an-id"));
+    }
+
+    @Test
+    public void testNodeAndTimestampAreEmbedded() {
+        long before = System.currentTimeMillis();
+        long id = new IdGenerator(513).nextId();
+
+        assertEquals(513, IdGenerator.nodeOf(id));
+        assertTrue(IdGenerator.timestampOf(id) >= before);
+        assertTrue(IdGenerator.timestampOf(id) <= System.currentTimeMillis());
+        assertNotEquals(id, new IdGenerator(514).nextId());
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(IdGenerator.MAX_NODE + 1));
+    }
+
+    @Test
+    public void testBlockReservation() {
+        IdGenerator ids = new IdGenerator(0);
+        long first = ids.nextIds(IdGenerator.MAX_BLOCK);
+        long last = first + IdGenerator.MAX_BLOCK - 1;
+
+        assertEquals(0, IdGenerator.sequenceOf(first), "a whole millisecond's sequence");
+        assertEquals(IdGenerator.timestampOf(first), IdGenerator.timestampOf(last));
+        assertEquals(0, IdGenerator.nodeOf(last));
+        assertTrue(ids.nextId() > last);
+        assertThrows(IllegalArgumentException.class, () -> ids.nextIds(IdGenerator.MAX_BLOCK + 1));
+        assertThrows(IllegalArgumentException.class, () -> ids.nextIds(0));
+    }
+
+    @Test
+    public void testSequenceExhaustionMovesToNextMillisecond() {
+        IdGenerator ids = new IdGenerator(5);
+        long first = ids.nextIds(100);
+        long block = ids.nextIds(IdGenerator.MAX_BLOCK - 50);  // does not fit after the first block
+
+        assertTrue(block > first + 99);
+        assertEquals(0, IdGenerator.sequenceOf(block));
+        assertTrue(IdGenerator.timestampOf(block) > IdGenerator.timestampOf(first));
+        assertEquals(5, IdGenerator.nodeOf(block + IdGenerator.MAX_BLOCK - 51));
+        long previous = block + IdGenerator.MAX_BLOCK - 51;
+        for (int i = 0; i < 3 * IdGenerator.MAX_BLOCK; i++) {
+            long id = ids.nextId();
+            assertTrue(id > previous);
+            assertEquals(5, IdGenerator.nodeOf(id), "the sequence never carries into the node");
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testNodesNeverOverlap() {
+        for (int run = 0; run < 200; run++) {
+            IdGenerator node0 = new IdGenerator(0);
+            IdGenerator node1 = new IdGenerator(1);
+            long[] blocks = {node0.nextIds(IdGenerator.MAX_BLOCK), node0.nextIds(IdGenerator.MAX_BLOCK)};
+            long other = node1.nextId();
+
+            assertEquals(1, IdGenerator.nodeOf(other));
+            for (long first : blocks) {
+                for (long id = first; id < first + IdGenerator.MAX_BLOCK; id++) {
+                    assertEquals(0, IdGenerator.nodeOf(id), "block ids stay in node 0's range");
+                }
+                assertFalse(other >= first && other < first + IdGenerator.MAX_BLOCK);
+            }
+        }
+    }
+}
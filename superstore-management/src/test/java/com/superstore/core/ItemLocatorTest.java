@@ -0,0 +1,69 @@
+package com.superstore.core;
+
+import com.superstore.domain.ItemLocation;
+import com.superstore.domain.ItemLocation.FacilityType;
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemLocatorTest {
+
+    private Category grocery(String categoryId, String subcategoryId, String... itemCodes) {
+        Category category = new Category(categoryId, "Grocery");
+        Subcategory subcategory = new Subcategory(subcategoryId, "Grains", categoryId);
+        for (String code : itemCodes) {
+            subcategory.addItem(new Item(code, "Item " + code, subcategoryId));
+        }
+        category.addSubcategory(subcategory);
+        return category;
+    }
+
+    @Test
+    void testLocatesItemAcrossFacilities() {
+        Warehouse warehouse = new Warehouse("W001", "Central");
+        warehouse.addCategory(grocery("C001", "SC001", "I001", "I002"));
+        Store store = new Store("S001", "City Store");
+        store.addCategory(grocery("C010", "SC010", "I001"));
+
+        ItemLocator locator = new ItemLocator();
+        locator.register(warehouse);
+        locator.register(store);
+
+        List<ItemLocation> locations = locator.locate("I001");
+        assertEquals(2, locations.size());
+        ItemLocation inStore = locations.stream()
+                .filter(l -> l.facilityType() == FacilityType.STORE).findFirst().orElseThrow();
+        assertEquals("S001", inStore.facilityId());
+        assertEquals("C010", inStore.categoryId());
+        assertEquals("SC010", inStore.subcategoryId());
+
+        assertEquals(1, locator.locate("I002").size());
+        assertTrue(locator.locate("I999").isEmpty());
+    }
+
+    @Test
+    void testTracksChangesAndUnregister() {
+        Warehouse warehouse = new Warehouse("W001", "Central");
+        warehouse.addCategory(grocery("C001", "SC001", "I001"));
+        ItemLocator locator = new ItemLocator();
+        locator.register(warehouse);
+
+        warehouse.getCategory("C001").getSubcategory("SC001").addItem(new Item("I003", "Oats", "SC001"));
+        assertEquals("W001", locator.locate("I003").get(0).facilityId());
+
+        warehouse.removeCategory("C001");
+        assertTrue(locator.locate("I001").isEmpty());
+
+        warehouse.addCategory(grocery("C002", "SC002", "I004"));
+        assertEquals(1, locator.locate("I004").size());
+        locator.unregister(FacilityType.WAREHOUSE, "W001");
+        assertTrue(locator.locate("I004").isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package com.superstore.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MpscRingTest {
+
+    @Test
+    public void testClaimFailsWhenFullAndReleaseFreesASlot() {
+        MpscRing ring = new MpscRing(3);
+        assertEquals(4, ring.size(), "capacity is rounded up to a power of two");
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, ring.claim());
+        }
+        assertEquals(-1, ring.claim());
+        assertEquals(-1, ring.peek(), "claimed slots are not published yet");
+
+        ring.publish(1);
+        assertEquals(-1, ring.peek(), "the consumer reads in claim order");
+        ring.publish(0);
+        assertEquals(0, ring.peek());
+        ring.release();
+        assertEquals(1, ring.peek());
+        assertEquals(4, ring.claim(), "a released slot is reused one lap later");
+        assertEquals(0, ring.index(4));
+    }
+
+    @Test
+    public void testConcurrentProducersLoseNothing() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        MpscRing ring = new MpscRing(64);
+        long[] slots = new long[ring.size()];
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    long position;
+                    while ((position = ring.claim()) < 0) {
+                        Thread.onSpinWait();
+                    }
+                    slots[ring.index(position)] = (long) producer * perProducer + i;
+                    ring.publish(position);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        long sum = 0;
+        long[] lastByProducer = new long[producers];
+        Arrays.fill(lastByProducer, -1);
+        for (int received = 0; received < producers * perProducer; ) {
+            int index = ring.peek();
+            if (index < 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long value = slots[index];
+            ring.release();
+            int producer = (int) (value / perProducer);
+            assertTrue(value % perProducer > lastByProducer[producer], "each producer's values arrive in order");
+            lastByProducer[producer] = value % perProducer;
+            sum += value;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long n = (long) producers * perProducer;
+        assertEquals(n * (n - 1) / 2, sum);
+        assertTrue(ring.isEmpty());
+    }
+}
@@ -0,0 +1,130 @@
+package com.superstore.core;
+
+import com.superstore.core.OrderRouter.DeliveryStatus;
+import com.superstore.domain.OrderMessage;
+import com.superstore.domain.Warehouse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderRouterTest {
+
+    private final Map<String, Warehouse> warehouses = new ConcurrentHashMap<>();
+    private final List<OrderRouter.DeadLetter> deadLetters = new ArrayList<>();
+
+    private OrderRouter createRouter(int capacity, OrderRouter.Delivery delivery) {
+        warehouses.put("W001", new Warehouse("W001", "Central"));
+        warehouses.put("W002", new Warehouse("W002", "North"));
+        return new OrderRouter(warehouses::containsKey, delivery, capacity, 2,
+                letter -> {
+                    synchronized (deadLetters) {
+                        deadLetters.add(letter);
+                    }
+                }, e -> fail(e));
+    }
+
+    private DeliveryStatus deliverToInbox(OrderMessage message) {
+        Warehouse warehouse = warehouses.get(message.getToWarehouseId());
+        if (warehouse == null) return DeliveryStatus.UNKNOWN_TARGET;
+        return warehouse.receiveMessage(message) ? DeliveryStatus.DELIVERED : DeliveryStatus.DUPLICATE;
+    }
+
+    private OrderMessage message(String messageId, String warehouseId) {
+        return new OrderMessage(messageId, "S001", warehouseId, "Rice", "I001", 1, null);
+    }
+
+    @Test
+    public void testDeliversInOrderPerWarehouse() throws Exception {
+        OrderRouter router = createRouter(1024, this::deliverToInbox);
+        List<CompletableFuture<DeliveryStatus>> acks = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            acks.add(router.send(message("M" + i, i % 2 == 0 ? "W001" : "W002")));
+        }
+        for (CompletableFuture<DeliveryStatus> ack : acks) {
+            assertEquals(DeliveryStatus.DELIVERED, ack.get(5, TimeUnit.SECONDS));
+        }
+
+        List<OrderMessage> inbox = warehouses.get("W001").getUnprocessedMessages();
+        assertEquals(250, inbox.size());
+        for (int i = 0; i < inbox.size(); i++) {
+            assertEquals("M" + (2 * i), inbox.get(i).getMessageId());
+        }
+        assertEquals(DeliveryStatus.DUPLICATE, router.send(message("M0", "W001")).get(5, TimeUnit.SECONDS));
+
+        OrderRouter.Stats stats = router.getStats();
+        assertEquals(501, stats.submitted());
+        assertEquals(500, stats.delivered());
+        assertEquals(1, stats.duplicates());
+        assertEquals(0, stats.pending());
+        assertTrue(stats.maxLatencyNanos() > 0);
+        router.close();
+    }
+
+    @Test
+    public void testUnknownTargetIsDeadLettered() throws Exception {
+        OrderRouter router = createRouter(16, this::deliverToInbox);
+
+        assertEquals(DeliveryStatus.UNKNOWN_TARGET, router.send(message("M1", "W999")).get());
+        assertEquals(1, deadLetters.size());
+        assertEquals("M1", router.getRecentDeadLetters().get(0).message().getMessageId());
+        assertEquals(1, router.getStats().deadLettered());
+        router.close();
+    }
+
+    @Test
+    public void testFullMailboxRejectsWithoutBlocking() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OrderRouter router = createRouter(4, message -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return deliverToInbox(message);
+        });
+
+        List<CompletableFuture<DeliveryStatus>> acks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            acks.add(router.send(message("M" + i, "W001")));
+        }
+        long rejected = acks.stream().filter(ack -> ack.getNow(null) == DeliveryStatus.QUEUE_FULL).count();
+        assertTrue(rejected >= 20 - 5, "at most the mailbox plus the message being delivered are accepted");
+
+        release.countDown();
+        assertTrue(router.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(20 - rejected, warehouses.get("W001").getPendingMessageCount());
+        router.close();
+        assertEquals(DeliveryStatus.CLOSED, router.send(message("M99", "W001")).get());
+    }
+
+    @Test
+    public void testConcurrentSendersLoseNothing() throws Exception {
+        OrderRouter router = createRouter(1 << 16, this::deliverToInbox);
+        Thread[] senders = new Thread[4];
+        for (int t = 0; t < senders.length; t++) {
+            int thread = t;
+            senders[t] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    router.send(message("T" + thread + "-" + i, "W00" + (1 + i % 2)));
+                }
+            });
+            senders[t].start();
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+
+        assertTrue(router.awaitIdle(10, TimeUnit.SECONDS));
+        assertEquals(20_000, warehouses.get("W001").getPendingMessageCount()
+                + warehouses.get("W002").getPendingMessageCount());
+        router.close();
+    }
+}
@@ -0,0 +1,191 @@
+package com.superstore.core;
+
+import com.superstore.core.OrderRouter.DeliveryStatus;
+import com.superstore.domain.FacilityLockManager;
+import com.superstore.domain.OrderMessage;
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplenishmentEngineTest {
+
+    private final Map<String, Store> stores = new ConcurrentHashMap<>();
+    private final Map<String, Warehouse> warehouses = new ConcurrentHashMap<>();
+    private final List<OrderMessage> sent = new ArrayList<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    // Delivers straight into the warehouse inbox, like the router once it has dispatched
+    private CompletableFuture<DeliveryStatus> deliver(OrderMessage message) {
+        synchronized (sent) {
+            sent.add(message);
+        }
+        warehouses.get(message.getToWarehouseId()).receiveMessage(message);
+        return CompletableFuture.completedFuture(DeliveryStatus.DELIVERED);
+    }
+
+    private ReplenishmentEngine createEngine(ReplenishmentEngine.OrderSink sink) {
+        return new ReplenishmentEngine(stores::values, warehouses::get, new FacilityLockManager(),
+                () -> "RPL" + nextId.incrementAndGet(), sink);
+    }
+
+    // Reorder point 2 * 3 = 6 with no safety stock; EOQ sqrt(2 * 100 * 1000 / 2) = 316.2
+    private Item createItem(String code, int level) {
+        Item item = new Item(code, "Item " + code, "SC001");
+        item.setAvgDailyUsage(2);
+        item.setMaxDailyUsage(2);
+        item.setAvgLeadTimeDays(3);
+        item.setMaxLeadTimeDays(3);
+        item.setFixedCostPerQuarter(100);
+        item.setDemandUnitsPerQuarter(1000);
+        item.setCarryingCostPerUnitPerQuarter(2);
+        item.setCurrentInventoryLevel(level);
+        return item;
+    }
+
+    private Store createStore(String storeId, Item... items) {
+        Store store = new Store(storeId, "Store " + storeId);
+        store.linkWarehouse("W001");
+        Category category = new Category("C001", "Grocery");
+        Subcategory subcategory = new Subcategory("SC001", "Grains", "C001");
+        for (Item item : items) {
+            subcategory.addItem(item);
+        }
+        category.addSubcategory(subcategory);
+        store.addCategory(category);
+        stores.put(storeId, store);
+        return store;
+    }
+
+    @Test
+    public void testOrdersDueItemsAtEoq() {
+        warehouses.put("W001", new Warehouse("W001", "Central"));
+        createStore("S001", createItem("I001", 6), createItem("I002", 7), createItem("I003", 0));
+        ReplenishmentEngine engine = createEngine(this::deliver);
+
+        ReplenishmentEngine.Result result = engine.evaluateAll();
+
+        assertEquals(1, result.storesScanned());
+        assertEquals(3, result.itemsEvaluated());
+        assertEquals(2, result.ordersPlaced());
+        assertEquals(List.of("I001", "I003"), sent.stream().map(OrderMessage::getItemCode).sorted().toList());
+        OrderMessage order = sent.get(0);
+        assertEquals(317, order.getQuantity());
+        assertEquals("S001", order.getFromStoreId());
+        assertEquals("W001", order.getToWarehouseId());
+    }
+
+    @Test
+    public void testOpenOrdersAreNotRepeated() {
+        Warehouse warehouse = new Warehouse("W001", "Central");
+        warehouses.put("W001", warehouse);
+        Item rice = createItem("I001", 1);
+        Store store = createStore("S001", rice);
+        ReplenishmentEngine engine = createEngine(this::deliver);
+
+        assertEquals(1, engine.evaluateAll().ordersPlaced());
+        ReplenishmentEngine.Result again = engine.evaluateItems(store, List.of(rice));
+        assertEquals(0, again.ordersPlaced());
+        assertEquals(1, again.alreadyOpen());
+
+        warehouse.markMessageProcessed(sent.get(0).getMessageId());
+        ReplenishmentEngine.Result afterProcessing = engine.evaluateAll();
+        assertEquals(0, afterProcessing.ordersPlaced(), "a processed order is stock on its way");
+        assertEquals(1, afterProcessing.alreadyOpen());
+        assertEquals(0, engine.evaluateItems(store, List.of(rice)).ordersPlaced());
+        assertEquals(1, sent.size());
+
+        rice.setCurrentInventoryLevel(300);
+        assertEquals(0, engine.evaluateItems(store, List.of(rice)).itemsDue(), "the order arrived");
+        rice.setCurrentInventoryLevel(2);
+        assertEquals(1, engine.evaluateAll().ordersPlaced(), "a restocked item can be ordered again");
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    public void testRestockSeenByScanClosesOrder() {
+        Warehouse warehouse = new Warehouse("W001", "Central");
+        warehouses.put("W001", warehouse);
+        Item rice = createItem("I001", 1);
+        createStore("S001", rice);
+        ReplenishmentEngine engine = createEngine(this::deliver);
+
+        assertEquals(1, engine.evaluateAll().ordersPlaced());
+        warehouse.markMessageProcessed(sent.get(0).getMessageId());
+        rice.setCurrentInventoryLevel(50);
+        assertEquals(0, engine.evaluateAll().itemsDue());
+        rice.setCurrentInventoryLevel(0);
+        assertEquals(1, engine.evaluateAll().ordersPlaced());
+    }
+
+    @Test
+    public void testInFlightOrdersAreNotRepeated() {
+        warehouses.put("W001", new Warehouse("W001", "Central"));
+        createStore("S001", createItem("I001", 1));
+        CompletableFuture<DeliveryStatus> ack = new CompletableFuture<>();
+        ReplenishmentEngine engine = createEngine(message -> {
+            sent.add(message);
+            return ack;
+        });
+
+        assertEquals(1, engine.evaluateAll().ordersPlaced());
+        assertEquals(1, engine.evaluateAll().alreadyOpen());
+
+        ack.complete(DeliveryStatus.QUEUE_FULL);
+        assertEquals(1, engine.evaluateAll().ordersPlaced(), "a dead-lettered order is retried");
+    }
+
+    @Test
+    public void testSkipsUnlinkedStoresAndItemsWithoutEoq() {
+        warehouses.put("W001", new Warehouse("W001", "Central"));
+        Item noCost = new Item("I009", "Loose", "SC001");
+        createStore("S001", noCost);
+        Store unlinked = new Store("S002", "Unlinked");
+        stores.put("S002", unlinked);
+        ReplenishmentEngine engine = createEngine(this::deliver);
+
+        ReplenishmentEngine.Result result = engine.evaluateAll();
+
+        assertEquals(1, result.storesScanned());
+        assertEquals(1, result.unsized());
+        assertEquals(0, result.ordersPlaced());
+        assertTrue(sent.isEmpty());
+    }
+
+    @Test
+    public void testParallelScanOfManyStores() {
+        warehouses.put("W001", new Warehouse("W001", "Central"));
+        for (int s = 0; s < 20; s++) {
+            Store store = new Store("S" + s, "Store " + s);
+            store.linkWarehouse("W001");
+            Category category = new Category("C001", "Grocery");
+            for (int sub = 0; sub < 10; sub++) {
+                Subcategory subcategory = new Subcategory("SC" + sub, "Sub " + sub, "C001");
+                for (int i = 0; i < 100; i++) {
+                    subcategory.addItem(createItem("I" + sub + "-" + i, i % 10 == 0 ? 0 : 50));
+                }
+                category.addSubcategory(subcategory);
+            }
+            store.addCategory(category);
+            stores.put(store.getStoreId(), store);
+        }
+        ReplenishmentEngine engine = createEngine(this::deliver);
+
+        ReplenishmentEngine.Result result = engine.evaluateAll();
+
+        assertEquals(20_000, result.itemsEvaluated());
+        assertEquals(2_000, result.ordersPlaced());
+        assertEquals(2_000, warehouses.get("W001").getPendingMessageCount());
+    }
+}
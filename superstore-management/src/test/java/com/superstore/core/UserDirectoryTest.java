@@ -0,0 +1,60 @@
+package com.superstore.core;
+
+import com.superstore.user.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserDirectoryTest {
+
+    private UserDirectory createSampleDirectory() {
+        UserDirectory directory = new UserDirectory();
+        directory.add(new SuperUser("SU001", "superadmin", "admin123"));
+        directory.add(new WarehouseAdministrator("U001", "wa_ann", "pw", "W001"));
+        directory.add(new WarehouseKeeper("U002", "wk_joe", "pw", "W001"));
+        directory.add(new StoreAdministrator("U003", "sa_sue", "pw", "S001"));
+        directory.add(new Storekeeper("U004", "sk_bob", "pw", "S001"));
+        directory.add(new Storekeeper("U005", "sk_tim", "pw", "S002"));
+        return directory;
+    }
+
+    @Test
+    public void testAuthenticateByUsername() {
+        UserDirectory directory = createSampleDirectory();
+
+        assertEquals("U004", directory.authenticate("sk_bob", "pw").getUserId());
+        assertNull(directory.authenticate("sk_bob", "wrong"));
+        assertNull(directory.authenticate("nobody", "pw"));
+
+        directory.remove("U004");
+        assertNull(directory.authenticate("sk_bob", "pw"));
+    }
+
+    @Test
+    public void testDuplicateUsernamesMatchOnPassword() {
+        UserDirectory directory = createSampleDirectory();
+        directory.add(new Storekeeper("U006", "sk_bob", "other", "S002"));
+
+        assertEquals("U004", directory.authenticate("sk_bob", "pw").getUserId());
+        assertEquals("U006", directory.authenticate("sk_bob", "other").getUserId());
+    }
+
+    @Test
+    public void testTypeAndFacilityIndexes() {
+        UserDirectory directory = createSampleDirectory();
+
+        assertEquals(2, directory.getByType(User.UserType.STOREKEEPER).size());
+        List<User> keepers = directory.getByFacility(User.UserType.STOREKEEPER, "S001");
+        assertEquals(1, keepers.size());
+        assertEquals("sk_bob", keepers.get(0).getUsername());
+        assertEquals(2, directory.getByFacility("W001").size());
+        assertTrue(directory.getByFacility(User.UserType.STOREKEEPER, "W001").isEmpty());
+
+        directory.add(new Storekeeper("U004", "sk_bob", "pw", "S002"));   // reassigned
+        assertTrue(directory.getByFacility(User.UserType.STOREKEEPER, "S001").isEmpty());
+        assertEquals(2, directory.getByFacility(User.UserType.STOREKEEPER, "S002").size());
+        assertEquals(6, directory.size());
+    }
+}
@@ -0,0 +1,148 @@
+package com.superstore.domain;
+
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentInventoryTest {
+
+    private static final int THREADS = 8;
+
+    // Runs the task on every thread at once and rethrows the first failure
+    private void runConcurrently(int threads, IntTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface IntTask {
+        void run(int thread) throws Exception;
+    }
+
+    @Test
+    void testConcurrentStockMovementsKeepExactCount() throws Exception {
+        Item item = new Item("I001", "Rice", "SC001");
+        item.setCurrentInventoryLevel(1000);
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < 10_000; i++) {
+                item.addInventory(3);
+                item.removeInventory(2);
+            }
+        });
+
+        assertEquals(1000 + THREADS * 10_000, item.getCurrentInventoryLevel());
+    }
+
+    @Test
+    void testTryRemoveNeverOversells() throws Exception {
+        Item item = new Item("I001", "Rice", "SC001");
+        item.setCurrentInventoryLevel(5000);
+        AtomicInteger sold = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> {
+            while (item.getCurrentInventoryLevel() > 0) {
+                if (item.tryRemoveInventory(3)) {
+                    sold.addAndGet(3);
+                }
+                if (item.getCurrentInventoryLevel() < 3) break;
+            }
+        });
+
+        assertTrue(item.getCurrentInventoryLevel() >= 0);
+        assertEquals(5000, sold.get() + item.getCurrentInventoryLevel());
+    }
+
+    @Test
+    void testOutOfStockIndexConvergesUnderConcurrentUpdates() throws Exception {
+        Store store = new Store("S001", "City Store");
+        Category category = new Category("C001", "Grocery");
+        Subcategory subcategory = new Subcategory("SC001", "Grains", "C001");
+        category.addSubcategory(subcategory);
+        store.addCategory(category);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            Item item = new Item("I" + i, "Item " + i, "SC001");
+            item.setCurrentInventoryLevel(1);
+            subcategory.addItem(item);
+            items.add(item);
+        }
+
+        // Each thread owns a slice of the items and toggles them in and out of stock,
+        // while the last thread keeps adding and removing unrelated items
+        runConcurrently(THREADS, thread -> {
+            if (thread == THREADS - 1) {
+                for (int i = 0; i < 2000; i++) {
+                    Item extra = new Item("X" + i, "Extra", "SC001");
+                    subcategory.addItem(extra);
+                    store.getOutOfStockItems();
+                    subcategory.removeItem(extra.getItemCode());
+                }
+                return;
+            }
+            for (int round = 0; round < 2000; round++) {
+                for (int i = thread; i < items.size(); i += THREADS - 1) {
+                    Item item = items.get(i);
+                    item.setCurrentInventoryLevel(round % 2);
+                }
+            }
+        });
+
+        // The last round sets every item back to level 1
+        int expected = 0;
+        for (Item item : items) {
+            if (item.getCurrentInventoryLevel() == 0) expected++;
+        }
+        assertEquals(expected, store.getOutOfStockCount());
+        assertEquals(0, expected);
+        assertNull(store.getItem("X0"));
+    }
+
+    @Test
+    void testReorderPointCacheFollowsConcurrentParameterChanges() throws Exception {
+        Item item = new Item("I001", "Rice", "SC001");
+        item.setAvgLeadTimeDays(2);
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < 5000; i++) {
+                if (thread % 2 == 0) {
+                    item.setAvgDailyUsage(i % 7);
+                } else {
+                    item.calculateReorderPoint();
+                }
+            }
+        });
+
+        // Every writer finishes on 4999 % 7 == 1; a stale cached value would not match
+        assertEquals(1.0, item.getAvgDailyUsage());
+        assertEquals(2.0 + item.calculateSafetyStock(), item.calculateReorderPoint(), 1e-9);
+    }
+}
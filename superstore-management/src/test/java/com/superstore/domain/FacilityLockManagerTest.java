@@ -0,0 +1,78 @@
+package com.superstore.domain;
+
+import com.superstore.domain.ItemLocation.FacilityType;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FacilityLockManagerTest {
+
+    @Test
+    void testStripeCountRoundsUpToPowerOfTwo() {
+        assertEquals(64, new FacilityLockManager().getStripeCount());
+        assertEquals(16, new FacilityLockManager(10).getStripeCount());
+        assertEquals(1, new FacilityLockManager(1).getStripeCount());
+    }
+
+    @Test
+    void testSameFacilitySharesLock() {
+        FacilityLockManager locks = new FacilityLockManager();
+        assertSame(locks.lockFor(FacilityType.STORE, "S001"), locks.lockFor(FacilityType.STORE, "S001"));
+    }
+
+    @Test
+    void testReadersOfOneFacilityRunTogether() throws Exception {
+        FacilityLockManager locks = new FacilityLockManager();
+        CountDownLatch bothInside = new CountDownLatch(2);
+        Thread other = new Thread(() -> locks.withReadLock(FacilityType.STORE, "S001", () -> {
+            bothInside.countDown();
+            return awaitQuietly(bothInside);
+        }));
+        other.start();
+        boolean met = locks.withReadLock(FacilityType.STORE, "S001", () -> {
+            bothInside.countDown();
+            return awaitQuietly(bothInside);
+        });
+        other.join();
+        assertTrue(met, "a reader must not wait for another reader");
+    }
+
+    @Test
+    void testWriterExcludesReadersOfSameFacility() throws Exception {
+        FacilityLockManager locks = new FacilityLockManager();
+        ReadWriteLock lock = locks.lockFor(FacilityType.WAREHOUSE, "W001");
+        AtomicBoolean readWhileWriting = new AtomicBoolean();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread writer = new Thread(() -> locks.withWriteLock(FacilityType.WAREHOUSE, "W001", () -> {
+            writing.countDown();
+            return awaitQuietly(release);
+        }));
+        writer.start();
+        writing.await();
+
+        assertFalse(lock.readLock().tryLock(50, TimeUnit.MILLISECONDS));
+        release.countDown();
+        writer.join();
+        locks.withReadLock(FacilityType.WAREHOUSE, "W001", () -> {
+            readWhileWriting.set(true);
+            return null;
+        });
+        assertTrue(readWhileWriting.get());
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
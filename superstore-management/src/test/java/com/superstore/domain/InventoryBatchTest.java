@@ -0,0 +1,152 @@
+package com.superstore.domain;
+
+import com.superstore.domain.InventoryBatchResult.LineStatus;
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InventoryBatchTest {
+
+    private Store createStore(int itemCount, int level) {
+        Store store = new Store("S001", "City Store");
+        Category category = new Category("C001", "Grocery");
+        Subcategory subcategory = new Subcategory("SC001", "Grains", "C001");
+        for (int i = 0; i < itemCount; i++) {
+            Item item = new Item("I" + i, "Item " + i, "SC001");
+            item.setCurrentInventoryLevel(level);
+            subcategory.addItem(item);
+        }
+        category.addSubcategory(subcategory);
+        store.addCategory(category);
+        return store;
+    }
+
+    @Test
+    void testValidBatchAppliesNetMovements() {
+        Store store = createStore(3, 5);
+        InventoryBatch batch = new InventoryBatch()
+                .add("I0", 10)
+                .add("I1", -5)
+                .add("I0", -3)
+                .add("I2", 0);
+
+        InventoryBatchResult result = store.applyInventoryBatch(batch);
+
+        assertTrue(result.isApplied());
+        assertEquals(4, result.size());
+        assertEquals(15, result.getResultingLevel(0));
+        assertEquals(12, result.getResultingLevel(2));
+        assertEquals(12, store.getItem("I0").getCurrentInventoryLevel());
+        assertEquals(0, store.getItem("I1").getCurrentInventoryLevel());
+        assertEquals(5, store.getItem("I2").getCurrentInventoryLevel());
+        assertEquals(2, result.getChangedItems().size(), "unchanged items are not reported");
+    }
+
+    @Test
+    void testInvalidLineRejectsWholeBatch() {
+        Store store = createStore(2, 5);
+        InventoryBatch batch = new InventoryBatch()
+                .add("I0", 10)
+                .add("I1", -6)
+                .add("missing", 1);
+
+        InventoryBatchResult result = store.applyInventoryBatch(batch);
+
+        assertFalse(result.isApplied());
+        assertEquals(2, result.getRejectedCount());
+        assertEquals(LineStatus.NOT_APPLIED, result.getStatus(0));
+        assertEquals(LineStatus.INSUFFICIENT_STOCK, result.getStatus(1));
+        assertEquals(5, result.getResultingLevel(1));
+        assertEquals(LineStatus.UNKNOWN_ITEM, result.getStatus(2));
+        assertEquals(-1, result.getResultingLevel(2));
+        assertEquals(5, store.getItem("I0").getCurrentInventoryLevel());
+        assertTrue(result.getChangedItems().isEmpty());
+    }
+
+    @Test
+    void testLinesAreCheckedInOrder() {
+        Store store = createStore(1, 2);
+        // Net +3, but the item would be at -1 after the first line
+        InventoryBatchResult result = store.applyInventoryBatch(new InventoryBatch()
+                .add("I0", -3)
+                .add("I0", 6));
+
+        assertFalse(result.isApplied());
+        assertEquals(LineStatus.INSUFFICIENT_STOCK, result.getStatus(0));
+        assertEquals(2, store.getItem("I0").getCurrentInventoryLevel());
+    }
+
+    @Test
+    void testOutOfStockListenersGetOneNotification() {
+        Store store = createStore(10, 1);
+        store.getItem("I9").setCurrentInventoryLevel(0);
+        List<List<Item>> notifications = new ArrayList<>();
+        store.addOutOfStockListener(new OutOfStockListener() {
+            @Override
+            public void outOfStockChanged(Item item, boolean outOfStock) {
+                fail("batch changes must arrive as one notification");
+            }
+
+            @Override
+            public void outOfStockChanged(List<Item> nowOutOfStock, List<Item> restocked) {
+                notifications.add(nowOutOfStock);
+                notifications.add(restocked);
+            }
+        });
+
+        InventoryBatch batch = new InventoryBatch();
+        for (int i = 0; i < 5; i++) {
+            batch.add("I" + i, -1);
+        }
+        batch.add("I9", 4);
+        assertTrue(store.applyInventoryBatch(batch).isApplied());
+
+        assertEquals(2, notifications.size());
+        assertEquals(5, notifications.get(0).size());
+        assertEquals(List.of(store.getItem("I9")), notifications.get(1));
+        assertEquals(5, store.getOutOfStockCount());
+    }
+
+    @Test
+    void testWarehouseBatchUpdatesReorderQueue() {
+        Warehouse warehouse = new Warehouse("W001", "Central");
+        Category category = new Category("C001", "Grocery");
+        Subcategory subcategory = new Subcategory("SC001", "Grains", "C001");
+        Item rice = new Item("I001", "Rice", "SC001");
+        rice.setAvgDailyUsage(2);
+        rice.setAvgLeadTimeDays(3);
+        rice.setMaxDailyUsage(3);
+        rice.setMaxLeadTimeDays(4);     // reorder point 12
+        rice.setCurrentInventoryLevel(20);
+        subcategory.addItem(rice);
+        category.addSubcategory(subcategory);
+        warehouse.addCategory(category);
+        assertTrue(warehouse.getItemsNeedingReorder().isEmpty());
+
+        assertTrue(warehouse.applyInventoryBatch(new InventoryBatch().add("I001", -15)).isApplied());
+
+        assertEquals(List.of(rice), warehouse.getItemsNeedingReorder());
+    }
+
+    @Test
+    void testLargeBatch() {
+        Store store = createStore(1000, 0);
+        InventoryBatch batch = new InventoryBatch(100_000);
+        for (int i = 0; i < 100_000; i++) {
+            batch.add("I" + (i % 1000), 1);
+        }
+
+        InventoryBatchResult result = store.applyInventoryBatch(batch);
+
+        assertTrue(result.isApplied());
+        assertEquals(1000, result.getChangedItems().size());
+        assertEquals(100, store.getItem("I999").getCurrentInventoryLevel());
+        assertEquals(0, store.getOutOfStockCount());
+    }
+}
@@ -0,0 +1,272 @@
+package com.superstore.domain;
+
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemSearchIndexTest {
+
+    private static Item item(String code, String name, String description) {
+        Item item = new Item(code, name, "SC001");
+        item.setDescription(description);
+        return item;
+    }
+
+    private static List<String> codes(List<Item> items) {
+        List<String> codes = new ArrayList<>();
+        items.forEach(item -> codes.add(item.getItemCode()));
+        return codes;
+    }
+
+    private Store createStore(Subcategory subcategory) {
+        Store store = new Store("S001", "City Store");
+        Category grocery = new Category("C001", "Grocery");
+        grocery.addSubcategory(subcategory);
+        store.addCategory(grocery);
+        return store;
+    }
+
+    @Test
+    public void testTokenizeFoldsCaseAndAccents() {
+        assertEquals(List.of("creme", "brulee", "500g", "x2"), ItemSearchIndex.tokenize("Crème BRÛLÉE, 500g (x2)"));
+        assertEquals(List.of(), ItemSearchIndex.tokenize(" -- "));
+        assertEquals(List.of(), ItemSearchIndex.tokenize(null));
+    }
+
+    @Test
+    public void testWithinEdits() {
+        assertTrue(ItemSearchIndex.withinEdits("rice", "rice", 1));
+        assertTrue(ItemSearchIndex.withinEdits("rice", "rcie", 1), "a swap of neighbours is one edit");
+        assertTrue(ItemSearchIndex.withinEdits("rice", "ricey", 1));
+        assertTrue(ItemSearchIndex.withinEdits("basmati", "basmti", 1));
+        assertFalse(ItemSearchIndex.withinEdits("rice", "race", 0));
+        assertFalse(ItemSearchIndex.withinEdits("rice", "mice cake", 2));
+        assertTrue(ItemSearchIndex.withinEdits("chocolate", "chocolte", 2));
+        assertFalse(ItemSearchIndex.withinEdits("chocolate", "chocol", 2));
+    }
+
+    @Test
+    public void testExactPrefixAndFuzzyMatchesRanked() {
+        Subcategory grains = new Subcategory("SC001", "Grains", "C001");
+        grains.addItem(item("I001", "Ricotta Cheese", null));
+        grains.addItem(item("I002", "Brown Rice", "Whole grain"));
+        grains.addItem(item("I003", "Oat Flakes", "Goes well with rice milk"));
+        grains.addItem(item("I004", "Rcie Crackers", null));
+        grains.addItem(item("I005", "Wheat Flour", null));
+        Store store = createStore(grains);
+
+        assertEquals(List.of("I002", "I003", "I004"), codes(store.searchItems("rice", 10)),
+                "an exact name match first, then the description, then the typo in a name");
+        List<String> prefixed = codes(store.searchItems("ri", 10));
+        assertEquals(Set.of("I001", "I002"), new HashSet<>(prefixed.subList(0, 2)),
+                "a prefix matches whole words and word beginnings, names first");
+        assertEquals(List.of("I003"), prefixed.subList(2, prefixed.size()));
+        assertEquals(List.of("I003"), codes(store.searchItems("rice MILK", 10)), "every word must match");
+        assertEquals(List.of("I005"), codes(store.searchItems(" i005", 10)), "a code finds its item");
+        assertEquals(List.of("I002"), codes(store.searchItems("rice", 1)));
+        assertEquals(List.of(), store.searchItems("quinoa", 10));
+        assertEquals(List.of(), store.searchItems("  ", 10));
+    }
+
+    @Test
+    public void testIndexFollowsCatalogChanges() {
+        Subcategory grains = new Subcategory("SC001", "Grains", "C001");
+        Item rice = item("I001", "Basmati Rice", "Long grain");
+        grains.addItem(rice);
+        Store store = createStore(grains);
+        assertEquals(List.of("I001"), codes(store.searchItems("basmati", 10)));
+
+        grains.addItem(item("I002", "Jasmine Rice", null));
+        assertEquals(Set.of("I001", "I002"), new HashSet<>(codes(store.searchItems("rice", 10))));
+
+        rice.setDescription("Aged two years");
+        assertEquals(List.of(), store.searchItems("long", 10), "the old description is forgotten");
+        assertEquals(List.of("I001"), codes(store.searchItems("aged", 10)));
+
+        grains.removeItem("I001");
+        assertEquals(List.of("I002"), codes(store.searchItems("rice", 10)));
+        rice.setDescription("Long grain");
+        assertEquals(List.of(), store.searchItems("long", 10), "removed items stay out of the index");
+
+        Subcategory snacks = new Subcategory("SC002", "Snacks", "C001");
+        snacks.addItem(item("I003", "Rice Crisps", null));
+        store.getCategory("C001").addSubcategory(snacks);
+        assertEquals(List.of("I002", "I003"), codes(store.searchItems("rice", 10)));
+        store.removeCategory("C001");
+        assertEquals(List.of(), store.searchItems("rice", 10));
+    }
+
+    @Test
+    public void testCompactionKeepsResults() {
+        ItemSearchIndex index = new ItemSearchIndex();
+        Subcategory subcategory = new Subcategory("SC001", "Bulk", "C001");
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Item item = item(String.format("I%05d", i), (i % 2 == 0 ? "Even" : "Odd") + " Item " + i, null);
+            items.add(item);
+            index.itemAdded(subcategory, item);
+        }
+        for (int i = 0; i < 9_000; i++) {
+            index.itemRemoved(subcategory, items.get(i));
+        }
+        assertEquals(1_000, index.size());
+        List<Item> odd = index.search("odd", 1_000);
+        assertEquals(500, odd.size());
+        assertEquals("I09001", odd.get(0).getItemCode(), "compaction keeps the index order");
+        assertEquals(List.of(items.get(9_999)), index.search("9999", 10));
+        assertEquals(List.of(), index.search("4242", 10));
+    }
+
+    @Test
+    public void testRandomQueriesMatchFullScan() {
+        String[] words = {"rice", "brown", "basmati", "bean", "beans", "black", "coffee", "coffe", "tea",
+                "green", "honey", "milk", "oat", "oats", "organic", "fresh", "frozen", "salmon", "red", "café"};
+        Random random = new Random(7);
+        ItemSearchIndex index = new ItemSearchIndex();
+        Subcategory subcategory = new Subcategory("SC001", "Mixed", "C001");
+        // Items in index order, as a description change moves an item to the end
+        LinkedHashMap<String, Item> live = new LinkedHashMap<>();
+        for (int step = 0; step < 3_000; step++) {
+            int roll = random.nextInt(10);
+            if (roll < 6 || live.isEmpty()) {
+                Item item = item("I" + step, phrase(words, random, 1 + random.nextInt(3)),
+                        random.nextBoolean() ? phrase(words, random, 1 + random.nextInt(4)) : null);
+                live.put(item.getItemCode(), item);
+                index.itemAdded(subcategory, item);
+            } else {
+                Item item = live.values().stream().skip(random.nextInt(live.size())).findFirst().orElseThrow();
+                live.remove(item.getItemCode());
+                if (roll < 8) {
+                    index.itemRemoved(subcategory, item);
+                } else {
+                    item.setDescription(phrase(words, random, 2));
+                    index.descriptionChanged(item);
+                    live.put(item.getItemCode(), item);
+                }
+            }
+        }
+        for (int q = 0; q < 300; q++) {
+            String word = words[random.nextInt(words.length)];
+            String query = random.nextInt(3) == 0 ? word.substring(0, 1 + random.nextInt(word.length()))
+                    : random.nextInt(3) == 0 ? word + " " + words[random.nextInt(words.length)] : word;
+            int limit = 1 + random.nextInt(40);
+            assertEquals(codes(searchByScan(live.values(), query, limit)), codes(index.search(query, limit)),
+                    "query '" + query + "' limit " + limit);
+        }
+    }
+
+    @Test
+    public void testRefineNarrowsPreviousMatches() {
+        ItemSearchIndex index = new ItemSearchIndex();
+        Subcategory subcategory = new Subcategory("SC001", "Grains", "C001");
+        index.itemAdded(subcategory, item("I001", "Ricotta Cheese", null));
+        index.itemAdded(subcategory, item("I002", "Brown Rice", "Whole grain"));
+        index.itemAdded(subcategory, item("I003", "Oat Flakes", "Goes well with rice milk"));
+        index.itemAdded(subcategory, item("I004", "Rice Crackers", "Brown"));
+
+        ItemSearchIndex.Matches ric = index.match("ric", 10);
+        assertTrue(ric.complete());
+        ItemSearchIndex.Matches rice = index.refine(ric, "rice", 10);
+        assertNotNull(rice, "every term of 'rice' is a term of 'ric'");
+        assertEquals(codes(index.search("rice", 10)), codes(rice.items()));
+        ItemSearchIndex.Matches brown = index.refine(rice, "rice brown", 1);
+        assertEquals(codes(index.search("rice brown", 1)), codes(brown.items()));
+        assertFalse(brown.complete(), "two items matched, one was kept");
+
+        assertNull(index.refine(brown, "rice brown", 10), "incomplete matches cannot be refined");
+        assertNull(index.refine(rice, "oat", 10), "'oat' does not narrow 'rice'");
+        assertNull(index.refine(index.match("rice", 10), "ricotta", 10), "'ricotta' is not among the terms of 'rice'");
+        index.itemAdded(subcategory, item("I005", "Wild Rice", null));
+        assertNull(index.refine(ric, "rice", 10), "the index changed since");
+    }
+
+    @Test
+    public void testRandomRefinementsMatchSearch() {
+        String[] words = {"rice", "brown", "basmati", "bean", "beans", "black", "coffee", "coffe", "tea",
+                "green", "honey", "milk", "oat", "oats", "organic", "fresh", "frozen", "salmon", "red", "café"};
+        Random random = new Random(11);
+        ItemSearchIndex index = new ItemSearchIndex();
+        Subcategory subcategory = new Subcategory("SC001", "Mixed", "C001");
+        for (int i = 0; i < 2_000; i++) {
+            index.itemAdded(subcategory, item("I" + i, phrase(words, random, 1 + random.nextInt(3)),
+                    random.nextBoolean() ? phrase(words, random, 1 + random.nextInt(4)) : null));
+        }
+        int refined = 0;
+        for (int q = 0; q < 300; q++) {
+            // Types a query a letter at a time, refining wherever the index allows it
+            String query = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            int limit = 1 + random.nextInt(600);
+            ItemSearchIndex.Matches previous = index.match(query.substring(0, 1), limit);
+            for (int length = 2; length <= query.length(); length++) {
+                String typed = query.substring(0, length);
+                ItemSearchIndex.Matches next = index.refine(previous, typed, limit);
+                if (next == null) {
+                    next = index.match(typed, limit);
+                } else {
+                    refined++;
+                }
+                assertEquals(codes(index.search(typed, limit)), codes(next.items()), "query '" + typed + "'");
+                previous = next;
+            }
+        }
+        assertTrue(refined > 1_000, "most keystrokes refine: " + refined);
+    }
+
+    private static String phrase(String[] words, Random random, int length) {
+        StringBuilder phrase = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            phrase.append(i == 0 ? "" : " ").append(words[random.nextInt(words.length)]);
+        }
+        return phrase.toString();
+    }
+
+    // Scores every item against the rules in the index's documentation
+    private static List<Item> searchByScan(Collection<Item> items, String query, int limit) {
+        Set<String> queryWords = new LinkedHashSet<>(ItemSearchIndex.tokenize(query));
+        List<Item> matches = new ArrayList<>();
+        Map<Item, Integer> scores = new HashMap<>();
+        for (Item item : items) {
+            List<String> nameTokens = ItemSearchIndex.tokenize(item.getItemName());
+            List<String> descriptionTokens = ItemSearchIndex.tokenize(item.getDescription());
+            int score = 0;
+            for (String word : queryWords) {
+                int best = Math.max(bestWeight(word, nameTokens, ItemSearchIndex.NAME),
+                        bestWeight(word, descriptionTokens, ItemSearchIndex.DESCRIPTION));
+                if (best == 0) {
+                    score = 0;
+                    break;
+                }
+                score += best;
+            }
+            if (score > 0) {
+                matches.add(item);
+                scores.put(item, score);
+            }
+        }
+        matches.sort(Comparator.comparing(scores::get).reversed());  // stable: index order on ties
+        return matches.subList(0, Math.min(limit, matches.size()));
+    }
+
+    private static int bestWeight(String word, List<String> tokens, int field) {
+        int best = 0;
+        for (String token : tokens) {
+            int kind = -1;
+            if (token.equals(word)) {
+                kind = ItemSearchIndex.EXACT;
+            } else if (token.startsWith(word)) {
+                kind = ItemSearchIndex.PREFIX;
+            } else if (word.length() >= 4 && word.chars().noneMatch(Character::isDigit)
+                    && token.chars().noneMatch(Character::isDigit)
+                    && ItemSearchIndex.withinEdits(word, token, word.length() >= 8 ? 2 : 1)) {
+                kind = ItemSearchIndex.FUZZY;
+            }
+            if (kind >= 0) best = Math.max(best, ItemSearchIndex.WEIGHTS[kind][field]);
+        }
+        return best;
+    }
+}
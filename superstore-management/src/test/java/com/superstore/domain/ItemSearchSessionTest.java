@@ -0,0 +1,142 @@
+package com.superstore.domain;
+
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemSearchSessionTest {
+
+    // Records what the listener was told, in order
+    private static class Recorder implements ItemSearchSession.Listener {
+        final List<String> events = new ArrayList<>();
+        final List<String> shown = new ArrayList<>();
+
+        @Override
+        public void resultsReplaced(List<Item> items) {
+            events.add("replaced " + items.size());
+            shown.clear();
+            items.forEach(item -> shown.add(item.getItemCode()));
+        }
+
+        @Override
+        public void resultsAppended(List<Item> items) {
+            events.add("appended " + items.size());
+            items.forEach(item -> shown.add(item.getItemCode()));
+        }
+
+        @Override
+        public void searchFinished(int count, boolean complete) {
+            events.add("finished " + count + (complete ? "" : " of more"));
+        }
+    }
+
+    // Stands in for the UI thread: tasks run only when the test takes them
+    private final BlockingQueue<Runnable> resultTasks = new LinkedBlockingQueue<>();
+
+    private Runnable nextResultTask() throws InterruptedException {
+        Runnable task = resultTasks.poll(5, TimeUnit.SECONDS);
+        assertNotNull(task, "no results were delivered");
+        return task;
+    }
+
+    private void runResultTasks() throws InterruptedException {
+        nextResultTask().run();
+        Runnable task;
+        while ((task = resultTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private Store createStore(int items) {
+        Store store = new Store("S001", "City Store");
+        Category grocery = new Category("C001", "Grocery");
+        Subcategory grains = new Subcategory("SC001", "Grains", "C001");
+        for (int i = 0; i < items; i++) {
+            grains.addItem(new Item(String.format("I%03d", i), (i % 2 == 0 ? "Brown Rice " : "Oat Flakes ") + i, "SC001"));
+        }
+        grocery.addSubcategory(grains);
+        store.addCategory(grocery);
+        return store;
+    }
+
+    @Test
+    public void testResultsArriveInPages() throws InterruptedException {
+        Store store = createStore(50);
+        Recorder recorder = new Recorder();
+        try (ItemSearchSession session = new ItemSearchSession(store, 0, 100, 10, resultTasks::add, recorder)) {
+            session.setQuery("rice");
+            runResultTasks();
+            assertEquals(List.of("replaced 10", "appended 10", "appended 5", "finished 25"), recorder.events);
+            assertEquals(store.searchItems("rice", 100).stream().map(Item::getItemCode).toList(), recorder.shown);
+        }
+    }
+
+    @Test
+    public void testPagesAreHandedOverOneAtATime() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        try (ItemSearchSession session = new ItemSearchSession(createStore(50), 0, 100, 10, resultTasks::add, recorder)) {
+            session.searchNow("rice");
+            nextResultTask().run();
+            assertEquals(List.of("replaced 10"), recorder.events);
+            assertEquals(1, resultTasks.size(), "the next page waits for the first to be shown");
+        }
+    }
+
+    @Test
+    public void testNewerQuerySupersedesOlder() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        try (ItemSearchSession session = new ItemSearchSession(createStore(50), 0, 100, 10, resultTasks::add, recorder)) {
+            session.searchNow("rice");
+            Runnable stale = nextResultTask();
+            session.searchNow("oat");
+            stale.run();
+            assertEquals(List.of(), recorder.events, "results of an older query are dropped");
+            runResultTasks();
+            assertEquals("finished 25", recorder.events.get(recorder.events.size() - 1));
+            assertTrue(recorder.shown.stream().allMatch(code -> Integer.parseInt(code.substring(1)) % 2 == 1));
+        }
+    }
+
+    @Test
+    public void testDebounceRunsOnlyTheLastQuery() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        try (ItemSearchSession session = new ItemSearchSession(createStore(50), 200, 100, 100, resultTasks::add, recorder)) {
+            session.setQuery("o");
+            session.setQuery("oa");
+            session.setQuery("oat 7");
+            runResultTasks();
+            assertNull(resultTasks.poll(300, TimeUnit.MILLISECONDS), "earlier keystrokes never run");
+            assertEquals(List.of("replaced 1", "finished 1"), recorder.events);
+
+            session.setQuery("rice");
+            session.cancel();
+            assertNull(resultTasks.poll(300, TimeUnit.MILLISECONDS), "a cancelled query never runs");
+        }
+    }
+
+    @Test
+    public void testRefinedQueriesMatchFreshSearches() throws InterruptedException {
+        Store store = createStore(300);
+        Recorder recorder = new Recorder();
+        try (ItemSearchSession session = new ItemSearchSession(store, 0, 40, 15, resultTasks::add, recorder)) {
+            for (String typed : List.of("b", "br", "bro", "brown", "brown r", "brown rice", "brown rice 1", "oat")) {
+                session.searchNow(typed);
+                runResultTasks();
+                assertEquals(store.searchItems(typed, 40).stream().map(Item::getItemCode).toList(), recorder.shown,
+                        "query '" + typed + "'");
+            }
+            session.searchNow("I007");
+            runResultTasks();
+            assertEquals("I007", recorder.shown.get(0), "a code puts its item first");
+        }
+    }
+}
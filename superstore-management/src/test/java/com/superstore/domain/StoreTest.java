@@ -6,6 +6,7 @@ import com.superstore.model.Item;
 import com.superstore.model.Subcategory;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -43,6 +44,30 @@ public class StoreTest {
         assertEquals("Wheat", outOfStock.get(0).getItemName());
     }
 
+    @Test
+    void testOutOfStockFollowsInventory() {
+        Store store = createSampleStore();
+        List<String> events = new ArrayList<>();
+        store.addOutOfStockListener((item, out) -> events.add(item.getItemCode() + (out ? " out" : " in")));
+
+        Item rice = store.getItem("I001");
+        rice.removeInventory(4);
+        assertEquals(1, store.getOutOfStockCount());
+        rice.removeInventory(6);
+        store.getItem("I002").addInventory(5);
+        assertEquals(List.of(rice), store.getOutOfStockItems());
+        assertEquals(List.of("I001 out", "I002 in"), events);
+
+        Item beans = new Item("I003", "Beans", "SC001");
+        store.getCategory("C001").getSubcategory("SC001").addItem(beans);
+        assertEquals(2, store.getOutOfStockCount(), "new items start with no inventory");
+
+        store.getCategory("C001").getSubcategory("SC001").removeItem("I001");
+        rice.addInventory(10);
+        assertEquals(List.of(beans), store.getOutOfStockItems());
+        assertEquals(List.of("I001 out", "I002 in", "I003 out", "I001 in"), events);
+    }
+
     @Test
     void testGetItemByCode() {
         Store store = createSampleStore();
@@ -55,6 +80,32 @@ public class StoreTest {
         assertNull(none, "Unknown item code should return null");
     }
 
+    @Test
+    void testItemIndexFollowsCatalogChanges() {
+        Store store = createSampleStore();
+        Subcategory grains = store.getCategory("C001").getSubcategory("SC001");
+
+        Item oats = new Item("I003", "Oats", "SC001");
+        grains.addItem(oats);
+        assertSame(oats, store.getItem("I003"), "items added after the category was attached are indexed");
+        assertSame(grains, store.getSubcategoryOf("I003"));
+
+        grains.removeItem("I001");
+        assertNull(store.getItem("I001"));
+
+        Subcategory snacks = new Subcategory("SC002", "Snacks", "C001");
+        snacks.addItem(new Item("I004", "Chips", "SC002"));
+        store.getCategory("C001").addSubcategory(snacks);
+        assertEquals("Chips", store.getItem("I004").getItemName());
+
+        store.removeCategory("C001");
+        assertNull(store.getItem("I003"));
+        assertNull(store.getItem("I004"));
+
+        grains.addItem(new Item("I005", "Barley", "SC001"));
+        assertNull(store.getItem("I005"), "a removed category no longer feeds the index");
+    }
+
     @Test
     void testStoreIdentityAndLink() {
         Store store = new Store("S002", "Suburb Store");
@@ -44,6 +44,30 @@ public class WarehouseTest {
         assertEquals("I001", reorderItems.get(0).getItemCode());
     }
 
+    @Test
+    public void testReorderListFollowsStockMovement() {
+        Warehouse w = createSampleWarehouse();
+        Item rice = w.getItem("I001");
+        Item wheat = w.getItem("I002");
+
+        wheat.removeInventory(95);   // 5 left, reorder point 6
+        List<Item> reorderItems = w.getItemsNeedingReorder();
+        assertEquals(2, reorderItems.size());
+        assertEquals("I001", reorderItems.get(0).getItemCode(), "rice is furthest below its reorder point");
+        assertEquals("I002", reorderItems.get(1).getItemCode());
+
+        rice.addInventory(100);
+        assertEquals(List.of(wheat), w.getItemsNeedingReorder());
+
+        wheat.setAvgDailyUsage(0);
+        wheat.setMaxDailyUsage(0);
+        assertTrue(w.getItemsNeedingReorder().isEmpty(), "lower usage moves the reorder point below stock");
+
+        rice.setCurrentInventoryLevel(0);
+        w.getCategory("C001").getSubcategory("S001").removeItem("I001");
+        assertTrue(w.getItemsNeedingReorder().isEmpty());
+    }
+
     @Test
     public void testLinkStore() {
         Warehouse w = new Warehouse("W001", "Central");
@@ -54,6 +78,54 @@ public class WarehouseTest {
         assertEquals(2, w.getLinkedStoreIds().size());
         assertTrue(w.getLinkedStoreIds().contains("S001"));
         assertTrue(w.getLinkedStoreIds().contains("S002"));
+        List<String> linked = w.getLinkedStoreIds();
+        w.linkStore("S003");
+        assertEquals(2, linked.size(), "callers get a copy");
+        assertThrows(UnsupportedOperationException.class, () -> linked.add("S004"));
     }
-}
 
+    @Test
+    public void testInboxIndexesPendingMessages() {
+        Warehouse w = new Warehouse("W001", "Central");
+        OrderMessage m1 = new OrderMessage("M1", "S001", "W001", "Rice", "I001", 5, null);
+        OrderMessage m2 = new OrderMessage("M2", "S002", "W001", "Rice", "I001", 7, null);
+        OrderMessage m3 = new OrderMessage("M3", "S001", "W001", "Wheat", "I002", 9, null);
+        assertTrue(w.receiveMessage(m1));
+        assertTrue(w.receiveMessage(m2));
+        assertTrue(w.receiveMessage(m3));
+        assertFalse(w.receiveMessage(new OrderMessage("M1", "S009", "W001", "Oats", "I009", 1, null)));
+
+        assertEquals(3, w.getPendingMessageCount());
+        assertSame(m1, w.peekPendingMessage());
+        assertEquals(List.of(m1, m3), w.getMessagesFromStore("S001"));
+        assertEquals(List.of(m1, m2), w.getMessagesForItem("I001"));
+
+        assertSame(m1, w.markMessageProcessed("M1"));
+        assertNull(w.markMessageProcessed("M1"), "already processed");
+        assertTrue(m1.isProcessed());
+        assertSame(m2, w.peekPendingMessage());
+        assertEquals(List.of(m2, m3), w.getUnprocessedMessages());
+
+        m2.setProcessed(true);  // marked outside the inbox
+        assertEquals(List.of(m3), w.getUnprocessedMessages());
+        assertEquals(2, w.getProcessedMessageCount());
+    }
+
+    @Test
+    public void testDrainProcessedMessages() {
+        Warehouse w = new Warehouse("W001", "Central");
+        w.receiveMessage(new OrderMessage("M1", "S001", "W001", "Rice", "I001", 5, null));
+        w.receiveMessage(new OrderMessage("M2", "S001", "W001", "Rice", "I001", 7, null));
+        w.markMessageProcessed("M2");
+
+        List<OrderMessage> drained = w.drainProcessedMessages();
+
+        assertEquals(1, drained.size());
+        assertEquals("M2", drained.get(0).getMessageId());
+        assertNull(w.getMessage("M2"));
+        assertEquals(1, w.getMessagesFromStore("S001").size());
+        assertEquals(1, w.getAllMessages().size());
+        assertEquals(0, w.getProcessedMessageCount());
+        assertEquals(1, w.getPendingMessageCount());
+    }
+}
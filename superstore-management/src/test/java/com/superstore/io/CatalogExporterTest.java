@@ -0,0 +1,136 @@
+package com.superstore.io;
+
+import com.superstore.domain.OrderMessage;
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.io.CatalogExporter.Format;
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogExporterTest {
+
+    @TempDir
+    Path dir;
+
+    private Warehouse createSampleWarehouse() {
+        Warehouse warehouse = new Warehouse("W001", "Central");
+        Category grocery = new Category("C001", "Grocery");
+        Subcategory grains = new Subcategory("SC001", "Grains, bulk", "C001");
+        Item rice = new Item("I001", "Rice", "SC001");
+        rice.setDescription("Says \"long\"\nand white");
+        rice.setCurrentInventoryLevel(40);
+        rice.setFixedCostPerQuarter(100);
+        rice.setDemandUnitsPerQuarter(1000);
+        rice.setCarryingCostPerUnitPerQuarter(2);
+        rice.setAvgDailyUsage(2);
+        rice.setAvgLeadTimeDays(3);
+        rice.setMaxDailyUsage(3);
+        rice.setMaxLeadTimeDays(4);
+        grains.addItem(rice);
+        grains.addItem(new Item("I002", "Wheat", "SC001"));
+        grocery.addSubcategory(grains);
+        warehouse.addCategory(grocery);
+        return warehouse;
+    }
+
+    private String export(Format format, ExportAction action) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CatalogExporter exporter = new CatalogExporter(Channels.newChannel(out), format);
+        action.run(exporter);
+        exporter.flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private interface ExportAction {
+        void run(CatalogExporter exporter) throws IOException;
+    }
+
+    @Test
+    void testCsvExportImportsBack() throws IOException {
+        Warehouse warehouse = createSampleWarehouse();
+        String csv = export(Format.CSV, exporter -> assertEquals(2, exporter.writeCatalog(warehouse)));
+        assertTrue(csv.startsWith(String.join(",", CatalogExporter.ITEM_COLUMNS) + "\n"));
+        assertTrue(csv.contains(",\"Grains, bulk\","));
+
+        Path file = dir.resolve("export.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+        Store copy = new Store("S001", "Copy");
+        ImportResult result = CatalogImporter.forStore(copy).importFile(file);
+
+        assertEquals(2, result.itemsCreated());
+        Item rice = copy.getItem("I001");
+        assertEquals("Says \"long\"\nand white", rice.getDescription());
+        assertEquals(40, rice.getCurrentInventoryLevel());
+        assertEquals(warehouse.getItem("I001").calculateEOQ(), rice.calculateEOQ(), 1e-9);
+        assertEquals(12.0, rice.calculateReorderPoint(), 1e-9);
+        assertEquals("Grains, bulk", copy.getCategory("C001").getSubcategory("SC001").getSubcategoryName());
+    }
+
+    @Test
+    void testNdjsonWritesOneObjectPerItem() throws IOException {
+        Warehouse warehouse = createSampleWarehouse();
+        String json = export(Format.NDJSON, exporter -> exporter.writeCatalog(warehouse));
+        String[] lines = json.split("\n");
+
+        assertEquals(2, lines.length);
+        String rice = lines[0].contains("\"I001\"") ? lines[0] : lines[1];
+        assertTrue(rice.startsWith("{\"categoryId\":\"C001\","));
+        assertTrue(rice.contains("\"description\":\"Says \\\"long\\\"\\nand white\""));
+        assertTrue(rice.contains("\"inventory\":40,"));
+        assertTrue(rice.contains("\"reorderPoint\":12.0}"));
+        String wheat = lines[0].contains("\"I002\"") ? lines[0] : lines[1];
+        assertTrue(wheat.contains("\"description\":null"));
+    }
+
+    @Test
+    void testMessagesExport() throws IOException {
+        OrderMessage message = new OrderMessage("M1", "S001", "W001", "Rice", "I001", 25,
+                LocalDate.of(2024, 3, 1));
+        String csv = export(Format.CSV, exporter -> assertEquals(1, exporter.writeMessages(List.of(message))));
+
+        String[] lines = csv.split("\n");
+        assertEquals(String.join(",", CatalogExporter.MESSAGE_COLUMNS), lines[0]);
+        assertTrue(lines[1].startsWith("M1,S001,W001,Rice,I001,25,2024-03-01,"));
+        assertTrue(lines[1].endsWith(",false,M1"));
+    }
+
+    @Test
+    void testLargeExportStreamsThroughBuffer() throws IOException {
+        Store store = new Store("S001", "City Store");
+        Category category = new Category("C001", "Grocery");
+        Subcategory subcategory = new Subcategory("SC001", "Grains", "C001");
+        for (int i = 0; i < 20_000; i++) {
+            subcategory.addItem(new Item("I" + i, "Item " + i, "SC001"));
+        }
+        category.addSubcategory(subcategory);
+        store.addCategory(category);
+
+        Path file = dir.resolve("large.ndjson");
+        long count;
+        try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            CatalogExporter exporter = new CatalogExporter(channel, Format.forFile(file));
+            count = exporter.writeCatalog(store);
+            exporter.flush();
+        }
+
+        assertEquals(20_000, count);
+        assertEquals(20_000, Files.readAllLines(file).size());
+    }
+}
@@ -0,0 +1,174 @@
+package com.superstore.io;
+
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.model.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogImporterTest {
+
+    private static final String HEADER = String.join(",", CatalogImporter.COLUMNS) + "\n";
+
+    @TempDir
+    Path dir;
+
+    private Path write(String name, String content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    void testImportCreatesCategoryTree() throws IOException {
+        Path file = write("catalog.csv", HEADER
+                + "C1,Grocery,SC1,Grains,I1,Rice,\"Long grain, white\",10,100,2,1000,3,2,4,3\n"
+                + "C1,Grocery,SC2,Dairy,I2,Milk,,0,,,,,,,\r\n"
+                + "C2,Toys,SC3,Games,I3,\"Chess \"\"Deluxe\"\"\",\"Two\nlines\",5,,,,,,,");
+        Warehouse warehouse = new Warehouse("W001", "Central");
+
+        ImportResult result = CatalogImporter.forWarehouse(warehouse).importFile(file);
+
+        assertEquals(3, result.rowsRead());
+        assertEquals(3, result.itemsCreated());
+        assertEquals(2, result.categoriesCreated());
+        assertEquals(3, result.subcategoriesCreated());
+        assertEquals(0, result.rowsRejected());
+
+        Item rice = warehouse.getItem("I1");
+        assertEquals("Long grain, white", rice.getDescription());
+        assertEquals(10, rice.getCurrentInventoryLevel());
+        assertEquals(316.23, rice.calculateEOQ(), 0.01);
+        assertEquals(12.0, rice.calculateReorderPoint(), 1e-9);
+        assertEquals("SC1", rice.getSubcategoryId());
+        assertEquals("Dairy", warehouse.getCategory("C1").getSubcategory("SC2").getSubcategoryName());
+        assertEquals("Chess \"Deluxe\"", warehouse.getItem("I3").getItemName());
+        assertEquals("Two\nlines", warehouse.getItem("I3").getDescription());
+    }
+
+    @Test
+    void testDuplicateCodesUpdateExistingItem() throws IOException {
+        Path file = write("dup.csv", "itemCode,categoryId,subcategoryId,inventory\n"
+                + "I1,C1,SC1,5\n"
+                + "I1,C1,SC1,7\n");
+        Store store = new Store("S001", "City Store");
+
+        ImportResult result = CatalogImporter.forStore(store).importFile(file);
+
+        assertEquals(1, result.itemsCreated());
+        assertEquals(1, result.itemsUpdated());
+        assertEquals(7, store.getItem("I1").getCurrentInventoryLevel());
+        assertEquals(1, store.getCategory("C1").getSubcategory("SC1").getItemCount());
+    }
+
+    @Test
+    void testPartialRowsKeepExistingValues() throws IOException {
+        Store store = new Store("S001", "City Store");
+        CatalogImporter.forStore(store).importFile(write("full.csv", HEADER
+                + "C1,Grocery,SC1,Grains,I1,Rice,Long grain,10,100,2,1000,3,2,4,3\n"));
+
+        ImportResult result = CatalogImporter.forStore(store).importFile(write("partial.csv", HEADER
+                + "C1,,SC1,,I1,,,,,,,,,,\n"
+                + "C1,,SC1,,I1,,Short grain,,,,1200,,,,\n"
+                + "C1,,SC1,,I1,,,,,5,,,,,\n"));
+        ImportResult narrow = CatalogImporter.forStore(store).importFile(write("narrow.csv",
+                "itemCode,categoryId,subcategoryId,avgDailyUsage\nI1,C1,SC1,2.5\n"));
+
+        assertEquals(3, result.itemsUpdated());
+        assertEquals(1, narrow.itemsUpdated());
+        Item rice = store.getItem("I1");
+        assertEquals(10, rice.getCurrentInventoryLevel(), "a blank inventory keeps the stock");
+        assertEquals("Short grain", rice.getDescription());
+        assertEquals(100, rice.getFixedCostPerQuarter(), 1e-9);
+        assertEquals(5, rice.getCarryingCostPerUnitPerQuarter(), 1e-9);
+        assertEquals(1200, rice.getDemandUnitsPerQuarter(), 1e-9);
+        assertEquals(3, rice.getMaxDailyUsage(), 1e-9, "an absent column keeps the value");
+        assertEquals(2.5, rice.getAvgDailyUsage(), 1e-9);
+        assertEquals(4, rice.getMaxLeadTimeDays(), 1e-9);
+        assertEquals(3, rice.getAvgLeadTimeDays(), 1e-9);
+    }
+
+    @Test
+    void testRowMovingAnItemIsRejected() throws IOException {
+        Path file = write("move.csv", "itemCode,categoryId,subcategoryId,inventory\n"
+                + "I1,C1,SC1,5\n"
+                + "I1,C2,SC2,7\n"
+                + "I1,C1,SC3,8\n"
+                + "I2,C1,SC1,1\n");
+        Store store = new Store("S001", "City Store");
+
+        ImportResult result = CatalogImporter.forStore(store).importFile(file);
+
+        assertEquals(2, result.itemsCreated());
+        assertEquals(0, result.itemsUpdated());
+        assertEquals(2, result.rowsRejected());
+        assertEquals("Row 2: item I1 belongs to another subcategory", result.errors().get(0));
+        assertEquals("Row 3: item I1 belongs to another subcategory", result.errors().get(1));
+        assertEquals(1, result.categoriesCreated(), "no empty category is left behind");
+        assertEquals(1, result.subcategoriesCreated());
+        assertNull(store.getCategory("C2"));
+        assertNull(store.getCategory("C1").getSubcategory("SC3"));
+        assertEquals(5, store.getItem("I1").getCurrentInventoryLevel());
+    }
+
+    @Test
+    void testInvalidRowsAreReported() throws IOException {
+        Path file = write("bad.csv", HEADER
+                + "C1,,SC1,,I1,,,-3,,,,,,,\n"
+                + "\n"
+                + "C1,,SC1,,I2,,,1,abc,,,,,,\n"
+                + "C1,,SC1,,,,,1,,,,,,,\n"
+                + "C1,,SC1,,I4,,,1,,,,,,,\n");
+        Store store = new Store("S001", "City Store");
+
+        ImportResult result = CatalogImporter.forStore(store).importFile(file);
+
+        assertEquals(4, result.rowsRead());
+        assertEquals(1, result.itemsCreated());
+        assertEquals(3, result.rowsRejected());
+        assertEquals("Row 1: negative inventory -3", result.errors().get(0));
+        assertEquals("Row 3: invalid fixedCostPerQuarter 'abc'", result.errors().get(1));
+        assertEquals("Row 4: missing itemCode", result.errors().get(2));
+        assertNotNull(store.getItem("I4"));
+    }
+
+    @Test
+    void testMissingRequiredColumnFails() throws IOException {
+        Path file = write("nocode.csv", "categoryId,subcategoryId\nC1,SC1\n");
+        IOException e = assertThrows(IOException.class,
+                () -> CatalogImporter.forStore(new Store("S001", "City Store")).importFile(file));
+        assertTrue(e.getMessage().contains("itemCode"));
+    }
+
+    @Test
+    void testSmallChunksKeepRecordsWhole() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 5000; i++) {
+            csv.append("C").append(i % 7).append(",,SC").append(i % 13).append(",,I").append(i)
+               .append(",Item ").append(i).append(",\"note, ").append(i).append("\n\",")
+               .append(i).append(",,,,,,,\n");
+        }
+        // One record longer than a chunk
+        csv.append("C0,,SC0,,BIG,,\"").append("x".repeat(5000)).append("\",1,,,,,,,\n");
+        Path file = write("many.csv", csv.toString());
+        Warehouse warehouse = new Warehouse("W001", "Central");
+        CatalogImporter importer = CatalogImporter.forWarehouse(warehouse);
+        importer.setChunkBytes(1024);
+        importer.setParallelism(3);
+
+        ImportResult result = importer.importFile(file);
+
+        assertEquals(5001, result.itemsCreated());
+        assertEquals(0, result.rowsRejected());
+        assertEquals(4321, warehouse.getItem("I4321").getCurrentInventoryLevel());
+        assertEquals("note, 4321\n", warehouse.getItem("I4321").getDescription());
+        assertEquals(5000, warehouse.getItem("BIG").getDescription().length());
+    }
+}
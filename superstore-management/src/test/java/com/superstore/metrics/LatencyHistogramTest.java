@@ -0,0 +1,93 @@
+package com.superstore.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsCoverEveryValueInOrder() {
+        int previous = -1;
+        for (long value = 0; value < 100_000; value++) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket == previous || bucket == previous + 1, "buckets are contiguous at " + value);
+            assertTrue(LatencyHistogram.lowerBound(bucket) <= value);
+            assertTrue(bucket + 1 >= LatencyHistogram.BUCKETS || LatencyHistogram.lowerBound(bucket + 1) > value);
+            previous = bucket;
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(1);
+        List<Long> values = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            long value = 1_000 + (long) (random.nextDouble() * random.nextDouble() * 10_000_000);
+            values.add(value);
+            histogram.record(value);
+        }
+        values.sort(null);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(values.size(), snapshot.count());
+        assertEquals(values.get(values.size() - 1), snapshot.maxNanos());
+        assertEquals(values.stream().mapToLong(Long::longValue).sum(), snapshot.sumNanos());
+        for (double percentile : new double[] {50, 90, 99, 99.9}) {
+            long exact = values.get((int) Math.ceil(percentile / 100 * values.size()) - 1);
+            long reported = snapshot.percentileNanos(percentile);
+            assertTrue(reported >= exact, percentile + "th percentile is an upper bound");
+            assertTrue(reported <= exact * 1.125 + 1, percentile + "th percentile is within 12.5%");
+        }
+        assertEquals(snapshot.maxNanos(), snapshot.percentileNanos(100));
+    }
+
+    @Test
+    public void testConcurrentRecordingLosesNothing() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // More threads than own stripes, so the last ones share the atomic stripes
+        Thread[] threads = new Thread[LatencyHistogram.MAX_OWNED_STRIPES + 8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(threads.length * 5_000L, snapshot.count());
+        assertEquals(threads.length * (5_000L * 4_999 / 2), snapshot.sumNanos());
+        assertEquals(4_999, snapshot.maxNanos());
+    }
+
+    @Test
+    public void testSamplingTimesAboutOneCallInN() {
+        LatencyHistogram histogram = new LatencyHistogram(10);
+        assertEquals(16, histogram.getSampleEvery());
+        for (int i = 0; i < 160_000; i++) {
+            histogram.stop(histogram.start());
+        }
+        long timed = histogram.snapshot().count();
+        assertTrue(timed > 8_000 && timed < 12_000, "timed " + timed + " of 160000 calls");
+        histogram.stop(LatencyHistogram.NOT_TIMED);
+        assertEquals(timed, histogram.snapshot().count());
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.percentileNanos(99));
+        assertEquals(0, snapshot.meanNanos());
+    }
+}
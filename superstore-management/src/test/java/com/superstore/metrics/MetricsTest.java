@@ -0,0 +1,118 @@
+package com.superstore.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+
+    private Metrics sampleMetrics() {
+        Metrics metrics = new Metrics();
+        metrics.counter("test_requests_total", "Requests").add(3);
+        metrics.gauge("test_queue_depth", "Queued items", () -> 7);
+        LatencyHistogram latency = metrics.histogram("test_latency_seconds", "Latency");
+        latency.record(1_000);
+        latency.record(3_000);
+        return metrics;
+    }
+
+    @Test
+    public void testRegistryReturnsTheSameMetricForAName() {
+        Metrics metrics = new Metrics();
+        Metrics.Counter counter = metrics.counter("test_total", "Test");
+        counter.increment();
+        assertSame(counter, metrics.counter("test_total", "Test"));
+        assertThrows(IllegalArgumentException.class, () -> metrics.histogram("test_total", "Test"));
+        assertEquals(1L, metrics.snapshot().counters().get("test_total"));
+    }
+
+    @Test
+    public void testCounterSumsEveryThread() throws InterruptedException {
+        Metrics.Counter counter = new Metrics().counter("test_total", "Test");
+        Thread[] threads = new Thread[LatencyHistogram.MAX_OWNED_STRIPES + 8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    counter.increment();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threads.length * 1_000L, counter.get(), "threads past the cell limit share an adder");
+    }
+
+    @Test
+    public void testSnapshotSkipsFailingGauges() {
+        Metrics metrics = sampleMetrics();
+        metrics.gauge("test_broken", "Broken", () -> {
+            throw new IllegalStateException();
+        });
+        Metrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(7.0, snapshot.gauges().get("test_queue_depth"));
+        assertFalse(snapshot.gauges().containsKey("test_broken"));
+        assertEquals(2, snapshot.histograms().get("test_latency_seconds").count());
+    }
+
+    @Test
+    public void testPrometheusFormat() {
+        String text = MetricsExporter.prometheus(sampleMetrics().snapshot());
+        assertTrue(text.contains("# HELP test_requests_total Requests\n# TYPE test_requests_total counter\n"
+                + "test_requests_total 3\n"), text);
+        assertTrue(text.contains("# TYPE test_queue_depth gauge\ntest_queue_depth 7\n"), text);
+        assertTrue(text.contains("# TYPE test_latency_seconds summary\n"), text);
+        assertTrue(text.contains("test_latency_seconds{quantile=\"0.99\"} 3.0E-6\n"), text);
+        assertTrue(text.contains("test_latency_seconds_sum 4.0E-6\ntest_latency_seconds_count 2\n"), text);
+    }
+
+    @Test
+    public void testJsonFormat() {
+        String json = MetricsExporter.json(sampleMetrics().snapshot());
+        assertTrue(json.contains("\"counters\":{\"test_requests_total\":3}"), json);
+        assertTrue(json.contains("\"gauges\":{\"test_queue_depth\":7}"), json);
+        assertTrue(json.contains("\"test_latency_seconds\":{\"count\":2,\"sumSeconds\":4.0E-6,"
+                + "\"meanSeconds\":2.0E-6,\"p50Seconds\":1.023E-6"), json);
+        assertTrue(json.contains("\"p99_9Seconds\":3.0E-6,\"maxSeconds\":3.0E-6}"), json);
+    }
+
+    @Test
+    public void testExporterReplacesTheFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("metrics.json");
+        Metrics metrics = sampleMetrics();
+        MetricsExporter exporter = new MetricsExporter(metrics, file, MetricsExporter.Format.forFile(file));
+        exporter.write();
+        metrics.counter("test_requests_total", "Requests").increment();
+        exporter.write();
+        assertTrue(Files.readString(file).contains("\"test_requests_total\":4"));
+        assertFalse(Files.exists(dir.resolve("metrics.json.tmp")));
+        assertEquals(MetricsExporter.Format.TEXT, MetricsExporter.Format.forFile(Path.of("metrics.txt")));
+    }
+
+    @Test
+    public void testHttpEndpointServesPrometheusText() throws IOException {
+        try (MetricsHttpEndpoint endpoint = new MetricsHttpEndpoint(sampleMetrics(), 0)) {
+            HttpURLConnection connection = (HttpURLConnection)
+                    new URL("http://127.0.0.1:" + endpoint.getPort() + "/metrics").openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+            try (InputStream in = connection.getInputStream()) {
+                assertTrue(new String(in.readAllBytes(), StandardCharsets.UTF_8).contains("test_requests_total 3"));
+            }
+
+            HttpURLConnection missing = (HttpURLConnection)
+                    new URL("http://127.0.0.1:" + endpoint.getPort() + "/metrics/other").openConnection();
+            assertEquals(404, missing.getResponseCode());
+        }
+    }
+}
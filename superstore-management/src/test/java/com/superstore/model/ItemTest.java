@@ -44,6 +44,20 @@ public class ItemTest {
         assertEquals(100.0, rp, 0.0001);
     }
 
+    @Test
+    public void testReorderPointFollowsParameterChanges() {
+        Item item = new Item("I006", "Sugar", "S001");
+        item.setAvgDailyUsage(20);
+        item.setAvgLeadTimeDays(3);
+        item.setMaxDailyUsage(25);
+        item.setMaxLeadTimeDays(4);
+        assertEquals(100.0, item.calculateReorderPoint(), 0.0001);
+
+        item.setMaxLeadTimeDays(6);
+        // safety = (25*6)-(20*3) = 90; RP = 60+90 = 150
+        assertEquals(150.0, item.calculateReorderPoint(), 0.0001);
+    }
+
     @Test
     public void testNeedsReorderingTrue() {
         Item item = new Item("I004", "Oil", "S001");
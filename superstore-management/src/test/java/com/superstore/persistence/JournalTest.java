@@ -0,0 +1,98 @@
+package com.superstore.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalTest {
+
+    @TempDir
+    Path dir;
+
+    private List<String> replayAll(Path file, long afterSeq) throws IOException {
+        List<String> seen = new ArrayList<>();
+        try (Journal journal = new Journal(file)) {
+            journal.replay(afterSeq, (seq, type, in) -> seen.add(seq + ":" + type + ":" + in.readUTF()));
+        }
+        return seen;
+    }
+
+    @Test
+    public void testAppendAndReplay() throws IOException {
+        Path file = dir.resolve("journal.log");
+        try (Journal journal = new Journal(file)) {
+            journal.replay(0, (seq, type, in) -> fail("journal should start empty"));
+            long first = journal.append((byte) 1, out -> out.writeUTF("W001"));
+            long second = journal.append((byte) 2, out -> out.writeUTF("S001"));
+            journal.commit(second);
+            assertEquals(1, first);
+            assertEquals(2, second);
+        }
+
+        assertEquals(List.of("1:1:W001", "2:2:S001"), replayAll(file, 0));
+        assertEquals(List.of("2:2:S001"), replayAll(file, 1), "records covered by a snapshot are skipped");
+    }
+
+    @Test
+    public void testTornTailIsTruncated() throws IOException {
+        Path file = dir.resolve("journal.log");
+        try (Journal journal = new Journal(file)) {
+            journal.replay(0, (seq, type, in) -> { });
+            journal.commit(journal.append((byte) 1, out -> out.writeUTF("good")));
+            journal.commit(journal.append((byte) 1, out -> out.writeUTF("torn")));
+        }
+        long size = Files.size(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(size - 3);  // simulate a crash in the middle of the last append
+        }
+
+        try (Journal journal = new Journal(file)) {
+            List<String> seen = new ArrayList<>();
+            journal.replay(0, (seq, type, in) -> seen.add(in.readUTF()));
+            assertEquals(List.of("good"), seen);
+            assertEquals(2, journal.append((byte) 1, out -> out.writeUTF("next")));
+        }
+        assertEquals(List.of("1:1:good", "2:1:next"), replayAll(file, 0));
+    }
+
+    @Test
+    public void testCompactKeepsRecordsAfterSnapshot() throws IOException {
+        Path file = dir.resolve("journal.log");
+        try (Journal journal = new Journal(file)) {
+            journal.replay(0, (seq, type, in) -> { });
+            for (String value : List.of("a", "b", "c", "d")) {
+                journal.append((byte) 1, out -> out.writeUTF(value));
+            }
+            journal.compact(2);   // a snapshot covered a and b while c and d were appended
+            assertEquals(2, journal.getRecordsSinceReset());
+            journal.commit(journal.append((byte) 1, out -> out.writeUTF("e")));
+
+            journal.compact(5);
+            assertEquals(0, journal.getRecordsSinceReset());
+            assertEquals(0, Files.size(file));
+            journal.commit(journal.append((byte) 1, out -> out.writeUTF("f")));
+        }
+        assertEquals(List.of("6:1:f"), replayAll(file, 0));
+    }
+
+    @Test
+    public void testCompactLeavesReplayableJournal() throws IOException {
+        Path file = dir.resolve("journal.log");
+        try (Journal journal = new Journal(file)) {
+            journal.replay(0, (seq, type, in) -> { });
+            for (String value : List.of("a", "b", "c")) {
+                journal.append((byte) 1, out -> out.writeUTF(value));
+            }
+            journal.compact(1);
+        }
+        assertEquals(List.of("2:1:b", "3:1:c"), replayAll(file, 1));
+    }
+}
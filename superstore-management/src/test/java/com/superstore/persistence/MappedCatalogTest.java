@@ -0,0 +1,161 @@
+package com.superstore.persistence;
+
+import com.superstore.core.ItemLocator;
+import com.superstore.domain.ItemLocation;
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedCatalogTest {
+
+    @TempDir
+    Path dir;
+
+    private Warehouse createSampleWarehouse() {
+        Warehouse w = new Warehouse("W001", "Central");
+        Category c = new Category("C001", "Grocery");
+        Subcategory grains = new Subcategory("SC001", "Grains", "C001");
+        Subcategory dairy = new Subcategory("SC002", "Dairy", "C001");
+        for (int i = 0; i < 50; i++) {
+            Item item = new Item("G" + i, "Grain " + i, "SC001");
+            item.setCurrentInventoryLevel(i);
+            item.setAvgDailyUsage(1.5);
+            grains.addItem(item);
+        }
+        Item milk = new Item("D1", "Milk", "SC002");
+        milk.setDescription("Whole");
+        milk.setFixedCostPerQuarter(100);
+        milk.setDemandUnitsPerQuarter(1000);
+        milk.setCarryingCostPerUnitPerQuarter(2);
+        dairy.addItem(milk);
+        c.addSubcategory(grains);
+        c.addSubcategory(dairy);
+        w.addCategory(c);
+        return w;
+    }
+
+    private Snapshot saveAndLoad(Snapshot snapshot, String name) throws IOException {
+        Path snapshotFile = dir.resolve(name + ".snap");
+        String catalogName = name + ".catalog";
+        try (CatalogWriter catalog = new CatalogWriter(dir.resolve(catalogName));
+             FileOutputStream out = new FileOutputStream(snapshotFile.toFile())) {
+            new SnapshotEncoder(out, catalog, catalogName).write(snapshot);
+            catalog.finish();
+        }
+        return SnapshotDecoder.read(snapshotFile);
+    }
+
+    private Snapshot snapshotOf(Warehouse warehouse) {
+        Map<String, Warehouse> warehouses = new HashMap<>();
+        warehouses.put(warehouse.getWarehouseId(), warehouse);
+        return new Snapshot(warehouses, new HashMap<String, Store>(), new HashMap<>(), 7L);
+    }
+
+    @Test
+    public void testItemsStayInCatalogUntilUsed() throws IOException {
+        Snapshot loaded = saveAndLoad(snapshotOf(createSampleWarehouse()), "gen1");
+        Category c = loaded.warehouses().get("W001").getCategory("C001");
+        Subcategory grains = c.getSubcategory("SC001");
+        Subcategory dairy = c.getSubcategory("SC002");
+
+        assertFalse(grains.isMaterialized());
+        assertFalse(dairy.isMaterialized());
+        assertEquals(50, grains.getItemCount());
+
+        assertNull(grains.getItem("D1"), "lookups of foreign codes must not materialize");
+        assertFalse(grains.isMaterialized());
+
+        Item milk = loaded.warehouses().get("W001").getItem("D1");
+        assertEquals("Whole", milk.getDescription());
+        assertEquals(316.23, milk.calculateEOQ(), 0.5);
+        assertTrue(dairy.isMaterialized());
+        assertSame(milk, dairy.getItem("D1"), "materialized items are kept");
+
+        List<Item> grainItems = grains.getAllItems();
+        assertEquals(50, grainItems.size());
+        assertEquals(17, grains.getItem("G17").getCurrentInventoryLevel());
+        assertEquals(1.5, grains.getItem("G17").getAvgDailyUsage());
+    }
+
+    @Test
+    public void testResaveCopiesUnmaterializedSubcategories() throws IOException {
+        Snapshot first = saveAndLoad(snapshotOf(createSampleWarehouse()), "gen1");
+        Warehouse w = first.warehouses().get("W001");
+        w.getItem("D1").setCurrentInventoryLevel(99);   // materializes dairy only
+
+        Snapshot second = saveAndLoad(new Snapshot(first.warehouses(), first.stores(),
+                first.users(), 8L), "gen2");
+        assertFalse(w.getCategory("C001").getSubcategory("SC001").isMaterialized());
+
+        Warehouse reloaded = second.warehouses().get("W001");
+        assertEquals(8L, second.journalSeq());
+        assertEquals(99, reloaded.getItem("D1").getCurrentInventoryLevel());
+        assertEquals(49, reloaded.getItem("G49").getCurrentInventoryLevel());
+    }
+
+    @Test
+    public void testIndexesPickUpLazilyLoadedItems() throws IOException {
+        Warehouse w = saveAndLoad(snapshotOf(createSampleWarehouse()), "gen1").warehouses().get("W001");
+        ItemLocator locator = new ItemLocator();
+        locator.register(w);
+        assertTrue(w.hasDeferredItems());
+
+        List<ItemLocation> locations = locator.locate("G3");
+        assertEquals(1, locations.size());
+        assertEquals("SC001", locations.get(0).subcategoryId());
+        assertFalse(w.getCategory("C001").getSubcategory("SC002").isMaterialized());
+        assertTrue(locator.locate("nope").isEmpty());
+
+        assertNotNull(w.getItem("D1"));
+        assertFalse(w.hasDeferredItems());
+        assertEquals(1, locator.locate("D1").size());
+    }
+
+    @Test
+    public void testSnapshotHeaderNamesItsCatalog() throws IOException {
+        saveAndLoad(snapshotOf(createSampleWarehouse()), "gen1");
+        assertEquals(dir.resolve("gen1.catalog").toAbsolutePath(), SnapshotDecoder.catalogOf(dir.resolve("gen1.snap")));
+
+        Path inline = dir.resolve("inline.snap");
+        try (FileOutputStream out = new FileOutputStream(inline.toFile())) {
+            new SnapshotEncoder(out).write(snapshotOf(createSampleWarehouse()));
+        }
+        assertNull(SnapshotDecoder.catalogOf(inline));
+    }
+
+    @Test
+    public void testEmptyCatalogOpens() throws IOException {
+        Snapshot loaded = saveAndLoad(snapshotOf(new Warehouse("W002", "Empty")), "empty");
+        assertEquals("Empty", loaded.warehouses().get("W002").getWarehouseName());
+    }
+
+    @Test
+    public void testFindRespectsRecordRange() throws IOException {
+        Path file = dir.resolve("dup.catalog");
+        try (CatalogWriter writer = new CatalogWriter(file)) {
+            writer.append(new Item("X", "In store A", "SA"));
+            writer.append(new Item("Y", "Other", "SA"));
+            writer.append(new Item("X", "In store B", "SB"));
+            writer.finish();
+        }
+        MappedCatalog catalog = MappedCatalog.open(file);
+        assertEquals(0, catalog.find("X", 0, 2));
+        assertEquals(2, catalog.find("X", 2, 3));
+        assertEquals(-1, catalog.find("Y", 2, 3));
+        assertEquals(-1, catalog.find("Z", 0, 3));
+        assertEquals("In store B", catalog.materialize(2).getItemName());
+    }
+}
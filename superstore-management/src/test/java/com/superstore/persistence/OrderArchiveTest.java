@@ -0,0 +1,83 @@
+package com.superstore.persistence;
+
+import com.superstore.domain.OrderMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    private OrderMessage processed(String messageId, String storeId, String itemCode) {
+        return new OrderMessage(messageId, storeId, "W/01", "Rice", itemCode, 3,
+                LocalDate.of(2024, 5, 1), LocalDate.of(2024, 4, 28), true);
+    }
+
+    @Test
+    public void testSegmentsReadBackInOrder() throws IOException {
+        OrderArchive archive = new OrderArchive(dir);
+        archive.append("W/01", List.of(processed("M1", "S001", "I001"), processed("M2", "S002", "I001")));
+        archive.append("W/01", List.of(processed("M3", "S001", "I002")));
+        assertNull(archive.append("W/01", List.of()));
+
+        List<String> ids = new ArrayList<>();
+        for (OrderMessage message : archive.messages("W/01")) {
+            ids.add(message.getMessageId());
+        }
+        assertEquals(List.of("M1", "M2", "M3"), ids);
+        assertEquals(2, archive.getSegmentCount("W/01"));
+        assertEquals(0, archive.getSegmentCount("W002"));
+
+        OrderMessage m2 = archive.find("W/01", "M2");
+        assertEquals("S002", m2.getFromStoreId());
+        assertEquals(LocalDate.of(2024, 5, 1), m2.getExpectedArrivalDate());
+        assertEquals(LocalDate.of(2024, 4, 28), m2.getSentDate());
+        assertTrue(m2.isProcessed());
+        assertNull(archive.find("W/01", "M9"));
+    }
+
+    @Test
+    public void testSearchByStoreAndItem() throws IOException {
+        OrderArchive archive = new OrderArchive(dir);
+        archive.append("W/01", List.of(processed("M1", "S001", "I001"), processed("M2", "S002", "I001")));
+        archive.append("W/01", List.of(processed("M3", "S001", null),
+                new OrderMessage("M4", "S003", "W/01", "Rice", "I001", 1, null, null, true, "M1")));
+
+        assertEquals(2, archive.search("W/01", m -> "S001".equals(m.getFromStoreId())).size());
+        assertEquals(List.of("M1", "M4"), archive.search("W/01", m -> "M1".equals(m.getCorrelationId()))
+                .stream().map(OrderMessage::getMessageId).toList());
+        assertEquals(3, archive.search("W/01", m -> "I001".equals(m.getItemCode())).size());
+        assertNull(archive.find("W/01", "M3").getItemCode());
+    }
+
+    @Test
+    public void testSegmentsViewIgnoresLaterAppends() throws IOException {
+        OrderArchive archive = new OrderArchive(dir);
+        archive.append("W/01", List.of(processed("M1", "S001", "I001")));
+        OrderArchive.Segments segments = archive.segmentsOf("W/01");
+        archive.append("W/01", List.of(processed("M2", "S001", "I001")));
+
+        assertEquals(List.of("M1"), segments.search(m -> true).stream().map(OrderMessage::getMessageId).toList());
+        assertNull(segments.find("M2"));
+        assertNotNull(archive.segmentsOf("W/01").find("M2"));
+    }
+
+    @Test
+    public void testCorruptSegmentIsReported() throws IOException {
+        OrderArchive archive = new OrderArchive(dir);
+        Path segment = archive.append("W001", List.of(processed("M1", "S001", "I001")));
+        Files.write(segment, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IOException.class, () -> archive.find("W001", "M1"));
+    }
+}
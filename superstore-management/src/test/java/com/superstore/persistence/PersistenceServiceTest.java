@@ -0,0 +1,54 @@
+package com.superstore.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistenceServiceTest {
+
+    @Test
+    public void testBurstIsCoalescedIntoOneSave() throws InterruptedException {
+        AtomicInteger saves = new AtomicInteger();
+        try (PersistenceService service = new PersistenceService(saves::incrementAndGet, 50, 5000,
+                e -> fail(e))) {
+            for (int i = 0; i < 100; i++) {
+                service.requestSave();
+            }
+            assertEquals(0, saves.get(), "saves wait for the debounce window");
+            Thread.sleep(300);
+            assertEquals(1, saves.get());
+            assertFalse(service.isPending());
+        }
+    }
+
+    @Test
+    public void testSteadyRequestsStillSaveWithinMaxDelay() throws InterruptedException {
+        AtomicInteger saves = new AtomicInteger();
+        try (PersistenceService service = new PersistenceService(saves::incrementAndGet, 50, 100,
+                e -> fail(e))) {
+            long end = System.currentTimeMillis() + 600;
+            while (System.currentTimeMillis() < end) {
+                service.requestSave();
+                Thread.sleep(10);
+            }
+            assertTrue(saves.get() >= 2, "the max delay bounds how long requests can postpone a save");
+        }
+    }
+
+    @Test
+    public void testFlushRunsPendingSaveNow() {
+        AtomicInteger saves = new AtomicInteger();
+        PersistenceService service = new PersistenceService(saves::incrementAndGet, 10_000, 10_000,
+                e -> fail(e));
+        service.requestSave();
+        service.flush();
+        assertEquals(1, saves.get());
+        service.flush();
+        assertEquals(1, saves.get(), "nothing left to save");
+        service.close();
+        service.requestSave();
+        assertFalse(service.isPending(), "a closed service takes no more requests");
+    }
+}
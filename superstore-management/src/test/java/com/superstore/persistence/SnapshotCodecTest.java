@@ -0,0 +1,168 @@
+package com.superstore.persistence;
+
+import com.superstore.domain.OrderMessage;
+import com.superstore.domain.Store;
+import com.superstore.domain.Warehouse;
+import com.superstore.model.Category;
+import com.superstore.model.Item;
+import com.superstore.model.Subcategory;
+import com.superstore.user.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotCodecTest {
+
+    private Snapshot createSampleSnapshot() {
+        Map<String, Warehouse> warehouses = new HashMap<>();
+        Map<String, Store> stores = new HashMap<>();
+        Map<String, User> users = new HashMap<>();
+
+        Warehouse w = new Warehouse("W001", "Central");
+        w.linkStore("S001");
+        Category c = new Category("C001", "Grocery");
+        Subcategory s = new Subcategory("SC001", "Grains", "C001");
+        Item rice = new Item("I001", "Rice", "SC001");
+        rice.setDescription("Basmati");
+        rice.setFixedCostPerQuarter(100);
+        rice.setCarryingCostPerUnitPerQuarter(2);
+        rice.setDemandUnitsPerQuarter(1000);
+        rice.setAvgLeadTimeDays(2.5);
+        rice.setCurrentInventoryLevel(-3);
+        s.addItem(rice);
+        s.addItem(new Item("I002", "Wheat", "SC001"));
+        c.addSubcategory(s);
+        w.addCategory(c);
+        w.receiveMessage(new OrderMessage("M001", "S001", "W001", "Rice", "I001", 25,
+                LocalDate.of(2025, 1, 15), LocalDate.of(2025, 1, 10), true));
+        w.receiveMessage(new OrderMessage("M002", "S001", "W001", "Rice", "I001", 5,
+                null, LocalDate.of(2025, 1, 11), false, "M000"));
+        warehouses.put(w.getWarehouseId(), w);
+
+        Store store = new Store("S001", "City Store");
+        store.linkWarehouse("W001");
+        stores.put(store.getStoreId(), store);
+
+        WarehouseAdministrator admin = new WarehouseAdministrator("U001", "wa_ann", "password", "W001");
+        admin.assignCategory("C001");
+        users.put(admin.getUserId(), admin);
+        users.put("SU001", new SuperUser("SU001", "superadmin", "admin123"));
+        return new Snapshot(warehouses, stores, users, 42L);
+    }
+
+    private Snapshot roundTrip(Snapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new SnapshotEncoder(bytes).write(snapshot);
+        return new SnapshotDecoder(ByteBuffer.wrap(bytes.toByteArray())).decode();
+    }
+
+    @Test
+    public void testRoundTripPreservesDomainGraph() throws IOException {
+        Snapshot decoded = roundTrip(createSampleSnapshot());
+
+        assertEquals(42L, decoded.journalSeq());
+        Warehouse w = decoded.warehouses().get("W001");
+        assertEquals("Central", w.getWarehouseName());
+        assertEquals(List.of("S001"), w.getLinkedStoreIds());
+
+        Item rice = w.getItem("I001");
+        assertEquals("Rice", rice.getItemName());
+        assertEquals("Basmati", rice.getDescription());
+        assertEquals("SC001", rice.getSubcategoryId());
+        assertEquals(-3, rice.getCurrentInventoryLevel());
+        assertEquals(316.23, rice.calculateEOQ(), 0.5);
+        assertEquals(2.5, rice.getAvgLeadTimeDays());
+        assertNull(w.getItem("I002").getDescription());
+
+        OrderMessage message = w.getAllMessages().get(0);
+        assertEquals(25, message.getQuantity());
+        assertEquals(LocalDate.of(2025, 1, 15), message.getExpectedArrivalDate());
+        assertEquals(LocalDate.of(2025, 1, 10), message.getSentDate());
+        assertTrue(message.isProcessed());
+        assertFalse(message.isDerived());
+        assertEquals("M001", message.getCorrelationId());
+        OrderMessage derived = w.getMessage("M002");
+        assertEquals("M000", derived.getCorrelationId());
+        assertFalse(derived.isProcessed());
+
+        assertEquals("W001", decoded.stores().get("S001").getLinkedWarehouseId());
+        WarehouseAdministrator admin = (WarehouseAdministrator) decoded.users().get("U001");
+        assertTrue(admin.authenticate("wa_ann", "password"));
+        assertEquals("W001", admin.getFacilityId());
+        assertEquals(List.of("C001"), admin.getAssignedCategories());
+        assertInstanceOf(SuperUser.class, decoded.users().get("SU001"));
+    }
+
+    @Test
+    public void testUserTypesAreWrittenByName() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new SnapshotEncoder(bytes).write(createSampleSnapshot());
+
+        String encoded = bytes.toString(StandardCharsets.ISO_8859_1);
+        assertTrue(encoded.contains("WAREHOUSE_ADMIN"));
+        assertTrue(encoded.contains("SUPER_USER"));
+    }
+
+    @Test
+    public void testOrdinalUserTypesOfOlderSnapshotsAreRead() throws IOException {
+        // Version 1, journalSeq 7, no warehouses or stores, one store administrator by ordinal
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(SnapshotFormat.MAGIC);
+        out.write(new byte[] {SnapshotFormat.VERSION_INLINE_ITEMS, 7, 0, 0, 1, 2});
+        for (String value : List.of("U002", "sa_bob", "secret", "S001")) {
+            out.write(new byte[] {SnapshotFormat.REF_NEW, (byte) value.length()});
+            out.writeBytes(value);
+        }
+        out.write(0);
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+
+        Snapshot decoded = new SnapshotDecoder(ByteBuffer.wrap(bytes.toByteArray())).decode();
+
+        assertEquals(7L, decoded.journalSeq());
+        StoreAdministrator admin = (StoreAdministrator) decoded.users().get("U002");
+        assertTrue(admin.authenticate("sa_bob", "secret"));
+        assertEquals("S001", admin.getFacilityId());
+    }
+
+    @Test
+    public void testCorruptSnapshotIsRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new SnapshotEncoder(bytes).write(createSampleSnapshot());
+        byte[] data = bytes.toByteArray();
+        data[data.length / 2] ^= 0x5A;
+
+        assertThrows(IOException.class, () -> new SnapshotDecoder(ByteBuffer.wrap(data)).decode());
+    }
+
+    @Test
+    public void testLegacyDataFileMigrates() throws IOException, URISyntaxException {
+        Path legacy = Paths.get(getClass().getResource("/legacy/superstore_data.dat").toURI());
+        Snapshot migrated = roundTrip(LegacySnapshotReader.read(legacy));
+
+        assertEquals(0L, migrated.journalSeq());
+        Warehouse w = migrated.warehouses().get("W001");
+        assertEquals(42, w.getItem("I001").getCurrentInventoryLevel());
+        assertEquals(45.0, w.getItem("I001").calculateReorderPoint(), 0.0001);
+        assertEquals(1, w.getUnprocessedMessages().size());
+        assertEquals("Whole Milk", migrated.stores().get("S001").getItem("I010").getItemName());
+        assertEquals(3, migrated.users().size());
+        assertInstanceOf(Storekeeper.class, migrated.users().get("U002"));
+    }
+}